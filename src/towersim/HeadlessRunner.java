@@ -0,0 +1,113 @@
+package towersim;
+
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.control.SaveLimits;
+import towersim.telemetry.LatencyStats;
+import towersim.telemetry.TelemetryRecorder;
+import towersim.util.MalformedSaveException;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Entry point for running the Control Tower Simulation without the GUI, for batch runs whose
+ * results are analysed offline.
+ */
+public class HeadlessRunner {
+
+    private HeadlessRunner() {
+    }
+
+    /** Argument given in place of the telemetry file to run without recording telemetry */
+    private static final String NO_TELEMETRY = "-";
+
+    /**
+     * Loads a control tower from save files and ticks it a given number of times, then prints a
+     * table of the latency statistics of the run.
+     * <p>
+     * Usage: {@code tick_file aircraft_file queues_file terminalsWithGates_file num_ticks
+     * [telemetry_file [latency_file]]}
+     * <p>
+     * Where the first four arguments are the save files described in
+     * {@link Launcher#main(String[])}, {@code num_ticks} is the number of ticks to run,
+     * {@code telemetry_file} is an optional path to write a per-tick telemetry time series to, in
+     * the CSV format described in {@link TelemetryRecorder}, or {@code -} to not record one, and
+     * {@code latency_file} is an optional path to export the latency statistics to, in the CSV
+     * format described in {@link LatencyStats#writeCsv(Appendable)}.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 5 || args.length > 7) {
+            System.err.println("Usage: tick_file aircraft_file queues_file"
+                    + " terminalsWithGates_file num_ticks [telemetry_file [latency_file]]");
+            System.exit(1);
+        }
+        long numTicks;
+        try {
+            numTicks = Long.parseLong(args[4]);
+        } catch (NumberFormatException e) {
+            System.err.println("Number of ticks must be an integer: " + args[4]);
+            System.exit(1);
+            return;
+        }
+
+        ControlTower tower;
+        try {
+            // read the four files at the same time
+            tower = ControlTowerInitialiser.createControlTower(new FileReader(args[0]),
+                    new FileReader(args[1]), new FileReader(args[2]), new FileReader(args[3]),
+                    SaveLimits.DEFAULT, ForkJoinPool.commonPool());
+        } catch (MalformedSaveException | IOException e) {
+            System.err.println("Error loading from file. Stack trace below:");
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+
+        TelemetryRecorder telemetry = null;
+        LatencyStats latencyStats = new LatencyStats(tower);
+        try {
+            if (args.length >= 6 && !args[5].equals(NO_TELEMETRY)) {
+                telemetry = new TelemetryRecorder(tower, Path.of(args[5]),
+                        TelemetryRecorder.DEFAULT_CAPACITY);
+            }
+            long start = System.nanoTime();
+            for (long i = 0; i < numTicks; i++) {
+                tower.tick();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (telemetry != null) {
+                telemetry.close();
+            }
+            System.out.printf("Ran %,d ticks in %.3f s, ending at tick %,d%n", numTicks,
+                    elapsed / 1e9, tower.getTicksElapsed());
+            if (telemetry != null) {
+                System.out.printf("Wrote %,d telemetry records to %s (%,d dropped)%n",
+                        telemetry.getNumRecorded() - telemetry.getNumDropped(), args[5],
+                        telemetry.getNumDropped());
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing telemetry: " + e.getMessage());
+            System.exit(1);
+        }
+
+        System.out.println();
+        System.out.print(latencyStats.formatTable());
+        if (args.length == 7) {
+            try (Writer out = Files.newBufferedWriter(Path.of(args[6]),
+                    StandardCharsets.UTF_8)) {
+                latencyStats.writeCsv(out);
+            } catch (IOException e) {
+                System.err.println("Error writing latency statistics: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+}
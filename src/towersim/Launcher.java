@@ -3,6 +3,7 @@ package towersim;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.stage.Stage;
+import towersim.api.TowerApiServer;
 import towersim.display.View;
 import towersim.display.ViewModel;
 import towersim.util.MalformedSaveException;
@@ -15,6 +16,14 @@ import java.util.List;
  * @given
  */
 public class Launcher extends Application {
+    /**
+     * Name of the system property giving the port on which to serve the local HTTP API. The API
+     * is only served if this property is set.
+     */
+    public static final String API_PORT_PROPERTY = "towersim.apiPort";
+
+    /** Server of the local HTTP API, or null if the API is not being served */
+    private TowerApiServer apiServer;
 
     /**
      * <b>Note</b>: you do not need to write this constructor, it is generated automatically and
@@ -67,8 +76,10 @@ public class Launcher extends Application {
         List<String> params = getParameters().getRaw();
 
         View view;
+        ViewModel viewModel;
         try {
-            view = new View(stage, new ViewModel(params));
+            viewModel = new ViewModel(params);
+            view = new View(stage, viewModel);
         } catch (MalformedSaveException | IOException e) {
             System.err.println("Error loading from file. Stack trace below:");
             e.printStackTrace();
@@ -77,6 +88,29 @@ public class Launcher extends Application {
             return;
         }
 
+        String apiPort = System.getProperty(API_PORT_PROPERTY);
+        if (apiPort != null) {
+            try {
+                // start() runs on the JavaFX thread, which is the tower's writer thread
+                apiServer = new TowerApiServer(viewModel.getControlTower(), Platform::runLater,
+                        Integer.parseInt(apiPort));
+                apiServer.setTickAction(viewModel::tick);
+                apiServer.start();
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Could not serve the API on port " + apiPort + ": " + e);
+            }
+        }
+
         view.run();
     }
+
+    /**
+     * Stops serving the local HTTP API, if it is being served.
+     */
+    @Override
+    public void stop() {
+        if (apiServer != null) {
+            apiServer.close();
+        }
+    }
 }
@@ -7,11 +7,15 @@ import towersim.util.Encodable;
 import towersim.util.OccupancyLevel;
 import towersim.util.Tickable;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents an aircraft whose movement is managed by the system.
  * @ass1
  */
-public abstract class Aircraft implements OccupancyLevel, Tickable, EmergencyState, Encodable {
+public abstract class Aircraft implements OccupancyLevel, Tickable, EmergencyState, Encodable,
+        Cloneable {
 
     /**
      * Weight of a litre of aviation fuel, in kilograms.
@@ -34,6 +38,12 @@ public abstract class Aircraft implements OccupancyLevel, Tickable, EmergencySta
     /** Whether the aircraft is currently in a state of emergency */
     private boolean emergency;
 
+    /** Number of changes made to the fuel, cargo and emergency state of the aircraft */
+    private long version;
+
+    /** Listeners notified when the fuel, cargo or emergency state of the aircraft changes */
+    private List<AircraftListener> listeners = new ArrayList<>();
+
     /**
      * Creates a new aircraft with the given callsign, task list, fuel capacity and amount.
      * <p>
@@ -85,6 +95,25 @@ public abstract class Aircraft implements OccupancyLevel, Tickable, EmergencySta
         return fuelAmount;
     }
 
+    /**
+     * Sets the amount of fuel onboard, in litres.
+     * <p>
+     * This is used to restore an aircraft to a previously recorded state.
+     *
+     * @param fuelAmount new amount of fuel onboard, in litres
+     * @throws IllegalArgumentException if fuelAmount &lt; 0 or if fuelAmount &gt; fuel capacity
+     */
+    public void setFuelAmount(double fuelAmount) {
+        if (fuelAmount < 0) {
+            throw new IllegalArgumentException("Amount of fuel onboard cannot be negative");
+        }
+        if (fuelAmount > characteristics.fuelCapacity) {
+            throw new IllegalArgumentException("Amount of fuel onboard cannot exceed capacity");
+        }
+        this.fuelAmount = fuelAmount;
+        markModified();
+    }
+
     /**
      * Returns this aircraft's characteristics.
      *
@@ -135,6 +164,73 @@ public abstract class Aircraft implements OccupancyLevel, Tickable, EmergencySta
         return this.tasks;
     }
 
+    /**
+     * Returns the version of this aircraft's state.
+     * <p>
+     * The version increases whenever the fuel, cargo, emergency state or current task of the
+     * aircraft changes, and never decreases. If the version is the same as when it was last
+     * read, nothing shown about the aircraft has changed since then.
+     *
+     * @return version of this aircraft's state
+     */
+    public long getVersion() {
+        return this.version + this.tasks.getVersion();
+    }
+
+    /**
+     * Records that the state of this aircraft has changed, increasing its version. Subclasses
+     * call this whenever they change the cargo onboard.
+     */
+    protected void markModified() {
+        this.version++;
+        for (AircraftListener listener : this.listeners) {
+            listener.aircraftChanged(this);
+        }
+    }
+
+    /**
+     * Notifies the given listener whenever the fuel, cargo or emergency state of this aircraft
+     * changes. Listeners are not carried over to copies of this aircraft.
+     *
+     * @param listener listener to add
+     */
+    public void addListener(AircraftListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Stops notifying the given listener of changes to this aircraft. Has no effect if the
+     * listener is not registered.
+     *
+     * @param listener listener to remove
+     */
+    public void removeListener(AircraftListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Returns a copy of this aircraft, of the same class and in the same state.
+     * <p>
+     * Changes made to the fuel, cargo, emergency state or current task of either aircraft do not
+     * affect the other. The callsign, characteristics and sequence of tasks never change, so the
+     * copy shares them with this aircraft.
+     *
+     * @return copy of this aircraft
+     */
+    public Aircraft copy() {
+        Aircraft copy;
+        try {
+            copy = (Aircraft) super.clone();
+        } catch (CloneNotSupportedException e) {
+            // not possible, aircraft are cloneable
+            throw new AssertionError(e);
+        }
+        copy.tasks = this.tasks.copy();
+        // copies of queues usually add the same listeners to the copy as to this aircraft
+        copy.listeners = new ArrayList<>(this.listeners.size());
+        return copy;
+    }
+
     /**
      * Returns the number of ticks required to load the aircraft at the gate.
      * <p>
@@ -145,11 +241,67 @@ public abstract class Aircraft implements OccupancyLevel, Tickable, EmergencySta
      */
     public abstract int getLoadingTime();
 
+    /**
+     * Returns the number of ticks that would be required to load the aircraft at the gate for a
+     * {@code LOAD} task with the given load percentage.
+     * <p>
+     * By default, the loading time does not depend on the load percentage, and is the same as
+     * {@link #getLoadingTime()}.
+     *
+     * @param loadPercent load percentage of the {@code LOAD} task
+     * @return time to load aircraft, in ticks
+     */
+    public int getLoadingTime(int loadPercent) {
+        return getLoadingTime();
+    }
+
+    /**
+     * Returns the profile describing how this aircraft is loaded for a {@code LOAD} task with the
+     * given load percentage.
+     * <p>
+     * By default, no cargo is loaded, and the loading time is given by
+     * {@link #getLoadingTime(int)}.
+     *
+     * @param loadPercent load percentage of the {@code LOAD} task
+     * @return loading profile
+     */
+    public LoadingProfile getLoadingProfile(int loadPercent) {
+        int loadingTime = getLoadingTime(loadPercent);
+        return new LoadingProfile(loadingTime, 0, this.characteristics.fuelCapacity / loadingTime);
+    }
+
     /**
      * Unloads the aircraft of all cargo (passengers/freight) it is currently carrying.
      */
     public abstract void unload();
 
+    /**
+     * Returns the amount of cargo currently onboard: the number of passengers for passenger
+     * aircraft, or the kilograms of freight for freight aircraft.
+     * <p>
+     * Aircraft that cannot carry cargo always have zero cargo onboard.
+     *
+     * @return amount of cargo onboard
+     */
+    public int getCargoAmount() {
+        return 0;
+    }
+
+    /**
+     * Sets the amount of cargo currently onboard, as returned by {@link #getCargoAmount()}.
+     * <p>
+     * This is used to restore an aircraft to a previously recorded state.
+     *
+     * @param cargoAmount new amount of cargo onboard
+     * @throws IllegalArgumentException if cargoAmount &lt; 0 or if cargoAmount is greater than
+     * the aircraft's cargo capacity
+     */
+    public void setCargoAmount(int cargoAmount) {
+        if (cargoAmount != 0) {
+            throw new IllegalArgumentException("Aircraft cannot carry cargo");
+        }
+    }
+
     /**
      * Updates the aircraft's state on each tick of the simulation.
      * <p>
@@ -170,6 +322,7 @@ public abstract class Aircraft implements OccupancyLevel, Tickable, EmergencySta
     @Override
     public void tick() {
         TaskType currentTaskType = this.tasks.getCurrentTask().getType();
+        double oldFuelAmount = this.fuelAmount;
 
         // fuel amount drops by 10% of capacity each AWAY tick
         if (currentTaskType == TaskType.AWAY) {
@@ -182,8 +335,13 @@ public abstract class Aircraft implements OccupancyLevel, Tickable, EmergencySta
 
         // loading replenishes fuelCapacity/loadingTime of maximum fuel capacity
         if (currentTaskType == TaskType.LOAD) {
+            LoadingProfile profile =
+                    getLoadingProfile(this.tasks.getCurrentTask().getLoadPercent());
             this.fuelAmount = Math.min(this.characteristics.fuelCapacity,
-                    this.fuelAmount + this.characteristics.fuelCapacity / getLoadingTime());
+                    this.fuelAmount + profile.getFuelPerTick());
+        }
+        if (this.fuelAmount != oldFuelAmount) {
+            markModified();
         }
     }
 
@@ -267,6 +425,7 @@ public abstract class Aircraft implements OccupancyLevel, Tickable, EmergencySta
     @Override
     public void declareEmergency() {
         this.emergency = true;
+        markModified();
     }
 
     /**
@@ -276,6 +435,7 @@ public abstract class Aircraft implements OccupancyLevel, Tickable, EmergencySta
     @Override
     public void clearEmergency() {
         this.emergency = false;
+        markModified();
     }
 
     /**
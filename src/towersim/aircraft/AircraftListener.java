@@ -0,0 +1,17 @@
+package towersim.aircraft;
+
+/**
+ * Receives changes to the state of an aircraft.
+ * <p>
+ * Listeners are registered with {@link Aircraft#addListener(AircraftListener)}, and are called
+ * whenever the fuel, cargo or emergency state of the aircraft changes. Changes to the current
+ * task of the aircraft are not reported.
+ */
+public interface AircraftListener {
+    /**
+     * Called after the fuel, cargo or emergency state of an aircraft changes.
+     *
+     * @param aircraft aircraft that changed
+     */
+    void aircraftChanged(Aircraft aircraft);
+}
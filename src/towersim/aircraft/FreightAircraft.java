@@ -50,6 +50,37 @@ public class FreightAircraft extends Aircraft {
     @Override
     public void unload() {
         this.freightAmount = 0;
+        markModified();
+    }
+
+    /**
+     * Returns the amount of freight currently onboard, in kilograms.
+     *
+     * @return freight onboard
+     */
+    @Override
+    public int getCargoAmount() {
+        return this.freightAmount;
+    }
+
+    /**
+     * Sets the amount of freight currently onboard, in kilograms.
+     *
+     * @param cargoAmount new amount of freight onboard
+     * @throws IllegalArgumentException if cargoAmount &lt; 0 or if cargoAmount &gt; freight
+     * capacity
+     */
+    @Override
+    public void setCargoAmount(int cargoAmount) {
+        if (cargoAmount < 0) {
+            throw new IllegalArgumentException("Amount of freight onboard cannot be negative");
+        }
+        if (cargoAmount > this.getCharacteristics().freightCapacity) {
+            throw new IllegalArgumentException("Amount of freight onboard cannot exceed freight "
+                    + "capacity");
+        }
+        this.freightAmount = cargoAmount;
+        markModified();
     }
 
     /**
@@ -93,15 +124,32 @@ public class FreightAircraft extends Aircraft {
      */
     @Override
     public int getLoadingTime() {
-        int freightToLoad = this.getFreightToLoad();
-
-        if (freightToLoad < 1000) {
-            return 1;
-        } else if (freightToLoad <= 50000) {
-            return 2;
-        } else {
-            return 3;
-        }
+        return getLoadingTime(this.getTaskList().getCurrentTask().getLoadPercent());
+    }
+
+    /**
+     * Returns the number of ticks that would be required to load the aircraft at the gate for a
+     * {@code LOAD} task with the given load percentage, as given by the table in
+     * {@link #getLoadingTime()}.
+     *
+     * @param loadPercent load percentage of the {@code LOAD} task
+     * @return loading time in ticks
+     */
+    @Override
+    public int getLoadingTime(int loadPercent) {
+        return this.getLoadingProfile(loadPercent).getLoadingTime();
+    }
+
+    /**
+     * Returns the shared profile for loading freight onto this model of aircraft for a
+     * {@code LOAD} task with the given load percentage.
+     *
+     * @param loadPercent load percentage of the {@code LOAD} task
+     * @return loading profile
+     */
+    @Override
+    public LoadingProfile getLoadingProfile(int loadPercent) {
+        return LoadingProfile.forFreight(this.getCharacteristics(), loadPercent);
     }
 
     /**
@@ -122,19 +170,6 @@ public class FreightAircraft extends Aircraft {
                 / this.getCharacteristics().freightCapacity);
     }
 
-    /**
-     * Returns the total amount of freight to be loaded onto the aircraft based on the current
-     * task's load percentage.
-     *
-     * @return total freight to be loaded, in kilograms
-     * @ass1
-     */
-    private int getFreightToLoad() {
-        int freightCapacity = this.getCharacteristics().freightCapacity;
-        double loadRatio = (double) this.getTaskList().getCurrentTask().getLoadPercent() / 100;
-        return (int) Math.round(freightCapacity * loadRatio);
-    }
-
     /**
      * Updates the aircraft's state on each tick of the simulation.
      * <p>
@@ -166,10 +201,14 @@ public class FreightAircraft extends Aircraft {
         super.tick();
 
         if (this.getTaskList().getCurrentTask().getType() == TaskType.LOAD) {
-            int freightToLoadThisTick = (int) Math.round(this.getFreightToLoad()
-                    / (double) this.getLoadingTime());
-            this.freightAmount = Math.min(this.freightAmount + freightToLoadThisTick,
+            LoadingProfile profile = this.getLoadingProfile(
+                    this.getTaskList().getCurrentTask().getLoadPercent());
+            int loaded = Math.min(this.freightAmount + profile.getCargoPerTick(),
                     this.getCharacteristics().freightCapacity);
+            if (loaded != this.freightAmount) {
+                this.freightAmount = loaded;
+                markModified();
+            }
         }
     }
 
@@ -0,0 +1,161 @@
+package towersim.aircraft;
+
+/**
+ * Describes how an aircraft is loaded at the gate for a {@code LOAD} task with a particular load
+ * percentage: how many ticks loading takes, and how much cargo and fuel are taken on each tick.
+ * <p>
+ * Loading depends only on the aircraft's characteristics and the load percentage, so the profiles
+ * for load percentages from 0 to {@link #MAX_TABLED_PERCENT} are calculated once for each
+ * characteristic and shared by all aircraft. Profiles are immutable.
+ */
+public final class LoadingProfile {
+    /** Largest load percentage whose profiles are calculated in advance */
+    public static final int MAX_TABLED_PERCENT = 100;
+
+    /** Passenger loading profiles, indexed by characteristics ordinal then load percentage */
+    private static final LoadingProfile[][] PASSENGER_PROFILES =
+            new LoadingProfile[AircraftCharacteristics.values().length][];
+
+    /** Freight loading profiles, indexed by characteristics ordinal then load percentage */
+    private static final LoadingProfile[][] FREIGHT_PROFILES =
+            new LoadingProfile[AircraftCharacteristics.values().length][];
+
+    static {
+        for (AircraftCharacteristics characteristics : AircraftCharacteristics.values()) {
+            LoadingProfile[] passengers = new LoadingProfile[MAX_TABLED_PERCENT + 1];
+            LoadingProfile[] freight = new LoadingProfile[MAX_TABLED_PERCENT + 1];
+            for (int loadPercent = 0; loadPercent <= MAX_TABLED_PERCENT; loadPercent++) {
+                passengers[loadPercent] = calculatePassengerProfile(characteristics, loadPercent);
+                freight[loadPercent] = calculateFreightProfile(characteristics, loadPercent);
+            }
+            PASSENGER_PROFILES[characteristics.ordinal()] = passengers;
+            FREIGHT_PROFILES[characteristics.ordinal()] = freight;
+        }
+    }
+
+    /** Number of ticks required to load the aircraft */
+    private final int loadingTime;
+
+    /** Amount of cargo loaded on each tick */
+    private final int cargoPerTick;
+
+    /** Amount of fuel taken on each tick, in litres */
+    private final double fuelPerTick;
+
+    /**
+     * Creates a new loading profile.
+     *
+     * @param loadingTime  number of ticks required to load the aircraft
+     * @param cargoPerTick amount of cargo loaded on each tick
+     * @param fuelPerTick  amount of fuel taken on each tick, in litres
+     */
+    LoadingProfile(int loadingTime, int cargoPerTick, double fuelPerTick) {
+        this.loadingTime = loadingTime;
+        this.cargoPerTick = cargoPerTick;
+        this.fuelPerTick = fuelPerTick;
+    }
+
+    /**
+     * Returns the profile for loading passengers onto an aircraft with the given characteristics,
+     * as described in {@link PassengerAircraft#getLoadingTime()} and
+     * {@link PassengerAircraft#tick()}.
+     *
+     * @param characteristics characteristics of the aircraft being loaded
+     * @param loadPercent     load percentage of the {@code LOAD} task
+     * @return passenger loading profile
+     */
+    public static LoadingProfile forPassengers(AircraftCharacteristics characteristics,
+            int loadPercent) {
+        if (loadPercent >= 0 && loadPercent <= MAX_TABLED_PERCENT) {
+            return PASSENGER_PROFILES[characteristics.ordinal()][loadPercent];
+        }
+        return calculatePassengerProfile(characteristics, loadPercent);
+    }
+
+    /**
+     * Returns the profile for loading freight onto an aircraft with the given characteristics,
+     * as described in {@link FreightAircraft#getLoadingTime()} and {@link FreightAircraft#tick()}.
+     *
+     * @param characteristics characteristics of the aircraft being loaded
+     * @param loadPercent     load percentage of the {@code LOAD} task
+     * @return freight loading profile
+     */
+    public static LoadingProfile forFreight(AircraftCharacteristics characteristics,
+            int loadPercent) {
+        if (loadPercent >= 0 && loadPercent <= MAX_TABLED_PERCENT) {
+            return FREIGHT_PROFILES[characteristics.ordinal()][loadPercent];
+        }
+        return calculateFreightProfile(characteristics, loadPercent);
+    }
+
+    /**
+     * Returns the number of ticks required to load the aircraft.
+     *
+     * @return loading time in ticks
+     */
+    public int getLoadingTime() {
+        return loadingTime;
+    }
+
+    /**
+     * Returns the amount of cargo (passengers or kilograms of freight) loaded on each tick.
+     *
+     * @return cargo loaded per tick
+     */
+    public int getCargoPerTick() {
+        return cargoPerTick;
+    }
+
+    /**
+     * Returns the amount of fuel taken on each tick, that is, the aircraft's fuel capacity divided
+     * by the loading time.
+     *
+     * @return fuel taken per tick, in litres
+     */
+    public double getFuelPerTick() {
+        return fuelPerTick;
+    }
+
+    /*
+     * Calculates a passenger loading profile: the loading time is the logarithm (base 10) of the
+     * number of passengers to load, rounded and bounded below by 1
+     */
+    private static LoadingProfile calculatePassengerProfile(
+            AircraftCharacteristics characteristics, int loadPercent) {
+        int toLoad = cargoToLoad(characteristics.passengerCapacity, loadPercent);
+        int loadingTime = (int) Math.max(1, Math.round(Math.log10(toLoad)));
+        return create(characteristics, toLoad, loadingTime);
+    }
+
+    /*
+     * Calculates a freight loading profile: the loading time is 1 tick for under 1000kg of
+     * freight, 2 ticks for up to 50,000kg and 3 ticks otherwise
+     */
+    private static LoadingProfile calculateFreightProfile(
+            AircraftCharacteristics characteristics, int loadPercent) {
+        int toLoad = cargoToLoad(characteristics.freightCapacity, loadPercent);
+        int loadingTime;
+        if (toLoad < 1000) {
+            loadingTime = 1;
+        } else if (toLoad <= 50000) {
+            loadingTime = 2;
+        } else {
+            loadingTime = 3;
+        }
+        return create(characteristics, toLoad, loadingTime);
+    }
+
+    /* Returns the given capacity multiplied by the load ratio, rounded to the nearest whole unit */
+    private static int cargoToLoad(int capacity, int loadPercent) {
+        double loadRatio = (double) loadPercent / 100;
+        return (int) Math.round(capacity * loadRatio);
+    }
+
+    /* Creates a profile loading the given amount of cargo in equal increments */
+    private static LoadingProfile create(AircraftCharacteristics characteristics, int toLoad,
+            int loadingTime) {
+        return new LoadingProfile(loadingTime,
+                (int) Math.round(toLoad / (double) loadingTime),
+                characteristics.fuelCapacity / loadingTime);
+    }
+}
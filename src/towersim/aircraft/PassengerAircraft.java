@@ -56,6 +56,37 @@ public class PassengerAircraft extends Aircraft {
     @Override
     public void unload() {
         this.numPassengers = 0;
+        markModified();
+    }
+
+    /**
+     * Returns the number of passengers currently onboard.
+     *
+     * @return number of passengers onboard
+     */
+    @Override
+    public int getCargoAmount() {
+        return this.numPassengers;
+    }
+
+    /**
+     * Sets the number of passengers currently onboard.
+     *
+     * @param cargoAmount new number of passengers onboard
+     * @throws IllegalArgumentException if cargoAmount &lt; 0 or if cargoAmount &gt; passenger
+     * capacity
+     */
+    @Override
+    public void setCargoAmount(int cargoAmount) {
+        if (cargoAmount < 0) {
+            throw new IllegalArgumentException("Number of passengers onboard cannot be negative");
+        }
+        if (cargoAmount > this.getCharacteristics().passengerCapacity) {
+            throw new IllegalArgumentException("Number of passengers onboard cannot exceed "
+                    + "capacity");
+        }
+        this.numPassengers = cargoAmount;
+        markModified();
     }
 
     /**
@@ -100,7 +131,32 @@ public class PassengerAircraft extends Aircraft {
      */
     @Override
     public int getLoadingTime() {
-        return (int) Math.max(1, Math.round(Math.log10(this.getPassengersToLoad())));
+        return getLoadingTime(this.getTaskList().getCurrentTask().getLoadPercent());
+    }
+
+    /**
+     * Returns the number of ticks that would be required to load the aircraft at the gate for a
+     * {@code LOAD} task with the given load percentage, calculated as in
+     * {@link #getLoadingTime()}.
+     *
+     * @param loadPercent load percentage of the {@code LOAD} task
+     * @return loading time in ticks
+     */
+    @Override
+    public int getLoadingTime(int loadPercent) {
+        return this.getLoadingProfile(loadPercent).getLoadingTime();
+    }
+
+    /**
+     * Returns the shared profile for loading passengers onto this model of aircraft for a
+     * {@code LOAD} task with the given load percentage.
+     *
+     * @param loadPercent load percentage of the {@code LOAD} task
+     * @return loading profile
+     */
+    @Override
+    public LoadingProfile getLoadingProfile(int loadPercent) {
+        return LoadingProfile.forPassengers(this.getCharacteristics(), loadPercent);
     }
 
     /**
@@ -121,19 +177,6 @@ public class PassengerAircraft extends Aircraft {
                 / this.getCharacteristics().passengerCapacity);
     }
 
-    /**
-     * Returns the total number of passengers to be loaded onto the aircraft based on the current
-     * task's load percentage.
-     *
-     * @return total number of passengers to be loaded
-     * @ass1
-     */
-    private int getPassengersToLoad() {
-        int passengerCapacity = this.getCharacteristics().passengerCapacity;
-        double loadRatio = (double) this.getTaskList().getCurrentTask().getLoadPercent() / 100;
-        return (int) Math.round(passengerCapacity * loadRatio);
-    }
-
     /**
      * Updates the aircraft's state on each tick of the simulation.
      * <p>
@@ -165,10 +208,14 @@ public class PassengerAircraft extends Aircraft {
         super.tick();
 
         if (this.getTaskList().getCurrentTask().getType() == TaskType.LOAD) {
-            int paxToLoadThisTick = (int) Math.round(this.getPassengersToLoad()
-                    / (double) this.getLoadingTime());
-            this.numPassengers = Math.min(this.numPassengers + paxToLoadThisTick,
+            LoadingProfile profile = this.getLoadingProfile(
+                    this.getTaskList().getCurrentTask().getLoadPercent());
+            int loaded = Math.min(this.numPassengers + profile.getCargoPerTick(),
                     this.getCharacteristics().passengerCapacity);
+            if (loaded != this.numPassengers) {
+                this.numPassengers = loaded;
+                markModified();
+            }
         }
     }
 
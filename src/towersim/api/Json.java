@@ -0,0 +1,177 @@
+package towersim.api;
+
+import towersim.control.TowerState;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds the JSON documents served by the {@link TowerApiServer} from published tower states.
+ */
+final class Json {
+    private Json() {
+    }
+
+    /**
+     * Returns a JSON object summarising the given tower state.
+     *
+     * @param state tower state to summarise
+     * @return JSON summary
+     */
+    static String tower(TowerState state) {
+        return "{\"sequence\":" + state.getSequence()
+                + ",\"ticks\":" + state.getTicksElapsed()
+                + ",\"aircraft\":" + state.getAircraft().size()
+                + ",\"terminals\":" + state.getTerminals().size()
+                + ",\"landing\":" + state.getLandingQueue().size()
+                + ",\"takeoff\":" + state.getTakeoffQueue().size()
+                + ",\"loading\":" + state.getLoadingAircraft().size() + "}";
+    }
+
+    /**
+     * Returns a JSON array of every aircraft in the given tower state.
+     *
+     * @param state tower state to describe
+     * @return JSON array of aircraft
+     */
+    static String allAircraft(TowerState state) {
+        StringBuilder json = new StringBuilder("[");
+        for (TowerState.AircraftState aircraft : state.getAircraft()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            appendAircraft(json, aircraft);
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Returns a JSON object describing the given aircraft.
+     *
+     * @param aircraft aircraft state to describe
+     * @return JSON aircraft
+     */
+    static String aircraft(TowerState.AircraftState aircraft) {
+        StringBuilder json = new StringBuilder();
+        appendAircraft(json, aircraft);
+        return json.toString();
+    }
+
+    /**
+     * Returns a JSON object giving the contents of the queues and the loading aircraft of the
+     * given tower state.
+     *
+     * @param state tower state to describe
+     * @return JSON queues
+     */
+    static String queues(TowerState state) {
+        StringBuilder json = new StringBuilder("{\"landing\":");
+        appendCallsigns(json, state.getLandingQueue());
+        json.append(",\"takeoff\":");
+        appendCallsigns(json, state.getTakeoffQueue());
+        json.append(",\"loading\":{");
+        boolean first = true;
+        for (Map.Entry<String, Integer> entry : state.getLoadingAircraft().entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, entry.getKey());
+            json.append(':').append(entry.getValue());
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Returns a JSON array giving the occupancy of every gate of every terminal in the given
+     * tower state.
+     *
+     * @param state tower state to describe
+     * @return JSON array of terminals
+     */
+    static String gates(TowerState state) {
+        StringBuilder json = new StringBuilder("[");
+        for (TowerState.TerminalState terminal : state.getTerminals()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"terminal\":").append(terminal.getTerminalNumber())
+                    .append(",\"emergency\":").append(terminal.hasEmergency())
+                    .append(",\"gates\":[");
+            for (int i = 0; i < terminal.getNumGates(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append("{\"number\":").append(terminal.getGateNumber(i))
+                        .append(",\"aircraft\":");
+                appendString(json, terminal.getParkedCallsign(i));
+                json.append('}');
+            }
+            json.append("]}");
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Returns a JSON object containing the given error message.
+     *
+     * @param message error message
+     * @return JSON error
+     */
+    static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        return json.append('}').toString();
+    }
+
+    /* Appends a JSON object describing the given aircraft */
+    private static void appendAircraft(StringBuilder json, TowerState.AircraftState aircraft) {
+        json.append("{\"callsign\":");
+        appendString(json, aircraft.getCallsign());
+        json.append(",\"model\":");
+        appendString(json, aircraft.getCharacteristics().name());
+        json.append(",\"type\":");
+        appendString(json, aircraft.getCharacteristics().type.name());
+        json.append(",\"task\":");
+        appendString(json, aircraft.getTaskType().name());
+        json.append(",\"loadPercent\":").append(aircraft.getLoadPercent())
+                .append(",\"fuel\":").append(String.format(Locale.ROOT, "%.2f",
+                        aircraft.getFuelAmount()))
+                .append(",\"cargo\":").append(aircraft.getCargoAmount())
+                .append(",\"emergency\":").append(aircraft.hasEmergency())
+                .append('}');
+    }
+
+    /* Appends a JSON array of the given callsigns */
+    private static void appendCallsigns(StringBuilder json, List<String> callsigns) {
+        json.append('[');
+        for (int i = 0; i < callsigns.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendString(json, callsigns.get(i));
+        }
+        json.append(']');
+    }
+
+    /* Appends the given string as a JSON string, or null */
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,464 @@
+package towersim.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import towersim.aircraft.Aircraft;
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.control.TowerState;
+import towersim.control.TowerStatePublisher;
+import towersim.ground.Terminal;
+import towersim.util.MalformedSaveException;
+import towersim.util.NoSuitableGateException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves a local HTTP API for reading and controlling a running control tower.
+ * <p>
+ * The server only listens on the loopback address. Every response is a JSON document:
+ * <ul>
+ * <li>{@code GET /tower}: a summary of the tower</li>
+ * <li>{@code GET /aircraft}: every aircraft</li>
+ * <li>{@code GET /aircraft/CALLSIGN}: the aircraft with the given callsign</li>
+ * <li>{@code GET /queues}: the landing and takeoff queues, and the loading aircraft</li>
+ * <li>{@code GET /gates}: every terminal with the aircraft parked at each of its gates</li>
+ * <li>{@code POST /tick?count=N}: ticks the tower N times (once if not given)</li>
+ * <li>{@code POST /aircraft}: adds the aircraft encoded in the request body, in the format of
+ * the aircraft save file</li>
+ * <li>{@code POST /terminals}: adds the terminal and gates encoded in the request body, in the
+ * format of the terminals save file</li>
+ * <li>{@code POST} or {@code DELETE /aircraft/CALLSIGN/emergency}: declares or clears an
+ * emergency on an aircraft</li>
+ * <li>{@code POST} or {@code DELETE /terminals/NUMBER/emergency}: declares or clears an
+ * emergency on a terminal</li>
+ * </ul>
+ * <p>
+ * Reads are served from the latest state published by a {@link TowerStatePublisher}, and the
+ * JSON for each state is only built once however many requests ask for it, so requests never
+ * wait for the tower. Commands are handed to the executor of the tower's writer thread, as the
+ * tower may only be changed by that thread; a command's response is sent once it has run and its
+ * effects have been published.
+ */
+public class TowerApiServer implements Closeable {
+    /** Maximum number of ticks a single tick command may perform */
+    public static final int MAX_TICKS_PER_COMMAND = 100_000;
+
+    /** Number of seconds a request waits for its command to run before giving up */
+    private static final long COMMAND_TIMEOUT_SECONDS = 30;
+
+    /** Control tower served */
+    private final ControlTower tower;
+
+    /** Executor running tasks on the tower's writer thread */
+    private final Executor writer;
+
+    /** Publisher of the tower's state, read by every request */
+    private final TowerStatePublisher publisher;
+
+    /** HTTP server accepting requests */
+    private final HttpServer server;
+
+    /** Threads handling requests */
+    private final ExecutorService handlers;
+
+    /** Action performed for each tick requested by a tick command */
+    private volatile Runnable tickAction;
+
+    /** Responses built for the latest state to be requested */
+    private volatile CachedResponses cache;
+
+    /**
+     * Creates a new API server for the given control tower, listening on the given port of the
+     * loopback address. The server does not accept requests until {@link #start()} is called.
+     * <p>
+     * This must be called by the tower's writer thread, as it starts publishing the tower's
+     * state.
+     *
+     * @param tower  control tower to serve
+     * @param writer executor that runs tasks on the thread that ticks and changes the tower
+     * @param port   port to listen on, or 0 for any free port
+     * @throws IOException if the server could not be bound to the port
+     */
+    public TowerApiServer(ControlTower tower, Executor writer, int port) throws IOException {
+        this.tower = tower;
+        this.writer = writer;
+        this.tickAction = tower::tick;
+        this.publisher = new TowerStatePublisher(tower);
+        this.server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // reads are served from prebuilt responses, so a few threads keep up with many clients
+        this.handlers = Executors.newFixedThreadPool(
+                Math.max(2, 2 * Runtime.getRuntime().availableProcessors()), runnable -> {
+                    Thread thread = new Thread(runnable, "tower-api");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.server.setExecutor(handlers);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * Sets the action performed for each tick requested through the API. By default the tower is
+     * ticked directly; a GUI may instead tick through its view model so that it stays up to date.
+     * The action is run on the writer thread.
+     *
+     * @param tickAction action that ticks the tower once
+     */
+    public void setTickAction(Runnable tickAction) {
+        this.tickAction = tickAction;
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the publisher of the tower's state that requests are served from.
+     *
+     * @return state publisher
+     */
+    public TowerStatePublisher getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Stops the server, waiting at most one second for requests being handled to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        handlers.shutdownNow();
+    }
+
+    /* Handles a single request */
+    private void handle(HttpExchange exchange) throws IOException {
+        Response response;
+        try {
+            response = route(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                    exchange.getRequestURI().getQuery(), exchange);
+        } catch (RuntimeException e) {
+            response = Response.error(500, e.toString());
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, response.body.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(response.body);
+        }
+    }
+
+    /* Returns the response to the request with the given method and path */
+    private Response route(String method, String path, String query, HttpExchange exchange)
+            throws IOException {
+        String[] parts = path.replaceAll("^/+|/+$", "").split("/");
+        boolean get = method.equals("GET");
+        boolean post = method.equals("POST");
+        boolean delete = method.equals("DELETE");
+        switch (parts[0]) {
+            case "tower":
+                if (get && parts.length == 1) {
+                    return responses().tower();
+                }
+                break;
+            case "queues":
+                if (get && parts.length == 1) {
+                    return responses().queues();
+                }
+                break;
+            case "gates":
+                if (get && parts.length == 1) {
+                    return responses().gates();
+                }
+                break;
+            case "aircraft":
+                if (parts.length == 1 && get) {
+                    return responses().aircraft();
+                } else if (parts.length == 1 && post) {
+                    return addAircraft(readBody(exchange));
+                } else if (parts.length == 2 && get) {
+                    TowerState.AircraftState aircraft = publisher.getState().findAircraft(parts[1]);
+                    return aircraft == null
+                            ? Response.error(404, "No aircraft with callsign " + parts[1])
+                            : Response.ok(Json.aircraft(aircraft));
+                } else if (parts.length == 3 && parts[2].equals("emergency") && (post || delete)) {
+                    return setAircraftEmergency(parts[1], post);
+                }
+                break;
+            case "terminals":
+                if (parts.length == 1 && post) {
+                    return addTerminal(readBody(exchange));
+                } else if (parts.length == 3 && parts[2].equals("emergency") && (post || delete)) {
+                    return setTerminalEmergency(parts[1], post);
+                }
+                break;
+            case "tick":
+                if (parts.length == 1 && post) {
+                    return tick(query);
+                }
+                break;
+            default:
+                break;
+        }
+        return Response.error(404, "No such endpoint: " + method + " " + path);
+    }
+
+    /* Returns the responses for the latest published state, building a new set if needed */
+    private CachedResponses responses() {
+        TowerState state = publisher.getState();
+        CachedResponses responses = cache;
+        if (responses == null || responses.state != state) {
+            // threads racing here build equal responses, so it does not matter which is kept
+            responses = new CachedResponses(state);
+            cache = responses;
+        }
+        return responses;
+    }
+
+    /* Ticks the tower the number of times given by the query string */
+    private Response tick(String query) {
+        int count = 1;
+        if (query != null && query.startsWith("count=")) {
+            try {
+                count = Integer.parseInt(query.substring("count=".length()));
+            } catch (NumberFormatException e) {
+                return Response.error(400, "Tick count is not an integer");
+            }
+        }
+        if (count < 1 || count > MAX_TICKS_PER_COMMAND) {
+            return Response.error(400, "Tick count must be from 1 to " + MAX_TICKS_PER_COMMAND);
+        }
+        final int ticks = count;
+        return runCommand(() -> {
+            Runnable action = tickAction;
+            for (int i = 0; i < ticks; i++) {
+                action.run();
+            }
+            return null;
+        });
+    }
+
+    /* Adds the aircraft encoded in the given request body */
+    private Response addAircraft(String body) {
+        Aircraft aircraft;
+        try {
+            aircraft = ControlTowerInitialiser.readAircraft(body.strip());
+        } catch (MalformedSaveException e) {
+            return Response.error(400, "Malformed aircraft: " + e.getMessage());
+        }
+        return runCommand(() -> {
+            if (tower.getCallsignIndex().find(aircraft.getCallsign()) != null) {
+                return Response.error(409, "Callsign already in use: " + aircraft.getCallsign());
+            }
+            try {
+                tower.addAircraft(aircraft);
+            } catch (NoSuitableGateException e) {
+                return Response.error(409, "No suitable gate for " + aircraft.getCallsign());
+            }
+            return null;
+        });
+    }
+
+    /* Adds the terminal and gates encoded in the given request body */
+    private Response addTerminal(String body) {
+        return runCommand(() -> {
+            BufferedReader reader = new BufferedReader(new StringReader(body.strip()));
+            Terminal terminal;
+            try {
+                terminal = ControlTowerInitialiser.readTerminal(reader.readLine(), reader,
+                        tower.getAircraft());
+            } catch (MalformedSaveException | NullPointerException e) {
+                return Response.error(400, "Malformed terminal: " + e.getMessage());
+            }
+            tower.addTerminal(terminal);
+            return null;
+        });
+    }
+
+    /* Declares or clears an emergency on the aircraft with the given callsign */
+    private Response setAircraftEmergency(String callsign, boolean emergency) {
+        return runCommand(() -> {
+            Aircraft aircraft = tower.getCallsignIndex().find(callsign);
+            if (aircraft == null) {
+                return Response.error(404, "No aircraft with callsign " + callsign);
+            }
+            if (emergency) {
+                aircraft.declareEmergency();
+            } else {
+                aircraft.clearEmergency();
+            }
+            return null;
+        });
+    }
+
+    /* Declares or clears an emergency on the terminal with the given number */
+    private Response setTerminalEmergency(String number, boolean emergency) {
+        return runCommand(() -> {
+            for (Terminal terminal : tower.getTerminals()) {
+                if (Integer.toString(terminal.getTerminalNumber()).equals(number)) {
+                    if (emergency) {
+                        terminal.declareEmergency();
+                    } else {
+                        terminal.clearEmergency();
+                    }
+                    return null;
+                }
+            }
+            return Response.error(404, "No terminal numbered " + number);
+        });
+    }
+
+    /*
+     * Runs the given command on the writer thread and waits for it to finish. A command returns
+     * an error response, or null if it succeeded, in which case the new state of the tower is
+     * published and returned.
+     */
+    private Response runCommand(Callable<Response> command) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        writer.execute(() -> {
+            try {
+                Response error = command.call();
+                if (error != null) {
+                    result.complete(error);
+                    return;
+                }
+                publisher.publish();
+                result.complete(Response.ok(Json.tower(publisher.getState())));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get(COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            return Response.error(503, "Timed out waiting for the tower");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Response.error(503, "Interrupted waiting for the tower");
+        } catch (ExecutionException e) {
+            return Response.error(500, e.getCause().toString());
+        }
+    }
+
+    /* Reads the body of the given request as UTF-8 text */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    /* An HTTP status code and JSON body */
+    private static final class Response {
+        /** HTTP status code */
+        private final int status;
+
+        /** JSON body, encoded as UTF-8 */
+        private final byte[] body;
+
+        /** Creates a new response with the given status and body */
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        /* Returns a successful response with the given JSON body */
+        private static Response ok(String json) {
+            return new Response(200, json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /* Returns an error response with the given status and message */
+        private static Response error(int status, String message) {
+            return new Response(status, Json.error(message).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /*
+     * The responses to read requests for a single published state. Each response is built the
+     * first time it is requested, and shared by every later request for the same state.
+     */
+    private static final class CachedResponses {
+        /** State the responses describe */
+        private final TowerState state;
+
+        /** Response to GET /tower, or null if not yet built */
+        private volatile Response tower;
+
+        /** Response to GET /aircraft, or null if not yet built */
+        private volatile Response aircraft;
+
+        /** Response to GET /queues, or null if not yet built */
+        private volatile Response queues;
+
+        /** Response to GET /gates, or null if not yet built */
+        private volatile Response gates;
+
+        /** Creates an empty set of responses for the given state */
+        private CachedResponses(TowerState state) {
+            this.state = state;
+        }
+
+        /* Returns the response to GET /tower */
+        private Response tower() {
+            Response response = tower;
+            if (response == null) {
+                response = Response.ok(Json.tower(state));
+                tower = response;
+            }
+            return response;
+        }
+
+        /* Returns the response to GET /aircraft */
+        private Response aircraft() {
+            Response response = aircraft;
+            if (response == null) {
+                response = Response.ok(Json.allAircraft(state));
+                aircraft = response;
+            }
+            return response;
+        }
+
+        /* Returns the response to GET /queues */
+        private Response queues() {
+            Response response = queues;
+            if (response == null) {
+                response = Response.ok(Json.queues(state));
+                queues = response;
+            }
+            return response;
+        }
+
+        /* Returns the response to GET /gates */
+        private Response gates() {
+            Response response = gates;
+            if (response == null) {
+                response = Response.ok(Json.gates(state));
+                gates = response;
+            }
+            return response;
+        }
+    }
+}
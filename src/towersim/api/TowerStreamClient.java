@@ -0,0 +1,252 @@
+package towersim.api;
+
+import towersim.aircraft.Aircraft;
+import towersim.control.AircraftQueue;
+import towersim.control.ControlTower;
+import towersim.ground.Gate;
+import towersim.ground.Terminal;
+import towersim.replay.TowerSnapshot;
+import towersim.tasks.TaskList;
+import towersim.util.MalformedSaveException;
+import towersim.util.NoSpaceException;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a mirror of a control tower streamed by a {@link TowerStreamServer}.
+ * <p>
+ * The mirror is an ordinary {@link ControlTower}, rebuilt from each resync and updated in place
+ * by each delta, so it can be drawn and inspected in the same way as the tower being streamed.
+ * It is read-only: it is never ticked, and changes made to it are not sent back to the server,
+ * and are overwritten by later deltas. The mirror's landing queue orders its aircraft by the
+ * same rules as the streamed tower's, except that it has no aging policy.
+ * <p>
+ * A client is not thread-safe. The mirror should only be read by the thread that calls
+ * {@link #receive()}, between calls.
+ */
+public class TowerStreamClient implements Closeable {
+    /** Largest frame accepted from the server, in bytes */
+    private static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    /** Connection to the server */
+    private final Socket socket;
+
+    /** Stream of frames sent by the server */
+    private final DataInputStream in;
+
+    /** Mirror of the streamed tower, or null until the first resync has been received */
+    private ControlTower tower;
+
+    /** Sequence number of the state the mirror is in */
+    private long sequence = -1;
+
+    /**
+     * Index in the streamed tower of the task each mirrored aircraft's task list starts from, as
+     * a snapshot lists each aircraft's tasks starting from its current task
+     */
+    private int[] firstTaskIndices;
+
+    /**
+     * Connects to the stream server on the given host and port.
+     *
+     * @param host host name or address of the server
+     * @param port port the server is listening on
+     * @throws IOException if the connection could not be made
+     */
+    public TowerStreamClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    /**
+     * Waits for the next frame from the server and applies it to the mirror.
+     * <p>
+     * A resync replaces the mirror with a new control tower, so the mirror should be fetched
+     * again with {@link #getControlTower()} after each call.
+     *
+     * @return mirror of the streamed tower
+     * @throws IOException            if the connection fails or is closed by the server
+     * @throws MalformedSaveException if the frame received is invalid
+     */
+    public ControlTower receive() throws IOException, MalformedSaveException {
+        int length = in.readInt();
+        if (length < 1 || length > MAX_FRAME_SIZE) {
+            throw new MalformedSaveException("Invalid frame length: " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        try {
+            byte kind = buffer.get();
+            long frameSequence = buffer.getLong();
+            if (kind == TowerStreamServer.RESYNC) {
+                int[] taskIndices = new int[buffer.getInt()];
+                for (int i = 0; i < taskIndices.length; i++) {
+                    taskIndices[i] = buffer.getInt();
+                }
+                tower = TowerSnapshot.fromBytes(buffer).restore();
+                firstTaskIndices = taskIndices;
+            } else if (kind == TowerStreamServer.DELTA) {
+                if (tower == null) {
+                    throw new MalformedSaveException("Delta received before resync");
+                }
+                applyDelta(buffer);
+            } else {
+                throw new MalformedSaveException("Unknown frame kind: " + kind);
+            }
+            sequence = frameSequence;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new MalformedSaveException("Truncated frame", e);
+        }
+        return tower;
+    }
+
+    /**
+     * Returns the mirror of the streamed tower.
+     *
+     * @return mirror of the tower; or null if no resync has been received yet
+     */
+    public ControlTower getControlTower() {
+        return tower;
+    }
+
+    /**
+     * Returns the sequence number of the published state the mirror is in, as returned by
+     * {@link towersim.control.TowerState#getSequence()} on the server.
+     *
+     * @return sequence number; or -1 if no resync has been received yet
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Disconnects from the server.
+     *
+     * @throws IOException if the connection could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    /* Applies the changes in a delta, positioned after its sequence number, to the mirror */
+    private void applyDelta(ByteBuffer buffer) throws MalformedSaveException {
+        tower.setTicksElapsed(buffer.getLong());
+
+        List<Aircraft> aircraft = tower.getAircraft();
+        int numAircraft = buffer.getInt();
+        for (int i = 0; i < numAircraft; i++) {
+            int index = buffer.getInt();
+            Aircraft changed = aircraft.get(index);
+            changed.setFuelAmount(buffer.getDouble());
+            TaskList tasks = changed.getTaskList();
+            tasks.setCurrentTaskIndex(Math.floorMod(buffer.getInt() - firstTaskIndices[index],
+                    tasks.size()));
+            changed.setCargoAmount(buffer.getInt());
+            boolean emergency = buffer.get() != 0;
+            if (emergency && !changed.hasEmergency()) {
+                changed.declareEmergency();
+            } else if (!emergency && changed.hasEmergency()) {
+                changed.clearEmergency();
+            }
+        }
+
+        List<Terminal> terminals = tower.getTerminals();
+        int numTerminals = buffer.getInt();
+        for (int i = 0; i < numTerminals; i++) {
+            Terminal terminal = terminals.get(buffer.getInt());
+            boolean emergency = buffer.get() != 0;
+            if (emergency && !terminal.hasEmergency()) {
+                terminal.declareEmergency();
+            } else if (!emergency && terminal.hasEmergency()) {
+                terminal.clearEmergency();
+            }
+            List<Gate> gates = terminal.getGates();
+            int numGates = buffer.getInt();
+            for (int j = 0; j < numGates; j++) {
+                Aircraft parked = findAircraft(getString(buffer));
+                Gate gate = gates.get(j);
+                if (gate.getAircraftAtGate() != parked) {
+                    gate.aircraftLeaves();
+                    if (parked != null) {
+                        try {
+                            gate.parkAircraft(parked);
+                        } catch (NoSpaceException ignored) {
+                            // not possible, the gate has just been emptied
+                        }
+                    }
+                }
+            }
+        }
+
+        byte flags = buffer.get();
+        if ((flags & TowerStreamServer.TAKEOFF_QUEUE) != 0) {
+            refill(tower.getTakeoffQueue(), buffer);
+        }
+        if ((flags & TowerStreamServer.LANDING_QUEUE) != 0) {
+            refill(tower.getLandingQueue(), buffer);
+        }
+        if ((flags & TowerStreamServer.LOADING) != 0) {
+            Map<Aircraft, Integer> loading = tower.getLoadingAircraft();
+            loading.clear();
+            int numLoading = buffer.getInt();
+            for (int i = 0; i < numLoading; i++) {
+                Aircraft loadingAircraft = findAircraft(getString(buffer));
+                int ticksRemaining = buffer.getInt();
+                if (loadingAircraft == null) {
+                    throw new MalformedSaveException("Unknown loading aircraft");
+                }
+                loading.put(loadingAircraft, ticksRemaining);
+            }
+        }
+    }
+
+    /* Empties the given queue and adds the aircraft with the callsigns read from the buffer */
+    private void refill(AircraftQueue queue, ByteBuffer buffer) throws MalformedSaveException {
+        while (queue.removeAircraft() != null) {
+            // keep removing until the queue is empty
+        }
+        int numQueued = buffer.getInt();
+        for (int i = 0; i < numQueued; i++) {
+            Aircraft queued = findAircraft(getString(buffer));
+            if (queued == null) {
+                throw new MalformedSaveException("Unknown queued aircraft");
+            }
+            queue.addAircraft(queued);
+        }
+    }
+
+    /* Returns the mirrored aircraft with the given callsign, or null for a null callsign */
+    private Aircraft findAircraft(String callsign) throws MalformedSaveException {
+        if (callsign == null) {
+            return null;
+        }
+        Aircraft aircraft = tower.getCallsignIndex().find(callsign);
+        if (aircraft == null) {
+            throw new MalformedSaveException("Unknown aircraft: " + callsign);
+        }
+        return aircraft;
+    }
+
+    /* Reads a string written by the server, which may be null */
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,527 @@
+package towersim.api;
+
+import towersim.control.ControlTower;
+import towersim.control.TowerState;
+import towersim.control.TowerStatePublisher;
+import towersim.replay.TowerSnapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Streams the state of a control tower to any number of remote displays, each of which keeps a
+ * mirror of the tower using a {@link TowerStreamClient}.
+ * <p>
+ * When a client connects, it is sent a resync: a full {@link TowerSnapshot} of the tower, with
+ * the index of each aircraft's current task, as the snapshot lists each aircraft's tasks starting
+ * from its current task rather than from the start of its task list. After
+ * that it is only sent deltas, which give the new values of whatever changed since the state its
+ * mirror is in: aircraft fuel, tasks, cargo and emergencies, terminal emergencies, gate
+ * occupancy, the queues, and the loading aircraft. Deltas are worked out by comparing the states
+ * published by a {@link TowerStatePublisher}, which reuses the state of every aircraft and
+ * terminal that has not changed, so the size of a delta and the time taken to build it depend on
+ * how much changed rather than on the size of the tower. Clients that are up to date share the
+ * same delta, which is only built once.
+ * <p>
+ * The server never queues more than one frame for a client. If a client reads more slowly than
+ * the tower ticks, the states it missed are not sent one by one; once its frame has been sent, it
+ * is sent a single delta from the state its mirror is in to the latest state. Slow clients
+ * therefore receive fewer, larger deltas, and never hold up the tower or other clients.
+ * <p>
+ * Adding aircraft, terminals or gates cannot be described by a delta, so clients are resynced
+ * when that happens.
+ * <p>
+ * All networking is done by a single thread using non-blocking sockets. Snapshots for resyncs are
+ * captured on the tower's writer thread; everything else only reads published states.
+ */
+public class TowerStreamServer implements Closeable {
+    /* Kinds of frame sent to clients */
+    static final byte RESYNC = 0;
+    static final byte DELTA = 1;
+
+    /* Flags marking the parts of the tower included at the end of a delta */
+    static final byte TAKEOFF_QUEUE = 1;
+    static final byte LANDING_QUEUE = 2;
+    static final byte LOADING = 4;
+
+    /** Size of the length that precedes every frame, in bytes */
+    static final int LENGTH_SIZE = Integer.BYTES;
+
+    /** Delta returned when nothing has changed, which is not sent */
+    private static final ByteBuffer NO_CHANGES = ByteBuffer.allocate(0);
+
+    /** Control tower streamed */
+    private final ControlTower tower;
+
+    /** Executor running tasks on the tower's writer thread */
+    private final Executor writer;
+
+    /** Publisher of the tower's state, which deltas are worked out from */
+    private final TowerStatePublisher publisher;
+
+    /** Channel accepting connections from clients */
+    private final ServerSocketChannel serverChannel;
+
+    /** Selector waiting for connections, writable clients and published states */
+    private final Selector selector;
+
+    /** Thread serving clients */
+    private final Thread thread;
+
+    /** Action waking the serving thread when a state is published */
+    private final Runnable wakeup;
+
+    /** Snapshots captured by the writer thread for resyncs, not yet sent */
+    private final Queue<Resync> resyncs = new ConcurrentLinkedQueue<>();
+
+    /** Connected clients; only used by the serving thread */
+    private final List<Client> clients = new ArrayList<>();
+
+    /** Whether a snapshot has been asked for but not received; only used by the serving thread */
+    private boolean resyncRequested;
+
+    /** Buffer that the next delta is written into; only used by the serving thread */
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+
+    /** Whether the server should keep serving */
+    private volatile boolean running;
+
+    /**
+     * Creates a new stream server for the given control tower, listening on the given port. The
+     * server does not accept connections until {@link #start()} is called.
+     * <p>
+     * This must be called by the tower's writer thread, as it starts publishing the tower's
+     * state.
+     *
+     * @param tower  control tower to stream
+     * @param writer executor that runs tasks on the thread that ticks and changes the tower
+     * @param port   port to listen on, or 0 for any free port
+     * @throws IOException if the server could not be bound to the port
+     */
+    public TowerStreamServer(ControlTower tower, Executor writer, int port) throws IOException {
+        this.tower = tower;
+        this.writer = writer;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port));
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.publisher = new TowerStatePublisher(tower);
+        this.wakeup = selector::wakeup;
+        this.publisher.addPublishListener(wakeup);
+        this.thread = new Thread(this::serve, "tower-stream");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts accepting connections and streaming to clients.
+     */
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return port number
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the publisher of the tower's state that deltas are worked out from.
+     * <p>
+     * Changes the writer thread makes to the tower between ticks are streamed at the end of the
+     * next tick, or straight away if the writer calls {@link TowerStatePublisher#publish()}.
+     *
+     * @return state publisher
+     */
+    public TowerStatePublisher getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Stops the server and disconnects every client, waiting at most one second for the serving
+     * thread to finish.
+     */
+    @Override
+    public void close() {
+        running = false;
+        publisher.removePublishListener(wakeup);
+        tower.removeListener(publisher);
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!thread.isAlive()) {
+            closeChannels();
+        }
+    }
+
+    /* Serves clients until the server is closed */
+    private void serve() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Client client = (Client) key.attachment();
+                        if (key.isReadable()) {
+                            read(client);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(client);
+                        }
+                    }
+                }
+                Resync resync;
+                while ((resync = resyncs.poll()) != null) {
+                    sendResync(resync);
+                }
+                sendDeltas();
+            }
+        } catch (IOException e) {
+            // the selector or server channel has failed, so nothing more can be served
+        } finally {
+            closeChannels();
+        }
+    }
+
+    /* Accepts a new client, which is resynced before it is sent anything else */
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Client client = new Client(channel);
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        clients.add(client);
+        requestResync(client);
+    }
+
+    /* Discards anything sent by a client, disconnecting it if it has closed its connection */
+    private void read(Client client) {
+        ByteBuffer discard = ByteBuffer.allocate(256);
+        try {
+            while (true) {
+                int read = client.channel.read(discard);
+                if (read < 0) {
+                    disconnect(client);
+                    return;
+                } else if (read == 0) {
+                    return;
+                }
+                discard.clear();
+            }
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    /* Sends as much of a client's pending frame as its connection will take */
+    private void flush(Client client) {
+        try {
+            client.channel.write(client.pending);
+        } catch (IOException e) {
+            disconnect(client);
+            return;
+        }
+        if (client.pending.hasRemaining()) {
+            client.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else {
+            client.pending = null;
+            client.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /* Starts sending the given frame to a client whose mirror will then be in the given state */
+    private void send(Client client, ByteBuffer frame, TowerState state) {
+        client.pending = frame;
+        client.base = state;
+        flush(client);
+    }
+
+    /* Closes a client's connection and forgets it */
+    private void disconnect(Client client) {
+        clients.remove(client);
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException ignored) {
+            // the client is gone either way
+        }
+    }
+
+    /*
+     * Asks the writer thread for a snapshot to resync the given client with. Clients waiting at
+     * the same time share a single snapshot.
+     */
+    private void requestResync(Client client) {
+        client.awaitingResync = true;
+        if (resyncRequested) {
+            return;
+        }
+        resyncRequested = true;
+        writer.execute(() -> {
+            // publish first, so the state matches the snapshot even if the tower was changed
+            publisher.publish();
+            TowerState state = publisher.getState();
+            byte[] snapshot = TowerSnapshot.capture(tower).toBytes();
+            List<TowerState.AircraftState> aircraft = state.getAircraft();
+            ByteBuffer frame = ByteBuffer.allocate(LENGTH_SIZE + 1 + Long.BYTES
+                    + (1 + aircraft.size()) * Integer.BYTES + snapshot.length);
+            frame.putInt(frame.capacity() - LENGTH_SIZE).put(RESYNC)
+                    .putLong(state.getSequence()).putInt(aircraft.size());
+            for (TowerState.AircraftState eachAircraft : aircraft) {
+                frame.putInt(eachAircraft.getTaskIndex());
+            }
+            frame.put(snapshot).flip();
+            resyncs.add(new Resync(state, frame));
+            selector.wakeup();
+        });
+    }
+
+    /* Sends the given resync to every client waiting for one */
+    private void sendResync(Resync resync) {
+        resyncRequested = false;
+        for (Client client : new ArrayList<>(clients)) {
+            if (client.awaitingResync) {
+                client.awaitingResync = false;
+                send(client, resync.frame.duplicate(), resync.state);
+            }
+        }
+    }
+
+    /* Sends every idle client a delta from the state its mirror is in to the latest state */
+    private void sendDeltas() {
+        TowerState latest = publisher.getState();
+        Map<TowerState, ByteBuffer> deltas = new IdentityHashMap<>();
+        for (Client client : new ArrayList<>(clients)) {
+            if (client.pending != null || client.awaitingResync || client.base == latest) {
+                continue;
+            }
+            ByteBuffer delta;
+            if (deltas.containsKey(client.base)) {
+                delta = deltas.get(client.base);
+            } else {
+                delta = encodeDelta(client.base, latest);
+                deltas.put(client.base, delta);
+            }
+            if (delta == null) {
+                requestResync(client);
+            } else if (delta == NO_CHANGES) {
+                client.base = latest;
+            } else {
+                send(client, delta.duplicate(), latest);
+            }
+        }
+    }
+
+    /*
+     * Returns a frame giving the changes from one state to another; NO_CHANGES if there are
+     * none, or null if aircraft, terminals or gates have been added, so a delta cannot be used.
+     */
+    private ByteBuffer encodeDelta(TowerState base, TowerState target) {
+        List<TowerState.AircraftState> baseAircraft = base.getAircraft();
+        List<TowerState.AircraftState> targetAircraft = target.getAircraft();
+        List<TowerState.TerminalState> baseTerminals = base.getTerminals();
+        List<TowerState.TerminalState> targetTerminals = target.getTerminals();
+        if (baseAircraft.size() != targetAircraft.size()
+                || baseTerminals.size() != targetTerminals.size()) {
+            return null;
+        }
+
+        scratch.clear();
+        scratch.position(LENGTH_SIZE);
+        scratch.put(DELTA).putLong(target.getSequence()).putLong(target.getTicksElapsed());
+
+        int countPosition = scratch.position();
+        int count = 0;
+        scratch.putInt(0);
+        for (int i = 0; i < targetAircraft.size(); i++) {
+            TowerState.AircraftState aircraft = targetAircraft.get(i);
+            // unchanged aircraft keep the same state object from one state to the next
+            if (aircraft == baseAircraft.get(i)) {
+                continue;
+            }
+            ensureSpace(3 * Integer.BYTES + Double.BYTES + 1);
+            scratch.putInt(i).putDouble(aircraft.getFuelAmount())
+                    .putInt(aircraft.getTaskIndex()).putInt(aircraft.getCargoAmount())
+                    .put((byte) (aircraft.hasEmergency() ? 1 : 0));
+            count++;
+        }
+        scratch.putInt(countPosition, count);
+        boolean changed = count > 0;
+
+        countPosition = scratch.position();
+        count = 0;
+        ensureSpace(Integer.BYTES);
+        scratch.putInt(0);
+        for (int i = 0; i < targetTerminals.size(); i++) {
+            TowerState.TerminalState terminal = targetTerminals.get(i);
+            if (terminal == baseTerminals.get(i)) {
+                continue;
+            }
+            if (terminal.getNumGates() != baseTerminals.get(i).getNumGates()) {
+                return null;
+            }
+            ensureSpace(2 * Integer.BYTES + 1);
+            scratch.putInt(i).put((byte) (terminal.hasEmergency() ? 1 : 0))
+                    .putInt(terminal.getNumGates());
+            for (int j = 0; j < terminal.getNumGates(); j++) {
+                putString(terminal.getParkedCallsign(j));
+            }
+            count++;
+        }
+        scratch.putInt(countPosition, count);
+        changed |= count > 0;
+
+        byte flags = 0;
+        if (!target.getTakeoffQueue().equals(base.getTakeoffQueue())) {
+            flags |= TAKEOFF_QUEUE;
+        }
+        if (!target.getLandingQueue().equals(base.getLandingQueue())) {
+            flags |= LANDING_QUEUE;
+        }
+        if (!target.getLoadingAircraft().equals(base.getLoadingAircraft())) {
+            flags |= LOADING;
+        }
+        ensureSpace(1);
+        scratch.put(flags);
+        if ((flags & TAKEOFF_QUEUE) != 0) {
+            putStrings(target.getTakeoffQueue());
+        }
+        if ((flags & LANDING_QUEUE) != 0) {
+            putStrings(target.getLandingQueue());
+        }
+        if ((flags & LOADING) != 0) {
+            ensureSpace(Integer.BYTES);
+            scratch.putInt(target.getLoadingAircraft().size());
+            for (Map.Entry<String, Integer> entry : target.getLoadingAircraft().entrySet()) {
+                putString(entry.getKey());
+                ensureSpace(Integer.BYTES);
+                scratch.putInt(entry.getValue());
+            }
+        }
+
+        if (!changed && flags == 0 && target.getTicksElapsed() == base.getTicksElapsed()) {
+            return NO_CHANGES;
+        }
+        scratch.putInt(0, scratch.position() - LENGTH_SIZE);
+        ByteBuffer frame = ByteBuffer.allocate(scratch.position());
+        scratch.flip();
+        frame.put(scratch).flip();
+        return frame;
+    }
+
+    /* Writes the number of given strings followed by each string */
+    private void putStrings(List<String> values) {
+        ensureSpace(Integer.BYTES);
+        scratch.putInt(values.size());
+        for (String value : values) {
+            putString(value);
+        }
+    }
+
+    /* Writes the length of the given string in UTF-8 followed by its bytes, or -1 for null */
+    private void putString(String value) {
+        if (value == null) {
+            ensureSpace(Integer.BYTES);
+            scratch.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureSpace(Integer.BYTES + bytes.length);
+        scratch.putInt(bytes.length).put(bytes);
+    }
+
+    /* Grows the scratch buffer if it does not have the given number of bytes remaining */
+    private void ensureSpace(int bytes) {
+        if (scratch.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * scratch.capacity(),
+                    scratch.position() + bytes));
+            scratch.flip();
+            larger.put(scratch);
+            scratch = larger;
+        }
+    }
+
+    /* Closes every client's connection, the server channel and the selector */
+    private void closeChannels() {
+        for (Client client : new ArrayList<>(clients)) {
+            disconnect(client);
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException ignored) {
+            // nothing more can be done while closing
+        }
+    }
+
+    /* A connected client */
+    private static final class Client {
+        /** Connection to the client */
+        private final SocketChannel channel;
+
+        /** Key of the client's connection with the selector */
+        private SelectionKey key;
+
+        /** State the client's mirror is in once its pending frame arrives, or null before resync */
+        private TowerState base;
+
+        /** Frame being sent to the client, or null if it is up to date */
+        private ByteBuffer pending;
+
+        /** Whether the client is waiting to be resynced */
+        private boolean awaitingResync;
+
+        /** Creates a new client using the given connection */
+        private Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /* A snapshot captured for resyncing clients, with the state it matches */
+    private static final class Resync {
+        /** Published state matching the snapshot */
+        private final TowerState state;
+
+        /** Resync frame containing the snapshot */
+        private final ByteBuffer frame;
+
+        /** Creates a new resync for the given state and frame */
+        private Resync(TowerState state, ByteBuffer frame) {
+            this.state = state;
+            this.frame = frame;
+        }
+    }
+}
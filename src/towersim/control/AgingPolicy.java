@@ -0,0 +1,71 @@
+package towersim.control;
+
+/**
+ * Policy for aging the priority of aircraft waiting in a {@link LandingQueue}, so that aircraft
+ * of a lower priority class cannot be held in the queue indefinitely by a steady stream of
+ * higher priority aircraft.
+ * <p>
+ * Each priority class is given a weight in ticks. Aircraft that are not in a state of emergency
+ * and do not have a critical level of fuel are ordered by the tick in which they joined the queue
+ * plus the weight of their class, so an aircraft whose class weighs {@code d} ticks more than
+ * another class is promoted ahead of every aircraft of that class that joins the queue
+ * {@code d} or more ticks after it. For example, with a passenger weight of 0 and an other weight
+ * of 20, a freight aircraft waits behind passenger aircraft for at most 20 ticks. Aircraft in a
+ * state of emergency or with a critical level of fuel are always in front, as without aging.
+ * <p>
+ * Policies are immutable.
+ */
+public final class AgingPolicy {
+    /** weight in ticks of passenger aircraft */
+    private final int passengerWeight;
+
+    /** weight in ticks of all other aircraft */
+    private final int otherWeight;
+
+    /**
+     * Creates a new aging policy with the given weights.
+     *
+     * @param passengerWeight weight in ticks of passenger aircraft
+     * @param otherWeight     weight in ticks of all other aircraft
+     * @throws IllegalArgumentException if either weight is negative
+     */
+    public AgingPolicy(int passengerWeight, int otherWeight) {
+        if (passengerWeight < 0 || otherWeight < 0) {
+            throw new IllegalArgumentException("Aging weights cannot be negative");
+        }
+        this.passengerWeight = passengerWeight;
+        this.otherWeight = otherWeight;
+    }
+
+    /**
+     * Returns the weight in ticks of passenger aircraft.
+     *
+     * @return passenger weight
+     */
+    public int getPassengerWeight() {
+        return passengerWeight;
+    }
+
+    /**
+     * Returns the weight in ticks of aircraft other than passenger aircraft.
+     *
+     * @return other weight
+     */
+    public int getOtherWeight() {
+        return otherWeight;
+    }
+
+    /**
+     * Returns the human-readable string representation of this aging policy.
+     * <p>
+     * The format of the string to return is
+     * <pre>AgingPolicy [passenger=passengerWeight, other=otherWeight]</pre>
+     *
+     * @return string representation of this policy
+     */
+    @Override
+    public String toString() {
+        return String.format("AgingPolicy [passenger=%d, other=%d]", passengerWeight,
+                otherWeight);
+    }
+}
@@ -3,6 +3,7 @@ package towersim.control;
 import towersim.aircraft.Aircraft;
 import towersim.util.Encodable;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.StringJoiner;
 
@@ -15,6 +16,12 @@ import java.util.StringJoiner;
  * implementation of the AircraftQueue.
  */
 public abstract class AircraftQueue implements Encodable {
+    /** number of changes made to the aircraft in the queue or their order */
+    private long version;
+
+    /** listeners notified when aircraft are added to, removed from or moved within the queue */
+    private final List<QueueListener> listeners = new ArrayList<>();
+
     /**
      * An abstract method. Adds the given aircraft to the queue.
      *
@@ -47,6 +54,30 @@ public abstract class AircraftQueue implements Encodable {
      */
     public abstract List<Aircraft> getAircraftInOrder();
 
+    /**
+     * Returns a list containing all aircraft in the queue, in the order they were added.
+     * Adding these aircraft to an empty queue of the same type in this order gives a queue that
+     * behaves exactly like this one.
+     * By default this is the same as the queue order.
+     *
+     * @return list of all aircraft in queue, in the order they were added
+     */
+    public List<Aircraft> getAircraftInAddedOrder() {
+        return getAircraftInOrder();
+    }
+
+    /**
+     * Returns the number of aircraft in the queue, the same as the size of the list returned by
+     * {@link #getAircraftInOrder()}.
+     * By default this builds that list, so implementations should override it with a count
+     * they already keep.
+     *
+     * @return number of aircraft in queue
+     */
+    public int size() {
+        return getAircraftInOrder().size();
+    }
+
     /**
      * Returns true if the given aircraft is in the queue.
      *
@@ -55,6 +86,82 @@ public abstract class AircraftQueue implements Encodable {
      */
     public abstract boolean containsAircraft(Aircraft aircraft);
 
+    /**
+     * Returns the version of this queue, which increases whenever an aircraft is added or
+     * removed, or the order of the aircraft in the queue changes, such as when the rules ordering
+     * the queue change or a declared emergency moves an aircraft forward. It never decreases.
+     * <p>
+     * Other changes to the aircraft in the queue are tracked by {@link Aircraft#getVersion()}.
+     *
+     * @return version of this queue
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Records that the aircraft in this queue or their order have changed, increasing the
+     * queue's version. Implementations call this from every method that changes the queue.
+     */
+    protected void markModified() {
+        version++;
+    }
+
+    /**
+     * Registers a listener to be notified whenever an aircraft is added to, removed from or moved
+     * within this queue. Listeners are not carried over to copies of this queue.
+     *
+     * @param listener listener to notify of changes
+     */
+    public void addListener(QueueListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered with {@link #addListener(QueueListener)}.
+     *
+     * @param listener listener to remove
+     */
+    public void removeListener(QueueListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notifies the listeners of this queue that the given aircraft was added to it.
+     * Implementations call this after every addition.
+     *
+     * @param aircraft aircraft that was added
+     */
+    protected void notifyAdded(Aircraft aircraft) {
+        for (QueueListener listener : listeners) {
+            listener.aircraftAdded(this, aircraft);
+        }
+    }
+
+    /**
+     * Notifies the listeners of this queue that the given aircraft was removed from it.
+     * Implementations call this after every removal.
+     *
+     * @param aircraft aircraft that was removed
+     */
+    protected void notifyRemoved(Aircraft aircraft) {
+        for (QueueListener listener : listeners) {
+            listener.aircraftRemoved(this, aircraft);
+        }
+    }
+
+    /**
+     * Notifies the listeners of this queue that the given aircraft may have moved to a new place
+     * in it. Implementations call this whenever a single aircraft's place may have changed.
+     *
+     * @param aircraft aircraft that may have moved
+     */
+    protected void notifyMoved(Aircraft aircraft) {
+        for (QueueListener listener : listeners) {
+            listener.aircraftMoved(this, aircraft);
+        }
+    }
+
     /**
      * Returns the human-readable string representation of this aircraft queue.
      * The format of the string to return is: QueueType [callsign1, callsign2, ..., callsignN].
@@ -83,8 +190,8 @@ public abstract class AircraftQueue implements Encodable {
     @Override
     public String encode() {
         // the first line of the queue encode
-        String theFirstLine = getClass().getSimpleName() + ":" + getAircraftInOrder().size();
-        if (getAircraftInOrder().size() == 0) {
+        String theFirstLine = getClass().getSimpleName() + ":" + size();
+        if (size() == 0) {
             // if there is no aircraft in the queue
             return theFirstLine;
         }
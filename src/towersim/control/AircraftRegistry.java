@@ -0,0 +1,142 @@
+package towersim.control;
+
+import towersim.aircraft.Aircraft;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Assigns dense integer ids to aircraft.
+ * <p>
+ * The first aircraft registered is given the id 0, the next 1, and so on, so ids can be used to
+ * index primitive arrays holding per-aircraft state. An aircraft keeps its id for as long as the
+ * registry exists. Aircraft are told apart by identity rather than by
+ * {@link Aircraft#equals(Object)}, so looking up an id never compares callsigns; lookups use an
+ * open-addressing table keyed on each aircraft's identity hash code.
+ */
+public class AircraftRegistry {
+    /** Id returned for aircraft that have not been registered */
+    public static final int NO_ID = -1;
+
+    /** Registered aircraft, indexed by id */
+    private Aircraft[] aircraft = new Aircraft[16];
+
+    /** Number of aircraft registered; also the next id to be assigned */
+    private int size;
+
+    /** Open-addressing table of registered aircraft; null marks an empty slot */
+    private Aircraft[] table = new Aircraft[32];
+
+    /** Id of the aircraft in each slot of {@code table} */
+    private int[] tableIds = new int[32];
+
+    /**
+     * Returns the id of the given aircraft, registering it first if it has not been registered.
+     *
+     * @param aircraft aircraft to register
+     * @return id of the aircraft
+     */
+    int register(Aircraft aircraft) {
+        int slot = findSlot(table, aircraft);
+        if (table[slot] != null) {
+            return tableIds[slot];
+        }
+        if (size == this.aircraft.length) {
+            this.aircraft = Arrays.copyOf(this.aircraft, size * 2);
+        }
+        int id = size++;
+        this.aircraft[id] = aircraft;
+        table[slot] = aircraft;
+        tableIds[slot] = id;
+        // keep the table at most half full so that probe sequences stay short
+        if (size * 2 > table.length) {
+            resize();
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the given aircraft, or {@link #NO_ID} if it has not been registered.
+     *
+     * @param aircraft aircraft whose id to return
+     * @return id of the aircraft
+     */
+    public int getId(Aircraft aircraft) {
+        int slot = findSlot(table, aircraft);
+        return table[slot] == null ? NO_ID : tableIds[slot];
+    }
+
+    /**
+     * Returns the aircraft with the given id.
+     *
+     * @param id id of the aircraft
+     * @return registered aircraft
+     * @throws IndexOutOfBoundsException if no aircraft has the given id
+     */
+    public Aircraft getAircraft(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No aircraft with id " + id);
+        }
+        return aircraft[id];
+    }
+
+    /**
+     * Returns the number of aircraft registered. Every id is less than this number.
+     *
+     * @return number of registered aircraft
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a registry of copies of the aircraft in this registry, with each copy given the
+     * same id as the aircraft it was copied from.
+     * <p>
+     * The copy of each aircraft is taken from the given mapping, keyed by identity; aircraft not
+     * yet in the mapping are copied with {@link Aircraft#copy()} and added to it, so that every
+     * registry copied with the same mapping shares the same copies.
+     *
+     * @param copies copy of each aircraft, keyed by the original aircraft
+     * @return registry of the copies
+     */
+    AircraftRegistry copy(Map<Aircraft, Aircraft> copies) {
+        AircraftRegistry copy = new AircraftRegistry();
+        // the copy holds as many aircraft as this registry, so sizing its arrays the same means
+        // they are never resized while it is filled
+        copy.aircraft = new Aircraft[aircraft.length];
+        copy.table = new Aircraft[table.length];
+        copy.tableIds = new int[table.length];
+        for (int id = 0; id < size; id++) {
+            copy.register(copies.computeIfAbsent(aircraft[id], Aircraft::copy));
+        }
+        return copy;
+    }
+
+    /* Doubles the size of the lookup table, re-inserting every registered aircraft */
+    private void resize() {
+        Aircraft[] newTable = new Aircraft[table.length * 2];
+        int[] newTableIds = new int[newTable.length];
+        for (int id = 0; id < size; id++) {
+            int slot = findSlot(newTable, aircraft[id]);
+            newTable[slot] = aircraft[id];
+            newTableIds[slot] = id;
+        }
+        table = newTable;
+        tableIds = newTableIds;
+    }
+
+    /*
+     * Returns the slot of the given table holding the given aircraft, or the empty slot where it
+     * would be inserted. The table length must be a power of two.
+     */
+    private static int findSlot(Aircraft[] table, Aircraft aircraft) {
+        int mask = table.length - 1;
+        // spread the identity hash code so that nearby hash codes do not cluster
+        int slot = (System.identityHashCode(aircraft) * 0x9E3779B9) >>> 1 & mask;
+        while (table[slot] != null && table[slot] != aircraft) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,288 @@
+package towersim.control;
+
+import towersim.aircraft.Aircraft;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Meters the arrival of aircraft into a control tower's landing queue.
+ * <p>
+ * Aircraft finishing their last {@code AWAY} task before a {@code LAND} task would normally join
+ * the landing queue straight away. An arrival manager releases at most a maximum number of these
+ * aircraft into the landing queue on each tick, and none once the landing queue holds its
+ * maximum depth. Aircraft that are not released are held: they stay on their {@code AWAY} task,
+ * and are considered for release again on the next tick.
+ * <p>
+ * Arriving aircraft are released in the following order:
+ * 1) Aircraft in a state of emergency are always released, even beyond the limits, although they
+ *    count towards them.
+ * 2) Then held aircraft, in the order they started holding.
+ * 3) Otherwise, aircraft in the order they were added to the control tower.
+ * <p>
+ * The arrival manager also keeps statistics on how long aircraft have been held.
+ */
+public class ArrivalManager {
+    /** Limit meaning that there is no maximum */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /** maximum number of aircraft in the landing queue */
+    private final int maxQueueDepth;
+
+    /** maximum number of aircraft released into the landing queue on each tick */
+    private final int maxArrivalsPerTick;
+
+    /** tick in which each aircraft that is currently held started holding */
+    private Map<Aircraft, Long> holdingSince = new IdentityHashMap<>();
+
+    /** aircraft currently held, in the order they started holding */
+    private List<Aircraft> holding = new ArrayList<>();
+
+    /** number of aircraft that have been held for at least one tick */
+    private long aircraftHeld;
+
+    /** total number of ticks spent holding by all aircraft */
+    private long totalHoldingTicks;
+
+    /** greatest number of ticks that an aircraft has held for before being released */
+    private long longestHold;
+
+    /** version of the held aircraft and statistics, increased whenever they may have changed */
+    private long version;
+
+    /**
+     * Creates a new arrival manager with the given limits.
+     *
+     * @param maxQueueDepth      maximum number of aircraft in the landing queue, or
+     *                           {@link #UNLIMITED}
+     * @param maxArrivalsPerTick maximum number of aircraft released into the landing queue on
+     *                           each tick, or {@link #UNLIMITED}
+     * @throws IllegalArgumentException if either limit is less than one
+     */
+    public ArrivalManager(int maxQueueDepth, int maxArrivalsPerTick) {
+        if (maxQueueDepth < 1 || maxArrivalsPerTick < 1) {
+            throw new IllegalArgumentException("Arrival limits must be at least one");
+        }
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxArrivalsPerTick = maxArrivalsPerTick;
+    }
+
+    /**
+     * Returns the maximum number of aircraft in the landing queue.
+     *
+     * @return maximum queue depth
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Returns the maximum number of aircraft released into the landing queue on each tick.
+     *
+     * @return maximum arrivals per tick
+     */
+    public int getMaxArrivalsPerTick() {
+        return maxArrivalsPerTick;
+    }
+
+    /**
+     * Returns a copy of this arrival manager, with the same limits and statistics, holding copies
+     * of the aircraft it holds. The copies are taken from the given mapping as described in
+     * {@link AircraftRegistry#copy(Map)}.
+     *
+     * @param copies copy of each aircraft, keyed by the original aircraft
+     * @return copy of this arrival manager
+     */
+    ArrivalManager copy(Map<Aircraft, Aircraft> copies) {
+        ArrivalManager copy = new ArrivalManager(maxQueueDepth, maxArrivalsPerTick);
+        for (Aircraft aircraft : holding) {
+            Aircraft held = copies.computeIfAbsent(aircraft, Aircraft::copy);
+            copy.holding.add(held);
+            copy.holdingSince.put(held, holdingSince.get(aircraft));
+        }
+        copy.aircraftHeld = aircraftHeld;
+        copy.totalHoldingTicks = totalHoldingTicks;
+        copy.longestHold = longestHold;
+        copy.version = version;
+        return copy;
+    }
+
+    /**
+     * Returns the aircraft that are currently held, in the order they will be released.
+     * <p>
+     * Adding or removing elements from the returned list should not affect the original list.
+     *
+     * @return aircraft currently held
+     */
+    public List<Aircraft> getHoldingAircraft() {
+        return new ArrayList<>(holding);
+    }
+
+    /**
+     * Returns the tick in which the given aircraft started holding.
+     *
+     * @param aircraft aircraft currently held
+     * @return tick in which the aircraft started holding
+     * @throws IllegalArgumentException if the aircraft is not held
+     */
+    public long getHoldingSince(Aircraft aircraft) {
+        Long since = holdingSince.get(aircraft);
+        if (since == null) {
+            throw new IllegalArgumentException("Aircraft is not holding: "
+                    + aircraft.getCallsign());
+        }
+        return since;
+    }
+
+    /**
+     * Sets the aircraft that are held, replacing those currently held.
+     * <p>
+     * This is used to restore an arrival manager to a previously recorded state.
+     *
+     * @param aircraft aircraft held, in the order they started holding
+     * @param since    tick in which each aircraft started holding, in the same order
+     * @throws IllegalArgumentException if the numbers of aircraft and ticks differ
+     */
+    public void setHolding(List<Aircraft> aircraft, long[] since) {
+        if (aircraft.size() != since.length) {
+            throw new IllegalArgumentException("Each held aircraft needs a holding tick");
+        }
+        holding = new ArrayList<>(aircraft);
+        holdingSince = new IdentityHashMap<>();
+        for (int i = 0; i < since.length; i++) {
+            holdingSince.put(aircraft.get(i), since[i]);
+        }
+        version++;
+    }
+
+    /**
+     * Sets the statistics on how long aircraft have been held.
+     * <p>
+     * This is used to restore an arrival manager to a previously recorded state.
+     *
+     * @param aircraftHeld      number of aircraft that have been held for at least one tick
+     * @param totalHoldingTicks total number of ticks that all aircraft have spent holding
+     * @param longestHold       greatest number of ticks that an aircraft was held for
+     */
+    public void setStatistics(long aircraftHeld, long totalHoldingTicks, long longestHold) {
+        this.aircraftHeld = aircraftHeld;
+        this.totalHoldingTicks = totalHoldingTicks;
+        this.longestHold = longestHold;
+        version++;
+    }
+
+    /**
+     * Returns the version of this arrival manager's state.
+     * <p>
+     * The version increases whenever the held aircraft or the holding statistics change, and
+     * never decreases. If the version is the same as when it was last read, neither has changed
+     * since then.
+     *
+     * @return version of this arrival manager's state
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of aircraft that have been held for at least one tick, including those
+     * that are still held.
+     *
+     * @return number of aircraft held
+     */
+    public long getAircraftHeld() {
+        return aircraftHeld;
+    }
+
+    /**
+     * Returns the total number of ticks that all aircraft have spent holding.
+     *
+     * @return total holding ticks
+     */
+    public long getTotalHoldingTicks() {
+        return totalHoldingTicks;
+    }
+
+    /**
+     * Returns the greatest number of ticks that an aircraft was held for before being released.
+     *
+     * @return longest hold in ticks
+     */
+    public long getLongestHold() {
+        return longestHold;
+    }
+
+    /**
+     * Returns the human-readable string representation of this arrival manager.
+     * <p>
+     * The format of the string to return is
+     * <pre>ArrivalManager [depth=maxDepth, rate=maxRate, holding=numHolding, held=numHeld,
+     * totalHold=totalTicks, longestHold=longestTicks]</pre>
+     * where an unlimited depth or rate is shown as {@code unlimited}.
+     *
+     * @return string representation of this arrival manager
+     */
+    @Override
+    public String toString() {
+        return String.format("ArrivalManager [depth=%s, rate=%s, holding=%d, held=%d, "
+                        + "totalHold=%d, longestHold=%d]",
+                limitToString(maxQueueDepth), limitToString(maxArrivalsPerTick),
+                holding.size(), aircraftHeld, totalHoldingTicks, longestHold);
+    }
+
+    /**
+     * Decides which of the given arriving aircraft are released into the landing queue on the
+     * given tick, and holds the rest.
+     *
+     * @param arriving     aircraft ready to move on to their {@code LAND} task, in the order they
+     *                     were added to the control tower
+     * @param queueDepth   number of aircraft already in the landing queue
+     * @param ticksElapsed tick in which the aircraft arrive
+     * @return aircraft released, in the order they are released
+     */
+    List<Aircraft> release(List<Aircraft> arriving, int queueDepth, long ticksElapsed) {
+        if (arriving.isEmpty() && holding.isEmpty()) {
+            return new ArrayList<>();
+        }
+        version++;
+        List<Aircraft> candidates = new ArrayList<>(arriving);
+        // emergencies first, then aircraft already holding in the order they started
+        candidates.sort(Comparator.comparing((Aircraft aircraft) -> !aircraft.hasEmergency())
+                .thenComparingLong(aircraft ->
+                        holdingSince.getOrDefault(aircraft, Long.MAX_VALUE)));
+
+        List<Aircraft> released = new ArrayList<>();
+        Map<Aircraft, Long> stillHolding = new IdentityHashMap<>();
+        List<Aircraft> stillHeld = new ArrayList<>();
+        for (Aircraft aircraft : candidates) {
+            Long since = holdingSince.get(aircraft);
+            if (aircraft.hasEmergency() || (released.size() < maxArrivalsPerTick
+                    && (long) queueDepth + released.size() < maxQueueDepth)) {
+                released.add(aircraft);
+                if (since != null) {
+                    longestHold = Math.max(longestHold, ticksElapsed - since);
+                }
+            } else {
+                if (since == null) {
+                    since = ticksElapsed;
+                    aircraftHeld++;
+                }
+                stillHolding.put(aircraft, since);
+                stillHeld.add(aircraft);
+                totalHoldingTicks++;
+            }
+        }
+        // aircraft that are no longer arriving, such as after a rewind, stop holding
+        holdingSince = stillHolding;
+        holding = stillHeld;
+        return released;
+    }
+
+    /* Returns the given limit as a string, or "unlimited" */
+    private static String limitToString(int limit) {
+        return limit == UNLIMITED ? "unlimited" : Integer.toString(limit);
+    }
+}
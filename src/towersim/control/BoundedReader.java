@@ -0,0 +1,209 @@
+package towersim.control;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffered reader that enforces the line length and total size limits of a {@link SaveLimits}
+ * as it reads, so that an oversized line or file fails as soon as it passes the limit rather than
+ * after being read into memory.
+ * <p>
+ * The characters read are counted against a budget that can be shared by the readers of all the
+ * files of a save. Lines are ended by a line feed, a carriage return, or a carriage return
+ * followed by a line feed, as by {@link BufferedReader#readLine()}. Marking is not supported.
+ */
+class BoundedReader extends BufferedReader {
+    /** Number of characters read from the underlying reader at a time */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Thrown when a limit is exceeded. It is an IOException so that it can be thrown from
+     * {@link #readLine()}; the initialiser reports it as a malformed save.
+     */
+    static class LimitExceededException extends IOException {
+        /** Version of the serialized form */
+        private static final long serialVersionUID = 1L;
+
+        LimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Returns the exception thrown when more characters than the given limit on the total have
+     * been read.
+     *
+     * @param maxTotalChars largest number of characters allowed against the budget
+     * @return exception reporting the limit on the total was exceeded
+     */
+    static LimitExceededException totalExceeded(long maxTotalChars) {
+        return new LimitExceededException("Save larger than " + maxTotalChars + " characters");
+    }
+
+    /** Reader the characters are read from */
+    private final Reader in;
+
+    /** Longest line allowed */
+    private final int maxLineLength;
+
+    /** Largest number of characters allowed against the budget */
+    private final long maxTotalChars;
+
+    /** Number of characters read by every reader sharing the budget */
+    private final AtomicLong charsRead;
+
+    /** Characters read from the underlying reader and not yet returned */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /** Position of the next character to return in the buffer */
+    private int position;
+
+    /** Number of characters in the buffer */
+    private int limit;
+
+    /** Whether a line feed immediately following the last character read should be skipped */
+    private boolean skipLineFeed;
+
+    /**
+     * Creates a new reader applying the given limits, counting the characters it reads against
+     * the given budget.
+     *
+     * @param in        reader to read from
+     * @param limits    limits to enforce
+     * @param charsRead number of characters read so far by the readers sharing the budget
+     */
+    BoundedReader(Reader in, SaveLimits limits, AtomicLong charsRead) {
+        // the superclass's buffer is never used, as every read is overridden
+        super(in, 1);
+        this.in = in;
+        this.maxLineLength = limits.getMaxLineLength();
+        this.maxTotalChars = limits.getMaxTotalChars();
+        this.charsRead = charsRead;
+    }
+
+    /**
+     * Reads a line of text, failing as soon as the line is longer than the limit.
+     *
+     * @return line read, without its terminator; or null if the end of the stream was reached
+     * @throws LimitExceededException if the line or the total read is longer than the limit
+     * @throws IOException            if reading fails
+     */
+    @Override
+    public String readLine() throws IOException {
+        StringBuilder line = null;
+        while (true) {
+            if (position == limit && !fill()) {
+                return line == null ? null : line.toString();
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+            int start = position;
+            while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                position++;
+            }
+            int length = position - start;
+            int lineLength = line == null ? length : line.length() + length;
+            if (lineLength > maxLineLength) {
+                throw new LimitExceededException("Line longer than " + maxLineLength
+                        + " characters");
+            }
+            if (position < limit) {
+                // found the end of the line
+                skipLineFeed = buffer[position] == '\r';
+                position++;
+                if (line == null) {
+                    return new String(buffer, start, length);
+                }
+                return line.append(buffer, start, length).toString();
+            }
+            if (line == null) {
+                line = new StringBuilder(Math.max(16, length * 2));
+            }
+            line.append(buffer, start, length);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        skipLineFeed = false;
+        return buffer[position++];
+    }
+
+    @Override
+    public int read(char[] destination, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        skipLineFeed = false;
+        int count = Math.min(length, limit - position);
+        System.arraycopy(buffer, position, destination, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && (position < limit || fill())) {
+            int count = (int) Math.min(n - skipped, limit - position);
+            position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return position < limit || in.ready();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("Mark not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("Reset not supported");
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /* Reads more characters into the empty buffer, returning false at the end of the stream */
+    private boolean fill() throws IOException {
+        int count;
+        do {
+            count = in.read(buffer, 0, buffer.length);
+        } while (count == 0);
+        if (count < 0) {
+            return false;
+        }
+        if (charsRead.addAndGet(count) > maxTotalChars) {
+            throw totalExceeded(maxTotalChars);
+        }
+        position = 0;
+        limit = count;
+        return true;
+    }
+}
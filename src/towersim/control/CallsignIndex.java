@@ -0,0 +1,114 @@
+package towersim.control;
+
+import towersim.aircraft.Aircraft;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of aircraft by callsign, supporting exact and prefix lookups.
+ * <p>
+ * Exact lookups use a hash map. Prefix lookups binary search an array of the callsigns in sorted
+ * order, which is rebuilt on the first prefix lookup after aircraft have been added, so adding
+ * many aircraft at once only sorts the callsigns once.
+ * <p>
+ * If more than one aircraft with the same callsign is added, lookups return the one added first.
+ */
+public class CallsignIndex {
+    /** Aircraft by callsign */
+    private final Map<String, Aircraft> aircraftByCallsign;
+
+    /** Callsigns of all indexed aircraft in ascending order, or null if they must be re-sorted */
+    private String[] sortedCallsigns;
+
+    /**
+     * Creates a new, empty callsign index.
+     */
+    public CallsignIndex() {
+        this.aircraftByCallsign = new HashMap<>();
+    }
+
+    /**
+     * Creates a new callsign index containing the given aircraft.
+     *
+     * @param aircraft aircraft to index, in the order they should be added
+     */
+    public CallsignIndex(Collection<Aircraft> aircraft) {
+        // large enough for every aircraft, so that the map is not resized while they are added
+        this.aircraftByCallsign = new HashMap<>(aircraft.size() * 4 / 3 + 1);
+        for (Aircraft eachAircraft : aircraft) {
+            add(eachAircraft);
+        }
+    }
+
+    /**
+     * Adds the given aircraft to the index. Has no effect if an aircraft with the same callsign is
+     * already indexed.
+     *
+     * @param aircraft aircraft to add
+     */
+    public void add(Aircraft aircraft) {
+        if (aircraftByCallsign.putIfAbsent(aircraft.getCallsign(), aircraft) == null) {
+            sortedCallsigns = null;
+        }
+    }
+
+    /**
+     * Returns the aircraft with exactly the given callsign.
+     *
+     * @param callsign callsign to look up
+     * @return aircraft with the callsign, or null if there is none
+     */
+    public Aircraft find(String callsign) {
+        return aircraftByCallsign.get(callsign);
+    }
+
+    /**
+     * Returns the aircraft whose callsigns start with the given prefix, in ascending order of
+     * callsign. At most {@code limit} aircraft are returned.
+     *
+     * @param prefix start of the callsigns to find
+     * @param limit  maximum number of aircraft to return
+     * @return aircraft with matching callsigns
+     * @throws IllegalArgumentException if limit &lt; 0
+     */
+    public List<Aircraft> findByPrefix(String prefix, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        String[] callsigns = getSortedCallsigns();
+        int index = Arrays.binarySearch(callsigns, prefix);
+        if (index < 0) {
+            // the prefix is not itself a callsign; start from where it would be inserted
+            index = -index - 1;
+        }
+        List<Aircraft> matches = new ArrayList<>();
+        while (index < callsigns.length && matches.size() < limit
+                && callsigns[index].startsWith(prefix)) {
+            matches.add(aircraftByCallsign.get(callsigns[index++]));
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the number of aircraft in the index.
+     *
+     * @return number of indexed aircraft
+     */
+    public int size() {
+        return aircraftByCallsign.size();
+    }
+
+    /* Returns the sorted callsigns, sorting them first if aircraft have been added */
+    private String[] getSortedCallsigns() {
+        if (sortedCallsigns == null) {
+            sortedCallsigns = aircraftByCallsign.keySet().toArray(new String[0]);
+            Arrays.sort(sortedCallsigns);
+        }
+        return sortedCallsigns;
+    }
+}
@@ -0,0 +1,81 @@
+package towersim.control;
+
+import towersim.util.MalformedSaveException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * References by callsign from the queues, loading aircraft and gates of a save to the aircraft
+ * they refer to, bound either as soon as they are read or in a later linking pass.
+ * <p>
+ * Links created with a callsign index are bound as soon as they are added, so a reference to an
+ * unknown aircraft is reported where it is read. Links created without one hold their references
+ * until {@link #link(CallsignIndex)} is called, which lets the files referring to aircraft be read
+ * before, or at the same time as, the aircraft file itself. Either way, the same references are
+ * rejected.
+ */
+class CallsignLinks {
+    /**
+     * Binds one or more references read from a save to the aircraft they refer to.
+     */
+    @FunctionalInterface
+    interface Link {
+        /**
+         * Binds the references, looking up aircraft in the given callsign index.
+         *
+         * @param aircraft index of all aircraft in the save
+         * @throws MalformedSaveException if a reference does not correspond to any aircraft
+         */
+        void bind(CallsignIndex aircraft) throws MalformedSaveException;
+    }
+
+    /** Index to bind links against as they are added; or null if they are bound later */
+    private final CallsignIndex aircraft;
+
+    /** Links not yet bound, in the order they were added */
+    private final List<Link> pending = new ArrayList<>();
+
+    /**
+     * Creates links that are held until {@link #link(CallsignIndex)} is called.
+     */
+    CallsignLinks() {
+        this(null);
+    }
+
+    /**
+     * Creates links that are bound against the given index as soon as they are added.
+     *
+     * @param aircraft index of all aircraft in the save; or null to hold links until linked
+     */
+    CallsignLinks(CallsignIndex aircraft) {
+        this.aircraft = aircraft;
+    }
+
+    /**
+     * Adds a link, binding it at once if these links were created with a callsign index.
+     *
+     * @param link link to add
+     * @throws MalformedSaveException if the link is bound at once and a reference is invalid
+     */
+    void add(Link link) throws MalformedSaveException {
+        if (aircraft != null) {
+            link.bind(aircraft);
+        } else {
+            pending.add(link);
+        }
+    }
+
+    /**
+     * Binds all links not yet bound against the given index, in the order they were added.
+     *
+     * @param aircraft index of all aircraft in the save
+     * @throws MalformedSaveException if any reference does not correspond to any aircraft
+     */
+    void link(CallsignIndex aircraft) throws MalformedSaveException {
+        for (Link link : pending) {
+            link.bind(aircraft);
+        }
+        pending.clear();
+    }
+}
@@ -4,14 +4,23 @@ import towersim.aircraft.Aircraft;
 import towersim.aircraft.AircraftType;
 import towersim.ground.AirplaneTerminal;
 import towersim.ground.Gate;
+import towersim.ground.GateAvailabilityListener;
 import towersim.ground.HelicopterTerminal;
 import towersim.ground.Terminal;
+import towersim.replay.EventLogWriter;
 import towersim.tasks.TaskType;
+import towersim.telemetry.GateSearchEvent;
+import towersim.telemetry.LandingAttemptEvent;
+import towersim.telemetry.LoadingCompletedEvent;
+import towersim.telemetry.TakeoffEvent;
+import towersim.telemetry.TickPhaseEvent;
 import towersim.util.NoSpaceException;
 import towersim.util.NoSuitableGateException;
 import towersim.util.Tickable;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ObjLongConsumer;
 
 /**
  * Represents a the control tower of an airport.
@@ -19,6 +28,9 @@ import java.util.*;
  * The control tower is responsible for managing the operations of the airport, including arrivals
  * and departures in/out of the airport, as well as aircraft that need to be loaded with cargo
  * at gates in terminals.
+ * <p>
+ * A control tower is not thread-safe. It should be ticked and changed by a single thread; other
+ * threads can read its state through a {@link TowerStatePublisher}.
  * @ass1
  */
 public class ControlTower implements Tickable {
@@ -35,11 +47,69 @@ public class ControlTower implements Tickable {
     private TakeoffQueue takeoffQueue;
 
     /** mapping of aircraft that are loading cargo to the number of ticks remaining for loading */
-    private Map<Aircraft, Integer> loadingAircraft;
+    private final Map<Aircraft, Integer> loadingAircraft;
+
+    /** index of the aircraft managed by the control tower by callsign */
+    private final CallsignIndex callsignIndex;
+
+    /** registry giving each aircraft managed by the control tower a dense id */
+    private final AircraftRegistry registry;
+
+    /** ticks remaining for loading, indexed by aircraft id; NOT_LOADING if not loading */
+    private int[] loadingTicks;
+
+    /** ids of the aircraft that are loading cargo, in ascending order */
+    private int[] loadingIds;
+
+    /** number of aircraft that are loading cargo */
+    private int numLoading;
+
+    /** number of changes made to the loading aircraft and their remaining load times */
+    private long loadingVersion;
+
+    /** gate each aircraft was last parked at by the control tower, indexed by aircraft id */
+    private Gate[] gates;
 
     /** List of all terminals in the airport. */
     private final List<Terminal> allTerminals;
 
+    /** forecaster of when the aircraft in the landing queue will land */
+    private final LandingForecaster landingForecaster;
+
+    /** scheduler deciding when aircraft waiting for ground crew start loading */
+    private final LoadingScheduler loadingScheduler;
+
+    /** manager metering arrivals into the landing queue, or null if arrivals are unlimited */
+    private ArrivalManager arrivalManager;
+
+    /** replay log that events are recorded to, or null if events are not being recorded */
+    private EventLogWriter eventLog;
+
+    /** listeners notified of this tower's events, including the replay log if there is one */
+    private final List<TowerListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** emergency state of each aircraft when last checked, indexed by aircraft id */
+    private boolean[] aircraftEmergencies = new boolean[0];
+
+    /** emergency state of each terminal when last checked, in the order they were added */
+    private boolean[] terminalEmergencies = new boolean[0];
+
+    /**
+     * number of available gates for each type of aircraft: unoccupied gates in compatible
+     * terminals that are not in a state of emergency, indexed by type ordinal
+     */
+    private final int[] availableGates = new int[AircraftType.values().length];
+
+    /** keeps the numbers of available gates up to date as the terminals' gates change */
+    private final GateAvailabilityListener availabilityCounter = (terminal, change) ->
+            this.availableGates[terminalType(terminal).ordinal()] += change;
+
+    /** tick that events are recorded against while a tick is in progress; -1 between ticks */
+    private long eventTick = -1;
+
+    /** value of loadingTicks for aircraft that are not loading */
+    private static final int NOT_LOADING = Integer.MIN_VALUE;
+
     /**
      * Creates a new ControlTower. The list of terminals should be initialised as an empty list.
      *
@@ -56,9 +126,122 @@ public class ControlTower implements Tickable {
         this.allAircraft = aircraft;
         this.landingQueue = landingQueue;
         this.takeoffQueue = takeoffQueue;
-        this.loadingAircraft = loadingAircraft;
+        this.registry = new AircraftRegistry();
+        this.loadingTicks = new int[0];
+        this.loadingIds = new int[16];
+        this.gates = new Gate[0];
+        this.callsignIndex = new CallsignIndex(aircraft);
+        for (Aircraft managedAircraft : aircraft) {
+            register(managedAircraft);
+        }
         // the list of terminals should be initialised as an empty list
         this.allTerminals = new ArrayList<>();
+        // the scheduler counts the ground resources used as aircraft start loading
+        this.loadingScheduler = new LoadingScheduler(this);
+        this.loadingAircraft = new LoadingAircraftMap();
+        this.loadingAircraft.putAll(loadingAircraft);
+        this.landingForecaster = new LandingForecaster(this);
+    }
+
+    /* Creates a fork of the given tower, as described in fork() */
+    private ControlTower(ControlTower original) {
+        // every part of the original refers to the same copy of each aircraft
+        Map<Aircraft, Aircraft> copies = new IdentityHashMap<>(original.registry.size());
+        this.totalTicksElapsed = original.totalTicksElapsed;
+        this.registry = original.registry.copy(copies);
+        this.allAircraft = new ArrayList<>(original.allAircraft.size());
+        for (Aircraft aircraft : original.allAircraft) {
+            this.allAircraft.add(copies.computeIfAbsent(aircraft, Aircraft::copy));
+        }
+        this.landingQueue = original.landingQueue.copy(copies);
+        this.takeoffQueue = original.takeoffQueue.copy(copies);
+        this.callsignIndex = new CallsignIndex(this.allAircraft);
+        // aircraft keep their ids, so arrays indexed by id are copied as they are
+        this.loadingTicks = original.loadingTicks.clone();
+        this.loadingIds = original.loadingIds.clone();
+        this.numLoading = original.numLoading;
+        this.loadingAircraft = new LoadingAircraftMap();
+        this.loadingScheduler = new LoadingScheduler(this);
+
+        Map<Gate, Gate> gateCopies = new IdentityHashMap<>();
+        this.allTerminals = new ArrayList<>(original.allTerminals.size());
+        for (Terminal terminal : original.allTerminals) {
+            Terminal copy = copyTerminal(terminal, copies, gateCopies);
+            this.allTerminals.add(copy);
+            countAvailableGates(copy);
+            this.loadingScheduler.terminalAdded(copy);
+        }
+        this.gates = new Gate[original.gates.length];
+        for (int id = 0; id < this.gates.length; id++) {
+            this.gates[id] = gateCopies.get(original.gates[id]);
+        }
+
+        if (original.arrivalManager != null) {
+            this.arrivalManager = original.arrivalManager.copy(copies);
+        }
+        this.aircraftEmergencies = original.aircraftEmergencies.clone();
+        this.terminalEmergencies = original.terminalEmergencies.clone();
+        this.landingForecaster = new LandingForecaster(this);
+    }
+
+    /**
+     * Returns a fork of this control tower: a separate tower in the same state, which can be
+     * ticked and changed without affecting this one. This allows the outcomes of different
+     * decisions, such as declaring an emergency, to be simulated before one is made.
+     * <p>
+     * The fork holds copies of this tower's aircraft, terminals, gates, queues, loading aircraft
+     * and arrival manager, and aircraft keep the same ids in its registry. State that never
+     * changes, such as the callsigns, characteristics and sequences of tasks of aircraft and the
+     * ground resources of terminals, is shared with this tower rather than copied. Listeners and
+     * the event log are not carried over.
+     * <p>
+     * Every aircraft is copied, including the many that a tick leaves unchanged, such as those
+     * waiting in a queue: callers change aircraft and their task lists directly, so an aircraft
+     * reachable from the fork cannot also be reachable from this tower. Forking therefore takes
+     * time linear in the number of aircraft and gates.
+     * <p>
+     * Forking only reads this tower, so many forks can be taken, and each run on its own thread,
+     * as long as this tower is not changed while they are being taken.
+     *
+     * @return fork of this tower
+     * @throws IllegalStateException if a terminal is of a type that cannot be copied
+     */
+    public ControlTower fork() {
+        return new ControlTower(this);
+    }
+
+    /*
+     * Returns a copy of the given terminal, with copies of its gates holding the copies of their
+     * aircraft, and records the copy of each gate
+     */
+    private static Terminal copyTerminal(Terminal terminal, Map<Aircraft, Aircraft> copies,
+            Map<Gate, Gate> gateCopies) {
+        AircraftType type = terminalType(terminal);
+        if (type == null) {
+            throw new IllegalStateException("Cannot copy terminal " + terminal);
+        }
+        Terminal copy = type == AircraftType.AIRPLANE
+                ? new AirplaneTerminal(terminal.getTerminalNumber())
+                : new HelicopterTerminal(terminal.getTerminalNumber());
+        if (terminal.hasEmergency()) {
+            copy.declareEmergency();
+        }
+        // ground resources are immutable
+        copy.setGroundResources(terminal.getGroundResources());
+        for (Gate gate : terminal.getGates()) {
+            Gate gateCopy = new Gate(gate.getGateNumber());
+            try {
+                if (gate.isOccupied()) {
+                    gateCopy.parkAircraft(copies.computeIfAbsent(gate.getAircraftAtGate(),
+                            Aircraft::copy));
+                }
+                copy.addGate(gateCopy);
+            } catch (NoSpaceException ignored) {
+                // not possible, the original terminal held the same gates and aircraft
+            }
+            gateCopies.put(gate, gateCopy);
+        }
+        return copy;
     }
 
     /**
@@ -69,6 +252,23 @@ public class ControlTower implements Tickable {
      */
     public void addTerminal(Terminal terminal) {
         this.allTerminals.add(terminal);
+        this.terminalEmergencies = Arrays.copyOf(this.terminalEmergencies,
+                this.allTerminals.size());
+        this.terminalEmergencies[this.allTerminals.size() - 1] = terminal.hasEmergency();
+        countAvailableGates(terminal);
+        this.loadingScheduler.terminalAdded(terminal);
+    }
+
+    /*
+     * Adds the available gates of the given terminal to the counts of available gates, and keeps
+     * them up to date as the terminal changes
+     */
+    private void countAvailableGates(Terminal terminal) {
+        AircraftType type = terminalType(terminal);
+        if (type != null) {
+            this.availableGates[type.ordinal()] += terminal.getNumAvailableGates();
+            terminal.addGateAvailabilityListener(this.availabilityCounter);
+        }
     }
 
     /**
@@ -86,6 +286,29 @@ public class ControlTower implements Tickable {
         return new ArrayList<>(this.allTerminals);
     }
 
+    /**
+     * Returns the number of terminals in this control tower, the same as the size of the list
+     * returned by {@link #getTerminals()}.
+     *
+     * @return number of terminals
+     */
+    public int getNumTerminals() {
+        return this.allTerminals.size();
+    }
+
+    /**
+     * Returns the terminal at the given position of the list returned by {@link #getTerminals()},
+     * without copying the list.
+     *
+     * @param index position of the terminal, in the order terminals were added
+     * @return terminal at the given position
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the number of
+     *                                   terminals
+     */
+    public Terminal getTerminal(int index) {
+        return this.allTerminals.get(index);
+    }
+
     /**
      * Adds the given aircraft to the jurisdiction of this control tower.
      * <p>
@@ -108,11 +331,99 @@ public class ControlTower implements Tickable {
             } catch (NoSpaceException ignored) {
                 // not possible, gate unoccupied
             }
+            // register first, since registering may replace the gates array
+            int id = register(aircraft);
+            this.gates[id] = gate;
         }
+        register(aircraft);
         this.allAircraft.add(aircraft);
+        this.callsignIndex.add(aircraft);
         placeAircraftInQueues(aircraft);
     }
 
+    /**
+     * Adds all the given aircraft to the jurisdiction of this control tower, in order.
+     * <p>
+     * The result is the same as calling {@link #addAircraft(Aircraft)} for each aircraft in turn,
+     * except that an aircraft for which there is no suitable gate is skipped rather than stopping
+     * the remaining aircraft from being added. Since no gate is freed while aircraft are being
+     * added, the search for each type's next unoccupied gate carries on from the gate found for
+     * the previous aircraft of that type instead of starting again from the first terminal.
+     * Aircraft waiting for ground crew are given them in the order they are added, as they
+     * would be by adding them one at a time. Only the first aircraft added to each terminal looks
+     * at the other aircraft waiting there; no ground crew is freed while aircraft are being added,
+     * so the aircraft already waiting cannot be given crew by later ones.
+     *
+     * @param aircraft aircraft to add
+     * @return aircraft that were not added because there was no suitable gate for them, in the
+     *         order they were given
+     */
+    public List<Aircraft> addAllAircraft(Collection<Aircraft> aircraft) {
+        if (this.allAircraft instanceof ArrayList) {
+            ((ArrayList<Aircraft>) this.allAircraft).ensureCapacity(
+                    this.allAircraft.size() + aircraft.size());
+        }
+        // terminal and gate to resume the search for an unoccupied gate from, for each type
+        int[] terminalCursors = new int[AircraftType.values().length];
+        int[] gateCursors = new int[AircraftType.values().length];
+        List<List<Gate>> terminalGates = new ArrayList<>();
+        for (Terminal terminal : this.allTerminals) {
+            terminalGates.add(terminal.getGates());
+        }
+
+        // terminals whose waiting aircraft have been scheduled while adding these aircraft
+        Set<Terminal> scheduled = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Aircraft> notAdded = new ArrayList<>();
+        for (Aircraft eachAircraft : aircraft) {
+            TaskType currentTaskType = eachAircraft.getTaskList().getCurrentTask().getType();
+            if (currentTaskType == TaskType.WAIT || currentTaskType == TaskType.LOAD) {
+                AircraftType aircraftType = eachAircraft.getCharacteristics().type;
+                int type = aircraftType.ordinal();
+                Gate gate = null;
+                while (gate == null && terminalCursors[type] < this.allTerminals.size()) {
+                    Terminal terminal = this.allTerminals.get(terminalCursors[type]);
+                    List<Gate> gates = terminalGates.get(terminalCursors[type]);
+                    if (!terminal.hasEmergency() && terminalType(terminal) == aircraftType) {
+                        while (gateCursors[type] < gates.size()
+                                && gates.get(gateCursors[type]).isOccupied()) {
+                            gateCursors[type]++;
+                        }
+                        if (gateCursors[type] < gates.size()) {
+                            gate = gates.get(gateCursors[type]);
+                            continue;
+                        }
+                    }
+                    terminalCursors[type]++;
+                    gateCursors[type] = 0;
+                }
+                if (gate == null) {
+                    notAdded.add(eachAircraft);
+                    continue;
+                }
+                try {
+                    gate.parkAircraft(eachAircraft);
+                } catch (NoSpaceException ignored) {
+                    // not possible, gate unoccupied
+                }
+                int id = register(eachAircraft);
+                this.gates[id] = gate;
+            }
+            register(eachAircraft);
+            this.allAircraft.add(eachAircraft);
+            this.callsignIndex.add(eachAircraft);
+            placeAircraftInQueues(eachAircraft, false);
+            if (this.loadingScheduler.isWaitingForCrew(eachAircraft)) {
+                Terminal terminal = findGateOfAircraft(eachAircraft).getTerminal();
+                if (scheduled.add(terminal)) {
+                    this.loadingScheduler.startLoading(terminal);
+                } else {
+                    this.loadingScheduler.startLoading(eachAircraft, terminal);
+                }
+            }
+        }
+        return notAdded;
+    }
+
     /**
      * Finds the gate where the given aircraft is parked, and returns null if the aircraft is
      * not parked at any gate in any terminal.
@@ -122,9 +433,18 @@ public class ControlTower implements Tickable {
      * @ass1
      */
     public Gate findGateOfAircraft(Aircraft aircraft) {
+        int id = this.registry.getId(aircraft);
+        // gates can be changed outside of the tower, so check the aircraft is still parked there
+        if (id != AircraftRegistry.NO_ID && this.gates[id] != null
+                && this.gates[id].getAircraftAtGate() == aircraft) {
+            return this.gates[id];
+        }
         for (Terminal terminal : this.allTerminals) {
             for (Gate gate : terminal.getGates()) {
                 if (Objects.equals(gate.getAircraftAtGate(), aircraft)) {
+                    if (id != AircraftRegistry.NO_ID) {
+                        this.gates[id] = gate;
+                    }
                     return gate;
                 }
             }
@@ -147,6 +467,29 @@ public class ControlTower implements Tickable {
         return new ArrayList<>(this.allAircraft);
     }
 
+    /**
+     * Returns the number of aircraft managed by this control tower, the same as the size of the
+     * list returned by {@link #getAircraft()}.
+     *
+     * @return number of aircraft managed
+     */
+    public int getNumAircraft() {
+        return this.allAircraft.size();
+    }
+
+    /**
+     * Returns the aircraft at the given position of the list returned by {@link #getAircraft()},
+     * without copying the list.
+     *
+     * @param index position of the aircraft, in the order aircraft were added
+     * @return aircraft at the given position
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the number of
+     *                                   aircraft
+     */
+    public Aircraft getAircraft(int index) {
+        return this.allAircraft.get(index);
+    }
+
     /**
      * Returns the number of ticks that have elapsed for this control tower. If the control tower
      * was created with a non-zero number of elapsed ticks, this number should be taken into account
@@ -158,12 +501,23 @@ public class ControlTower implements Tickable {
         return this.totalTicksElapsed;
     }
 
+    /**
+     * Sets the number of ticks that have elapsed for this control tower.
+     * <p>
+     * This is used to restore the tower to a previously recorded state.
+     *
+     * @param ticksElapsed new number of ticks elapsed
+     */
+    public void setTicksElapsed(long ticksElapsed) {
+        this.totalTicksElapsed = ticksElapsed;
+    }
+
     /**
      * Returns the queue of aircraft waiting to land.
      *
      * @return landing queue
      */
-    public AircraftQueue getLandingQueue() {
+    public LandingQueue getLandingQueue() {
         return this.landingQueue;
     }
 
@@ -172,7 +526,7 @@ public class ControlTower implements Tickable {
      *
      * @return takeoff queue
      */
-    public AircraftQueue getTakeoffQueue() {
+    public TakeoffQueue getTakeoffQueue() {
         return this.takeoffQueue;
     }
 
@@ -185,6 +539,180 @@ public class ControlTower implements Tickable {
         return this.loadingAircraft;
     }
 
+    /**
+     * Returns the version of the loading aircraft map, which increases whenever an aircraft
+     * starts or finishes loading, or the remaining load time of an aircraft changes.
+     *
+     * @return version of the loading aircraft
+     */
+    public long getLoadingVersion() {
+        return this.loadingVersion;
+    }
+
+    /**
+     * Returns the index of the aircraft managed by this control tower by callsign, for finding
+     * aircraft by their exact callsign or by a prefix of it.
+     *
+     * @return callsign index
+     */
+    public CallsignIndex getCallsignIndex() {
+        return this.callsignIndex;
+    }
+
+    /**
+     * Returns the registry that gives each aircraft managed by this control tower a dense id.
+     * Aircraft are given their ids when they are added to the tower.
+     *
+     * @return aircraft registry
+     */
+    public AircraftRegistry getAircraftRegistry() {
+        return this.registry;
+    }
+
+    /**
+     * Returns the forecaster of when each aircraft in the landing queue will land.
+     *
+     * @return landing forecaster
+     */
+    public LandingForecaster getLandingForecaster() {
+        return this.landingForecaster;
+    }
+
+    /**
+     * Returns the scheduler deciding when aircraft waiting for ground crew start loading.
+     *
+     * @return loading scheduler
+     */
+    public LoadingScheduler getLoadingScheduler() {
+        return this.loadingScheduler;
+    }
+
+    /**
+     * Sets the arrival manager that meters aircraft arriving into the landing queue.
+     *
+     * @param arrivalManager arrival manager, or null if arrivals should be unlimited
+     */
+    public void setArrivalManager(ArrivalManager arrivalManager) {
+        this.arrivalManager = arrivalManager;
+    }
+
+    /**
+     * Returns the arrival manager that meters aircraft arriving into the landing queue, including
+     * its holding statistics.
+     *
+     * @return arrival manager, or null if arrivals are unlimited
+     */
+    public ArrivalManager getArrivalManager() {
+        return this.arrivalManager;
+    }
+
+    /**
+     * Sets the replay log that this control tower records its events to.
+     * <p>
+     * Use {@link EventLogWriter#attachTo(ControlTower)} to start recording a tower, so that the
+     * log begins with a snapshot of the tower's current state.
+     *
+     * @param eventLog replay log to record events to, or null to stop recording events
+     */
+    public void setEventLog(EventLogWriter eventLog) {
+        if (this.eventLog != null) {
+            removeListener(this.eventLog);
+        }
+        this.eventLog = eventLog;
+        if (eventLog != null) {
+            addListener(eventLog);
+        }
+    }
+
+    /**
+     * Returns the replay log that this control tower records its events to.
+     *
+     * @return replay log, or null if events are not being recorded
+     */
+    public EventLogWriter getEventLog() {
+        return this.eventLog;
+    }
+
+    /**
+     * Registers a listener to be notified of this tower's events, after any listeners already
+     * registered.
+     *
+     * @param listener listener to register
+     */
+    public void addListener(TowerListener listener) {
+        if (this.listeners.isEmpty()) {
+            // emergency states are not tracked while nobody is listening
+            updateEmergencyStates(false);
+        }
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Stops notifying the given listener of this tower's events. Has no effect if the listener is
+     * not registered.
+     *
+     * @param listener listener to remove
+     */
+    public void removeListener(TowerListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /*
+     * Notifies every listener of an event. Events that happen during a tick are given that tick,
+     * and events between ticks the last tick to elapse.
+     */
+    private void publish(ObjLongConsumer<TowerListener> event) {
+        if (this.listeners.isEmpty()) {
+            return;
+        }
+        long tick = getEventTick();
+        for (TowerListener listener : this.listeners) {
+            event.accept(listener, tick);
+        }
+    }
+
+    /* Returns the tick events happening now belong to, as described in publish() */
+    private long getEventTick() {
+        return this.eventTick >= 0 ? this.eventTick : this.totalTicksElapsed;
+    }
+
+    /* Notifies listeners that the given aircraft has moved on to its next task */
+    private void publishTaskAdvanced(Aircraft aircraft) {
+        if (!this.listeners.isEmpty()) {
+            TaskType taskType = aircraft.getTaskList().getCurrentTask().getType();
+            publish((listener, tick) -> listener.taskAdvanced(tick, aircraft, taskType));
+        }
+    }
+
+    /*
+     * Brings the last known emergency state of every aircraft and terminal up to date, notifying
+     * listeners of each change if requested
+     */
+    private void updateEmergencyStates(boolean publishChanges) {
+        for (int id = 0; id < this.registry.size(); id++) {
+            Aircraft aircraft = this.registry.getAircraft(id);
+            boolean emergency = aircraft.hasEmergency();
+            if (emergency != this.aircraftEmergencies[id]) {
+                this.aircraftEmergencies[id] = emergency;
+                if (publishChanges) {
+                    publish((listener, tick) ->
+                            listener.aircraftEmergencyChanged(tick, aircraft, emergency));
+                }
+            }
+        }
+        for (int i = 0; i < this.allTerminals.size(); i++) {
+            Terminal terminal = this.allTerminals.get(i);
+            boolean emergency = terminal.hasEmergency();
+            if (emergency != this.terminalEmergencies[i]) {
+                this.terminalEmergencies[i] = emergency;
+                if (publishChanges) {
+                    publish((listener, tick) ->
+                            listener.terminalEmergencyChanged(tick, terminal, emergency));
+                }
+            }
+        }
+    }
+
     /**
      * Attempts to find an unoccupied gate in a compatible terminal for the given aircraft.
      * <p>
@@ -208,66 +736,115 @@ public class ControlTower implements Tickable {
      * @ass1
      */
     public Gate findUnoccupiedGate(Aircraft aircraft) throws NoSuitableGateException {
+        GateSearchEvent search = GateSearchEvent.start();
+        int terminalsProbed = 0;
         AircraftType aircraftType = aircraft.getCharacteristics().type;
-        for (Terminal terminal : allTerminals) {
+        // when no compatible terminal has a free gate, there is no need to look at any of them
+        List<Terminal> terminals = this.availableGates[aircraftType.ordinal()] > 0
+                ? this.allTerminals : List.of();
+        for (Terminal terminal : terminals) {
             /*
              * Only check for available gates at terminals that are of the same aircraft type as
-             * the aircraft and not in a state of emergency
+             * the aircraft, not in a state of emergency and not full
              */
-            if ((!terminal.hasEmergency())
+            if ((terminal.getNumAvailableGates() > 0)
                     && ((terminal instanceof AirplaneTerminal
                             && aircraftType == AircraftType.AIRPLANE)
                         || (terminal instanceof HelicopterTerminal
                                 && aircraftType == AircraftType.HELICOPTER))) {
+                terminalsProbed++;
                 try {
                     // This terminal found a gate, return it
-                    return terminal.findUnoccupiedGate();
+                    Gate gate = terminal.findUnoccupiedGate();
+                    search.finish(aircraft, terminalsProbed, terminal, gate);
+                    return gate;
                 } catch (NoSuitableGateException e) {
                     // If this terminal has no unoccupied gates, try the next one
                 }
             }
         }
+        search.finish(aircraft, terminalsProbed, null, null);
         throw new NoSuitableGateException("No gate available for aircraft");
     }
 
+    /*
+     * Returns the types of aircraft for which there is at least one unoccupied gate in a
+     * compatible terminal that is not in a state of emergency. The numbers of available gates are
+     * kept up to date as gates change, so this does not look at any gate.
+     */
+    private Set<AircraftType> findTypesWithUnoccupiedGates() {
+        Set<AircraftType> types = EnumSet.noneOf(AircraftType.class);
+        for (AircraftType type : AircraftType.values()) {
+            if (this.availableGates[type.ordinal()] > 0) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    /* Returns the type of aircraft the given terminal accommodates, or null if it is unknown */
+    private static AircraftType terminalType(Terminal terminal) {
+        if (terminal instanceof AirplaneTerminal) {
+            return AircraftType.AIRPLANE;
+        }
+        if (terminal instanceof HelicopterTerminal) {
+            return AircraftType.HELICOPTER;
+        }
+        return null;
+    }
+
     /**
      * Attempts to land one aircraft waiting in the landing queue and park it at a suitable gate.
      * 1) If there are no aircraft in the landing queue waiting to land, then the method should
      * return false and no further action should be taken.
-     * 2) If there is at least one aircraft in the landing queue, then a suitable gate should be
-     * found for the aircraft at the front of the queue. If there is no suitable gate, the aircraft
-     * should not be landed and should remain in the queue, and the method should return false and
-     * no further action should be taken.
-     * 3) If there is a suitable gate, the aircraft should be removed from the queue and it should
-     * be parked at that gate. The aircraft's passengers or freight should be unloaded immediately,
-     * by calling Aircraft.unload().
+     * 2) If there is at least one aircraft in the landing queue, then the aircraft to land is the
+     * one furthest forward in the queue out of the aircraft whose type has an unoccupied gate in
+     * a compatible terminal. An aircraft waiting for a gate of its type to become free does not
+     * hold up aircraft of other types behind it. If no aircraft in the queue has a suitable gate,
+     * no aircraft should be landed, and the method should return false and no further action
+     * should be taken.
+     * 3) The chosen aircraft should be removed from the queue and it should be parked at a
+     * suitable gate as found by {@link #findUnoccupiedGate(Aircraft)}. The aircraft's passengers
+     * or freight should be unloaded immediately, by calling Aircraft.unload().
      * 4) Finally, the landed aircraft should move on to the next task in its task list and the
      * method should return true.
      *
      * @return true if an aircraft was successfully landed and parked; false otherwise
      */
     public boolean tryLandAircraft() {
-        // the aircraft at the front of the landing queue
-        Aircraft landingAircraft = this.landingQueue.peekAircraft();
+        LandingAttemptEvent attempt = LandingAttemptEvent.start(getEventTick(),
+                this.landingQueue.size());
+        // the aircraft furthest forward in the queue whose type has an unoccupied gate
+        Set<AircraftType> typesWithGates = findTypesWithUnoccupiedGates();
+        Aircraft landingAircraft = this.landingQueue.peekAircraft(typesWithGates);
         if (landingAircraft == null) {
-            // there are no aircraft in the landing queue waiting to land
+            // there are no aircraft in the landing queue that can be parked
+            attempt.finish(null);
             return false;
         }
         try {
             // park the aircraft to the suitable gate
-            findUnoccupiedGate(landingAircraft).parkAircraft(landingAircraft);
+            Gate gate = findUnoccupiedGate(landingAircraft);
+            gate.parkAircraft(landingAircraft);
+            int id = register(landingAircraft);
+            this.gates[id] = gate;
 
             // remove the aircraft from the landing queue
             // and unload the aircraft's passengers or freight immediately
-            this.landingQueue.removeAircraft().unload();
+            this.landingQueue.removeAircraft(typesWithGates).unload();
+            publish((listener, tick) -> listener.aircraftLanded(tick, landingAircraft));
+            publish((listener, tick) -> listener.aircraftParked(tick, landingAircraft, gate));
 
             // the landed aircraft should move on to the next task
             landingAircraft.getTaskList().moveToNextTask();
+            publishTaskAdvanced(landingAircraft);
+            attempt.finish(landingAircraft);
             return true;
 
         } catch (NoSuitableGateException | NoSpaceException ex) {
             // return false if there is no suitable gate for landing
             // NoSpaceException would not be thrown
+            attempt.finish(null);
             return false;
         }
     }
@@ -279,14 +856,18 @@ public class ControlTower implements Tickable {
      * queue and it should move to the next task in its task list.
      */
     public void tryTakeOffAircraft() {
+        TakeoffEvent takeoff = TakeoffEvent.start(getEventTick());
         // remove the aircraft at the front of the takeoff queue if any
         Aircraft takeoffAircraft = this.takeoffQueue.removeAircraft();
         if (takeoffAircraft == null) {
             // there are no aircraft waiting in the takeoff queue
             return;
         }
+        publish((listener, tick) -> listener.aircraftTookOff(tick, takeoffAircraft));
         // the takeoff aircraft should move on to the next task
         takeoffAircraft.getTaskList().moveToNextTask();
+        publishTaskAdvanced(takeoffAircraft);
+        takeoff.finish(takeoffAircraft, this.takeoffQueue);
     }
 
     /**
@@ -298,24 +879,37 @@ public class ControlTower implements Tickable {
      * on to its next task.
      */
     public void loadAircraft() {
-        // a list storing the aircraft that have zero time remaining after updated
+        // the aircraft that have zero time remaining after updated
         List<Aircraft> loadedAircraft = new ArrayList<>();
 
-        for (Aircraft aircraft : loadingAircraft.keySet()) {
-            if (loadingAircraft.get(aircraft) - 1 == 0) {
-                loadedAircraft.add(aircraft);
+        // update the time remaining to load, removing the loaded aircraft from the loading map
+        if (numLoading > 0) {
+            loadingVersion++;
+        }
+        int numStillLoading = 0;
+        for (int i = 0; i < numLoading; i++) {
+            int id = loadingIds[i];
+            if (--loadingTicks[id] == 0) {
+                loadingTicks[id] = NOT_LOADING;
+                loadedAircraft.add(registry.getAircraft(id));
             } else {
-                // updates the time remaining to load
-                loadingAircraft.put(aircraft, loadingAircraft.get(aircraft) - 1);
+                loadingIds[numStillLoading++] = id;
             }
         }
+        numLoading = numStillLoading;
+
         for (Aircraft aircraft : loadedAircraft) {
-            // remove from the loading map
-            loadingAircraft.remove(aircraft);
+            this.loadingScheduler.loadingFinished(aircraft);
+            LoadingCompletedEvent completed = LoadingCompletedEvent.start(getEventTick());
+            publish((listener, tick) -> listener.loadingFinished(tick, aircraft));
             // leave the gate it is parked at
-            findGateOfAircraft(aircraft).aircraftLeaves();
+            Gate gate = findGateOfAircraft(aircraft);
+            gate.aircraftLeaves();
+            publish((listener, tick) -> listener.aircraftLeftGate(tick, aircraft, gate));
             // move on to its next task
             aircraft.getTaskList().moveToNextTask();
+            publishTaskAdvanced(aircraft);
+            completed.finish(aircraft, gate);
         }
     }
 
@@ -324,8 +918,10 @@ public class ControlTower implements Tickable {
      */
     public void placeAllAircraftInQueues() {
         for (Aircraft aircraft : allAircraft) {
-            placeAircraftInQueues(aircraft);
+            placeAircraftInQueues(aircraft, false);
         }
+        // give free ground crew to the aircraft waiting for them, in priority order
+        this.loadingScheduler.startLoading();
     }
 
     /**
@@ -337,31 +933,51 @@ public class ControlTower implements Tickable {
      * 3) If the aircraft's current task type is LOAD and the loading map does not already contain
      * the aircraft, it should be added to the loading map with an associated value of
      * Aircraft.getLoadingTime() (this is the number of ticks it will remain in the loading phase).
+     * If the aircraft is parked at a terminal with limited ground resources, it is only added
+     * once the {@link LoadingScheduler} finds a free crew and fuel truck for it.
      *
      * @param aircraft aircraft to move to appropriate queue
      */
     public void placeAircraftInQueues(Aircraft aircraft) {
+        placeAircraftInQueues(aircraft, true);
+    }
+
+    /*
+     * Moves the given aircraft to the appropriate queue. Aircraft waiting for ground crew are only
+     * scheduled if requested, so that placing every aircraft schedules them once, in order.
+     */
+    private void placeAircraftInQueues(Aircraft aircraft, boolean scheduleLoading) {
         // the type of the aircraft's current task
         TaskType currentTaskType = aircraft.getTaskList().getCurrentTask().getType();
 
         if (currentTaskType == TaskType.LAND && (!(landingQueue.containsAircraft(aircraft)))) {
             // add to the landing queue
             landingQueue.addAircraft(aircraft);
+            publish((listener, tick) -> listener.aircraftQueued(tick, aircraft, TaskType.LAND));
         } else if (currentTaskType == TaskType.TAKEOFF
                 && (!(takeoffQueue.containsAircraft(aircraft)))) {
             // add to the takeoff queue
             takeoffQueue.addAircraft(aircraft);
+            publish((listener, tick) -> listener.aircraftQueued(tick, aircraft,
+                    TaskType.TAKEOFF));
         } else if (currentTaskType == TaskType.LOAD && (!(loadingAircraft.containsKey(aircraft)))) {
-            // add to the loading map with an associated value of loading time
-            loadingAircraft.put(aircraft, aircraft.getLoadingTime());
+            if (!loadingScheduler.isWaitingForCrew(aircraft)) {
+                // add to the loading map with an associated value of loading time
+                loadingAircraft.put(aircraft, aircraft.getLoadingTime());
+            } else if (scheduleLoading) {
+                // only the aircraft's terminal has a ground crew that could become free for it
+                loadingScheduler.startLoading(findGateOfAircraft(aircraft).getTerminal());
+            }
         }
     }
 
     /**
      * Advances the simulation by one tick.
      * On each tick, the control tower should perform the following actions:
-     * 1) Call Aircraft.tick() on all aircraft.
-     * 2) Move all aircraft with a current task type of AWAY or WAIT to their next task.
+     * 1) Call Aircraft.tick() on all aircraft, except those waiting for ground crew.
+     * 2) Move all aircraft with a current task type of AWAY or WAIT to their next task. If there
+     *    is an arrival manager, aircraft about to move from AWAY to LAND only do so if it
+     *    releases them; otherwise they hold on their AWAY task.
      * 3) Process loading aircraft by calling loadAircraft().
      * 4) On every second tick, attempt to land an aircraft by calling tryLandAircraft().
      *    If an aircraft cannot be landed, attempt to allow an aircraft to take off instead by
@@ -374,21 +990,57 @@ public class ControlTower implements Tickable {
      */
     @Override
     public void tick() {
+        if (!this.listeners.isEmpty()) {
+            updateEmergencyStates(true);
+            for (TowerListener listener : this.listeners) {
+                listener.beforeTick(this);
+            }
+        }
+        this.eventTick = this.totalTicksElapsed + 1;
+        TickPhaseEvent phase = TickPhaseEvent.start(this.eventTick, TickPhaseEvent.AIRCRAFT);
+
+        // aircraft ready to join the landing queue, if their arrival is being metered
+        List<Aircraft> arriving = new ArrayList<>();
+
         // Call tick() on all other sub-entities
         for (Aircraft aircraft : this.allAircraft) {
+            if (this.loadingScheduler.isWaitingForCrew(aircraft)) {
+                // nothing is loaded onto an aircraft until its ground crew arrive
+                continue;
+            }
             aircraft.tick();
             // move all aircraft with a current task type of AWAY or WAIT to their next task
             if (aircraft.getTaskList().getCurrentTask().getType() == TaskType.AWAY
                 || aircraft.getTaskList().getCurrentTask().getType() == TaskType.WAIT) {
+                if (this.arrivalManager != null
+                        && aircraft.getTaskList().getCurrentTask().getType() == TaskType.AWAY
+                        && aircraft.getTaskList().getNextTask().getType() == TaskType.LAND) {
+                    arriving.add(aircraft);
+                    continue;
+                }
+                aircraft.getTaskList().moveToNextTask();
+                publishTaskAdvanced(aircraft);
+            }
+        }
+        phase = phase.next(TickPhaseEvent.ARRIVALS);
+        // release as many arriving aircraft as the arrival manager allows; the rest hold
+        if (this.arrivalManager != null && !arriving.isEmpty()) {
+            for (Aircraft aircraft : this.arrivalManager.release(arriving,
+                    this.landingQueue.size(), this.eventTick)) {
                 aircraft.getTaskList().moveToNextTask();
+                publishTaskAdvanced(aircraft);
             }
         }
+        // aircraft waiting to land age by one tick
+        this.landingQueue.tick();
+        phase = phase.next(TickPhaseEvent.LOADING);
         // Process loading aircraft
         loadAircraft();
 
         // for each tick() method be called, the number of total ticks elapsed should be added by 1
         this.totalTicksElapsed++;
 
+        phase = phase.next(TickPhaseEvent.RUNWAY);
         // On every second tick, attempt to land an aircraft
         if (getTicksElapsed() % 2 == 0) {
             // if an aircraft cannot be landed, attempt to allow an aircraft to take off instead
@@ -400,9 +1052,15 @@ public class ControlTower implements Tickable {
             // an aircraft should be allowed to take off instead
             tryTakeOffAircraft();
         }
+        phase = phase.next(TickPhaseEvent.QUEUES);
         // place all aircraft in their appropriate queues
         placeAllAircraftInQueues();
+        phase.finish();
 
+        this.eventTick = -1;
+        for (TowerListener listener : this.listeners) {
+            listener.afterTick(this);
+        }
     }
 
     /**
@@ -423,4 +1081,159 @@ public class ControlTower implements Tickable {
                 takeoffQueue.getAircraftInOrder().size(),
                 loadingAircraft.size());
     }
+
+    /*
+     * Returns the id of the given aircraft, registering it first if necessary, and makes sure the
+     * arrays indexed by aircraft id are large enough to hold it
+     */
+    private int register(Aircraft aircraft) {
+        int registered = this.registry.size();
+        int id = this.registry.register(aircraft);
+        if (id >= this.loadingTicks.length) {
+            int oldLength = this.loadingTicks.length;
+            int newLength = Math.max(16, Math.max(oldLength * 2, id + 1));
+            this.loadingTicks = Arrays.copyOf(this.loadingTicks, newLength);
+            Arrays.fill(this.loadingTicks, oldLength, newLength, NOT_LOADING);
+            this.gates = Arrays.copyOf(this.gates, newLength);
+            this.aircraftEmergencies = Arrays.copyOf(this.aircraftEmergencies, newLength);
+        }
+        if (id == registered) {
+            // a newly registered aircraft starts from its current emergency state
+            this.aircraftEmergencies[id] = aircraft.hasEmergency();
+        }
+        return id;
+    }
+
+    /*
+     * Mapping of loading aircraft to their remaining load times, backed by the tower's arrays
+     * indexed by aircraft id. Aircraft are iterated in the order they were added to the tower, so
+     * the order does not depend on when each started loading.
+     */
+    private class LoadingAircraftMap extends AbstractMap<Aircraft, Integer> {
+        @Override
+        public int size() {
+            return numLoading;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return loadingId(key) != AircraftRegistry.NO_ID;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            int id = loadingId(key);
+            return id == AircraftRegistry.NO_ID ? null : loadingTicks[id];
+        }
+
+        @Override
+        public Integer put(Aircraft aircraft, Integer ticksRemaining) {
+            int id = register(aircraft);
+            Integer previous = loadingTicks[id] == NOT_LOADING ? null : loadingTicks[id];
+            if (previous == null) {
+                if (numLoading == loadingIds.length) {
+                    loadingIds = Arrays.copyOf(loadingIds, numLoading * 2);
+                }
+                int index = -Arrays.binarySearch(loadingIds, 0, numLoading, id) - 1;
+                System.arraycopy(loadingIds, index, loadingIds, index + 1, numLoading - index);
+                loadingIds[index] = id;
+                numLoading++;
+            }
+            loadingTicks[id] = ticksRemaining;
+            loadingVersion++;
+            if (previous == null) {
+                loadingScheduler.loadingStarted(aircraft);
+            }
+            return previous;
+        }
+
+        @Override
+        public Integer remove(Object key) {
+            int id = loadingId(key);
+            if (id == AircraftRegistry.NO_ID) {
+                return null;
+            }
+            Integer previous = loadingTicks[id];
+            loadingTicks[id] = NOT_LOADING;
+            int index = Arrays.binarySearch(loadingIds, 0, numLoading, id);
+            System.arraycopy(loadingIds, index + 1, loadingIds, index, numLoading - index - 1);
+            numLoading--;
+            loadingVersion++;
+            loadingScheduler.loadingFinished(registry.getAircraft(id));
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            for (int i = 0; i < numLoading; i++) {
+                loadingTicks[loadingIds[i]] = NOT_LOADING;
+                loadingScheduler.loadingFinished(registry.getAircraft(loadingIds[i]));
+            }
+            numLoading = 0;
+            loadingVersion++;
+        }
+
+        @Override
+        public Set<Entry<Aircraft, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return numLoading;
+                }
+
+                @Override
+                public Iterator<Entry<Aircraft, Integer>> iterator() {
+                    return new Iterator<>() {
+                        /* index in loadingIds of the next entry */
+                        private int next = 0;
+
+                        /* id of the aircraft of the last entry returned; NO_ID if removed */
+                        private int last = AircraftRegistry.NO_ID;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < numLoading;
+                        }
+
+                        @Override
+                        public Entry<Aircraft, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int id = loadingIds[next++];
+                            last = id;
+                            return new SimpleEntry<>(registry.getAircraft(id), loadingTicks[id]) {
+                                @Override
+                                public Integer setValue(Integer ticksRemaining) {
+                                    loadingTicks[id] = ticksRemaining;
+                                    loadingVersion++;
+                                    return super.setValue(ticksRemaining);
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == AircraftRegistry.NO_ID) {
+                                throw new IllegalStateException();
+                            }
+                            LoadingAircraftMap.this.remove(registry.getAircraft(last));
+                            last = AircraftRegistry.NO_ID;
+                            next--;
+                        }
+                    };
+                }
+            };
+        }
+
+        /* Returns the id of the given key if it is a loading aircraft, otherwise NO_ID */
+        private int loadingId(Object key) {
+            if (!(key instanceof Aircraft)) {
+                return AircraftRegistry.NO_ID;
+            }
+            int id = registry.getId((Aircraft) key);
+            return id != AircraftRegistry.NO_ID && loadingTicks[id] != NOT_LOADING
+                    ? id : AircraftRegistry.NO_ID;
+        }
+    }
 }
@@ -6,20 +6,31 @@ import towersim.aircraft.FreightAircraft;
 import towersim.aircraft.PassengerAircraft;
 import towersim.ground.AirplaneTerminal;
 import towersim.ground.Gate;
+import towersim.ground.GroundResources;
 import towersim.ground.HelicopterTerminal;
 import towersim.ground.Terminal;
 import towersim.tasks.Task;
 import towersim.tasks.TaskList;
 import towersim.tasks.TaskType;
+import towersim.telemetry.SaveFileEvent;
 import towersim.util.MalformedSaveException;
 import towersim.util.NoSpaceException;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utility class that contains static methods for loading a control tower and
  * associated entities from files.
+ * <p>
+ * Files are read within the limits of a {@link SaveLimits}, {@link SaveLimits#DEFAULT} unless
+ * other limits are given. A file breaking a limit is invalid, and is rejected as soon as the limit
+ * is passed, without reading the rest of the offending line or the entities counted.
  */
 public class ControlTowerInitialiser {
     /**
@@ -34,16 +45,28 @@ public class ControlTowerInitialiser {
      * @throws IOException if an IOException is encountered when reading from the reader
      */
     public static long loadTick(Reader reader) throws MalformedSaveException, IOException {
-        try (BufferedReader tickRead = new BufferedReader(reader)) {
+        return loadTick(reader, SaveLimits.DEFAULT, new AtomicLong());
+    }
+
+    /* Loads the number of ticks elapsed within the given limits */
+    private static long loadTick(Reader reader, SaveLimits limits, AtomicLong charsRead)
+            throws MalformedSaveException, IOException {
+        SaveFileEvent event = new SaveFileEvent(SaveFileEvent.LOAD, SaveFileEvent.TICK_FILE);
+        try (BufferedReader tickRead = new BoundedReader(reader, limits, charsRead)) {
             long ticks = Long.parseLong(tickRead.readLine());
             if (ticks < 0) {
                 // the number of ticks elapsed is less than zero.
                 throw new MalformedSaveException();
             }
+            event.succeeded(1);
             return ticks;
         } catch (NumberFormatException ex) {
             // the number of ticks elapsed is not an integer
             throw new MalformedSaveException();
+        } catch (BoundedReader.LimitExceededException ex) {
+            throw limitExceeded(ex);
+        } finally {
+            event.finish();
         }
     }
 
@@ -54,6 +77,7 @@ public class ControlTowerInitialiser {
      * 2) The number of aircraft specified on the first line is not equal to the number of aircraft
      *    actually read from the reader.
      * 3) Any of the conditions listed in the Javadoc for readAircraft(String) are true.
+     * 4) The number of aircraft specified on the first line is greater than the limit.
      *
      * @param reader reader from which to load the list of aircraft
      * @return list of aircraft read from the reader
@@ -62,18 +86,35 @@ public class ControlTowerInitialiser {
      */
     public static List<Aircraft> loadAircraft(Reader reader)
             throws IOException, MalformedSaveException {
+        return loadAircraft(reader, SaveLimits.DEFAULT, new AtomicLong());
+    }
+
+    /* Loads the list of all aircraft within the given limits */
+    private static List<Aircraft> loadAircraft(Reader reader, SaveLimits limits,
+            AtomicLong charsRead) throws IOException, MalformedSaveException {
         // stores aircraft read from the reader
         List<Aircraft> allAircraft = new ArrayList<>();
 
-        try (BufferedReader aircraftReader = new BufferedReader(reader)) {
+        SaveFileEvent event = new SaveFileEvent(SaveFileEvent.LOAD, SaveFileEvent.AIRCRAFT_FILE);
+        try (BufferedReader aircraftReader = new BoundedReader(reader, limits, charsRead)) {
             int numAircraft = tryParse(aircraftReader.readLine());
+            checkLimit(numAircraft, limits.getMaxAircraft(), "aircraft");
             String nextLine;
             while ((nextLine = aircraftReader.readLine()) != null) {
+                if (allAircraft.size() >= numAircraft) {
+                    // more aircraft than specified, so stop before reading any more
+                    throw new MalformedSaveException();
+                }
                 allAircraft.add(readAircraft(nextLine));
             }
             // check whether the number of aircraft specified on the first line is equal to
             // the number of aircraft actually read from the reader
             checkLength(allAircraft.size(), numAircraft);
+            event.succeeded(allAircraft.size());
+        } catch (BoundedReader.LimitExceededException ex) {
+            throw limitExceeded(ex);
+        } finally {
+            event.finish();
         }
         return allAircraft;
     }
@@ -93,11 +134,34 @@ public class ControlTowerInitialiser {
     public static void loadQueues(Reader reader, List<Aircraft> aircraft, TakeoffQueue takeoffQueue,
                                   LandingQueue landingQueue, Map<Aircraft, Integer> loadingAircraft)
             throws MalformedSaveException, IOException {
-        BufferedReader bufferedReader = new BufferedReader(reader);
-        readQueue(bufferedReader, aircraft, takeoffQueue);
-        readQueue(bufferedReader, aircraft, landingQueue);
-        readLoadingAircraft(bufferedReader, aircraft, loadingAircraft);
-        bufferedReader.close();
+        loadQueues(reader, new CallsignLinks(new CallsignIndex(aircraft)), takeoffQueue,
+                landingQueue, loadingAircraft, SaveLimits.DEFAULT, new AtomicLong());
+    }
+
+    /*
+     * Loads the queues and loading map within the given limits, adding the aircraft to them
+     * through the given callsign links
+     */
+    private static void loadQueues(Reader reader, CallsignLinks links,
+            TakeoffQueue takeoffQueue, LandingQueue landingQueue,
+            Map<Aircraft, Integer> loadingAircraft, SaveLimits limits, AtomicLong charsRead)
+            throws MalformedSaveException, IOException {
+        SaveFileEvent event = new SaveFileEvent(SaveFileEvent.LOAD, SaveFileEvent.QUEUES_FILE);
+        try {
+            BufferedReader bufferedReader = new BoundedReader(reader, limits, charsRead);
+            int numAircraft = readQueue(bufferedReader, links, takeoffQueue,
+                    limits.getMaxAircraft());
+            numAircraft += readQueue(bufferedReader, links, landingQueue,
+                    limits.getMaxAircraft());
+            numAircraft += readLoadingAircraft(bufferedReader, links, loadingAircraft,
+                    limits.getMaxAircraft());
+            bufferedReader.close();
+            event.succeeded(numAircraft);
+        } catch (BoundedReader.LimitExceededException ex) {
+            throw limitExceeded(ex);
+        } finally {
+            event.finish();
+        }
     }
 
     /**
@@ -106,6 +170,7 @@ public class ControlTowerInitialiser {
      * 1) The number of terminals specified at the top of the file is not an integer.
      * 2) The number of terminals specified is not equal to the number of terminals actually
      *    read from the reader.
+     * 3) The number of terminals specified is greater than the limit.
      *
      * @param reader reader from which to load the list of terminals and their gates
      * @param aircraft list of all aircraft, used when validating that callsigns exist
@@ -115,18 +180,40 @@ public class ControlTowerInitialiser {
      */
     public static List<Terminal> loadTerminalsWithGates(Reader reader, List<Aircraft> aircraft)
             throws MalformedSaveException, IOException {
+        return loadTerminalsWithGates(reader, new CallsignLinks(new CallsignIndex(aircraft)),
+                SaveLimits.DEFAULT, new AtomicLong());
+    }
+
+    /*
+     * Loads the terminals and gates within the given limits, parking aircraft at the gates
+     * through the given callsign links
+     */
+    private static List<Terminal> loadTerminalsWithGates(Reader reader, CallsignLinks links,
+            SaveLimits limits, AtomicLong charsRead) throws MalformedSaveException, IOException {
         // stores terminals read from the reader
         List<Terminal> terminals = new ArrayList<>();
 
-        try (BufferedReader bufferedReader = new BufferedReader(reader)) {
+        SaveFileEvent event = new SaveFileEvent(SaveFileEvent.LOAD,
+                SaveFileEvent.TERMINALS_FILE);
+        try (BufferedReader bufferedReader = new BoundedReader(reader, limits, charsRead)) {
             int numTerminals = tryParse(bufferedReader.readLine());
+            checkLimit(numTerminals, limits.getMaxTerminals(), "terminals");
             String nextLine;
             while ((nextLine = bufferedReader.readLine()) != null) {
-                terminals.add(readTerminal(nextLine, bufferedReader, aircraft));
+                if (terminals.size() >= numTerminals) {
+                    // more terminals than specified, so stop before reading any more
+                    throw new MalformedSaveException();
+                }
+                terminals.add(readTerminal(nextLine, bufferedReader, links));
             }
             // check whether the number of terminals specified is equal to
             // the number of terminals actually read from the reader or not
             checkLength(terminals.size(), numTerminals);
+            event.succeeded(terminals.size());
+        } catch (BoundedReader.LimitExceededException ex) {
+            throw limitExceeded(ex);
+        } finally {
+            event.finish();
         }
         return terminals;
     }
@@ -147,16 +234,140 @@ public class ControlTowerInitialiser {
     public static ControlTower createControlTower(Reader tick, Reader aircraft,
                                                   Reader queues, Reader terminalsWithGates)
             throws MalformedSaveException, IOException {
-        long numTicks = loadTick(tick);
-        List<Aircraft> allAircraft = loadAircraft(aircraft);
-        List<Terminal> allTerminals = loadTerminalsWithGates(terminalsWithGates, allAircraft);
+        return createControlTower(tick, aircraft, queues, terminalsWithGates, SaveLimits.DEFAULT);
+    }
+
+    /**
+     * Creates a control tower instance by reading various airport entities from the given readers,
+     * rejecting the save if it breaks any of the given limits. The limit on the total number of
+     * characters applies to the four readers together.
+     *
+     * @param tick reader from which to load the number of ticks elapsed
+     * @param aircraft reader from which to load the list of aircraft
+     * @param queues reader from which to load the aircraft queues and map of loading aircraft
+     * @param terminalsWithGates reader from which to load the terminals and their gates
+     * @param limits limits on the size of the save
+     * @return control tower created by reading from the given readers
+     * @throws MalformedSaveException if reading from any of the given readers results in a
+     *                                MalformedSaveException, indicating the contents of that
+     *                                reader are invalid or break a limit
+     * @throws IOException if an IOException is encountered when reading from any of the readers
+     */
+    public static ControlTower createControlTower(Reader tick, Reader aircraft,
+                                                  Reader queues, Reader terminalsWithGates,
+                                                  SaveLimits limits)
+            throws MalformedSaveException, IOException {
+        // characters read from all four files, counted against the limit on the total
+        AtomicLong charsRead = new AtomicLong();
+        long numTicks = loadTick(tick, limits, charsRead);
+        List<Aircraft> allAircraft = loadAircraft(aircraft, limits, charsRead);
+        // look up callsigns through an index rather than searching the list of aircraft
+        CallsignIndex callsignIndex = new CallsignIndex(allAircraft);
+        List<Terminal> allTerminals = loadTerminalsWithGates(terminalsWithGates,
+                new CallsignLinks(callsignIndex), limits, charsRead);
         // initialize landing queue, takeoff queue and map of loading aircraft before load queues
         LandingQueue landingQueue = new LandingQueue();
         TakeoffQueue takeoffQueue = new TakeoffQueue();
         Map<Aircraft, Integer> loadingAircraft = new
                 TreeMap<>(Comparator.comparing(Aircraft::getCallsign));
-        loadQueues(queues, allAircraft, takeoffQueue, landingQueue, loadingAircraft);
+        loadQueues(queues, new CallsignLinks(callsignIndex), takeoffQueue, landingQueue,
+                loadingAircraft, limits, charsRead);
 
+        return newControlTower(numTicks, allAircraft, landingQueue, takeoffQueue,
+                loadingAircraft, allTerminals);
+    }
+
+    /**
+     * Creates a control tower instance by reading the four files of a save at the same time,
+     * rejecting the save if it breaks any of the given limits.
+     * <p>
+     * The aircraft file is read by the calling thread while the other three files are read by
+     * tasks run on the given executor, so loading takes little longer than reading the largest
+     * file. The queues and gates refer to aircraft by callsign; these references are held as the
+     * files are read and bound to the aircraft once all the files have been read. An invalid save
+     * is reported with the same exception as
+     * {@link #createControlTower(Reader, Reader, Reader, Reader, SaveLimits)}, which reads the
+     * files one after another: if more than one file is invalid, the exception is that of the
+     * file that would have been read first. The characters of each file are counted separately
+     * and added to the total in that same order once all the files have been read, so the file
+     * reported as passing the limit on the total does not depend on which file was read fastest.
+     * The method returns only once all four files have been read, whether or not the save is
+     * valid.
+     *
+     * @param tick reader from which to load the number of ticks elapsed
+     * @param aircraft reader from which to load the list of aircraft
+     * @param queues reader from which to load the aircraft queues and map of loading aircraft
+     * @param terminalsWithGates reader from which to load the terminals and their gates
+     * @param limits limits on the size of the save
+     * @param executor executor to read the tick, queues and terminals files on
+     * @return control tower created by reading from the given readers
+     * @throws MalformedSaveException if reading from any of the given readers results in a
+     *                                MalformedSaveException, indicating the contents of that
+     *                                reader are invalid or break a limit
+     * @throws IOException if an IOException is encountered when reading from any of the readers,
+     *                     or the calling thread is interrupted while waiting for them to be read
+     */
+    public static ControlTower createControlTower(Reader tick, Reader aircraft,
+                                                  Reader queues, Reader terminalsWithGates,
+                                                  SaveLimits limits, Executor executor)
+            throws MalformedSaveException, IOException {
+        // characters read from each file, each counted against the limit on the total alone
+        AtomicLong tickChars = new AtomicLong();
+        AtomicLong aircraftChars = new AtomicLong();
+        AtomicLong terminalsChars = new AtomicLong();
+        AtomicLong queuesChars = new AtomicLong();
+        LandingQueue landingQueue = new LandingQueue();
+        TakeoffQueue takeoffQueue = new TakeoffQueue();
+        Map<Aircraft, Integer> loadingAircraft = new
+                TreeMap<>(Comparator.comparing(Aircraft::getCallsign));
+        // references to aircraft, bound once the aircraft have been read
+        CallsignLinks terminalLinks = new CallsignLinks();
+        CallsignLinks queueLinks = new CallsignLinks();
+
+        FutureTask<Long> tickFile = new FutureTask<>(() -> loadTick(tick, limits, tickChars));
+        FutureTask<List<Terminal>> terminalsFile = new FutureTask<>(() ->
+                loadTerminalsWithGates(terminalsWithGates, terminalLinks, limits, terminalsChars));
+        FutureTask<Void> queuesFile = new FutureTask<>(() -> {
+            loadQueues(queues, queueLinks, takeoffQueue, landingQueue, loadingAircraft, limits,
+                    queuesChars);
+            return null;
+        });
+        executor.execute(tickFile);
+        executor.execute(terminalsFile);
+        executor.execute(queuesFile);
+
+        List<Aircraft> allAircraft = null;
+        Throwable aircraftError = null;
+        try {
+            allAircraft = loadAircraft(aircraft, limits, aircraftChars);
+        } catch (MalformedSaveException | IOException | RuntimeException ex) {
+            aircraftError = ex;
+        }
+        awaitAll(tickFile, terminalsFile, queuesFile);
+
+        // report errors in the order the files are read when read one after another
+        long totalChars = addToTotal(0, tickChars, limits);
+        long numTicks = loaded(tickFile);
+        totalChars = addToTotal(totalChars, aircraftChars, limits);
+        if (aircraftError != null) {
+            throw unwrap(aircraftError);
+        }
+        CallsignIndex callsignIndex = new CallsignIndex(allAircraft);
+        totalChars = addToTotal(totalChars, terminalsChars, limits);
+        List<Terminal> allTerminals = loaded(terminalsFile);
+        terminalLinks.link(callsignIndex);
+        addToTotal(totalChars, queuesChars, limits);
+        loaded(queuesFile);
+        queueLinks.link(callsignIndex);
+
+        return newControlTower(numTicks, allAircraft, landingQueue, takeoffQueue,
+                loadingAircraft, allTerminals);
+    }
+
+    /* Creates a control tower from the entities loaded from a save */
+    private static ControlTower newControlTower(long numTicks, List<Aircraft> allAircraft,
+            LandingQueue landingQueue, TakeoffQueue takeoffQueue,
+            Map<Aircraft, Integer> loadingAircraft, List<Terminal> allTerminals) {
         ControlTower controlTower = new ControlTower(numTicks, allAircraft, landingQueue,
                 takeoffQueue, loadingAircraft);
         for (Terminal terminal : allTerminals) {
@@ -165,6 +376,69 @@ public class ControlTowerInitialiser {
         return controlTower;
     }
 
+    /*
+     * Adds the characters read from a file to the total read from the files before it, rejecting
+     * the save if this passes the limit on the total. Read one after another, the file's
+     * characters are counted as they are read, so passing the limit is reported ahead of any
+     * other error the file has.
+     */
+    private static long addToTotal(long charsBefore, AtomicLong fileChars, SaveLimits limits)
+            throws MalformedSaveException {
+        long totalChars = charsBefore + fileChars.get();
+        if (totalChars > limits.getMaxTotalChars()) {
+            throw limitExceeded(BoundedReader.totalExceeded(limits.getMaxTotalChars()));
+        }
+        return totalChars;
+    }
+
+    /* Waits for all of the given files to finish loading, successfully or not */
+    private static void awaitAll(Future<?>... files) throws InterruptedIOException {
+        for (Future<?> file : files) {
+            try {
+                file.get();
+            } catch (ExecutionException ex) {
+                // reported in order once all files have been loaded
+            } catch (InterruptedException ex) {
+                for (Future<?> eachFile : files) {
+                    eachFile.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while loading save");
+            }
+        }
+    }
+
+    /* Returns a file loaded by another thread, rethrowing any exception thrown loading it */
+    private static <T> T loaded(Future<T> file) throws MalformedSaveException, IOException {
+        try {
+            return file.get();
+        } catch (ExecutionException ex) {
+            throw unwrap(ex.getCause());
+        } catch (InterruptedException ex) {
+            // not possible, the file has already been loaded
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading save");
+        }
+    }
+
+    /*
+     * Returns the given exception thrown while loading a file, for the caller to throw; or throws
+     * it directly if it is not a MalformedSaveException
+     */
+    private static MalformedSaveException unwrap(Throwable error) throws IOException {
+        if (error instanceof MalformedSaveException) {
+            return (MalformedSaveException) error;
+        } else if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        }
+        // not possible, loading only throws the exceptions above
+        throw new IllegalStateException(error);
+    }
+
     /**
      * Reads an aircraft from its encoded representation in the given string.
      * If the AircraftCharacteristics.passengerCapacity of the encoded aircraft is greater than
@@ -300,6 +574,7 @@ public class ControlTowerInitialiser {
      *    specified on the first line.
      * 7) A callsign listed on the second line does not correspond to the callsign of any aircraft
      *    contained in the list of aircraft given as a parameter.
+     * 8) The number of aircraft specified on the first line is greater than the limit.
      *
      * @param reader reader from which to load the aircraft queue
      * @param aircraft list of all aircraft, used when validating that callsigns exist
@@ -310,8 +585,20 @@ public class ControlTowerInitialiser {
     public static void readQueue(BufferedReader reader,
                                   List<Aircraft> aircraft, AircraftQueue queue)
             throws IOException, MalformedSaveException {
+        readQueue(reader, new CallsignLinks(new CallsignIndex(aircraft)), queue,
+                SaveLimits.DEFAULT.getMaxAircraft());
+    }
+
+    /*
+     * Reads an aircraft queue of at most the given number of aircraft, adding the aircraft to the
+     * queue through the given callsign links. Returns the number of aircraft read.
+     */
+    private static int readQueue(BufferedReader reader, CallsignLinks links,
+            AircraftQueue queue, int maxAircraft) throws IOException, MalformedSaveException {
         // the number of aircraft (information extract from the first line)
         int numAircraft = readQueueFirstLine(reader.readLine(), queue);
+        checkLimit(numAircraft, maxAircraft,
+                "aircraft in the " + queue.getClass().getSimpleName());
 
         if (numAircraft > 0) {
             try {
@@ -320,17 +607,17 @@ public class ControlTowerInitialiser {
                 // the number of aircraft specified on the first line
                 checkLength(callsigns.length, numAircraft);
 
-                for (String callsign : callsigns) {
-                    for (Aircraft anAircraft : aircraft) {
-                        if (anAircraft.getCallsign().equals(callsign)) {
+                links.add(aircraft -> {
+                    for (String callsign : callsigns) {
+                        Aircraft anAircraft = aircraft.find(callsign);
+                        if (anAircraft != null) {
                             queue.addAircraft(anAircraft);
-                            break;
                         }
                     }
-                }
-                // check if all callsign listed on the second line corresponds to the
-                // callsign of any aircraft contained in the given list of aircraft
-                checkLength(queue.getAircraftInOrder().size(), callsigns.length);
+                    // check if all callsign listed on the second line corresponds to the
+                    // callsign of any aircraft contained in the given list of aircraft
+                    checkLength(queue.getAircraftInOrder().size(), callsigns.length);
+                });
 
             } catch (NullPointerException nullPointerException) {
                 // the number of aircraft specified is greater than zero but
@@ -338,6 +625,7 @@ public class ControlTowerInitialiser {
                 throw new MalformedSaveException();
             }
         }
+        return numAircraft;
     }
 
     /**
@@ -384,6 +672,7 @@ public class ControlTowerInitialiser {
      *    contained in the list of aircraft given as a parameter.
      * 8) Any ticksRemaining value on the second line is not an integer.
      * 9) Any ticksRemaining value on the second line is less than one.
+     * 10) The number of aircraft specified on the first line is greater than the limit.
      *
      * @param reader reader from which to load the map of loading aircraft
      * @param aircraft list of all aircraft, used when validating that callsigns exist
@@ -394,8 +683,20 @@ public class ControlTowerInitialiser {
     public static void readLoadingAircraft(BufferedReader reader, List<Aircraft> aircraft,
                                             Map<Aircraft, Integer> loadingAircraft)
             throws IOException, MalformedSaveException {
+        readLoadingAircraft(reader, new CallsignLinks(new CallsignIndex(aircraft)),
+                loadingAircraft, SaveLimits.DEFAULT.getMaxAircraft());
+    }
+
+    /*
+     * Reads the map of at most the given number of loading aircraft, adding the aircraft to the
+     * map through the given callsign links. Returns the number of aircraft read.
+     */
+    private static int readLoadingAircraft(BufferedReader reader, CallsignLinks links,
+            Map<Aircraft, Integer> loadingAircraft, int maxAircraft)
+            throws IOException, MalformedSaveException {
         // the number of aircraft (information extract from the first line)
         int numAircraft = readQueueFirstLine(reader.readLine(), null);
+        checkLimit(numAircraft, maxAircraft, "loading aircraft");
 
         if (numAircraft > 0) {
             try {
@@ -404,30 +705,37 @@ public class ControlTowerInitialiser {
                 // number of callsigns read on the second line or not
                 checkLength(allAircraftInformation.length, numAircraft);
 
-                for (String eachAircraft : allAircraftInformation) {
-                    String[] aircraftInformation = eachAircraft.split(":", 2);
+                String[] callsigns = new String[numAircraft];
+                int[] loadingTimes = new int[numAircraft];
+                for (int i = 0; i < numAircraft; i++) {
+                    String[] aircraftInformation = allAircraftInformation[i].split(":", 2);
                     // throw an exception if the number of colons detected is less than one
                     checkLength(aircraftInformation.length, 2);
 
-                    int loadingTime = tryParse(aircraftInformation[1]);
-                    checkLessThan(1, loadingTime);
-                    for (Aircraft anAircraft : aircraft) {
-                        if (aircraftInformation[0].equals(anAircraft.getCallsign())) {
-                            loadingAircraft.put(anAircraft, loadingTime);
-                            break;
+                    loadingTimes[i] = tryParse(aircraftInformation[1]);
+                    checkLessThan(1, loadingTimes[i]);
+                    callsigns[i] = aircraftInformation[0];
+                }
+
+                links.add(aircraft -> {
+                    for (int i = 0; i < callsigns.length; i++) {
+                        Aircraft anAircraft = aircraft.find(callsigns[i]);
+                        if (anAircraft != null) {
+                            loadingAircraft.put(anAircraft, loadingTimes[i]);
                         }
                     }
-                }
-                // check all callsigns listed on the second line corresponds to
-                // a callsign of any aircraft contained in the list of aircraft
-                // given as a parameter
-                checkLength(loadingAircraft.size(), allAircraftInformation.length);
+                    // check all callsigns listed on the second line corresponds to
+                    // a callsign of any aircraft contained in the list of aircraft
+                    // given as a parameter
+                    checkLength(loadingAircraft.size(), callsigns.length);
+                });
 
             } catch (NullPointerException ex) {
                 // the number of aircraft is greater than 0 but the second line is null
                 throw new MalformedSaveException();
             }
         }
+        return numAircraft;
     }
 
     /**
@@ -442,6 +750,8 @@ public class ControlTowerInitialiser {
      * 6）The number of gates is less than zero or is greater than Terminal.MAX_NUM_GATES.
      * 7）A line containing an encoded gate was expected, but EOF (end of file) was received.
      * 8）Any of the conditions listed in the Javadoc for readGate(String, List) are true.
+     * 9）The terminal has ground resources and any of their numbers is not an integer or is
+     *    less than zero.
      *
      * @param line string containing the first line of the encoded terminal
      * @param reader reader from which to load the gates of the terminal (subsequent lines)
@@ -453,9 +763,18 @@ public class ControlTowerInitialiser {
      */
     public static Terminal readTerminal(String line, BufferedReader reader, List<Aircraft> aircraft)
             throws IOException, MalformedSaveException {
-        String[] terminalInformation = line.split(":", 4);
-        // throw an exception if the number of colons detected is fewer than expected
-        checkLength(terminalInformation.length, 4);
+        return readTerminal(line, reader, new CallsignLinks(new CallsignIndex(aircraft)));
+    }
+
+    /* Reads a terminal and its gates, parking aircraft through the given callsign links */
+    private static Terminal readTerminal(String line, BufferedReader reader,
+            CallsignLinks links) throws IOException, MalformedSaveException {
+        String[] terminalInformation = line.split(":", -1);
+        // the ground resources are optional, taking up the last three fields if present
+        if (terminalInformation.length != 7) {
+            // throw an exception if the number of colons detected is more/fewer than expected
+            checkLength(terminalInformation.length, 4);
+        }
 
         int terminalNumber = tryParse(terminalInformation[1]);
         // throw an exception if the terminal number is less than 1
@@ -483,10 +802,22 @@ public class ControlTowerInitialiser {
             terminalRead.declareEmergency();
         }
 
+        if (terminalInformation.length == 7) {
+            int passengerCrews = tryParse(terminalInformation[4]);
+            int freightCrews = tryParse(terminalInformation[5]);
+            int fuelTrucks = tryParse(terminalInformation[6]);
+            // throw an exception if any of the numbers of ground resources is negative
+            checkLessThan(0, passengerCrews);
+            checkLessThan(0, freightCrews);
+            checkLessThan(0, fuelTrucks);
+            terminalRead.setGroundResources(
+                    new GroundResources(passengerCrews, freightCrews, fuelTrucks));
+        }
+
         for (int i = 0; i < numGates; i++) {
             try {
                 String gateLine = reader.readLine();
-                terminalRead.addGate(readGate(gateLine, aircraft));
+                terminalRead.addGate(readGate(gateLine, links));
             } catch (NullPointerException | NoSpaceException ex) {
                 // a line containing an encoded gate was expected, but the end of file was received
                 throw new MalformedSaveException();
@@ -514,6 +845,12 @@ public class ControlTowerInitialiser {
      */
     public static Gate readGate(String line, List<Aircraft> aircraft)
             throws MalformedSaveException {
+        return readGate(line, new CallsignLinks(new CallsignIndex(aircraft)));
+    }
+
+    /* Reads a gate, parking the aircraft at it through the given callsign links */
+    private static Gate readGate(String line, CallsignLinks links)
+            throws MalformedSaveException {
         String[] gateInformation = line.split(":", 2);
         // throw an exception if the number of colons (:) detected was fewer than expected
         checkLength(gateInformation.length, 2);
@@ -526,21 +863,19 @@ public class ControlTowerInitialiser {
 
         String callsign = gateInformation[1];
         if (!(callsign.equals("empty"))) {
-            for (Aircraft eachAircraft : aircraft) {
-                if (eachAircraft.getCallsign().equals(callsign)) {
-                    try {
-                        gate.parkAircraft(eachAircraft);
-                    } catch (NoSpaceException ignored) {
-                        // the exception will never be thrown in this case
-                    }
-                    break;
+            links.add(aircraft -> {
+                Aircraft parkedAircraft = aircraft.find(callsign);
+                if (parkedAircraft == null) {
+                    // the callsign does not correspond to the callsign of
+                    // any aircraft contained in the list of aircraft
+                    throw new MalformedSaveException();
                 }
-            }
-            if (!gate.isOccupied()) {
-                // the callsign does not correspond to the callsign of
-                // any aircraft contained in the list of aircraft
-                throw new MalformedSaveException();
-            }
+                try {
+                    gate.parkAircraft(parkedAircraft);
+                } catch (NoSpaceException ignored) {
+                    // the exception will never be thrown in this case
+                }
+            });
         }
         return gate;
     }
@@ -588,4 +923,31 @@ public class ControlTowerInitialiser {
             throw new MalformedSaveException();
         }
     }
+
+    /**
+     * Check if the given count read from a save is within its limit or not.
+     * Throw a MalformedSaveException if it is greater than the limit.
+     *
+     * @param count the count read from a save
+     * @param limit the largest count allowed
+     * @param counted description of what is counted, for the exception's message
+     * @throws MalformedSaveException if the count is greater than the limit
+     */
+    private static void checkLimit(int count, int limit, String counted)
+            throws MalformedSaveException {
+        if (count > limit) {
+            throw new MalformedSaveException("Save has " + count + " " + counted
+                    + ", more than the limit of " + limit);
+        }
+    }
+
+    /**
+     * Convert an exceeded limit on the size of a save into a MalformedSaveException.
+     *
+     * @param ex the exception thrown by the reader when the limit was exceeded
+     * @return the exception to throw
+     */
+    private static MalformedSaveException limitExceeded(BoundedReader.LimitExceededException ex) {
+        return new MalformedSaveException(ex.getMessage(), ex);
+    }
 }
@@ -0,0 +1,827 @@
+package towersim.control;
+
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftType;
+import towersim.ground.AirplaneTerminal;
+import towersim.ground.Gate;
+import towersim.ground.GateAvailabilityListener;
+import towersim.ground.HelicopterTerminal;
+import towersim.ground.Terminal;
+import towersim.tasks.Task;
+import towersim.tasks.TaskList;
+import towersim.tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Forecasts the tick in which each aircraft waiting in a control tower's landing queue will land
+ * and be parked at a gate.
+ * <p>
+ * The forecast follows the rules of {@link ControlTower#tick()}: one aircraft may land on every
+ * second tick, and the aircraft chosen is the one furthest forward in the queue out of the
+ * aircraft whose type has a free gate in a compatible terminal that is not in a state of
+ * emergency. Occupied gates are freed once the aircraft parked at them have finished waiting and
+ * loading, and the gates taken by forecast landings are freed in the same way. The forecast
+ * assumes that the queue and terminals do not change; it is updated whenever they do.
+ * <p>
+ * From the first forecast on, the forecaster listens to the landing queue, the terminals and the
+ * tower, and keeps the forecast up to date as they change rather than working it out again
+ * whenever it is asked for. Landings that happen as forecast are dropped from the front of the
+ * forecast. When aircraft join, leave or move within the queue, the forecast landings before the
+ * first one the change could affect are kept, and only the rest are forecast again, starting from
+ * the nearest saved checkpoint of the forecast state. The gates are only compared with the
+ * forecast when they change in a way it did not expect, such as an emergency at a terminal or an
+ * aircraft waiting for ground crew, and the whole queue is only forecast again if they no longer
+ * match.
+ */
+public class LandingForecaster {
+    /** Forecast landing tick of aircraft that are not expected to land */
+    public static final long UNKNOWN = -1;
+
+    /** Number of forecast landings between saved checkpoints of the forecast state */
+    private static final int CHECKPOINT_INTERVAL = 32;
+
+    /** Tick at which a gate that will never be freed becomes free */
+    private static final long NEVER = Long.MAX_VALUE;
+
+    /** Number of aircraft types */
+    private static final int NUM_TYPES = AircraftType.values().length;
+
+    /** Control tower whose landings are forecast */
+    private final ControlTower tower;
+
+    /** Whether the forecaster is listening to the tower, which it starts doing when first used */
+    private boolean listening;
+
+    /** Place in the landing queue of each aircraft waiting to land */
+    private final Map<Aircraft, Place> places = new IdentityHashMap<>();
+
+    /** Aircraft waiting to land, by place, indexed by aircraft type */
+    private final List<TreeMap<Place, Aircraft>> queued = new ArrayList<>();
+
+    /** Aging policy of the landing queue when the places were found */
+    private AgingPolicy agingPolicy;
+
+    /** Aircraft forecast to land, in the order they are forecast to land, from start to end */
+    private Aircraft[] landings = new Aircraft[16];
+
+    /** Forecast landing tick of each aircraft in {@code landings} */
+    private long[] landingTicks = new long[16];
+
+    /**
+     * Index in {@code landings} of the last landing of each aircraft type up to and including
+     * each landing, or -1 if there is none, indexed by aircraft type
+     */
+    private int[][] lastOfType = new int[NUM_TYPES][16];
+
+    /** Index in {@code landings} of the first forecast landing that has not happened */
+    private int start;
+
+    /** Index in {@code landings} after the last forecast landing */
+    private int end;
+
+    /**
+     * Number of forecast landings made before the one at index 0 of {@code landings}, since the
+     * forecast was last started from scratch
+     */
+    private long baseSequence;
+
+    /** Sequence number of the forecast landing of each aircraft forecast to land */
+    private final Map<Aircraft, Long> sequences = new IdentityHashMap<>();
+
+    /**
+     * Saved forecast states, by the sequence number of the landing about to be forecast. Always
+     * contains the state before the first forecast landing that has not happened.
+     */
+    private final TreeMap<Long, State> checkpoints = new TreeMap<>();
+
+    /**
+     * Aircraft that joined, left or moved within the landing queue since the last update, other
+     * than those that landed as forecast
+     */
+    private final Set<Aircraft> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Number of forecast landings that have happened as forecast since the last update */
+    private int landed;
+
+    /** Whether the whole queue must be forecast again at the next update */
+    private boolean stale;
+
+    /** Whether the gates may no longer match the forecast, so must be compared with it */
+    private boolean gatesChanged;
+
+    /** Whether the tower is part way through a tick */
+    private boolean ticking;
+
+    /** Tick count of the tower at the end of the last tick, as seen by the forecaster */
+    private long tickSeen;
+
+    /** Version of the loading aircraft at the end of the last tick or update */
+    private long loadingVersionSeen;
+
+    /** Whether each terminal listened to was in a state of emergency at the last update */
+    private boolean[] terminalEmergencies = new boolean[0];
+
+    /** Tick in which each aircraft parked at a gate is expected to leave it */
+    private final Map<Aircraft, Long> leaveTicks = new IdentityHashMap<>();
+
+    /** Aircraft that moved on to a LOAD task in the current tick */
+    private final List<Aircraft> startedLoadTask = new ArrayList<>();
+
+    /** Aircraft parked at a gate whose loading is held up waiting for ground crew */
+    private final List<Aircraft> waitingForCrew = new ArrayList<>();
+
+    /** Keeps the places of the aircraft waiting to land up to date */
+    private final QueueListener queueListener = new QueueListener() {
+        @Override
+        public void aircraftAdded(AircraftQueue queue, Aircraft aircraft) {
+            placeChanged(aircraft);
+        }
+
+        @Override
+        public void aircraftRemoved(AircraftQueue queue, Aircraft aircraft) {
+            aircraftLeft(aircraft);
+        }
+
+        @Override
+        public void aircraftMoved(AircraftQueue queue, Aircraft aircraft) {
+            placeChanged(aircraft);
+        }
+    };
+
+    /** Notes changes to the gates made between ticks, such as a gate being added */
+    private final GateAvailabilityListener gateListener = (terminal, change) -> {
+        if (!ticking) {
+            gatesChanged = true;
+        }
+    };
+
+    /** Checks that aircraft park at, load at and leave gates as the forecast expects */
+    private final TowerListener towerListener = new TowerListener() {
+        @Override
+        public void beforeTick(ControlTower tower) {
+            ticking = true;
+        }
+
+        @Override
+        public void afterTick(ControlTower tower) {
+            ticking = false;
+            tickEnded();
+        }
+
+        @Override
+        public void aircraftParked(long tick, Aircraft aircraft, Gate gate) {
+            long ticksAtGate = ticksAtGate(aircraft, 1);
+            leaveTicks.put(aircraft, ticksAtGate == NEVER ? NEVER : tick + ticksAtGate);
+        }
+
+        @Override
+        public void aircraftLeftGate(long tick, Aircraft aircraft, Gate gate) {
+            Long expected = leaveTicks.remove(aircraft);
+            if (expected == null || expected != tick) {
+                gatesChanged = true;
+            }
+        }
+
+        @Override
+        public void taskAdvanced(long tick, Aircraft aircraft, TaskType taskType) {
+            if (taskType == TaskType.LOAD) {
+                startedLoadTask.add(aircraft);
+            }
+        }
+    };
+
+    /**
+     * Creates a new forecaster for the given control tower.
+     *
+     * @param tower control tower whose landings are forecast
+     */
+    LandingForecaster(ControlTower tower) {
+        this.tower = tower;
+        for (int type = 0; type < NUM_TYPES; type++) {
+            queued.add(new TreeMap<>());
+        }
+    }
+
+    /**
+     * Returns the forecast tick in which the given aircraft will land, or {@link #UNKNOWN} if the
+     * aircraft is not waiting to land or no compatible gate is expected to become free for it.
+     *
+     * @param aircraft aircraft whose landing to forecast
+     * @return forecast landing tick
+     */
+    public long getForecastLandingTick(Aircraft aircraft) {
+        update();
+        Long sequence = sequences.get(aircraft);
+        return sequence == null ? UNKNOWN : landingTicks[indexOf(sequence)];
+    }
+
+    /**
+     * Returns the forecast landing tick of every aircraft waiting to land, in queue order.
+     * Aircraft that are not expected to land have a forecast of {@link #UNKNOWN}.
+     *
+     * @return mapping of aircraft in the landing queue to their forecast landing ticks
+     */
+    public Map<Aircraft, Long> getForecastLandingTicks() {
+        update();
+        // merge the aircraft of each type, which are already in queue order
+        List<Iterator<Map.Entry<Place, Aircraft>>> remaining = new ArrayList<>();
+        List<Map.Entry<Place, Aircraft>> heads = new ArrayList<>();
+        for (TreeMap<Place, Aircraft> ofType : queued) {
+            Iterator<Map.Entry<Place, Aircraft>> iterator = ofType.entrySet().iterator();
+            remaining.add(iterator);
+            heads.add(iterator.hasNext() ? iterator.next() : null);
+        }
+        Map<Aircraft, Long> forecasts = new LinkedHashMap<>();
+        while (true) {
+            int front = -1;
+            for (int type = 0; type < heads.size(); type++) {
+                if (heads.get(type) != null && (front == -1
+                        || heads.get(type).getKey().compareTo(heads.get(front).getKey()) < 0)) {
+                    front = type;
+                }
+            }
+            if (front == -1) {
+                return forecasts;
+            }
+            Aircraft aircraft = heads.get(front).getValue();
+            Long sequence = sequences.get(aircraft);
+            forecasts.put(aircraft, sequence == null ? UNKNOWN : landingTicks[indexOf(sequence)]);
+            heads.set(front, remaining.get(front).hasNext() ? remaining.get(front).next() : null);
+        }
+    }
+
+    /*
+     * Brings the forecast up to date with the changes to the tower since the last update.
+     * Forecast landings are kept up to the first one that the changes could affect.
+     */
+    private void update() {
+        if (!listening) {
+            startListening();
+        }
+        if (tower.getLandingQueue().getAgingPolicy() != agingPolicy) {
+            // every aircraft's place depends on the aging policy
+            findPlaces();
+            stale = true;
+        }
+        long now = tower.getTicksElapsed();
+        if (ticking || now != tickSeen) {
+            // the tower is part way through a tick, or was restored to another tick
+            stale = true;
+        }
+        checkTerminals();
+        if (!ticking && tower.getLoadingVersion() != loadingVersionSeen) {
+            // the loading aircraft were changed between ticks
+            loadingVersionSeen = tower.getLoadingVersion();
+            gatesChanged = true;
+        }
+        if (!stale && landed > 0) {
+            dropLanded(landed);
+        }
+        if (!stale && start < end && landingTicks[start] < landingTickFrom(now + 1)) {
+            // a forecast landing did not happen
+            stale = true;
+        }
+        State current = null;
+        if (!stale && gatesChanged) {
+            current = currentState(now);
+            stale = !stateBefore(start).isEquivalentTo(current, now);
+        }
+        if (stale) {
+            restart(current == null ? currentState(now) : current);
+        } else if (!changed.isEmpty()) {
+            reforecastChanged();
+        }
+        changed.clear();
+        landed = 0;
+        gatesChanged = false;
+        // the rest of the tick may not go as forecast
+        stale = ticking;
+        if (!ticking) {
+            tickSeen = now;
+        }
+    }
+
+    /* Starts listening to the tower, finding the place of each aircraft waiting to land */
+    private void startListening() {
+        listening = true;
+        tower.getLandingQueue().addListener(queueListener);
+        tower.addListener(towerListener);
+        findPlaces();
+        waitingForCrew.addAll(tower.getLoadingScheduler().getAircraftWaitingForCrew());
+        tickSeen = tower.getTicksElapsed();
+        loadingVersionSeen = tower.getLoadingVersion();
+        stale = true;
+    }
+
+    /* Finds the place of each aircraft in the landing queue from scratch */
+    private void findPlaces() {
+        LandingQueue queue = tower.getLandingQueue();
+        agingPolicy = queue.getAgingPolicy();
+        places.clear();
+        for (TreeMap<Place, Aircraft> ofType : queued) {
+            ofType.clear();
+        }
+        for (Aircraft aircraft : queue.getAircraftInAddedOrder()) {
+            Place place = new Place(queue.getPriority(aircraft), queue.getAddedOrder(aircraft));
+            places.put(aircraft, place);
+            queued.get(typeOf(aircraft)).put(place, aircraft);
+        }
+    }
+
+    /* Notes that the given aircraft joined the landing queue or moved within it */
+    private void placeChanged(Aircraft aircraft) {
+        removePlace(aircraft);
+        LandingQueue queue = tower.getLandingQueue();
+        Place place = new Place(queue.getPriority(aircraft), queue.getAddedOrder(aircraft));
+        places.put(aircraft, place);
+        queued.get(typeOf(aircraft)).put(place, aircraft);
+        changed.add(aircraft);
+    }
+
+    /*
+     * Notes that the given aircraft, or one of its copies, left the landing queue. Aircraft that
+     * leave during a tick have landed.
+     */
+    private void aircraftLeft(Aircraft aircraft) {
+        if (tower.getLandingQueue().containsAircraft(aircraft)) {
+            placeChanged(aircraft);
+        } else {
+            removePlace(aircraft);
+            int next = start + landed;
+            if (ticking && next < end && landings[next] == aircraft
+                    && landingTicks[next] == tower.getTicksElapsed()) {
+                landed++;
+                return;
+            }
+            changed.add(aircraft);
+        }
+        if (ticking) {
+            // an aircraft landed that was not forecast to land now
+            gatesChanged = true;
+        }
+    }
+
+    /* Forgets the place of the given aircraft, if it has one */
+    private void removePlace(Aircraft aircraft) {
+        Place place = places.remove(aircraft);
+        if (place != null) {
+            queued.get(typeOf(aircraft)).remove(place);
+        }
+    }
+
+    /*
+     * Notes the aircraft that could not start loading in the tick just ended, as the gates they
+     * are parked at are freed a tick later for each tick they wait for ground crew
+     */
+    private void tickEnded() {
+        Map<Aircraft, Integer> loading = tower.getLoadingAircraft();
+        for (Aircraft aircraft : startedLoadTask) {
+            if (!loading.containsKey(aircraft)) {
+                waitingForCrew.add(aircraft);
+            }
+        }
+        startedLoadTask.clear();
+        if (!waitingForCrew.isEmpty()) {
+            gatesChanged = true;
+            waitingForCrew.removeIf(aircraft -> loading.containsKey(aircraft)
+                    || aircraft.getTaskList().getCurrentTask().getType() != TaskType.LOAD);
+        }
+        tickSeen = tower.getTicksElapsed();
+        loadingVersionSeen = tower.getLoadingVersion();
+    }
+
+    /*
+     * Notes whether any terminal has been added, or has had an emergency declared or cleared,
+     * since the last update, and listens to the gates of new terminals
+     */
+    private void checkTerminals() {
+        int numTerminals = tower.getNumTerminals();
+        if (numTerminals > terminalEmergencies.length) {
+            int numListened = terminalEmergencies.length;
+            terminalEmergencies = Arrays.copyOf(terminalEmergencies, numTerminals);
+            for (int i = numListened; i < numTerminals; i++) {
+                Terminal terminal = tower.getTerminal(i);
+                terminal.addGateAvailabilityListener(gateListener);
+                terminalEmergencies[i] = terminal.hasEmergency();
+            }
+            gatesChanged = true;
+        }
+        for (int i = 0; i < numTerminals; i++) {
+            boolean emergency = tower.getTerminal(i).hasEmergency();
+            if (emergency != terminalEmergencies[i]) {
+                terminalEmergencies[i] = emergency;
+                gatesChanged = true;
+            }
+        }
+    }
+
+    /* Drops the given number of forecast landings, which have happened, from the front */
+    private void dropLanded(int numLanded) {
+        int newStart = start + numLanded;
+        State state = checkpoints.containsKey(baseSequence + newStart)
+                ? null : stateBefore(newStart);
+        for (int i = start; i < newStart; i++) {
+            sequences.remove(landings[i]);
+            landings[i] = null;
+        }
+        start = newStart;
+        checkpoints.headMap(baseSequence + start).clear();
+        if (state != null) {
+            checkpoints.put(baseSequence + start, state);
+        }
+    }
+
+    /* Forecasts the whole queue again, starting from the given state of the tower */
+    private void restart(State current) {
+        truncate(start);
+        start = 0;
+        end = 0;
+        baseSequence = 0;
+        checkpoints.clear();
+        checkpoints.put(0L, current.copy());
+        forecastFrom(current);
+    }
+
+    /*
+     * Forecasts again the landings from the first one that the aircraft that joined, left or
+     * moved within the queue could affect
+     */
+    private void reforecastChanged() {
+        int cut = end;
+        for (Aircraft aircraft : changed) {
+            // the landing of an aircraft that left or moved no longer applies
+            Long sequence = sequences.get(aircraft);
+            if (sequence != null) {
+                cut = Math.min(cut, indexOf(sequence));
+            }
+        }
+        for (Aircraft aircraft : changed) {
+            Place place = places.get(aircraft);
+            if (place != null) {
+                cut = firstAffected(aircraft, place, cut);
+            }
+        }
+        truncate(cut);
+        forecastFrom(stateBefore(cut));
+    }
+
+    /*
+     * Returns the index of the first landing before the given index that the given aircraft, at
+     * its new place in the queue, could take instead, or the given index if there is none.
+     * <p>
+     * The aircraft lands before every aircraft behind it, so the first landing of each type behind
+     * it is affected. Before that, the aircraft can only take a landing once every aircraft of its
+     * type in front of it has landed, and then only one of a later tick than the aircraft's type
+     * could land in, as the aircraft landing then is in front of it.
+     */
+    private int firstAffected(Aircraft aircraft, Place place, int cut) {
+        int affected = cut;
+        for (TreeMap<Place, Aircraft> ofType : queued) {
+            // landings of each type are in queue order, apart from those of changed aircraft
+            for (Aircraft behind : ofType.tailMap(place, false).values()) {
+                if (!changed.contains(behind)) {
+                    Long sequence = sequences.get(behind);
+                    if (sequence != null) {
+                        affected = Math.min(affected, indexOf(sequence));
+                    }
+                    break;
+                }
+            }
+        }
+        int type = typeOf(aircraft);
+        Map.Entry<Place, Aircraft> ahead = queued.get(type).lowerEntry(place);
+        int headFrom = start;
+        if (ahead != null) {
+            Long sequence = sequences.get(ahead.getValue());
+            if (sequence == null || changed.contains(ahead.getValue())) {
+                // the aircraft in front never lands, or is affected first itself
+                return affected;
+            }
+            headFrom = indexOf(sequence) + 1;
+        }
+        if (headFrom >= affected) {
+            return affected;
+        }
+        State state = stateBefore(headFrom);
+        for (int i = headFrom; i < affected; i++) {
+            if (state.eligibleTick(type) < landingTicks[i]) {
+                return i;
+            }
+            state.land(landings[i]);
+        }
+        return affected;
+    }
+
+    /* Discards the forecast landings from the given index on */
+    private void truncate(int index) {
+        for (int i = index; i < end; i++) {
+            sequences.remove(landings[i]);
+            landings[i] = null;
+        }
+        end = index;
+        checkpoints.tailMap(baseSequence + index, false).clear();
+    }
+
+    /*
+     * Forecasts the landings of the aircraft in the queue that are not already forecast to land,
+     * starting from the given state, which is the state after the last forecast landing
+     */
+    private void forecastFrom(State state) {
+        // the aircraft of each type still to be forecast, in queue order, are those behind the
+        // last one forecast to land
+        List<Iterator<Aircraft>> remaining = new ArrayList<>();
+        Aircraft[] heads = new Aircraft[NUM_TYPES];
+        for (int type = 0; type < NUM_TYPES; type++) {
+            int last = end > start ? lastOfType[type][end - 1] : -1;
+            SortedMap<Place, Aircraft> ofType = last >= start
+                    ? queued.get(type).tailMap(places.get(landings[last]), false)
+                    : queued.get(type);
+            Iterator<Aircraft> iterator = ofType.values().iterator();
+            remaining.add(iterator);
+            heads[type] = iterator.hasNext() ? iterator.next() : null;
+        }
+        while (true) {
+            // land the aircraft furthest forward in the queue out of those that can land first
+            int landingType = -1;
+            long landingTick = NEVER;
+            for (int type = 0; type < NUM_TYPES; type++) {
+                if (heads[type] == null) {
+                    continue;
+                }
+                long tick = state.eligibleTick(type);
+                if (tick < landingTick || (tick == landingTick && tick != NEVER
+                        && places.get(heads[type]).compareTo(places.get(heads[landingType]))
+                        < 0)) {
+                    landingType = type;
+                    landingTick = tick;
+                }
+            }
+            if (landingTick == NEVER) {
+                // the remaining aircraft will never land
+                return;
+            }
+            long sequence = baseSequence + end;
+            if (sequence % CHECKPOINT_INTERVAL == 0) {
+                checkpoints.putIfAbsent(sequence, state.copy());
+            }
+            Aircraft aircraft = heads[landingType];
+            append(aircraft, state.land(aircraft));
+            Iterator<Aircraft> iterator = remaining.get(landingType);
+            heads[landingType] = iterator.hasNext() ? iterator.next() : null;
+        }
+    }
+
+    /* Adds a forecast landing of the given aircraft at the given tick to the end of landings */
+    private void append(Aircraft aircraft, long landingTick) {
+        if (end == landings.length) {
+            if (start >= landings.length / 2) {
+                // move the landings that have not happened to the front
+                System.arraycopy(landings, start, landings, 0, end - start);
+                Arrays.fill(landings, end - start, end, null);
+                System.arraycopy(landingTicks, start, landingTicks, 0, end - start);
+                for (int[] last : lastOfType) {
+                    for (int i = start; i < end; i++) {
+                        last[i - start] = Math.max(-1, last[i] - start);
+                    }
+                }
+                baseSequence += start;
+                end -= start;
+                start = 0;
+            } else {
+                landings = Arrays.copyOf(landings, 2 * end);
+                landingTicks = Arrays.copyOf(landingTicks, 2 * end);
+                for (int type = 0; type < NUM_TYPES; type++) {
+                    lastOfType[type] = Arrays.copyOf(lastOfType[type], 2 * end);
+                }
+            }
+        }
+        int type = typeOf(aircraft);
+        for (int eachType = 0; eachType < NUM_TYPES; eachType++) {
+            lastOfType[eachType][end] = eachType == type ? end
+                    : end > 0 ? lastOfType[eachType][end - 1] : -1;
+        }
+        landings[end] = aircraft;
+        landingTicks[end] = landingTick;
+        sequences.put(aircraft, baseSequence + end);
+        end++;
+    }
+
+    /* Returns the index in landings of the landing with the given sequence number */
+    private int indexOf(long sequence) {
+        return (int) (sequence - baseSequence);
+    }
+
+    /*
+     * Returns the forecast state before the landing at the given index in landings, which must
+     * not be before the first landing that has not happened
+     */
+    private State stateBefore(int index) {
+        Map.Entry<Long, State> checkpoint = checkpoints.floorEntry(baseSequence + index);
+        State state = checkpoint.getValue().copy();
+        for (int i = indexOf(checkpoint.getKey()); i < index; i++) {
+            state.land(landings[i]);
+        }
+        return state;
+    }
+
+    /* Returns the ordinal of the given aircraft's type */
+    private static int typeOf(Aircraft aircraft) {
+        return aircraft.getCharacteristics().type.ordinal();
+    }
+
+    /*
+     * Returns the forecast state matching the tower as it is now, noting the tick in which each
+     * aircraft parked at a gate is expected to leave it
+     */
+    private State currentState(long now) {
+        List<List<Long>> freeTicks = new ArrayList<>();
+        for (int i = 0; i < NUM_TYPES; i++) {
+            freeTicks.add(new ArrayList<>());
+        }
+        leaveTicks.clear();
+        for (int i = 0; i < tower.getNumTerminals(); i++) {
+            Terminal terminal = tower.getTerminal(i);
+            AircraftType type = null;
+            if (terminal instanceof AirplaneTerminal) {
+                type = AircraftType.AIRPLANE;
+            } else if (terminal instanceof HelicopterTerminal) {
+                type = AircraftType.HELICOPTER;
+            }
+            for (Gate gate : terminal.getGates()) {
+                long freeTick = freeTick(gate, now);
+                if (gate.getAircraftAtGate() != null) {
+                    leaveTicks.put(gate.getAircraftAtGate(), freeTick);
+                }
+                if (type != null && !terminal.hasEmergency()) {
+                    freeTicks.get(type.ordinal()).add(freeTick);
+                }
+            }
+        }
+
+        long[][] gates = new long[freeTicks.size()][];
+        for (int i = 0; i < gates.length; i++) {
+            gates[i] = freeTicks.get(i).stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+        return new State(landingTickFrom(now + 1), gates);
+    }
+
+    /* Returns the first tick in which an aircraft could land at the given gate */
+    private long freeTick(Gate gate, long now) {
+        Aircraft aircraft = gate.getAircraftAtGate();
+        if (aircraft == null) {
+            return 0;
+        }
+        Integer ticksRemaining = tower.getLoadingAircraft().get(aircraft);
+        if (ticksRemaining != null) {
+            return now + ticksRemaining;
+        }
+        TaskType currentTaskType = aircraft.getTaskList().getCurrentTask().getType();
+        if (currentTaskType == TaskType.WAIT || currentTaskType == TaskType.LOAD) {
+            long ticksAtGate = ticksAtGate(aircraft, 0);
+            return ticksAtGate == NEVER ? NEVER : now + ticksAtGate;
+        }
+        return NEVER;
+    }
+
+    /*
+     * Returns the number of ticks an aircraft stays at its gate, starting from the task at the
+     * given offset from its current task: one tick per WAIT task, then the loading time of the
+     * LOAD task that follows. Returns NEVER if the aircraft's tasks are all WAIT tasks, as the
+     * aircraft then never leaves its gate.
+     */
+    private static long ticksAtGate(Aircraft aircraft, int offset) {
+        TaskList tasks = aircraft.getTaskList();
+        // the task list is circular, so one pass over it finds the task after the WAIT tasks
+        for (int waits = 0; waits < tasks.size(); waits++) {
+            Task task = tasks.getTaskAfter(offset + waits);
+            if (task.getType() != TaskType.WAIT) {
+                return waits + aircraft.getLoadingTime(task.getLoadPercent());
+            }
+        }
+        return NEVER;
+    }
+
+    /* Returns the first tick at or after the given tick in which a landing may be attempted */
+    private static long landingTickFrom(long tick) {
+        return tick % 2 == 0 ? tick : tick + 1;
+    }
+
+    /*
+     * State of a forecast part way through the landing queue: the earliest tick in which the next
+     * aircraft may land, and for each aircraft type, the sorted ticks at which each compatible
+     * gate is free for a landing.
+     */
+    private static class State {
+        /** Earliest tick in which the next aircraft may land */
+        private long nextLandingTick;
+
+        /** Free ticks of the compatible gates, sorted, indexed by aircraft type */
+        private final long[][] gates;
+
+        private State(long nextLandingTick, long[][] gates) {
+            this.nextLandingTick = nextLandingTick;
+            this.gates = gates;
+        }
+
+        private State copy() {
+            long[][] gatesCopy = new long[gates.length][];
+            for (int i = 0; i < gates.length; i++) {
+                gatesCopy[i] = gates[i].clone();
+            }
+            return new State(nextLandingTick, gatesCopy);
+        }
+
+        /*
+         * Returns the first tick in which an aircraft of the given type ordinal could land, or
+         * NEVER if no gate for that type will ever be free
+         */
+        private long eligibleTick(int type) {
+            long[] free = gates[type];
+            if (free.length == 0 || free[0] == NEVER) {
+                return NEVER;
+            }
+            return landingTickFrom(Math.max(nextLandingTick, free[0]));
+        }
+
+        /*
+         * Forecasts the landing of the given aircraft, which must be able to land, updating this
+         * state to account for it. Returns the forecast landing tick.
+         */
+        private long land(Aircraft aircraft) {
+            long[] free = gates[typeOf(aircraft)];
+            long landingTick = eligibleTick(typeOf(aircraft));
+            // the earliest free gate is taken until the aircraft finishes loading, one tick after
+            // landing for each WAIT task and then for the loading time of its LOAD task
+            long ticksAtGate = ticksAtGate(aircraft, 1);
+            free[0] = ticksAtGate == NEVER ? NEVER : landingTick + ticksAtGate;
+            for (int i = 1; i < free.length && free[i] < free[i - 1]; i++) {
+                long swap = free[i];
+                free[i] = free[i - 1];
+                free[i - 1] = swap;
+            }
+            nextLandingTick = landingTick + 2;
+            return landingTick;
+        }
+
+        /*
+         * Returns whether this state leads to the same forecasts as the other given state. Gates
+         * that are free before the next landing tick are equivalent to gates that are free now.
+         */
+        private boolean isEquivalentTo(State other, long now) {
+            long firstLandingTick = landingTickFrom(now + 1);
+            long landingTick = Math.max(nextLandingTick, firstLandingTick);
+            if (landingTick != Math.max(other.nextLandingTick, firstLandingTick)) {
+                return false;
+            }
+            for (int i = 0; i < gates.length; i++) {
+                long[] free = gates[i];
+                long[] otherFree = other.gates[i];
+                if (free.length != otherFree.length) {
+                    return false;
+                }
+                for (int j = 0; j < free.length; j++) {
+                    if (Math.max(free[j], landingTick) != Math.max(otherFree[j], landingTick)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /*
+     * Place of an aircraft in the landing queue. Aircraft are in order of priority, and aircraft
+     * of the same priority in order of their added order, as in LandingQueue.
+     */
+    private static final class Place implements Comparable<Place> {
+        /** Priority of the aircraft */
+        private final long priority;
+
+        /** Added order of the aircraft */
+        private final int addedOrder;
+
+        private Place(long priority, int addedOrder) {
+            this.priority = priority;
+            this.addedOrder = addedOrder;
+        }
+
+        @Override
+        public int compareTo(Place other) {
+            if (priority != other.priority) {
+                return Long.compare(priority, other.priority);
+            }
+            return Integer.compare(addedOrder, other.addedOrder);
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package towersim.control;
 
 import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftListener;
+import towersim.aircraft.AircraftType;
+import towersim.aircraft.PassengerAircraft;
+import towersim.util.Tickable;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a rule-based queue of aircraft waiting in the air to land.
@@ -10,27 +20,304 @@ import java.util.*;
  * The rules in the landing queue are designed to ensure that aircraft are prioritised for
  * landing based on "urgency" factors such as remaining fuel onboard, emergency status and
  * cargo type.
+ *
+ * An optional {@link AgingPolicy} raises the priority of aircraft that have waited in the queue
+ * for a long time. The queue counts the ticks used for aging itself; the control tower ticks it
+ * once per tick of the simulation.
+ * <p>
+ * The aircraft of each type are kept in a binary heap ordered by priority, so the front aircraft
+ * is found in constant time and aircraft are added and removed in logarithmic time. The queue
+ * listens to the aircraft in it, and moves an aircraft within its heap when an emergency or low
+ * fuel changes its priority.
  */
-public class LandingQueue extends AircraftQueue {
+public class LandingQueue extends AircraftQueue implements Tickable {
+
+    /** all types of aircraft */
+    private static final Set<AircraftType> ALL_TYPES =
+            Collections.unmodifiableSet(EnumSet.allOf(AircraftType.class));
+
+    /** priority rank of aircraft in a state of emergency */
+    private static final int RANK_EMERGENCY = 0;
+
+    /** priority rank of aircraft with a critical level of fuel remaining */
+    private static final int RANK_LOW_FUEL = 1;
+
+    /** priority rank of passenger aircraft */
+    private static final int RANK_PASSENGER = 2;
+
+    /** priority rank of all other aircraft */
+    private static final int RANK_OTHER = 3;
+
+    /** the registry giving each aircraft ever added to this queue a dense id */
+    private final AircraftRegistry registry;
+
+    /**
+     * the ids of the distinct aircraft of each type in this queue, as a binary heap ordered by
+     * priority and then by added order, indexed by aircraft type ordinal
+     */
+    private final int[][] heaps;
+
+    /** the number of distinct aircraft of each type in this queue, by aircraft type ordinal */
+    private final int[] numDistinct;
 
-    /** the aircraft list in this queue */
-    private final List<Aircraft> allAircraft;
-    
-    /** the map storing the added order of all the aircraft */
-    private final Map<Aircraft, Integer> addedOrder;
+    /** the index in its type's heap of each aircraft in this queue, indexed by id */
+    private int[] heapIndices;
 
-    /** the number of added order, 1 for the first added aircraft */
+    /** the priority rank of each aircraft in this queue, indexed by id */
+    private int[] ranks;
+
+    /** the number of times each aircraft is in this queue, indexed by id */
+    private int[] counts;
+
+    /** the added order of each aircraft's latest addition, indexed by id */
+    private int[] addedSeq;
+
+    /** the added order of the next aircraft to be added */
     private int numOrder;
 
+    /** the number of aircraft in this queue, counting each time an aircraft was added */
+    private int size;
+
+    /** the tick in which each aircraft's latest addition was made, indexed by id */
+    private long[] addedTick;
+
+    /** the number of times this queue has been ticked */
+    private long ticks;
+
+    /** the aging policy of this queue, or null if aircraft do not age */
+    private AgingPolicy agingPolicy;
+
+    /** moves aircraft in this queue to their new place when their priority rank changes */
+    private final AircraftListener rankTracker = this::rankChanged;
+
     /**
      * Constructs a new LandingQueue with an initially empty queue of aircraft.
      */
     public LandingQueue() {
-        // the aircraft list in this queue, initially empty
-        this.allAircraft = new ArrayList<>();
-        // the map storing the added order of all the aircraft, initially empty
-        this.addedOrder = new HashMap<>();
-        this.numOrder = 1;
+        this.registry = new AircraftRegistry();
+        this.heaps = new int[AircraftType.values().length][16];
+        this.numDistinct = new int[AircraftType.values().length];
+        this.heapIndices = new int[16];
+        this.ranks = new int[16];
+        this.counts = new int[16];
+        this.addedSeq = new int[16];
+        this.numOrder = 0;
+        this.addedTick = new long[16];
+        this.ticks = 0;
+        this.agingPolicy = null;
+    }
+
+    /* Creates a queue in the same state as the given one, holding copies of its aircraft */
+    private LandingQueue(LandingQueue original, Map<Aircraft, Aircraft> copies) {
+        this.registry = original.registry.copy(copies);
+        this.heaps = new int[original.heaps.length][];
+        for (int type = 0; type < heaps.length; type++) {
+            this.heaps[type] = original.heaps[type].clone();
+        }
+        this.numDistinct = original.numDistinct.clone();
+        this.heapIndices = original.heapIndices.clone();
+        this.ranks = original.ranks.clone();
+        this.counts = original.counts.clone();
+        this.addedSeq = original.addedSeq.clone();
+        this.numOrder = original.numOrder;
+        this.size = original.size;
+        this.addedTick = original.addedTick.clone();
+        this.ticks = original.ticks;
+        // aging policies are immutable
+        this.agingPolicy = original.agingPolicy;
+        for (int type = 0; type < heaps.length; type++) {
+            for (int i = 0; i < numDistinct[type]; i++) {
+                registry.getAircraft(heaps[type][i]).addListener(rankTracker);
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of this queue, holding copies of its aircraft in the same order and with the
+     * same waiting times. The copies are taken from the given mapping as described in
+     * {@link AircraftRegistry#copy(Map)}.
+     *
+     * @param copies copy of each aircraft, keyed by the original aircraft
+     * @return copy of this queue
+     */
+    LandingQueue copy(Map<Aircraft, Aircraft> copies) {
+        return new LandingQueue(this, copies);
+    }
+
+    /**
+     * Advances the tick count of this queue, which measures how long aircraft have waited.
+     */
+    @Override
+    public void tick() {
+        ticks++;
+    }
+
+    /**
+     * Returns the number of times this queue has been ticked.
+     *
+     * @return ticks counted by this queue
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Sets the number of times this queue has been ticked.
+     * <p>
+     * This is used to restore a queue to a previously recorded state.
+     *
+     * @param ticks ticks counted by this queue
+     */
+    public void setTicks(long ticks) {
+        this.ticks = ticks;
+    }
+
+    /**
+     * Returns the number of times this queue had been ticked when the given aircraft was last
+     * added to it. The aging policy measures how long the aircraft has waited from this tick.
+     *
+     * @param aircraft aircraft in the queue
+     * @return tick count of this queue when the aircraft was added
+     * @throws IllegalArgumentException if the aircraft is not in the queue
+     */
+    public long getAddedTick(Aircraft aircraft) {
+        return addedTick[queuedId(aircraft)];
+    }
+
+    /**
+     * Sets the number of times this queue had been ticked when the given aircraft was last added
+     * to it, moving the aircraft to its place in the queue under the aging policy.
+     * <p>
+     * This is used to restore a queue to a previously recorded state.
+     *
+     * @param aircraft aircraft in the queue
+     * @param addedTick tick count of this queue when the aircraft was added
+     * @throws IllegalArgumentException if the aircraft is not in the queue
+     */
+    public void setAddedTick(Aircraft aircraft, long addedTick) {
+        int id = queuedId(aircraft);
+        this.addedTick[id] = addedTick;
+        int type = aircraft.getCharacteristics().type.ordinal();
+        siftUp(type, heapIndices[id]);
+        siftDown(type, heapIndices[id]);
+        markModified();
+        notifyMoved(aircraft);
+    }
+
+    /**
+     * Returns the number of times the given aircraft is in the queue, counting each time it was
+     * added and has not since been removed.
+     *
+     * @param aircraft aircraft to count
+     * @return number of times the aircraft is in the queue; 0 if it is not in the queue
+     */
+    public int getCount(Aircraft aircraft) {
+        int id = registry.getId(aircraft);
+        return id == AircraftRegistry.NO_ID ? 0 : counts[id];
+    }
+
+    /**
+     * Returns the added order of the latest addition of the given aircraft to the queue. Aircraft
+     * of the same priority are in front of the aircraft with a larger added order.
+     *
+     * @param aircraft aircraft in the queue
+     * @return added order of the aircraft's latest addition
+     * @throws IllegalArgumentException if the aircraft is not in the queue
+     */
+    public int getAddedOrder(Aircraft aircraft) {
+        return addedSeq[queuedId(aircraft)];
+    }
+
+    /**
+     * Returns the priority of the given aircraft. Aircraft are in order of priority, lowest first,
+     * and aircraft of the same priority are in order of their added order.
+     *
+     * @param aircraft aircraft in the queue
+     * @return priority of the aircraft
+     * @throws IllegalArgumentException if the aircraft is not in the queue
+     */
+    long getPriority(Aircraft aircraft) {
+        return priority(queuedId(aircraft));
+    }
+
+    /**
+     * Sets the number of times the given aircraft is in the queue, along with the added order and
+     * tick count of its latest addition, moving the aircraft to its place in the queue. A count of
+     * zero removes the aircraft from the queue, and the added order and tick are then ignored.
+     * <p>
+     * This is used to restore a queue to a previously recorded state, one aircraft at a time.
+     *
+     * @param aircraft aircraft to place in the queue
+     * @param count number of times the aircraft is in the queue
+     * @param addedOrder added order of the aircraft's latest addition, as returned by
+     *                   {@link #getAddedOrder(Aircraft)}
+     * @param addedTick tick count of this queue when the aircraft was last added
+     * @throws IllegalArgumentException if count &lt; 0
+     */
+    public void setEntry(Aircraft aircraft, int count, int addedOrder, long addedTick) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Aircraft cannot be queued " + count + " times");
+        }
+        int id = register(aircraft);
+        int type = aircraft.getCharacteristics().type.ordinal();
+        int oldCount = counts[id];
+        if (count == 0) {
+            if (oldCount > 0) {
+                removeDistinct(type, heapIndices[id]);
+                aircraft.removeListener(rankTracker);
+            }
+        } else {
+            addedSeq[id] = addedOrder;
+            this.addedTick[id] = addedTick;
+            // later additions must still go behind every aircraft added before them
+            numOrder = Math.max(numOrder, addedOrder + 1);
+            if (oldCount > 0) {
+                siftUp(type, heapIndices[id]);
+                siftDown(type, heapIndices[id]);
+            } else {
+                ranks[id] = rank(aircraft);
+                addDistinct(type, id);
+                aircraft.addListener(rankTracker);
+            }
+        }
+        counts[id] = count;
+        size += count - oldCount;
+        markModified();
+        for (int i = oldCount; i < count; i++) {
+            notifyAdded(aircraft);
+        }
+        for (int i = count; i < oldCount; i++) {
+            notifyRemoved(aircraft);
+        }
+        if (count == oldCount) {
+            notifyMoved(aircraft);
+        }
+    }
+
+    /**
+     * Returns the aging policy of this queue.
+     *
+     * @return aging policy, or null if aircraft do not age
+     */
+    public AgingPolicy getAgingPolicy() {
+        return agingPolicy;
+    }
+
+    /**
+     * Sets the aging policy of this queue. The policy applies to the aircraft already in the
+     * queue, according to the ticks they have already waited.
+     *
+     * @param agingPolicy aging policy, or null if aircraft should not age
+     */
+    public void setAgingPolicy(AgingPolicy agingPolicy) {
+        this.agingPolicy = agingPolicy;
+        // every aircraft's priority may have changed
+        for (int type = 0; type < heaps.length; type++) {
+            for (int i = numDistinct[type] / 2 - 1; i >= 0; i--) {
+                siftDown(type, i);
+            }
+        }
+        markModified();
     }
 
     /**
@@ -40,9 +327,23 @@ public class LandingQueue extends AircraftQueue {
      */
     @Override
     public void addAircraft(Aircraft aircraft) {
-        allAircraft.add(aircraft);
-        // store the order of the aircraft been added
-        addedOrder.put(aircraft, numOrder++);
+        int id = register(aircraft);
+        int type = aircraft.getCharacteristics().type.ordinal();
+        addedSeq[id] = numOrder++;
+        addedTick[id] = ticks;
+        ranks[id] = rank(aircraft);
+        if (counts[id] > 0) {
+            // an aircraft added again takes the added order of its latest addition
+            siftUp(type, heapIndices[id]);
+            siftDown(type, heapIndices[id]);
+        } else {
+            addDistinct(type, id);
+            aircraft.addListener(rankTracker);
+        }
+        counts[id]++;
+        size++;
+        markModified();
+        notifyAdded(aircraft);
     }
 
     /**
@@ -54,11 +355,23 @@ public class LandingQueue extends AircraftQueue {
      */
     @Override
     public Aircraft peekAircraft() {
-        // return null if the queue is empty
-        if (allAircraft.size() == 0) {
-            return null;
-        }
-        return getAircraftInOrder().get(0);
+        return peekAircraft(ALL_TYPES);
+    }
+
+    /**
+     * Returns the aircraft that is furthest forward in the queue out of the aircraft of the given
+     * types, without removing it from the queue, or null if there are no such aircraft. The same
+     * rules as described in peekAircraft() are used for ordering the aircraft.
+     * <p>
+     * This allows an aircraft of a type that can be parked to be chosen ahead of aircraft of
+     * other types that are waiting for a gate to become free.
+     *
+     * @param types types of aircraft to consider
+     * @return highest priority aircraft of one of the given types; null if there is none
+     */
+    public Aircraft peekAircraft(Set<AircraftType> types) {
+        int id = frontId(types);
+        return id == AircraftRegistry.NO_ID ? null : registry.getAircraft(id);
     }
 
     /**
@@ -70,10 +383,42 @@ public class LandingQueue extends AircraftQueue {
      */
     @Override
     public Aircraft removeAircraft() {
-        // the aircraft to be removed
-        Aircraft removedAircraft = peekAircraft();
-        allAircraft.remove(removedAircraft);
-        return removedAircraft;
+        return removeAircraft(ALL_TYPES);
+    }
+
+    /**
+     * Removes and returns the aircraft that is furthest forward in the queue out of the aircraft
+     * of the given types, as returned by {@link #peekAircraft(Set)}. Returns null if there are no
+     * such aircraft.
+     *
+     * @param types types of aircraft to consider
+     * @return highest priority aircraft of one of the given types; null if there is none
+     */
+    public Aircraft removeAircraft(Set<AircraftType> types) {
+        int id = frontId(types);
+        if (id == AircraftRegistry.NO_ID) {
+            return null;
+        }
+        size--;
+        Aircraft aircraft = registry.getAircraft(id);
+        if (--counts[id] == 0) {
+            removeDistinct(aircraft.getCharacteristics().type.ordinal(), heapIndices[id]);
+            aircraft.removeListener(rankTracker);
+        }
+        markModified();
+        notifyRemoved(aircraft);
+        return aircraft;
+    }
+
+    /**
+     * Returns the number of aircraft in the queue, the same as the size of the list returned by
+     * {@link #getAircraftInOrder()}.
+     *
+     * @return number of aircraft in queue
+     */
+    @Override
+    public int size() {
+        return size;
     }
 
     /**
@@ -83,13 +428,48 @@ public class LandingQueue extends AircraftQueue {
      */
     @Override
     public List<Aircraft> getAircraftInOrder() {
-        // sort the aircraft list according to the order rule
-        sortOrder();
-        return new ArrayList<>(allAircraft);
+        // take the front of copies of each type's heap in turn, as removeAircraft() would
+        int[][] remaining = new int[heaps.length][];
+        int[] numRemaining = numDistinct.clone();
+        for (int type = 0; type < heaps.length; type++) {
+            remaining[type] = Arrays.copyOf(heaps[type], numDistinct[type]);
+        }
+        List<Aircraft> aircraftInOrder = new ArrayList<>(size);
+        while (true) {
+            int front = -1;
+            for (int type = 0; type < heaps.length; type++) {
+                if (numRemaining[type] > 0 && (front == -1
+                        || isBefore(remaining[type][0], remaining[front][0]))) {
+                    front = type;
+                }
+            }
+            if (front == -1) {
+                return aircraftInOrder;
+            }
+            addCopies(aircraftInOrder, remaining[front][0]);
+            int last = --numRemaining[front];
+            remaining[front][0] = remaining[front][last];
+            siftDown(remaining[front], last, 0, null);
+        }
+    }
+
+    /**
+     * Returns a list containing all aircraft in the queue, in the order they were added.
+     *
+     * @return list of all aircraft in queue, in the order they were added
+     */
+    @Override
+    public List<Aircraft> getAircraftInAddedOrder() {
+        List<Aircraft> aircraftInAddedOrder = new ArrayList<>();
+        for (int id : idsInAddedOrder()) {
+            addCopies(aircraftInAddedOrder, id);
+        }
+        return aircraftInAddedOrder;
     }
 
     /**
-     * Sort the aircraft list according to the order rule.
+     * Returns the priority rank of the given aircraft according to the order rule; aircraft with
+     * a lower rank are in front, and aircraft of the same rank are in the order they were added.
      * The rule of the order should be as follows:
      * 1) If an aircraft is currently in a state of emergency, it should be in front.
      * 2) If an aircraft has less than or equal to 20 percent fuel remaining, a critical level,
@@ -97,38 +477,207 @@ public class LandingQueue extends AircraftQueue {
      * 3) If one of them is passenger aircraft, it should be in front.
      * 4) Otherwise, the aircraft with add first should be in front.
      */
-    private void sortOrder() {
-        allAircraft.sort((aircraft1, aircraft2) -> {
-            // check the emergency state of two aircraft
-            if (aircraft1.hasEmergency()) {
-                // if both of them has emergency, then compare the added order
-                return aircraft2.hasEmergency()
-                        ? addedOrder.get(aircraft1).compareTo(addedOrder.get(aircraft2)) : -1;
-            } else if (aircraft2.hasEmergency()) {
-                return 1;
+    private static int rank(Aircraft aircraft) {
+        if (aircraft.hasEmergency()) {
+            return RANK_EMERGENCY;
+        }
+        if (aircraft.getFuelPercentRemaining() <= 20) {
+            return RANK_LOW_FUEL;
+        }
+        if (aircraft.getClass() == PassengerAircraft.class) {
+            return RANK_PASSENGER;
+        }
+        return RANK_OTHER;
+    }
+
+    /*
+     * Returns the priority of the aircraft with the given id; aircraft with a lower priority are
+     * in front, and aircraft of the same priority are in the order they were added. Without an
+     * aging policy this is the aircraft's rank. With one, aircraft ranked below those with a
+     * critical level of fuel are ordered by the tick they were added plus their class's weight.
+     */
+    private long priority(int id) {
+        int rank = ranks[id];
+        if (agingPolicy == null || rank <= RANK_LOW_FUEL) {
+            return rank;
+        }
+        int weight = rank == RANK_PASSENGER
+                ? agingPolicy.getPassengerWeight() : agingPolicy.getOtherWeight();
+        return RANK_PASSENGER + addedTick[id] + weight;
+    }
+
+    /*
+     * Returns the id of the highest priority aircraft of any of the given types, or NO_ID. Each
+     * type's aircraft are kept in their own heap, so only the front of each type is compared.
+     */
+    private int frontId(Set<AircraftType> types) {
+        int front = AircraftRegistry.NO_ID;
+        long frontPriority = 0;
+        for (AircraftType aircraftType : types) {
+            int type = aircraftType.ordinal();
+            if (numDistinct[type] == 0) {
+                continue;
+            }
+            int id = heaps[type][0];
+            long priority = priority(id);
+            if (front == AircraftRegistry.NO_ID || priority < frontPriority
+                    || (priority == frontPriority && addedSeq[id] < addedSeq[front])) {
+                front = id;
+                frontPriority = priority;
             }
+        }
+        return front;
+    }
+
+    /*
+     * Returns whether the aircraft with the first given id is in front of the aircraft with the
+     * second given id
+     */
+    private boolean isBefore(int id, int otherId) {
+        long priority = priority(id);
+        long otherPriority = priority(otherId);
+        return priority < otherPriority
+                || (priority == otherPriority && addedSeq[id] < addedSeq[otherId]);
+    }
 
-            // check the fuel percent remaining of two aircraft
-            if (aircraft1.getFuelPercentRemaining() <= 20) {
-                // if both of them has a critical level, then compare the added order
-                return (aircraft2.getFuelPercentRemaining() <= 20)
-                        ? addedOrder.get(aircraft1).compareTo(addedOrder.get(aircraft2)) : -1;
-            } else if (aircraft2.getFuelPercentRemaining() <= 20) {
-                return 1;
+    /* Moves the entry at the given index of the given type's heap up to its place */
+    private void siftUp(int type, int index) {
+        int[] heap = heaps[type];
+        int id = heap[index];
+        while (index > 0 && isBefore(id, heap[(index - 1) / 2])) {
+            int parent = (index - 1) / 2;
+            heap[index] = heap[parent];
+            heapIndices[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = id;
+        heapIndices[id] = index;
+    }
+
+    /* Moves the entry at the given index of the given type's heap down to its place */
+    private void siftDown(int type, int index) {
+        siftDown(heaps[type], numDistinct[type], index, heapIndices);
+    }
+
+    /*
+     * Moves the entry at the given index of the given heap of the given size down to its place,
+     * recording the new index of each entry moved in the given indices unless they are null
+     */
+    private void siftDown(int[] heap, int heapSize, int index, int[] indices) {
+        int id = heap[index];
+        while (2 * index + 1 < heapSize) {
+            int child = 2 * index + 1;
+            if (child + 1 < heapSize && isBefore(heap[child + 1], heap[child])) {
+                child++;
             }
+            if (!isBefore(heap[child], id)) {
+                break;
+            }
+            heap[index] = heap[child];
+            if (indices != null) {
+                indices[heap[index]] = index;
+            }
+            index = child;
+        }
+        heap[index] = id;
+        if (indices != null) {
+            indices[id] = index;
+        }
+    }
 
-            // check if two aircraft are passenger aircraft or not
-            if (aircraft1.getClass().getSimpleName().equals("PassengerAircraft")) {
-                // if both of them has are passenger aircraft, then compare the added order
-                return (aircraft2.getClass().getSimpleName().equals("PassengerAircraft"))
-                        ? addedOrder.get(aircraft1).compareTo(addedOrder.get(aircraft2)) : -1;
-            } else if (aircraft2.getClass().getSimpleName().equals("PassengerAircraft")) {
-                return 1;
+    /* Returns the id of the given aircraft, which must be in this queue */
+    private int queuedId(Aircraft aircraft) {
+        int id = registry.getId(aircraft);
+        if (id == AircraftRegistry.NO_ID || counts[id] == 0) {
+            throw new IllegalArgumentException("Aircraft is not in the landing queue: "
+                    + aircraft.getCallsign());
+        }
+        return id;
+    }
+
+    /* Moves the given aircraft within its type's heap if its priority rank has changed */
+    private void rankChanged(Aircraft aircraft) {
+        int id = registry.getId(aircraft);
+        int rank = rank(aircraft);
+        if (id == AircraftRegistry.NO_ID || counts[id] == 0 || ranks[id] == rank) {
+            return;
+        }
+        ranks[id] = rank;
+        int type = aircraft.getCharacteristics().type.ordinal();
+        siftUp(type, heapIndices[id]);
+        siftDown(type, heapIndices[id]);
+        markModified();
+        notifyMoved(aircraft);
+    }
+
+    /*
+     * Returns the id of the given aircraft, registering it first if necessary, and makes sure the
+     * arrays indexed by id are large enough to hold it
+     */
+    private int register(Aircraft aircraft) {
+        int id = registry.register(aircraft);
+        if (id >= counts.length) {
+            int newLength = Math.max(counts.length * 2, id + 1);
+            counts = Arrays.copyOf(counts, newLength);
+            addedSeq = Arrays.copyOf(addedSeq, newLength);
+            addedTick = Arrays.copyOf(addedTick, newLength);
+            heapIndices = Arrays.copyOf(heapIndices, newLength);
+            ranks = Arrays.copyOf(ranks, newLength);
+        }
+        return id;
+    }
+
+    /* Adds the aircraft with the given id, which is not in this queue, to its type's heap */
+    private void addDistinct(int type, int id) {
+        if (numDistinct[type] == heaps[type].length) {
+            heaps[type] = Arrays.copyOf(heaps[type], numDistinct[type] * 2);
+        }
+        heaps[type][numDistinct[type]] = id;
+        heapIndices[id] = numDistinct[type]++;
+        siftUp(type, heapIndices[id]);
+    }
+
+    /* Returns the ids of the distinct aircraft in this queue, in the order they were added */
+    private int[] idsInAddedOrder() {
+        int total = 0;
+        for (int count : numDistinct) {
+            total += count;
+        }
+        long[] keys = new long[total];
+        int next = 0;
+        for (int type = 0; type < heaps.length; type++) {
+            for (int i = 0; i < numDistinct[type]; i++) {
+                int id = heaps[type][i];
+                keys[next++] = (long) addedSeq[id] << 32 | id;
             }
+        }
+        Arrays.sort(keys);
+        int[] ids = new int[total];
+        for (int i = 0; i < total; i++) {
+            ids[i] = (int) keys[i];
+        }
+        return ids;
+    }
 
-            // check the added order
-            return addedOrder.get(aircraft1).compareTo(addedOrder.get(aircraft2));
-        });
+    /* Removes the entry at the given index of the given type's heap */
+    private void removeDistinct(int type, int index) {
+        int[] heap = heaps[type];
+        int last = --numDistinct[type];
+        if (index < last) {
+            int moved = heap[last];
+            heap[index] = moved;
+            heapIndices[moved] = index;
+            siftUp(type, index);
+            siftDown(type, heapIndices[moved]);
+        }
+    }
+
+    /* Adds each copy of the aircraft with the given id in this queue to the given list */
+    private void addCopies(List<Aircraft> list, int id) {
+        Aircraft aircraft = registry.getAircraft(id);
+        for (int i = 0; i < counts[id]; i++) {
+            list.add(aircraft);
+        }
     }
 
     /**
@@ -139,6 +688,7 @@ public class LandingQueue extends AircraftQueue {
      */
     @Override
     public boolean containsAircraft(Aircraft aircraft) {
-        return allAircraft.contains(aircraft);
+        int id = registry.getId(aircraft);
+        return id != AircraftRegistry.NO_ID && counts[id] > 0;
     }
 }
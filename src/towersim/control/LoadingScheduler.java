@@ -0,0 +1,246 @@
+package towersim.control;
+
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.FreightAircraft;
+import towersim.aircraft.PassengerAircraft;
+import towersim.ground.Gate;
+import towersim.ground.GroundResources;
+import towersim.ground.Terminal;
+import towersim.tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides when aircraft waiting at a gate to load may start loading, given the ground crew and
+ * fuel trucks of the terminal they are parked in.
+ * <p>
+ * An aircraft whose current task is {@code LOAD} but that is not yet in the control tower's
+ * loading map is waiting for ground crew. Aircraft parked at a terminal without
+ * {@link GroundResources} start loading straight away. Otherwise, an aircraft starts loading
+ * once a crew for its cargo and a fuel truck are free at its terminal, and holds them until it
+ * has finished loading.
+ * <p>
+ * When there are not enough resources for every waiting aircraft, they are given to the waiting
+ * aircraft in the following order:
+ * 1) Aircraft in a state of emergency first.
+ * 2) Then the aircraft with the shortest loading time, so that gates are freed for the next
+ *    aircraft to land as soon as possible.
+ * 3) Otherwise, the aircraft added to the control tower first.
+ * The order depends only on the current state of the tower, so it is the same after the tower is
+ * saved and loaded again.
+ * <p>
+ * The resources in use at each terminal are counted as aircraft start and finish loading, rather
+ * than by going through the loading aircraft whenever an aircraft could start loading.
+ */
+public class LoadingScheduler {
+    /** control tower whose aircraft are scheduled */
+    private final ControlTower tower;
+
+    /** resources in use at each terminal: passenger crews, freight crews and fuel trucks */
+    private final Map<Terminal, int[]> inUse = new IdentityHashMap<>();
+
+    /** resources in use at the terminal each loading aircraft is counted in */
+    private final Map<Aircraft, int[]> counted = new IdentityHashMap<>();
+
+    /**
+     * Creates a new loading scheduler for the given control tower.
+     *
+     * @param tower control tower whose aircraft are scheduled
+     */
+    LoadingScheduler(ControlTower tower) {
+        this.tower = tower;
+    }
+
+    /**
+     * Returns true if the given aircraft is parked at a terminal with limited ground resources
+     * and is waiting for them to be free before it can start loading.
+     *
+     * @param aircraft aircraft to check
+     * @return true if the aircraft is waiting for ground crew; false otherwise
+     */
+    public boolean isWaitingForCrew(Aircraft aircraft) {
+        if (aircraft.getTaskList().getCurrentTask().getType() != TaskType.LOAD
+                || tower.getLoadingAircraft().containsKey(aircraft)) {
+            return false;
+        }
+        Terminal terminal = findTerminal(aircraft);
+        return terminal != null && terminal.getGroundResources() != null;
+    }
+
+    /**
+     * Returns the aircraft waiting for ground crew, in the order they will be given crew.
+     *
+     * @return aircraft waiting for ground crew
+     */
+    public List<Aircraft> getAircraftWaitingForCrew() {
+        List<Aircraft> waiting = new ArrayList<>();
+        for (Terminal terminal : tower.getTerminals()) {
+            if (terminal.getGroundResources() != null) {
+                waiting.addAll(findWaitingAircraft(terminal));
+            }
+        }
+        sort(waiting);
+        return waiting;
+    }
+
+    /**
+     * Starts loading every waiting aircraft whose ground crew and fuel truck are free, taking
+     * aircraft in the order described in the class documentation. Aircraft that start loading
+     * are added to the tower's loading map with their loading time.
+     */
+    void startLoading() {
+        for (Terminal terminal : tower.getTerminals()) {
+            startLoading(terminal);
+        }
+    }
+
+    /**
+     * Starts loading the waiting aircraft at the given terminal whose ground crew and fuel truck
+     * are free, as described in {@link #startLoading()}. Aircraft at other terminals are not
+     * affected, as each terminal has its own ground resources.
+     *
+     * @param terminal terminal whose waiting aircraft to start loading
+     */
+    void startLoading(Terminal terminal) {
+        GroundResources resources = terminal.getGroundResources();
+        if (resources == null) {
+            // aircraft at terminals without ground resources start loading once placed in queues
+            return;
+        }
+        int[] used = inUse.computeIfAbsent(terminal, t -> new int[3]);
+        if (used[2] >= resources.getFuelTrucks()) {
+            // every aircraft needs a fuel truck, so none can start loading
+            return;
+        }
+        List<Aircraft> waiting = findWaitingAircraft(terminal);
+        sort(waiting);
+        for (Aircraft aircraft : waiting) {
+            if (resources.canLoad(aircraft, used[0], used[1], used[2])) {
+                // counted in the resources in use by loadingStarted()
+                tower.getLoadingAircraft().put(aircraft, aircraft.getLoadingTime());
+            }
+        }
+    }
+
+    /**
+     * Starts loading the given aircraft waiting at the given terminal if its ground crew and fuel
+     * truck are free, without looking at the other aircraft waiting there.
+     * <p>
+     * This gives the same result as {@link #startLoading(Terminal)} as long as no other aircraft
+     * waiting at the terminal could start loading, such as when resources have only been taken,
+     * not freed, since the terminal was last scheduled: an aircraft that could not start loading
+     * then cannot start with fewer resources free.
+     *
+     * @param aircraft aircraft waiting for ground crew
+     * @param terminal terminal the aircraft is parked at
+     */
+    void startLoading(Aircraft aircraft, Terminal terminal) {
+        GroundResources resources = terminal.getGroundResources();
+        int[] used = inUse.computeIfAbsent(terminal, t -> new int[3]);
+        if (resources != null && resources.canLoad(aircraft, used[0], used[1], used[2])) {
+            tower.getLoadingAircraft().put(aircraft, aircraft.getLoadingTime());
+        }
+    }
+
+    /**
+     * Counts the resources the given aircraft uses at its terminal, as it has started loading.
+     * Called by the control tower when the aircraft is added to its loading map.
+     *
+     * @param aircraft aircraft that started loading
+     */
+    void loadingStarted(Aircraft aircraft) {
+        count(aircraft, findTerminal(aircraft));
+    }
+
+    /**
+     * Frees the resources the given aircraft used at its terminal, as it has finished loading.
+     * Called by the control tower when the aircraft is removed from its loading map.
+     *
+     * @param aircraft aircraft that finished loading
+     */
+    void loadingFinished(Aircraft aircraft) {
+        int[] used = counted.remove(aircraft);
+        if (used != null) {
+            use(used, aircraft, -1);
+        }
+    }
+
+    /**
+     * Counts the resources used by the loading aircraft at the given terminal, which has been
+     * added to the control tower. Aircraft can start loading before their terminal is added, such
+     * as when a tower is loaded from a save.
+     *
+     * @param terminal terminal added to the tower
+     */
+    void terminalAdded(Terminal terminal) {
+        for (Gate gate : terminal.getGates()) {
+            Aircraft aircraft = gate.getAircraftAtGate();
+            if (aircraft != null && tower.getLoadingAircraft().containsKey(aircraft)) {
+                count(aircraft, terminal);
+            }
+        }
+    }
+
+    /*
+     * Returns the aircraft parked at the given terminal with a current task of LOAD that are not
+     * loading
+     */
+    private List<Aircraft> findWaitingAircraft(Terminal terminal) {
+        List<Aircraft> waiting = new ArrayList<>();
+        for (Gate gate : terminal.getGates()) {
+            Aircraft aircraft = gate.getAircraftAtGate();
+            if (aircraft != null
+                    && aircraft.getTaskList().getCurrentTask().getType() == TaskType.LOAD
+                    && !tower.getLoadingAircraft().containsKey(aircraft)) {
+                waiting.add(aircraft);
+            }
+        }
+        return waiting;
+    }
+
+    /* Sorts the given waiting aircraft into the order they will be given ground crew */
+    private void sort(List<Aircraft> waiting) {
+        if (waiting.size() > 1) {
+            AircraftRegistry registry = tower.getAircraftRegistry();
+            waiting.sort(Comparator.comparing((Aircraft aircraft) -> !aircraft.hasEmergency())
+                    .thenComparingInt(Aircraft::getLoadingTime)
+                    .thenComparingInt(registry::getId));
+        }
+    }
+
+    /* Returns the terminal the given aircraft is parked at, or null if it is not parked */
+    private Terminal findTerminal(Aircraft aircraft) {
+        Gate gate = tower.findGateOfAircraft(aircraft);
+        return gate == null ? null : gate.getTerminal();
+    }
+
+    /*
+     * Counts the resources the given loading aircraft uses at the given terminal, unless it has
+     * already been counted or is not parked at a terminal
+     */
+    private void count(Aircraft aircraft, Terminal terminal) {
+        if (terminal == null || counted.containsKey(aircraft)) {
+            return;
+        }
+        int[] used = inUse.computeIfAbsent(terminal, t -> new int[3]);
+        use(used, aircraft, 1);
+        counted.put(aircraft, used);
+    }
+
+    /*
+     * Adds the given change to the resources the given aircraft uses in the given array of
+     * resources in use
+     */
+    private static void use(int[] used, Aircraft aircraft, int change) {
+        if (aircraft instanceof PassengerAircraft) {
+            used[0] += change;
+        } else if (aircraft instanceof FreightAircraft) {
+            used[1] += change;
+        }
+        used[2] += change;
+    }
+}
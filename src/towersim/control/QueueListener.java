@@ -0,0 +1,39 @@
+package towersim.control;
+
+import towersim.aircraft.Aircraft;
+
+/**
+ * Receives changes to the aircraft in an aircraft queue.
+ * <p>
+ * Listeners are registered with {@link AircraftQueue#addListener(QueueListener)}, and are called
+ * whenever an aircraft is added to or removed from the queue, or a single aircraft moves to a new
+ * place in it. Changes to the rules ordering the whole queue, such as a new aging policy for a
+ * landing queue, are not reported; they change {@link AircraftQueue#getVersion()}.
+ */
+public interface QueueListener {
+    /**
+     * Called after an aircraft is added to a queue. An aircraft added more than once is reported
+     * each time.
+     *
+     * @param queue    queue the aircraft was added to
+     * @param aircraft aircraft that was added
+     */
+    void aircraftAdded(AircraftQueue queue, Aircraft aircraft);
+
+    /**
+     * Called after an aircraft is removed from a queue.
+     *
+     * @param queue    queue the aircraft was removed from
+     * @param aircraft aircraft that was removed
+     */
+    void aircraftRemoved(AircraftQueue queue, Aircraft aircraft);
+
+    /**
+     * Called after an aircraft that stays in a queue may have moved to a new place in it, such as
+     * when an emergency is declared on an aircraft waiting to land.
+     *
+     * @param queue    queue the aircraft is in
+     * @param aircraft aircraft that may have moved
+     */
+    void aircraftMoved(AircraftQueue queue, Aircraft aircraft);
+}
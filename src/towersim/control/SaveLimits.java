@@ -0,0 +1,88 @@
+package towersim.control;
+
+/**
+ * Limits on the size of save files read by {@link ControlTowerInitialiser}, so that a corrupt or
+ * hostile save file is rejected before it can exhaust memory.
+ * <p>
+ * The limits are checked while the files are read: a line is rejected as soon as it grows past
+ * the longest line allowed, and a count in a file's header is rejected before anything it
+ * counts is read, so the oversized data is never held in memory. A save file exceeding a limit is
+ * treated like any other invalid save file.
+ */
+public class SaveLimits {
+    /**
+     * Limits applied when none are given, generous enough for any save file written by the
+     * simulation: lines of up to 4 Mi characters, 100,000 aircraft, 10,000 terminals and
+     * 256 Mi characters in total
+     */
+    public static final SaveLimits DEFAULT = new SaveLimits(4 << 20, 100_000, 10_000, 256L << 20);
+
+    /** Longest line allowed, in characters, not counting the line terminator */
+    private final int maxLineLength;
+
+    /** Largest number of aircraft allowed in the aircraft file, and in each queue */
+    private final int maxAircraft;
+
+    /** Largest number of terminals allowed */
+    private final int maxTerminals;
+
+    /** Largest number of characters allowed in all the files of a save together */
+    private final long maxTotalChars;
+
+    /**
+     * Creates a new set of limits.
+     *
+     * @param maxLineLength longest line allowed, in characters
+     * @param maxAircraft   largest number of aircraft allowed in the aircraft file, and in each
+     *                      of the takeoff queue, landing queue and loading aircraft
+     * @param maxTerminals  largest number of terminals allowed
+     * @param maxTotalChars largest number of characters allowed in all the files of a save
+     * @throws IllegalArgumentException if any limit is less than 1
+     */
+    public SaveLimits(int maxLineLength, int maxAircraft, int maxTerminals, long maxTotalChars) {
+        if (maxLineLength < 1 || maxAircraft < 1 || maxTerminals < 1 || maxTotalChars < 1) {
+            throw new IllegalArgumentException("Save limits must be at least 1");
+        }
+        this.maxLineLength = maxLineLength;
+        this.maxAircraft = maxAircraft;
+        this.maxTerminals = maxTerminals;
+        this.maxTotalChars = maxTotalChars;
+    }
+
+    /**
+     * Returns the longest line allowed, in characters, not counting the line terminator.
+     *
+     * @return longest line allowed
+     */
+    public int getMaxLineLength() {
+        return maxLineLength;
+    }
+
+    /**
+     * Returns the largest number of aircraft allowed in the aircraft file, and in each of the
+     * takeoff queue, landing queue and loading aircraft.
+     *
+     * @return largest number of aircraft allowed
+     */
+    public int getMaxAircraft() {
+        return maxAircraft;
+    }
+
+    /**
+     * Returns the largest number of terminals allowed.
+     *
+     * @return largest number of terminals allowed
+     */
+    public int getMaxTerminals() {
+        return maxTerminals;
+    }
+
+    /**
+     * Returns the largest number of characters allowed in all the files of a save together.
+     *
+     * @return largest number of characters allowed
+     */
+    public long getMaxTotalChars() {
+        return maxTotalChars;
+    }
+}
@@ -3,7 +3,9 @@ package towersim.control;
 import towersim.aircraft.Aircraft;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a first-in-first-out (FIFO) queue of aircraft waiting to take off.
@@ -14,14 +16,50 @@ import java.util.List;
  */
 public class TakeoffQueue extends AircraftQueue {
 
-    /** the aircraft list in this queue */
-    private final List<Aircraft> allAircraft;
+    /** the registry giving each aircraft ever added to this queue a dense id */
+    private final AircraftRegistry registry;
+
+    /** circular buffer of the ids of the aircraft in this queue, front first */
+    private int[] ids;
+
+    /** the index in {@code ids} of the aircraft at the front of the queue */
+    private int head;
+
+    /** the number of aircraft in this queue */
+    private int size;
+
+    /** the number of times each aircraft is in this queue, indexed by id */
+    private int[] counts;
 
     /**
      * Constructs a new TakeoffQueue with an initially empty queue of aircraft.
      */
     public TakeoffQueue() {
-        this.allAircraft = new ArrayList<>();
+        this.registry = new AircraftRegistry();
+        this.ids = new int[16];
+        this.head = 0;
+        this.size = 0;
+        this.counts = new int[16];
+    }
+
+    /* Creates a queue in the same state as the given one, holding copies of its aircraft */
+    private TakeoffQueue(TakeoffQueue original, Map<Aircraft, Aircraft> copies) {
+        this.registry = original.registry.copy(copies);
+        this.ids = original.ids.clone();
+        this.head = original.head;
+        this.size = original.size;
+        this.counts = original.counts.clone();
+    }
+
+    /**
+     * Returns a copy of this queue, holding copies of its aircraft in the same order. The copies
+     * are taken from the given mapping as described in {@link AircraftRegistry#copy(Map)}.
+     *
+     * @param copies copy of each aircraft, keyed by the original aircraft
+     * @return copy of this queue
+     */
+    TakeoffQueue copy(Map<Aircraft, Aircraft> copies) {
+        return new TakeoffQueue(this, copies);
     }
 
     /**
@@ -31,7 +69,50 @@ public class TakeoffQueue extends AircraftQueue {
      */
     @Override
     public void addAircraft(Aircraft aircraft) {
-        allAircraft.add(aircraft);
+        int id = register(aircraft);
+        ids[(head + size++) % ids.length] = id;
+        counts[id]++;
+        markModified();
+        notifyAdded(aircraft);
+    }
+
+    /**
+     * Adds the given aircraft to the front of the queue, ahead of the aircraft already in it.
+     * <p>
+     * This is used to restore a queue to a previously recorded state, undoing the removal of the
+     * aircraft at the front of the queue.
+     *
+     * @param aircraft aircraft to add to the front of the queue
+     */
+    public void addAircraftToFront(Aircraft aircraft) {
+        int id = register(aircraft);
+        head = (head + ids.length - 1) % ids.length;
+        ids[head] = id;
+        size++;
+        counts[id]++;
+        markModified();
+        notifyAdded(aircraft);
+    }
+
+    /**
+     * Removes and returns the aircraft at the back of the queue, the one most recently added.
+     * Returns null if the queue is empty.
+     * <p>
+     * This is used to restore a queue to a previously recorded state, undoing the addition of
+     * an aircraft.
+     *
+     * @return aircraft at back of queue; null if the queue is empty
+     */
+    public Aircraft removeLastAircraft() {
+        if (size == 0) {
+            return null;
+        }
+        int id = ids[(head + --size) % ids.length];
+        counts[id]--;
+        markModified();
+        Aircraft aircraft = registry.getAircraft(id);
+        notifyRemoved(aircraft);
+        return aircraft;
     }
 
     /**
@@ -42,10 +123,10 @@ public class TakeoffQueue extends AircraftQueue {
      */
     @Override
     public Aircraft peekAircraft() {
-        if (allAircraft.size() == 0) {
+        if (size == 0) {
             return null;
         }
-        return allAircraft.get(0);
+        return registry.getAircraft(ids[head]);
     }
 
     /**
@@ -56,10 +137,17 @@ public class TakeoffQueue extends AircraftQueue {
      */
     @Override
     public Aircraft removeAircraft() {
-        // the aircraft to be removed
-        Aircraft removedAircraft = peekAircraft();
-        allAircraft.remove(removedAircraft);
-        return removedAircraft;
+        if (size == 0) {
+            return null;
+        }
+        int id = ids[head];
+        head = (head + 1) % ids.length;
+        size--;
+        counts[id]--;
+        markModified();
+        Aircraft aircraft = registry.getAircraft(id);
+        notifyRemoved(aircraft);
+        return aircraft;
     }
 
     /**
@@ -69,7 +157,22 @@ public class TakeoffQueue extends AircraftQueue {
      */
     @Override
     public List<Aircraft> getAircraftInOrder() {
-        return new ArrayList<>(allAircraft);
+        List<Aircraft> aircraftInOrder = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            aircraftInOrder.add(registry.getAircraft(ids[(head + i) % ids.length]));
+        }
+        return aircraftInOrder;
+    }
+
+    /**
+     * Returns the number of aircraft in the queue, the same as the size of the list returned by
+     * {@link #getAircraftInOrder()}.
+     *
+     * @return number of aircraft in queue
+     */
+    @Override
+    public int size() {
+        return size;
     }
 
     /**
@@ -80,6 +183,28 @@ public class TakeoffQueue extends AircraftQueue {
      */
     @Override
     public boolean containsAircraft(Aircraft aircraft) {
-        return allAircraft.contains(aircraft);
+        int id = registry.getId(aircraft);
+        return id != AircraftRegistry.NO_ID && counts[id] > 0;
+    }
+
+    /*
+     * Returns the id of the given aircraft, registering it first if necessary, and makes sure
+     * there is room in the queue for one more aircraft
+     */
+    private int register(Aircraft aircraft) {
+        int id = registry.register(aircraft);
+        if (id >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(counts.length * 2, id + 1));
+        }
+        if (size == ids.length) {
+            // unwrap the circular buffer into a larger array
+            int[] newIds = new int[ids.length * 2];
+            for (int i = 0; i < size; i++) {
+                newIds[i] = ids[(head + i) % ids.length];
+            }
+            ids = newIds;
+            head = 0;
+        }
+        return id;
     }
 }
@@ -0,0 +1,125 @@
+package towersim.control;
+
+import towersim.aircraft.Aircraft;
+import towersim.ground.Gate;
+import towersim.ground.Terminal;
+import towersim.tasks.TaskType;
+
+/**
+ * Receives the events of a control tower as they happen.
+ * <p>
+ * Listeners are registered with {@link ControlTower#addListener(TowerListener)}. Each event is
+ * given the tick it happened in: events during a call to {@link ControlTower#tick()} happen in
+ * the tick being performed, and events between ticks in the last tick to elapse.
+ * <p>
+ * Emergencies are declared and cleared from outside the control tower, so the tower reports
+ * changes to them at the start of the next tick, before {@link #beforeTick(ControlTower)}.
+ * <p>
+ * Every method does nothing by default, so listeners only need to override the events they are
+ * interested in.
+ */
+public interface TowerListener {
+    /**
+     * Called at the start of each tick, before anything in the tower has changed.
+     *
+     * @param tower control tower about to tick
+     */
+    default void beforeTick(ControlTower tower) {
+    }
+
+    /**
+     * Called at the end of each tick, once the tower has finished changing.
+     *
+     * @param tower control tower that ticked
+     */
+    default void afterTick(ControlTower tower) {
+    }
+
+    /**
+     * Called when an aircraft joins the landing queue or the takeoff queue.
+     *
+     * @param tick     tick in which the event happened
+     * @param aircraft aircraft that joined a queue
+     * @param taskType LAND if the aircraft joined the landing queue; TAKEOFF if it joined the
+     *                 takeoff queue
+     */
+    default void aircraftQueued(long tick, Aircraft aircraft, TaskType taskType) {
+    }
+
+    /**
+     * Called when an aircraft is removed from the landing queue and lands.
+     *
+     * @param tick     tick in which the event happened
+     * @param aircraft aircraft that landed
+     */
+    default void aircraftLanded(long tick, Aircraft aircraft) {
+    }
+
+    /**
+     * Called when an aircraft is removed from the takeoff queue and takes off.
+     *
+     * @param tick     tick in which the event happened
+     * @param aircraft aircraft that took off
+     */
+    default void aircraftTookOff(long tick, Aircraft aircraft) {
+    }
+
+    /**
+     * Called when a landed aircraft is parked at a gate.
+     *
+     * @param tick     tick in which the event happened
+     * @param aircraft aircraft that was parked
+     * @param gate     gate the aircraft was parked at
+     */
+    default void aircraftParked(long tick, Aircraft aircraft, Gate gate) {
+    }
+
+    /**
+     * Called when an aircraft that has finished loading leaves its gate.
+     *
+     * @param tick     tick in which the event happened
+     * @param aircraft aircraft that left the gate
+     * @param gate     gate the aircraft left
+     */
+    default void aircraftLeftGate(long tick, Aircraft aircraft, Gate gate) {
+    }
+
+    /**
+     * Called when an aircraft finishes loading its cargo.
+     *
+     * @param tick     tick in which the event happened
+     * @param aircraft aircraft that finished loading
+     */
+    default void loadingFinished(long tick, Aircraft aircraft) {
+    }
+
+    /**
+     * Called when an aircraft moves on to its next task.
+     *
+     * @param tick     tick in which the event happened
+     * @param aircraft aircraft whose task changed
+     * @param taskType type of the aircraft's new current task
+     */
+    default void taskAdvanced(long tick, Aircraft aircraft, TaskType taskType) {
+    }
+
+    /**
+     * Called when a state of emergency has been declared or cleared on an aircraft.
+     *
+     * @param tick      tick in which the change was noticed
+     * @param aircraft  aircraft whose emergency state changed
+     * @param emergency true if an emergency was declared; false if it was cleared
+     */
+    default void aircraftEmergencyChanged(long tick, Aircraft aircraft, boolean emergency) {
+    }
+
+    /**
+     * Called when a state of emergency has been declared or cleared on a terminal.
+     *
+     * @param tick      tick in which the change was noticed
+     * @param terminal  terminal whose emergency state changed
+     * @param emergency true if an emergency was declared; false if it was cleared
+     */
+    default void terminalEmergencyChanged(long tick, Terminal terminal, boolean emergency) {
+    }
+}
@@ -0,0 +1,431 @@
+package towersim.control;
+
+import towersim.aircraft.AircraftCharacteristics;
+import towersim.tasks.TaskType;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, consistent view of a control tower's state at the end of a tick, published by a
+ * {@link TowerStatePublisher}.
+ * <p>
+ * Tower states can be read from any thread without locking, while the thread that owns the
+ * control tower carries on ticking it. All of a state's contents describe the tower at the same
+ * moment; aircraft, gates and queues are identified by callsign and number rather than by the
+ * tower's mutable objects.
+ */
+public final class TowerState {
+    /** number of states published before this one by the same publisher */
+    private final long sequence;
+
+    /** number of ticks elapsed when this state was published */
+    private final long ticksElapsed;
+
+    /** state of every aircraft, in the order they were added to the tower */
+    private final List<AircraftState> aircraft;
+
+    /** position of every aircraft in {@code aircraft} by callsign */
+    private final Map<String, Integer> aircraftIndices;
+
+    /** state of every terminal, in the order they were added to the tower */
+    private final List<TerminalState> terminals;
+
+    /** callsigns of the aircraft in the landing queue, in queue order */
+    private final List<String> landingQueue;
+
+    /** callsigns of the aircraft in the takeoff queue, in queue order */
+    private final List<String> takeoffQueue;
+
+    /** callsigns of the loading aircraft mapped to their remaining load times */
+    private final Map<String, Integer> loadingAircraft;
+
+    /**
+     * Creates a new tower state. The given collections must not be changed afterwards, and may
+     * be shared with other states.
+     *
+     * @param sequence        number of states published before this one
+     * @param ticksElapsed    number of ticks elapsed
+     * @param aircraft        state of every aircraft, in the order they were added
+     * @param aircraftIndices position of every aircraft in the list of aircraft states, by
+     *                        callsign
+     * @param terminals       state of every terminal, in the order they were added
+     * @param landingQueue    callsigns of the aircraft waiting to land, in queue order
+     * @param takeoffQueue    callsigns of the aircraft waiting to take off, in queue order
+     * @param loadingAircraft callsigns of the loading aircraft mapped to their remaining load
+     *                        times
+     */
+    TowerState(long sequence, long ticksElapsed, List<AircraftState> aircraft,
+            Map<String, Integer> aircraftIndices, List<TerminalState> terminals,
+            List<String> landingQueue, List<String> takeoffQueue,
+            Map<String, Integer> loadingAircraft) {
+        this.sequence = sequence;
+        this.ticksElapsed = ticksElapsed;
+        this.aircraft = Collections.unmodifiableList(aircraft);
+        this.aircraftIndices = Collections.unmodifiableMap(aircraftIndices);
+        this.terminals = Collections.unmodifiableList(terminals);
+        this.landingQueue = Collections.unmodifiableList(landingQueue);
+        this.takeoffQueue = Collections.unmodifiableList(takeoffQueue);
+        this.loadingAircraft = Collections.unmodifiableMap(loadingAircraft);
+    }
+
+    /**
+     * Returns the number of states published before this one by the same publisher. Later
+     * states have larger sequence numbers.
+     *
+     * @return sequence number of this state
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of ticks that had elapsed for the tower when this state was published.
+     *
+     * @return number of ticks elapsed
+     */
+    public long getTicksElapsed() {
+        return ticksElapsed;
+    }
+
+    /**
+     * Returns the state of every aircraft managed by the tower, in the order they were added.
+     *
+     * @return unmodifiable list of aircraft states
+     */
+    public List<AircraftState> getAircraft() {
+        return aircraft;
+    }
+
+    /**
+     * Returns the state of the aircraft with the given callsign.
+     *
+     * @param callsign callsign of the aircraft to find
+     * @return state of the aircraft; or null if the tower has no aircraft with that callsign
+     */
+    public AircraftState findAircraft(String callsign) {
+        Integer index = aircraftIndices.get(callsign);
+        return index == null ? null : aircraft.get(index);
+    }
+
+    /**
+     * Returns the state of every terminal in the tower, in the order they were added.
+     *
+     * @return unmodifiable list of terminal states
+     */
+    public List<TerminalState> getTerminals() {
+        return terminals;
+    }
+
+    /**
+     * Returns the callsigns of the aircraft waiting to land, in queue order.
+     *
+     * @return unmodifiable list of callsigns
+     */
+    public List<String> getLandingQueue() {
+        return landingQueue;
+    }
+
+    /**
+     * Returns the callsigns of the aircraft waiting to take off, in queue order.
+     *
+     * @return unmodifiable list of callsigns
+     */
+    public List<String> getTakeoffQueue() {
+        return takeoffQueue;
+    }
+
+    /**
+     * Returns the callsigns of the aircraft that are loading, mapped to the number of ticks
+     * remaining until each has finished loading.
+     *
+     * @return unmodifiable map of loading aircraft
+     */
+    public Map<String, Integer> getLoadingAircraft() {
+        return loadingAircraft;
+    }
+
+    /**
+     * Returns the human-readable string representation of this tower state.
+     * <p>
+     * The format of the string to return is
+     * <pre>TowerState #sequence [ticks=ticksElapsed, aircraft=numAircraft,
+     * terminals=numTerminals, landing=numLanding, takeoff=numTakeoff, loading=numLoading]</pre>
+     *
+     * @return string representation of this state
+     */
+    @Override
+    public String toString() {
+        return String.format("TowerState #%d [ticks=%d, aircraft=%d, terminals=%d, landing=%d, "
+                        + "takeoff=%d, loading=%d]", sequence, ticksElapsed, aircraft.size(),
+                terminals.size(), landingQueue.size(), takeoffQueue.size(),
+                loadingAircraft.size());
+    }
+
+    /**
+     * The state of a single aircraft when a tower state was published.
+     */
+    public static final class AircraftState {
+        /** callsign of the aircraft */
+        private final String callsign;
+
+        /** characteristics of the aircraft */
+        private final AircraftCharacteristics characteristics;
+
+        /** type of the aircraft's current task */
+        private final TaskType taskType;
+
+        /** index of the aircraft's current task in its task list */
+        private final int taskIndex;
+
+        /** load percentage of the aircraft's current task */
+        private final int loadPercent;
+
+        /** amount of fuel onboard, in litres */
+        private final double fuelAmount;
+
+        /** amount of cargo onboard */
+        private final int cargoAmount;
+
+        /** whether the aircraft is in a state of emergency */
+        private final boolean emergency;
+
+        /** version of the aircraft that this state was taken from */
+        private final long version;
+
+        /** Creates a new aircraft state with the given values */
+        AircraftState(String callsign, AircraftCharacteristics characteristics,
+                TaskType taskType, int taskIndex, int loadPercent, double fuelAmount,
+                int cargoAmount, boolean emergency, long version) {
+            this.callsign = callsign;
+            this.characteristics = characteristics;
+            this.taskType = taskType;
+            this.taskIndex = taskIndex;
+            this.loadPercent = loadPercent;
+            this.fuelAmount = fuelAmount;
+            this.cargoAmount = cargoAmount;
+            this.emergency = emergency;
+            this.version = version;
+        }
+
+        /**
+         * Returns the callsign of the aircraft.
+         *
+         * @return callsign
+         */
+        public String getCallsign() {
+            return callsign;
+        }
+
+        /**
+         * Returns the characteristics of the aircraft.
+         *
+         * @return aircraft characteristics
+         */
+        public AircraftCharacteristics getCharacteristics() {
+            return characteristics;
+        }
+
+        /**
+         * Returns the type of the aircraft's current task.
+         *
+         * @return current task type
+         */
+        public TaskType getTaskType() {
+            return taskType;
+        }
+
+        /**
+         * Returns the index of the aircraft's current task in its task list, as returned by
+         * {@link towersim.tasks.TaskList#getCurrentTaskIndex()}.
+         *
+         * @return current task index
+         */
+        public int getTaskIndex() {
+            return taskIndex;
+        }
+
+        /**
+         * Returns the load percentage of the aircraft's current task; 0 unless the task is
+         * {@code LOAD}.
+         *
+         * @return load percentage of current task
+         */
+        public int getLoadPercent() {
+            return loadPercent;
+        }
+
+        /**
+         * Returns the amount of fuel onboard, in litres.
+         *
+         * @return fuel amount
+         */
+        public double getFuelAmount() {
+            return fuelAmount;
+        }
+
+        /**
+         * Returns the amount of cargo onboard, as returned by
+         * {@link towersim.aircraft.Aircraft#getCargoAmount()}.
+         *
+         * @return cargo amount
+         */
+        public int getCargoAmount() {
+            return cargoAmount;
+        }
+
+        /**
+         * Returns whether the aircraft was in a state of emergency.
+         *
+         * @return true if the aircraft had an emergency; false otherwise
+         */
+        public boolean hasEmergency() {
+            return emergency;
+        }
+
+        /**
+         * Returns the version of the aircraft that this state was taken from, as returned by
+         * {@link towersim.aircraft.Aircraft#getVersion()}.
+         *
+         * @return aircraft version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns the human-readable string representation of this aircraft state.
+         * <p>
+         * The format of the string to return is
+         * <pre>callsign model taskType</pre>
+         * followed by {@code " (EMERGENCY)"} if the aircraft had an emergency.
+         *
+         * @return string representation of this aircraft state
+         */
+        @Override
+        public String toString() {
+            return String.format("%s %s %s%s", callsign, characteristics, taskType,
+                    emergency ? " (EMERGENCY)" : "");
+        }
+    }
+
+    /**
+     * The state of a single terminal and its gates when a tower state was published.
+     */
+    public static final class TerminalState {
+        /** identifying number of the terminal */
+        private final int terminalNumber;
+
+        /** whether the terminal is in a state of emergency */
+        private final boolean emergency;
+
+        /** numbers of the terminal's gates, in the order they were added */
+        private final int[] gateNumbers;
+
+        /** callsign of the aircraft at each gate, or null if the gate is empty */
+        private final String[] parkedCallsigns;
+
+        /** version of the terminal that this state was taken from */
+        private final long version;
+
+        /** Creates a new terminal state with the given values */
+        TerminalState(int terminalNumber, boolean emergency, int[] gateNumbers,
+                String[] parkedCallsigns, long version) {
+            this.terminalNumber = terminalNumber;
+            this.emergency = emergency;
+            this.gateNumbers = gateNumbers;
+            this.parkedCallsigns = parkedCallsigns;
+            this.version = version;
+        }
+
+        /**
+         * Returns the identifying number of the terminal.
+         *
+         * @return terminal number
+         */
+        public int getTerminalNumber() {
+            return terminalNumber;
+        }
+
+        /**
+         * Returns whether the terminal was in a state of emergency.
+         *
+         * @return true if the terminal had an emergency; false otherwise
+         */
+        public boolean hasEmergency() {
+            return emergency;
+        }
+
+        /**
+         * Returns the number of gates in the terminal.
+         *
+         * @return number of gates
+         */
+        public int getNumGates() {
+            return gateNumbers.length;
+        }
+
+        /**
+         * Returns the number of the gate at the given position in the terminal.
+         *
+         * @param index position of the gate, in the order the gates were added
+         * @return gate number
+         * @throws IndexOutOfBoundsException if there is no gate at that position
+         */
+        public int getGateNumber(int index) {
+            return gateNumbers[index];
+        }
+
+        /**
+         * Returns the callsign of the aircraft parked at the gate at the given position.
+         *
+         * @param index position of the gate, in the order the gates were added
+         * @return callsign of the parked aircraft; or null if the gate was empty
+         * @throws IndexOutOfBoundsException if there is no gate at that position
+         */
+        public String getParkedCallsign(int index) {
+            return parkedCallsigns[index];
+        }
+
+        /**
+         * Returns the number of gates in the terminal with an aircraft parked at them.
+         *
+         * @return number of occupied gates
+         */
+        public int getNumOccupiedGates() {
+            int occupied = 0;
+            for (String callsign : parkedCallsigns) {
+                if (callsign != null) {
+                    occupied++;
+                }
+            }
+            return occupied;
+        }
+
+        /**
+         * Returns the version of the terminal that this state was taken from, as returned by
+         * {@link towersim.ground.Terminal#getVersion()}.
+         *
+         * @return terminal version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns the human-readable string representation of this terminal state.
+         * <p>
+         * The format of the string to return is
+         * <pre>Terminal terminalNumber, occupied/numGates gates occupied</pre>
+         * followed by {@code " (EMERGENCY)"} if the terminal had an emergency.
+         *
+         * @return string representation of this terminal state
+         */
+        @Override
+        public String toString() {
+            return String.format("Terminal %d, %d/%d gates occupied%s", terminalNumber,
+                    getNumOccupiedGates(), gateNumbers.length, emergency ? " (EMERGENCY)" : "");
+        }
+    }
+}
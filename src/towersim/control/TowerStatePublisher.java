@@ -0,0 +1,297 @@
+package towersim.control;
+
+import towersim.aircraft.Aircraft;
+import towersim.ground.Gate;
+import towersim.ground.Terminal;
+import towersim.tasks.Task;
+import towersim.tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Publishes the state of a control tower for threads other than the one ticking it.
+ * <p>
+ * A control tower is not thread-safe: it must only be used by a single writer thread, which ticks
+ * it and makes any other changes to it. A publisher lets any number of reader threads see the
+ * tower's state while the writer carries on. At the end of every tick, the writer builds an
+ * immutable {@link TowerState} and publishes it through a volatile reference. Readers call
+ * {@link #getState()}, which never blocks and never waits for the writer, and always returns a
+ * state that describes the whole tower at a single moment.
+ * <p>
+ * Changes the writer makes between ticks, such as adding aircraft or declaring emergencies, are
+ * published at the end of the next tick, or straight away if the writer calls
+ * {@link #publish()}.
+ * <p>
+ * Publishing reuses whatever has not changed since the previous state: the state of each aircraft
+ * and terminal whose version is unchanged, the lists of aircraft and terminal states if none of
+ * them changed, the callsigns of each queue whose version is unchanged, the loading aircraft if
+ * the tower's loading version is unchanged, and the index of aircraft by callsign until an
+ * aircraft is added. Every aircraft's version is still compared, and a list of states in which
+ * any state changed is copied, so publishing takes time linear in the number of aircraft, but
+ * with no hashing or allocation for the aircraft that did not change.
+ */
+public class TowerStatePublisher implements TowerListener {
+    /** control tower whose state is published */
+    private final ControlTower tower;
+
+    /** latest published state */
+    private volatile TowerState state;
+
+    /** number of states published so far */
+    private long published;
+
+    /** aircraft whose states are in the latest published state, in the same order */
+    private Aircraft[] publishedAircraft = new Aircraft[0];
+
+    /** position of each published aircraft by callsign, shared by the states that use it */
+    private Map<String, Integer> aircraftIndices = new HashMap<>();
+
+    /** terminals whose states are in the latest published state, in the same order */
+    private Terminal[] publishedTerminals = new Terminal[0];
+
+    /** landing queue whose callsigns are in the latest published state */
+    private AircraftQueue publishedLandingQueue;
+
+    /** version of the landing queue when its callsigns were published */
+    private long landingQueueVersion;
+
+    /** takeoff queue whose callsigns are in the latest published state */
+    private AircraftQueue publishedTakeoffQueue;
+
+    /** version of the takeoff queue when its callsigns were published */
+    private long takeoffQueueVersion;
+
+    /** loading version of the tower when the loading aircraft were published */
+    private long loadingVersion = -1;
+
+    /** actions run each time a state is published */
+    private final List<Runnable> publishListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a new publisher for the given control tower, publishes the tower's current state
+     * and registers the publisher as a listener so that a new state is published after every
+     * tick.
+     * <p>
+     * This must be called by the tower's writer thread.
+     *
+     * @param tower control tower whose state is published
+     */
+    public TowerStatePublisher(ControlTower tower) {
+        this.tower = tower;
+        publish();
+        tower.addListener(this);
+    }
+
+    /**
+     * Returns the latest published state of the control tower. May be called from any thread.
+     *
+     * @return latest tower state
+     */
+    public TowerState getState() {
+        return state;
+    }
+
+    /**
+     * Adds an action to run each time a state is published, such as waking a thread that passes
+     * the state on. The action is run by the writer thread, so it should return quickly.
+     *
+     * @param listener action to run after each state is published
+     */
+    public void addPublishListener(Runnable listener) {
+        publishListeners.add(listener);
+    }
+
+    /**
+     * Removes an action added by {@link #addPublishListener(Runnable)}.
+     *
+     * @param listener action to remove
+     */
+    public void removePublishListener(Runnable listener) {
+        publishListeners.remove(listener);
+    }
+
+    /**
+     * Publishes the current state of the control tower, so that readers see changes made since
+     * the last tick.
+     * <p>
+     * This must only be called by the tower's writer thread.
+     */
+    public void publish() {
+        TowerState previous = state;
+        List<TowerState.AircraftState> aircraft = publishAircraft(
+                previous == null ? List.of() : previous.getAircraft());
+        List<TowerState.TerminalState> terminals = publishTerminals(
+                previous == null ? List.of() : previous.getTerminals());
+
+        List<String> landingQueue;
+        AircraftQueue queue = tower.getLandingQueue();
+        if (previous != null && queue == publishedLandingQueue
+                && queue.getVersion() == landingQueueVersion) {
+            landingQueue = previous.getLandingQueue();
+        } else {
+            landingQueue = callsigns(queue);
+            publishedLandingQueue = queue;
+            landingQueueVersion = queue.getVersion();
+        }
+
+        List<String> takeoffQueue;
+        queue = tower.getTakeoffQueue();
+        if (previous != null && queue == publishedTakeoffQueue
+                && queue.getVersion() == takeoffQueueVersion) {
+            takeoffQueue = previous.getTakeoffQueue();
+        } else {
+            takeoffQueue = callsigns(queue);
+            publishedTakeoffQueue = queue;
+            takeoffQueueVersion = queue.getVersion();
+        }
+
+        Map<String, Integer> loading;
+        if (previous != null && tower.getLoadingVersion() == loadingVersion) {
+            loading = previous.getLoadingAircraft();
+        } else {
+            loading = new LinkedHashMap<>();
+            for (Map.Entry<Aircraft, Integer> entry : tower.getLoadingAircraft().entrySet()) {
+                loading.put(entry.getKey().getCallsign(), entry.getValue());
+            }
+            loadingVersion = tower.getLoadingVersion();
+        }
+
+        state = new TowerState(published++, tower.getTicksElapsed(), aircraft, aircraftIndices,
+                terminals, landingQueue, takeoffQueue, loading);
+        for (Runnable listener : publishListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Publishes the state of the control tower once it has finished ticking.
+     *
+     * @param tower control tower that ticked
+     */
+    @Override
+    public void afterTick(ControlTower tower) {
+        publish();
+    }
+
+    /*
+     * Returns the states of the tower's aircraft, reusing the given previously published states
+     * of the aircraft whose versions have not changed, and the list itself if none have
+     */
+    private List<TowerState.AircraftState> publishAircraft(
+            List<TowerState.AircraftState> previous) {
+        int numAircraft = tower.getNumAircraft();
+        boolean sameAircraft = numAircraft == publishedAircraft.length;
+        TowerState.AircraftState[] states = null;
+        for (int i = 0; i < numAircraft; i++) {
+            Aircraft aircraft = tower.getAircraft(i);
+            TowerState.AircraftState aircraftState = null;
+            if (i < publishedAircraft.length && publishedAircraft[i] == aircraft) {
+                aircraftState = previous.get(i);
+            } else {
+                sameAircraft = false;
+            }
+            if (aircraftState == null || aircraftState.getVersion() != aircraft.getVersion()) {
+                if (states == null) {
+                    // copy the states only once one has changed
+                    states = new TowerState.AircraftState[numAircraft];
+                    for (int j = 0; j < i; j++) {
+                        states[j] = previous.get(j);
+                    }
+                }
+                aircraftState = captureAircraft(aircraft);
+            }
+            if (states != null) {
+                states[i] = aircraftState;
+            }
+        }
+        if (!sameAircraft) {
+            // earlier states keep the old index, so it is replaced rather than changed
+            publishedAircraft = new Aircraft[numAircraft];
+            Map<String, Integer> indices = new HashMap<>();
+            for (int i = 0; i < numAircraft; i++) {
+                publishedAircraft[i] = tower.getAircraft(i);
+                indices.put(publishedAircraft[i].getCallsign(), i);
+            }
+            aircraftIndices = indices;
+        }
+        if (states == null && numAircraft == previous.size()) {
+            return previous;
+        } else if (states == null) {
+            // aircraft were removed from the end, and the rest are unchanged
+            return Collections.unmodifiableList(new ArrayList<>(previous.subList(0, numAircraft)));
+        }
+        return Collections.unmodifiableList(Arrays.asList(states));
+    }
+
+    /*
+     * Returns the states of the tower's terminals, reusing the given previously published states
+     * of the terminals whose versions have not changed, and the list itself if none have
+     */
+    private List<TowerState.TerminalState> publishTerminals(
+            List<TowerState.TerminalState> previous) {
+        List<Terminal> allTerminals = tower.getTerminals();
+        boolean changed = allTerminals.size() != publishedTerminals.length;
+        List<TowerState.TerminalState> terminals = new ArrayList<>(allTerminals.size());
+        for (int i = 0; i < allTerminals.size(); i++) {
+            Terminal terminal = allTerminals.get(i);
+            TowerState.TerminalState terminalState = null;
+            if (i < publishedTerminals.length && publishedTerminals[i] == terminal) {
+                terminalState = previous.get(i);
+            }
+            if (terminalState == null || terminalState.getVersion() != terminal.getVersion()) {
+                terminalState = captureTerminal(terminal);
+                changed = true;
+            }
+            terminals.add(terminalState);
+        }
+        if (!changed) {
+            return previous;
+        }
+        publishedTerminals = allTerminals.toArray(new Terminal[0]);
+        return terminals;
+    }
+
+    /* Returns the current state of the given aircraft */
+    private static TowerState.AircraftState captureAircraft(Aircraft aircraft) {
+        Task task = aircraft.getTaskList().getCurrentTask();
+        return new TowerState.AircraftState(aircraft.getCallsign(),
+                aircraft.getCharacteristics(), task.getType(),
+                aircraft.getTaskList().getCurrentTaskIndex(),
+                task.getType() == TaskType.LOAD ? task.getLoadPercent() : 0,
+                aircraft.getFuelAmount(), aircraft.getCargoAmount(), aircraft.hasEmergency(),
+                aircraft.getVersion());
+    }
+
+    /* Returns the current state of the given terminal and its gates */
+    private static TowerState.TerminalState captureTerminal(Terminal terminal) {
+        List<Gate> gates = terminal.getGates();
+        int[] gateNumbers = new int[gates.size()];
+        String[] parkedCallsigns = new String[gates.size()];
+        for (int i = 0; i < gates.size(); i++) {
+            Gate gate = gates.get(i);
+            gateNumbers[i] = gate.getGateNumber();
+            if (gate.isOccupied()) {
+                parkedCallsigns[i] = gate.getAircraftAtGate().getCallsign();
+            }
+        }
+        return new TowerState.TerminalState(terminal.getTerminalNumber(),
+                terminal.hasEmergency(), gateNumbers, parkedCallsigns, terminal.getVersion());
+    }
+
+    /* Returns the callsigns of the aircraft in the given queue, in queue order */
+    private static List<String> callsigns(AircraftQueue queue) {
+        List<Aircraft> aircraft = queue.getAircraftInOrder();
+        List<String> callsigns = new ArrayList<>(aircraft.size());
+        for (Aircraft a : aircraft) {
+            callsigns.add(a.getCallsign());
+        }
+        return callsigns;
+    }
+}
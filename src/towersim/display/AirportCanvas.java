@@ -21,12 +21,13 @@ import towersim.ground.Gate;
 import towersim.ground.Terminal;
 import towersim.tasks.Task;
 import towersim.tasks.TaskType;
+import towersim.telemetry.CanvasDrawEvent;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 /**
  * Subclass of the JavaFX Canvas to represent the main elements of the airport graphically.
@@ -37,8 +38,35 @@ public class AirportCanvas extends Canvas {
     /** View model containing the main model of the application */
     private final ViewModel viewModel;
 
-    /** Mapping of clickable regions (rectangles) to aircraft drawn on the canvas */
-    private final Map<ClickableRegion, Aircraft> drawnAircraft;
+    /**
+     * Mapping of clickable regions (rectangles) to aircraft drawn on the canvas, for each region
+     * of the canvas
+     */
+    private final Map<Object, Map<ClickableRegion, Aircraft>> drawnAircraft;
+
+    /** Contents of each region of the canvas when it was last drawn */
+    private final Map<Object, List<Object>> drawnContents = new HashMap<>();
+
+    /** Mapping of clickable regions to aircraft drawn in the region currently being drawn */
+    private Map<ClickableRegion, Aircraft> regionAircraft = new HashMap<>();
+
+    /** Number of terminals drawn on the canvas; -1 if the canvas has not been drawn yet */
+    private int drawnTerminals = -1;
+
+    /** Number of regions drawn again during the current draw, for flight recordings */
+    private int regionsDrawn;
+
+    /** Key of the region containing the takeoff queue */
+    private static final String TAKEOFF_REGION = "takeoff";
+
+    /** Key of the region containing the landing queue */
+    private static final String LANDING_REGION = "landing";
+
+    /** Key of the region containing the aircraft that are away */
+    private static final String AWAY_REGION = "away";
+
+    /** Key of the region containing the runway */
+    private static final String RUNWAY_REGION = "runway";
 
     /** Width of an aircraft when drawn on the canvas, in pixels */
     private static final double AIRCRAFT_WIDTH = 75;
@@ -61,6 +89,9 @@ public class AirportCanvas extends Canvas {
     /** Animation timeline of an aircraft taking off */
     private final Timeline takeoffTimeline;
 
+    /** Timer redrawing the canvas while a runway animation is playing; null if none is playing */
+    private AnimationTimer runwayAnimationTimer;
+
     /** A class to represent a rectangular region on the canvas that responds to click events */
     private static class ClickableRegion {
 
@@ -116,9 +147,11 @@ public class AirportCanvas extends Canvas {
             double x = event.getX();
             double y = event.getY();
             Aircraft clickedAircraft = null;
-            for (Map.Entry<ClickableRegion, Aircraft> entry : drawnAircraft.entrySet()) {
-                if (entry.getKey().wasClicked(x, y)) {
-                    clickedAircraft = entry.getValue();
+            for (Map<ClickableRegion, Aircraft> region : drawnAircraft.values()) {
+                for (Map.Entry<ClickableRegion, Aircraft> entry : region.entrySet()) {
+                    if (entry.getKey().wasClicked(x, y)) {
+                        clickedAircraft = entry.getValue();
+                    }
                 }
             }
             viewModel.getSelectedAircraft().set(clickedAircraft);
@@ -156,23 +189,75 @@ public class AirportCanvas extends Canvas {
 
     /**
      * Draws all the relevant elements of the airport onto the canvas.
+     * <p>
+     * The queues, the aircraft that are away and each terminal are only drawn again if the
+     * version of something shown in them has changed since they were last drawn.
      *
      * @given
      */
     public void draw() {
-        this.drawnAircraft.clear();
-
+        CanvasDrawEvent event = new CanvasDrawEvent();
+        this.regionsDrawn = 0;
         GraphicsContext gc = getGraphicsContext2D();
 
-        gc.setFill(Color.DARKGREEN);
-        gc.fillRect(0, 0, getWidth(), getHeight());
+        List<Terminal> terminals = this.viewModel.getControlTower().getTerminals();
+        boolean fullRedraw = terminals.size() != this.drawnTerminals;
+        if (fullRedraw) {
+            // terminals are laid out by position, so the whole canvas is drawn again
+            this.drawnTerminals = terminals.size();
+            this.drawnContents.clear();
+            this.drawnAircraft.clear();
+            gc.setFill(Color.DARKGREEN);
+            gc.fillRect(0, 0, getWidth(), getHeight());
+        }
 
-        drawRunway();
         drawQueue(viewModel.getControlTower().getTakeoffQueue(), 0, 0);
         drawQueue(viewModel.getControlTower().getLandingQueue(), 0, AIRCRAFT_HEIGHT);
         drawAwayAircraft();
-        drawTerminals();
+        drawTerminals(terminals);
         drawTickStatus();
+
+        // the runway is always drawn, as aircraft are animated over it; aircraft taking off are
+        // animated past its start, over the background
+        this.regionAircraft = new HashMap<>();
+        this.drawnAircraft.put(RUNWAY_REGION, this.regionAircraft);
+        gc.setFill(Color.DARKGREEN);
+        gc.fillRect(runwayStartX - AIRCRAFT_WIDTH, AIRCRAFT_HEIGHT + 5, AIRCRAFT_WIDTH,
+                AIRCRAFT_HEIGHT);
+        drawRunway();
+        event.finish(viewModel.getControlTower().getTicksElapsed(), fullRedraw,
+                this.regionsDrawn);
+    }
+
+    /*
+     * Returns true if the region with the given key needs to be drawn, because the given
+     * contents differ from those it was last drawn with. If so, records the new contents and
+     * starts collecting the aircraft drawn in the region.
+     */
+    private boolean startRegion(Object key, List<Object> contents) {
+        if (contents.equals(this.drawnContents.get(key))) {
+            return false;
+        }
+        this.drawnContents.put(key, contents);
+        this.regionsDrawn++;
+        this.regionAircraft = new HashMap<>();
+        this.drawnAircraft.put(key, this.regionAircraft);
+        return true;
+    }
+
+    /*
+     * Returns the contents of a region that shows the given aircraft: the given version of the
+     * region itself, the selected aircraft, and each aircraft with its version
+     */
+    private List<Object> regionContents(long version, List<Aircraft> aircraft) {
+        List<Object> contents = new ArrayList<>(2 + 2 * aircraft.size());
+        contents.add(version);
+        contents.add(viewModel.getSelectedAircraft().get());
+        for (Aircraft a : aircraft) {
+            contents.add(a);
+            contents.add(a == null ? 0L : a.getVersion());
+        }
+        return contents;
     }
 
     /* Draws the runway */
@@ -227,6 +312,7 @@ public class AirportCanvas extends Canvas {
             return;
         }
 
+        stopAnimation();
         Aircraft finalAircraftToAnimate = aircraftToAnimate;
         AnimationTimer timer = new AnimationTimer() {
             @Override
@@ -239,16 +325,41 @@ public class AirportCanvas extends Canvas {
                         Color.WHITE);
             }
         };
+        runwayAnimationTimer = timer;
         timer.start();
-        if (takingOff) {
-            takeoffTimeline.play();
-        } else {
-            landTimeline.play();
+        Timeline timeline = takingOff ? takeoffTimeline : landTimeline;
+        timeline.setOnFinished(e -> {
+            timer.stop();
+            if (runwayAnimationTimer == timer) {
+                runwayAnimationTimer = null;
+            }
+            draw();
+        });
+        timeline.playFromStart();
+    }
+
+    /**
+     * Stops any runway animation that is currently playing, so that the canvas only shows the
+     * latest state of the simulation.
+     */
+    public void stopAnimation() {
+        if (runwayAnimationTimer == null) {
+            return;
         }
+        runwayAnimationTimer.stop();
+        runwayAnimationTimer = null;
+        landTimeline.stop();
+        takeoffTimeline.stop();
+        draw();
     }
 
     /* Draws an aircraft queue */
     private void drawQueue(AircraftQueue queue, double x, double y) {
+        // the order of the queue only depends on the versions of the queue and its aircraft
+        if (!startRegion(queue instanceof TakeoffQueue ? TAKEOFF_REGION : LANDING_REGION,
+                regionContents(queue.getVersion(), queue.getAircraftInAddedOrder()))) {
+            return;
+        }
         GraphicsContext gc = getGraphicsContext2D();
 
         final int queueCapacity = 6;
@@ -286,6 +397,10 @@ public class AirportCanvas extends Canvas {
 
     /* Draws the list of aircraft that are currently AWAY */
     private void drawAwayAircraft() {
+        List<Aircraft> aircraft = viewModel.getAwayAircraft();
+        if (!startRegion(AWAY_REGION, regionContents(0, aircraft))) {
+            return;
+        }
         GraphicsContext gc = getGraphicsContext2D();
 
         final int capacity = 6;
@@ -309,18 +424,14 @@ public class AirportCanvas extends Canvas {
         gc.strokeLine(x + labelWidth, y, x + labelWidth, y + AIRCRAFT_HEIGHT);
 
         // Draw aircraft in queue
-        var aircraft = viewModel.getControlTower().getAircraft().stream()
-                .filter(a -> a.getTaskList().getCurrentTask().getType() == TaskType.AWAY)
-                .collect(Collectors.toList());
-
         for (int i = 0; i < aircraft.size(); ++i) {
             Aircraft a = aircraft.get(i);
             drawAircraft(a, x + labelWidth + AIRCRAFT_WIDTH * i, y, Color.BLACK);
         }
     }
 
-    /* Draws the terminals and their gates */
-    private void drawTerminals() {
+    /* Draws the given terminals and their gates */
+    private void drawTerminals(List<Terminal> terminals) {
         GraphicsContext gc = getGraphicsContext2D();
 
         final double terminalLabelHeight = 25;
@@ -331,10 +442,17 @@ public class AirportCanvas extends Canvas {
         final double spaceAbove = 2 * AIRCRAFT_HEIGHT + 2 * marginBelow; // queues + padding
         final double terminalWidth = getWidth() / 2 - (2 * marginLeft);
 
-        List<Terminal> terminals = this.viewModel.getControlTower().getTerminals();
-
         for (int i = 0; i < terminals.size(); ++i) {
             Terminal terminal = terminals.get(i);
+            List<Gate> gates = terminal.getGates();
+
+            List<Aircraft> parkedAircraft = new ArrayList<>(gates.size());
+            for (Gate gate : gates) {
+                parkedAircraft.add(gate.getAircraftAtGate());
+            }
+            if (!startRegion(i, regionContents(terminal.getVersion(), parkedAircraft))) {
+                continue;
+            }
 
             final double terminalStartX = marginLeft + (i % 2 == 1
                     ? terminalWidth + 2 * marginLeft
@@ -393,7 +511,6 @@ public class AirportCanvas extends Canvas {
                     terminalWidth,
                     terminalAircraftHeight);
 
-            List<Gate> gates = terminal.getGates();
             for (int j = 0; j < gates.size(); ++j) {
                 Gate gate = gates.get(j);
 
@@ -440,7 +557,7 @@ public class AirportCanvas extends Canvas {
     private void drawAircraft(Aircraft aircraft, double x, double y, Color textColor) {
         GraphicsContext gc = getGraphicsContext2D();
 
-        this.drawnAircraft.put(new ClickableRegion(x, y, AIRCRAFT_WIDTH, AIRCRAFT_HEIGHT),
+        this.regionAircraft.put(new ClickableRegion(x, y, AIRCRAFT_WIDTH, AIRCRAFT_HEIGHT),
                 aircraft);
 
         if (aircraft instanceof PassengerAircraft) {
@@ -551,8 +668,17 @@ public class AirportCanvas extends Canvas {
         gc.setTextBaseline(VPos.CENTER);
         gc.setTextAlign(TextAlignment.CENTER);
         gc.setFont(Font.font("sans-serif", 14));
-        gc.fillText(String.format("%d ticks elapsed",
-                viewModel.getControlTower().getTicksElapsed()),
-                getWidth() / 2, getHeight() - 0.5 * height);
+        String status = String.format("%d ticks elapsed",
+                viewModel.getControlTower().getTicksElapsed());
+        if (!viewModel.getPaused().get() && viewModel.getTickRate().get() > 0) {
+            status += String.format(" (%,d ticks/s)", viewModel.getTickRate().get());
+        }
+        int rewindSize = viewModel.getRewindSize().get();
+        if (rewindSize > 0) {
+            status += String.format("  |  rewind: %,d/%,d ticks, %.1f KiB",
+                    viewModel.getRewindPosition().get(), rewindSize,
+                    viewModel.getRewindMemory().get() / 1024.0);
+        }
+        gc.fillText(status, getWidth() / 2, getHeight() - 0.5 * height);
     }
 }
@@ -2,11 +2,12 @@ package towersim.display;
 
 import javafx.animation.AnimationTimer;
 import javafx.beans.binding.Bindings;
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.StringProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Side;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.input.KeyCombination;
@@ -17,6 +18,7 @@ import towersim.aircraft.Aircraft;
 import towersim.aircraft.AircraftCharacteristics;
 import towersim.aircraft.FreightAircraft;
 import towersim.aircraft.PassengerAircraft;
+import towersim.control.CallsignIndex;
 import towersim.ground.AirplaneTerminal;
 import towersim.ground.Gate;
 import towersim.ground.HelicopterTerminal;
@@ -29,6 +31,8 @@ import towersim.util.NoSuitableGateException;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -51,12 +55,30 @@ public class View {
     /** Time spent un-paused since last tick, in nanoseconds */
     private long timeSpentUnpaused = 0;
 
-    /** Time interval between ticks of the view model */
-    private final IntegerProperty secondsPerTick = new SimpleIntegerProperty(5);
+    /** Number of nanoseconds in one second */
+    private static final long NANOS_PER_SECOND = 1000000000;
+
+    /**
+     * Longest time spent ticking the model in a single frame, in nanoseconds, so that the canvas
+     * can still be redrawn at the display frame rate when running in turbo mode
+     */
+    private static final long TICK_BUDGET_PER_FRAME = 12000000;
+
+    /** Time interval between ticks of the view model, in nanoseconds; 0 ticks at full speed */
+    private final LongProperty nanosPerTick = new SimpleLongProperty(5 * NANOS_PER_SECOND);
+
+    /** Number of ticks performed since the measured tick rate was last updated */
+    private long ticksSinceRateUpdate = 0;
+
+    /** Time spent un-paused since the measured tick rate was last updated, in nanoseconds */
+    private long timeSinceRateUpdate = 0;
 
     /** Maximum number of terminals that can be displayed */
     private static final int MAX_TERMINALS = 6;
 
+    /** Maximum number of matching callsigns suggested while searching for an aircraft */
+    private static final int MAX_SEARCH_SUGGESTIONS = 10;
+
     /**
      * Creates a new view for the given view model and adds the associated GUI elements to the given
      * stage.
@@ -76,6 +98,17 @@ public class View {
 
         Scene rootScene = new Scene(createWindow());
         stage.setScene(rootScene);
+
+        stage.setOnCloseRequest(event -> stopTelemetry());
+    }
+
+    /* Stops any telemetry recording so buffered records are written before the window closes */
+    private void stopTelemetry() {
+        try {
+            viewModel.stopTelemetry();
+        } catch (IOException e) {
+            viewModel.createErrorDialog("Error writing telemetry", e.getMessage());
+        }
     }
 
     /* Creates the root window containing all GUI elements */
@@ -101,6 +134,9 @@ public class View {
         var gateInfoLabel = new Label();
         gateInfoLabel.textProperty().bind(viewModel.getSuitableGateText());
         buttons.getChildren().add(gateInfoLabel);
+        buttons.getChildren().add(new Label("Rewind:"));
+        buttons.getChildren().add(createRewindSlider());
+        buttons.getChildren().add(createSearchField());
 
         var bottomRightPanel = new VBox();
         bottomRightPanel.getChildren().add(buttons);
@@ -109,7 +145,7 @@ public class View {
         bottomRightPanel.getChildren().add(rightInfoBox);
 
         var bottomPanel = new HBox();
-        var leftInfoBox = createInfoBox(viewModel.getAircraftInfoText(), 9);
+        var leftInfoBox = createInfoBox(viewModel.getAircraftInfoText(), 10);
         bottomPanel.getChildren().add(leftInfoBox);
         bottomPanel.getChildren().add(bottomRightPanel);
 
@@ -144,7 +180,10 @@ public class View {
 
         MenuItem exit = new MenuItem("_Exit");
         exit.setMnemonicParsing(true);
-        exit.setOnAction(event -> System.exit(0));
+        exit.setOnAction(event -> {
+            stopTelemetry();
+            System.exit(0);
+        });
         exit.setAccelerator(KeyCombination.keyCombination("Shortcut+Q"));
 
         Menu menuFile = new Menu("_File");
@@ -152,6 +191,8 @@ public class View {
         menuFile.getItems().add(save);
         menuFile.getItems().add(createSaveAsMenuItem());
         menuFile.getItems().add(new SeparatorMenuItem());
+        menuFile.getItems().add(createTelemetryMenuItem());
+        menuFile.getItems().add(new SeparatorMenuItem());
         menuFile.getItems().add(exit);
 
         Menu add = new Menu("_Add");
@@ -210,30 +251,134 @@ public class View {
         pause.textProperty().bind(viewModel.getPauseMenuText());
         pause.setOnAction(event -> viewModel.togglePaused());
         pause.setAccelerator(KeyCombination.keyCombination("Shortcut+P"));
-        MenuItem lowSpeed = new MenuItem("_5 seconds per tick");
-        lowSpeed.setMnemonicParsing(true);
-        lowSpeed.setOnAction(e -> secondsPerTick.set(5));
-        lowSpeed.disableProperty().bind(secondsPerTick.isEqualTo(5));
-        MenuItem medSpeed = new MenuItem("_3 seconds per tick");
-        medSpeed.setMnemonicParsing(true);
-        medSpeed.setOnAction(e -> secondsPerTick.set(3));
-        medSpeed.disableProperty().bind(secondsPerTick.isEqualTo(3));
-        MenuItem highSpeed = new MenuItem("_1 second per tick");
-        highSpeed.setMnemonicParsing(true);
-        highSpeed.setOnAction(e -> secondsPerTick.set(1));
-        highSpeed.disableProperty().bind(secondsPerTick.isEqualTo(1));
         Menu menuSim = new Menu("_Simulation");
         menuSim.setMnemonicParsing(true);
         Menu speed = new Menu("_Speed");
         speed.setMnemonicParsing(true);
-        speed.getItems().add(lowSpeed);
-        speed.getItems().add(medSpeed);
-        speed.getItems().add(highSpeed);
+        speed.getItems().add(createSpeedMenuItem("_5 seconds per tick", 5 * NANOS_PER_SECOND));
+        speed.getItems().add(createSpeedMenuItem("_3 seconds per tick", 3 * NANOS_PER_SECOND));
+        speed.getItems().add(createSpeedMenuItem("_1 second per tick", NANOS_PER_SECOND));
+        speed.getItems().add(new SeparatorMenuItem());
+        for (long ticksPerSecond : new long[] {10, 100, 1000, 10000}) {
+            speed.getItems().add(createSpeedMenuItem(String.format("%,d ticks per second",
+                    ticksPerSecond), NANOS_PER_SECOND / ticksPerSecond));
+        }
+        speed.getItems().add(createSpeedMenuItem("_Max (turbo)", 0));
+        MenuItem stepBack = new MenuItem("Step _back");
+        stepBack.setMnemonicParsing(true);
+        stepBack.setOnAction(event -> {
+            pauseSimulation();
+            viewModel.stepBack();
+        });
+        stepBack.disableProperty().bind(viewModel.getRewindPosition().isEqualTo(0));
+        stepBack.setAccelerator(KeyCombination.keyCombination("Shortcut+Left"));
+        MenuItem stepForward = new MenuItem("Step _forward");
+        stepForward.setMnemonicParsing(true);
+        stepForward.setOnAction(event -> {
+            pauseSimulation();
+            viewModel.stepForward();
+        });
+        stepForward.setAccelerator(KeyCombination.keyCombination("Shortcut+Right"));
         menuSim.getItems().add(pause);
         menuSim.getItems().add(speed);
+        menuSim.getItems().add(new SeparatorMenuItem());
+        menuSim.getItems().add(stepBack);
+        menuSim.getItems().add(stepForward);
+        menuSim.getItems().add(new SeparatorMenuItem());
+        menuSim.getItems().add(createLatencyStatsMenuItem());
         return menuSim;
     }
 
+    /*
+     * Creates a slider for scrubbing through the ticks held in the rewind buffer. Moving the
+     * slider pauses the simulation and restores the tower to the chosen tick.
+     */
+    private Slider createRewindSlider() {
+        var slider = new Slider(0, 0, 0);
+        slider.setBlockIncrement(1);
+        slider.setFocusTraversable(false);
+        slider.maxProperty().bind(viewModel.getRewindSize());
+        viewModel.getRewindPosition().addListener((observable, oldValue, newValue) ->
+                slider.setValue(newValue.intValue()));
+        slider.valueProperty().addListener((observable, oldValue, newValue) -> {
+            int position = (int) Math.round(newValue.doubleValue());
+            if (position != viewModel.getRewindPosition().get()) {
+                pauseSimulation();
+                viewModel.rewindTo(position);
+            }
+        });
+        return slider;
+    }
+
+    /*
+     * Creates a text field for finding an aircraft by callsign. Callsigns starting with the text
+     * entered are suggested as it is typed; choosing a suggestion or pressing enter selects the
+     * matching aircraft.
+     */
+    private TextField createSearchField() {
+        var searchField = new TextField();
+        searchField.setPromptText("Find callsign");
+        searchField.setPrefColumnCount(8);
+        var suggestions = new ContextMenu();
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
+            suggestions.getItems().clear();
+            String prefix = newValue.trim().toUpperCase();
+            if (prefix.isEmpty()) {
+                suggestions.hide();
+                return;
+            }
+            for (Aircraft aircraft : viewModel.findAircraftByCallsignPrefix(prefix,
+                    MAX_SEARCH_SUGGESTIONS)) {
+                var item = new MenuItem(aircraft.getCallsign());
+                item.setMnemonicParsing(false);
+                item.setOnAction(e -> {
+                    viewModel.getSelectedAircraft().set(aircraft);
+                    viewModel.registerChange();
+                    searchField.clear();
+                });
+                suggestions.getItems().add(item);
+            }
+            if (suggestions.getItems().isEmpty()) {
+                suggestions.hide();
+            } else if (!suggestions.isShowing()) {
+                suggestions.show(searchField, Side.BOTTOM, 0, 0);
+            }
+        });
+        searchField.setOnAction(e -> {
+            String callsign = searchField.getText().trim().toUpperCase();
+            if (callsign.isEmpty()) {
+                return;
+            }
+            suggestions.hide();
+            if (viewModel.selectAircraftByCallsign(callsign)) {
+                searchField.clear();
+            } else {
+                viewModel.createErrorDialog("Aircraft not found",
+                        "No aircraft has a callsign starting with \"" + callsign + "\"");
+            }
+        });
+        return searchField;
+    }
+
+    /* Pauses the simulation if it is running */
+    private void pauseSimulation() {
+        if (!viewModel.getPaused().get()) {
+            viewModel.togglePaused();
+        }
+    }
+
+    /* Creates a menu item that sets the simulation speed to the given interval between ticks */
+    private MenuItem createSpeedMenuItem(String text, long nanosBetweenTicks) {
+        MenuItem speedItem = new MenuItem(text);
+        speedItem.setMnemonicParsing(true);
+        speedItem.setOnAction(e -> {
+            nanosPerTick.set(nanosBetweenTicks);
+            timeSpentUnpaused = 0;
+        });
+        speedItem.disableProperty().bind(nanosPerTick.isEqualTo(nanosBetweenTicks));
+        return speedItem;
+    }
+
     /* Creates a menu item that, when clicked, prompts for a new terminal to be added */
     private MenuItem createAddTerminalMenu() {
         MenuItem addTerminal = new MenuItem("New _terminal...");
@@ -361,26 +506,26 @@ public class View {
                     "Passenger Airplane (BOEING_787)",
                     new PassengerAircraft(generateRandomCallsign(
                             new String[] {"QFA", "CSN", "UAL", "UAE"}[random.nextInt(4)],
-                            viewModel.getControlTower().getAircraft()),
+                            viewModel.getControlTower().getCallsignIndex()),
                             AircraftCharacteristics.BOEING_787,
                             taskList1,
                             AircraftCharacteristics.BOEING_787.fuelCapacity / 6, 0),
                     "Freight Airplane (BOEING_747_8F)",
                     new FreightAircraft(generateRandomCallsign(
                             new String[] {"UPS", "GTI", "CLX", "GEC"}[random.nextInt(4)],
-                            viewModel.getControlTower().getAircraft()),
+                            viewModel.getControlTower().getCallsignIndex()),
                             AircraftCharacteristics.BOEING_747_8F,
                             taskList2,
                             AircraftCharacteristics.BOEING_747_8F.fuelCapacity / 8, 0),
                     "Passenger Helicopter (ROBINSON_R44)",
                     new PassengerAircraft(generateRandomCallsign(null,
-                            viewModel.getControlTower().getAircraft()),
+                            viewModel.getControlTower().getCallsignIndex()),
                             AircraftCharacteristics.ROBINSON_R44,
                             taskList2,
                             AircraftCharacteristics.ROBINSON_R44.fuelCapacity / 4, 1),
                     "Freight Helicopter (SIKORSKY_SKYCRANE)",
                     new FreightAircraft(generateRandomCallsign(null,
-                            viewModel.getControlTower().getAircraft()),
+                            viewModel.getControlTower().getCallsignIndex()),
                             AircraftCharacteristics.SIKORSKY_SKYCRANE,
                             taskList1,
                             AircraftCharacteristics.SIKORSKY_SKYCRANE.fuelCapacity / 10, 0)));
@@ -441,8 +586,78 @@ public class View {
         return saveAs;
     }
 
-    /* Generates a random callsign based on the given airline code and list of existing aircraft */
-    private String generateRandomCallsign(String airlineCode, List<Aircraft> existingAircraft) {
+    /* Creates a menu item that starts or stops recording telemetry to a file */
+    private MenuItem createTelemetryMenuItem() {
+        MenuItem telemetry = new MenuItem();
+        telemetry.setMnemonicParsing(true);
+        telemetry.textProperty().bind(Bindings.when(viewModel.getRecordingTelemetry())
+                .then("Stop recording _telemetry").otherwise("Record _telemetry..."));
+        telemetry.setOnAction(event -> {
+            if (viewModel.getRecordingTelemetry().get()) {
+                try {
+                    viewModel.stopTelemetry();
+                } catch (IOException e) {
+                    viewModel.createErrorDialog("Error writing telemetry", e.getMessage());
+                }
+                return;
+            }
+            var filename = getResponse("Record telemetry",
+                    "Please enter the path of the CSV file to record telemetry to",
+                    "Telemetry file name", "telemetry.csv");
+            if (filename.isEmpty()) {
+                return;
+            }
+            try {
+                viewModel.startTelemetry(Path.of(filename.get()));
+            } catch (IOException | InvalidPathException e) {
+                viewModel.createErrorDialog("Error recording telemetry", e.getMessage());
+            }
+        });
+        return telemetry;
+    }
+
+    /*
+     * Creates a menu item that shows the latency percentiles of each stage of the aircraft's
+     * visits so far, with an option to export them to a CSV file
+     */
+    private MenuItem createLatencyStatsMenuItem() {
+        MenuItem stats = new MenuItem("Latency _statistics...");
+        stats.setMnemonicParsing(true);
+        stats.setOnAction(event -> {
+            var table = new TextArea(viewModel.getLatencyStats().formatTable());
+            table.setEditable(false);
+            table.setWrapText(false);
+            table.setFont(Font.font("Monospaced", 13));
+            table.setPrefColumnCount(90);
+            table.setPrefRowCount(24);
+
+            var export = new ButtonType("_Export...", ButtonBar.ButtonData.OTHER);
+            var dialog = new Dialog<ButtonType>();
+            dialog.setTitle("Latency statistics");
+            dialog.setHeaderText("Latencies in ticks, by aircraft type and cargo class");
+            dialog.getDialogPane().setContent(table);
+            dialog.getDialogPane().getButtonTypes().addAll(export, ButtonType.CLOSE);
+            if (dialog.showAndWait().orElse(ButtonType.CLOSE) != export) {
+                return;
+            }
+            var filename = getResponse("Export latency statistics",
+                    "Please enter the path of the CSV file to export the statistics to",
+                    "Statistics file name", "latency.csv");
+            if (filename.isEmpty()) {
+                return;
+            }
+            try {
+                viewModel.exportLatencyStats(Path.of(filename.get()));
+            } catch (IOException | InvalidPathException e) {
+                viewModel.createErrorDialog("Error exporting latency statistics",
+                        e.getMessage());
+            }
+        });
+        return stats;
+    }
+
+    /* Generates a random callsign based on the given airline code and index of existing aircraft */
+    private String generateRandomCallsign(String airlineCode, CallsignIndex existingAircraft) {
         Random random = new Random();
         final int numDigitsInCallsign = 3;
         StringBuilder builder;
@@ -460,9 +675,7 @@ public class View {
                 }
             }
             callsign = (airlineCode != null ? airlineCode : "VH-") + builder;
-            String finalCallsign = callsign;
-            isUnique = existingAircraft.stream()
-                    .noneMatch(a -> a.getCallsign().equals(finalCallsign));
+            isUnique = existingAircraft.find(callsign) == null;
         } while (!isUnique);
 
         return callsign;
@@ -559,8 +772,6 @@ public class View {
      * @given
      */
     public void run() {
-        final long nanosPerSecond = 1000000000;
-
         new AnimationTimer() {
             @Override
             public void handle(long currentNanoTime) {
@@ -574,18 +785,66 @@ public class View {
                     return;
                 }
 
-                timeSpentUnpaused += currentNanoTime - lastNanoTime;
+                long frameTime = currentNanoTime - lastNanoTime;
+                timeSpentUnpaused += frameTime;
                 lastNanoTime = currentNanoTime;
 
-                if (timeSpentUnpaused > secondsPerTick.get() * nanosPerSecond) {
-                    timeSpentUnpaused = 0;
-                    viewModel.tick();
-                    canvas.animate();
-                }
+                int ticksPerformed = performDueTicks();
+                updateTickRate(frameTime, ticksPerformed);
             }
         }.start();
 
         this.stage.show();
         this.canvas.draw();
     }
+
+    /*
+     * Ticks the view model as many times as are due at the current speed, and returns how many
+     * ticks were performed.
+     *
+     * At most one tick is due per frame at the slower speeds, in which case the runway animation
+     * is played. Faster speeds may have many ticks due per frame; these are run as a batch
+     * (bounded by TICK_BUDGET_PER_FRAME so the canvas keeps being redrawn) and the runway
+     * animation is skipped, as only the latest state can be shown once per frame anyway.
+     */
+    private int performDueTicks() {
+        long interval = nanosPerTick.get();
+        if (interval == 0) {
+            // turbo: tick for the whole frame budget, there is never a backlog to catch up on
+            timeSpentUnpaused = 0;
+            canvas.stopAnimation();
+            return viewModel.tickWithin(Integer.MAX_VALUE, TICK_BUDGET_PER_FRAME);
+        }
+
+        long ticksDue = timeSpentUnpaused / interval;
+        if (ticksDue == 0) {
+            return 0;
+        }
+        if (ticksDue == 1 && interval >= NANOS_PER_SECOND) {
+            timeSpentUnpaused = 0;
+            viewModel.tick();
+            canvas.animate();
+            return 1;
+        }
+
+        canvas.stopAnimation();
+        int ticksPerformed = viewModel.tickWithin((int) Math.min(ticksDue, Integer.MAX_VALUE),
+                TICK_BUDGET_PER_FRAME);
+        timeSpentUnpaused -= ticksPerformed * interval;
+        // drop any backlog the machine cannot keep up with rather than trying to catch up on it
+        timeSpentUnpaused = Math.min(timeSpentUnpaused, interval);
+        return ticksPerformed;
+    }
+
+    /* Updates the tick rate shown in the status bar roughly once per second */
+    private void updateTickRate(long frameTime, int ticksPerformed) {
+        ticksSinceRateUpdate += ticksPerformed;
+        timeSinceRateUpdate += frameTime;
+        if (timeSinceRateUpdate >= NANOS_PER_SECOND) {
+            viewModel.getTickRate().set(Math.round(
+                    (double) ticksSinceRateUpdate * NANOS_PER_SECOND / timeSinceRateUpdate));
+            ticksSinceRateUpdate = 0;
+            timeSinceRateUpdate = 0;
+        }
+    }
 }
@@ -7,18 +7,29 @@ import javafx.scene.control.Alert;
 import towersim.aircraft.Aircraft;
 import towersim.control.ControlTower;
 import towersim.control.ControlTowerInitialiser;
+import towersim.control.LandingForecaster;
+import towersim.control.SaveLimits;
+import towersim.control.TowerListener;
 import towersim.ground.Gate;
 import towersim.ground.Terminal;
+import towersim.replay.RewindBuffer;
 import towersim.tasks.TaskType;
+import towersim.telemetry.LatencyStats;
+import towersim.telemetry.SaveFileEvent;
+import towersim.telemetry.TelemetryRecorder;
 import towersim.util.MalformedSaveException;
 import towersim.util.NoSuitableGateException;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * View model for the Control Tower Simulation GUI.
@@ -47,6 +58,30 @@ public class ViewModel {
     /** Text displayed in the "toggle pause" menu item */
     private final StringProperty pauseMenuText = new SimpleStringProperty("Un_pause");
 
+    /** Measured simulation speed, in ticks per second */
+    private final LongProperty tickRate = new SimpleLongProperty(0);
+
+    /** Recent history of the control tower, for stepping back through the last few ticks */
+    private final RewindBuffer rewindBuffer;
+
+    /** Recorder of the telemetry time series, or null if telemetry is not being recorded */
+    private TelemetryRecorder telemetry;
+
+    /** Whether telemetry is being recorded */
+    private final BooleanProperty recordingTelemetry = new SimpleBooleanProperty(false);
+
+    /** Latencies of the stages of each aircraft's visit since the simulation was loaded */
+    private final LatencyStats latencyStats;
+
+    /** Position of the control tower's current state in the rewind buffer */
+    private final IntegerProperty rewindPosition = new SimpleIntegerProperty(0);
+
+    /** Number of ticks held in the rewind buffer */
+    private final IntegerProperty rewindSize = new SimpleIntegerProperty(0);
+
+    /** Memory used by the rewind buffer, in bytes */
+    private final LongProperty rewindMemory = new SimpleLongProperty(0);
+
     /** Number of terminals managed by the control tower */
     private final IntegerProperty numTerminals = new SimpleIntegerProperty();
 
@@ -62,11 +97,29 @@ public class ViewModel {
     /** The aircraft currently taking off (i.e. just went from TAKEOFF to AWAY) */
     private final ObjectProperty<Aircraft> aircraftTakingOff = new SimpleObjectProperty<>();
 
-    /** List of all aircraft whose task is TAKEOFF; used in finding aircraftTakingOff */
-    private List<Aircraft> allTakeoffAircraft = new ArrayList<>();
+    /** Aircraft that landed during the last tick, or null if none did */
+    private Aircraft lastLanded;
+
+    /** Aircraft that took off during the last tick, or null if none did */
+    private Aircraft lastTookOff;
 
-    /** List of all aircraft whose task is LAND; used in finding aircraftLanding */
-    private List<Aircraft> allLandAircraft = new ArrayList<>();
+    /** Registry ids of the aircraft whose current task is AWAY, kept up to date by tower events */
+    private final TreeSet<Integer> awayAircraftIds = new TreeSet<>();
+
+    /** Number of aircraft in the control tower when the AWAY aircraft were last found */
+    private int numAircraftSeen;
+
+    /** Aircraft whose information was last generated for the aircraft information text box */
+    private Aircraft infoTextAircraft;
+
+    /** Version of that aircraft when its information text was last generated */
+    private long infoTextVersion;
+
+    /** Number of ticks elapsed when the aircraft information text was last generated */
+    private long infoTextTick;
+
+    /** Whether any aircraft were loading when the loading information text was last generated */
+    private boolean loadingInfoShown;
 
     /** File path of the tick file that we loaded from */
     private final String defaultTickSaveLocation;
@@ -82,6 +135,7 @@ public class ViewModel {
 
     /**
      * Creates a new view model and constructs a control tower by reading from the given filenames.
+     * The four files are read at the same time, on the common fork/join pool.
      *
      * @param filenames list of four filenames, specifying the paths to: (1) the tick file;
      *                  (2) the aircraft file; (3) the queues file; (4) the terminals/gates file
@@ -101,20 +155,53 @@ public class ViewModel {
                 new FileReader(filenames.get(0)),
                 new FileReader(filenames.get(1)),
                 new FileReader(filenames.get(2)),
-                new FileReader(filenames.get(3)));
+                new FileReader(filenames.get(3)),
+                SaveLimits.DEFAULT, ForkJoinPool.commonPool());
 
         this.numTerminals.set(tower.getTerminals().size());
+        this.rewindBuffer = new RewindBuffer(tower, RewindBuffer.DEFAULT_MAX_TICKS,
+                RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        this.latencyStats = new LatencyStats(tower);
 
         this.selectedAircraft.addListener((observable, oldValue, newValue) -> {
             if (newValue == null) {
                 aircraftInfoText.set("No aircraft selected");
             } else {
-                aircraftInfoText.set(generateAircraftInfoText(newValue));
+                showAircraftInfoText(newValue);
             }
         });
         this.loadingInfoText.set(generateLoadingInfoText());
+        this.loadingInfoShown = !tower.getLoadingAircraft().isEmpty();
+
+        findAwayAircraft();
+        this.tower.addListener(new TowerListener() {
+            @Override
+            public void beforeTick(ControlTower tower) {
+                if (tower.getAircraft().size() != numAircraftSeen) {
+                    findAwayAircraft();
+                }
+            }
+
+            @Override
+            public void aircraftLanded(long tick, Aircraft aircraft) {
+                lastLanded = aircraft;
+            }
 
-        fillTakeoffLandAircraftLists();
+            @Override
+            public void aircraftTookOff(long tick, Aircraft aircraft) {
+                lastTookOff = aircraft;
+            }
+
+            @Override
+            public void taskAdvanced(long tick, Aircraft aircraft, TaskType taskType) {
+                int id = tower.getAircraftRegistry().getId(aircraft);
+                if (taskType == TaskType.AWAY) {
+                    awayAircraftIds.add(id);
+                } else {
+                    awayAircraftIds.remove(id);
+                }
+            }
+        });
     }
 
     /**
@@ -273,43 +360,72 @@ public class ViewModel {
     public void saveAs(Writer tickWriter, Writer aircraftWriter, Writer queuesWriter,
             Writer terminalsWithGatesWriter) throws IOException {
         // write the number of ticks elapsed
-        tickWriter.write("" + tower.getTicksElapsed());
-        tickWriter.close();
+        SaveFileEvent tickEvent = new SaveFileEvent(SaveFileEvent.SAVE, SaveFileEvent.TICK_FILE);
+        try {
+            tickWriter.write("" + tower.getTicksElapsed());
+            tickWriter.close();
+            tickEvent.succeeded(1);
+        } finally {
+            tickEvent.finish();
+        }
 
         // write the list of the aircraft
-        StringJoiner aircraftJoiner = new StringJoiner(System.lineSeparator());
-        aircraftJoiner.add(Integer.toString(tower.getAircraft().size()));
-        for (Aircraft aircraft : tower.getAircraft()) {
-            aircraftJoiner.add(aircraft.encode());
+        SaveFileEvent aircraftEvent = new SaveFileEvent(SaveFileEvent.SAVE,
+                SaveFileEvent.AIRCRAFT_FILE);
+        try {
+            StringJoiner aircraftJoiner = new StringJoiner(System.lineSeparator());
+            aircraftJoiner.add(Integer.toString(tower.getAircraft().size()));
+            for (Aircraft aircraft : tower.getAircraft()) {
+                aircraftJoiner.add(aircraft.encode());
+            }
+            aircraftWriter.write(aircraftJoiner.toString());
+            aircraftWriter.close();
+            aircraftEvent.succeeded(tower.getAircraft().size());
+        } finally {
+            aircraftEvent.finish();
         }
-        aircraftWriter.write(aircraftJoiner.toString());
-        aircraftWriter.close();
 
         // write the takeoff queue, landing queue and loading map
-        StringJoiner queueJoiner = new StringJoiner(System.lineSeparator());
-        queueJoiner.add(tower.getTakeoffQueue().encode());
-        queueJoiner.add(tower.getLandingQueue().encode());
-
-        Map<Aircraft, Integer> loadingAircraft = tower.getLoadingAircraft();
-        queueJoiner.add(String.format("LoadingAircraft:%d", loadingAircraft.size()));
-
-        // the string joiner indicates the aircraft part of the loading aircraft
-        StringJoiner loadingJoiner = new StringJoiner(",");
-        for (Map.Entry<Aircraft, Integer> entry : loadingAircraft.entrySet()) {
-            loadingJoiner.add(String.format("%s:%d", entry.getKey(), entry.getValue()));
+        SaveFileEvent queuesEvent = new SaveFileEvent(SaveFileEvent.SAVE,
+                SaveFileEvent.QUEUES_FILE);
+        try {
+            StringJoiner queueJoiner = new StringJoiner(System.lineSeparator());
+            queueJoiner.add(tower.getTakeoffQueue().encode());
+            queueJoiner.add(tower.getLandingQueue().encode());
+
+            Map<Aircraft, Integer> loadingAircraft = tower.getLoadingAircraft();
+            queueJoiner.add(String.format("LoadingAircraft:%d", loadingAircraft.size()));
+
+            // the string joiner indicates the aircraft part of the loading aircraft
+            StringJoiner loadingJoiner = new StringJoiner(",");
+            for (Map.Entry<Aircraft, Integer> entry : loadingAircraft.entrySet()) {
+                loadingJoiner.add(String.format("%s:%d", entry.getKey(), entry.getValue()));
+            }
+            queueJoiner.add(loadingJoiner.toString());
+            queuesWriter.write(queueJoiner.toString());
+            queuesWriter.close();
+            queuesEvent.succeeded(tower.getTakeoffQueue().getAircraftInAddedOrder().size()
+                    + tower.getLandingQueue().getAircraftInAddedOrder().size()
+                    + loadingAircraft.size());
+        } finally {
+            queuesEvent.finish();
         }
-        queueJoiner.add(loadingJoiner.toString());
-        queuesWriter.write(queueJoiner.toString());
-        queuesWriter.close();
 
         // write the list of terminals with their gates
-        StringJoiner terminalWithGatesJoiner = new StringJoiner(System.lineSeparator());
-        terminalWithGatesJoiner.add("" + tower.getTerminals().size());
-        for (Terminal terminal : tower.getTerminals()) {
-            terminalWithGatesJoiner.add(terminal.encode());
+        SaveFileEvent terminalsEvent = new SaveFileEvent(SaveFileEvent.SAVE,
+                SaveFileEvent.TERMINALS_FILE);
+        try {
+            StringJoiner terminalWithGatesJoiner = new StringJoiner(System.lineSeparator());
+            terminalWithGatesJoiner.add("" + tower.getTerminals().size());
+            for (Terminal terminal : tower.getTerminals()) {
+                terminalWithGatesJoiner.add(terminal.encode());
+            }
+            terminalsWithGatesWriter.write(terminalWithGatesJoiner.toString());
+            terminalsWithGatesWriter.close();
+            terminalsEvent.succeeded(tower.getTerminals().size());
+        } finally {
+            terminalsEvent.finish();
         }
-        terminalsWithGatesWriter.write(terminalWithGatesJoiner.toString());
-        terminalsWithGatesWriter.close();
     }
 
     /**
@@ -328,50 +444,189 @@ public class ViewModel {
      * @given
      */
     public void tick() {
+        this.lastLanded = null;
+        this.lastTookOff = null;
         tower.tick();
-        this.loadingInfoText.set(generateLoadingInfoText());
-        if (selectedAircraft.isNotNull().get()) {
-            this.aircraftInfoText.set(generateAircraftInfoText(selectedAircraft.get()));
+        rewindBuffer.record();
+        updateRewindProperties();
+        updateInfoText();
+        this.aircraftTakingOff.set(lastTookOff);
+        this.aircraftLanding.set(lastLanded);
+        registerChange();
+    }
+
+    /**
+     * Ticks the model repeatedly and then updates the state of the GUI once.
+     * <p>
+     * Ticking stops once the given number of ticks have been performed, or once the given time
+     * budget has been used up, whichever comes first. At least one tick is always performed.
+     * As the GUI can only show the state after the final tick, no aircraft is reported as landing
+     * or taking off when more than one tick was performed.
+     *
+     * @param maxTicks maximum number of ticks to perform
+     * @param budgetNanos time after which no further ticks should be started, in nanoseconds
+     * @return number of ticks performed
+     */
+    public int tickWithin(int maxTicks, long budgetNanos) {
+        if (maxTicks <= 1) {
+            tick();
+            return 1;
+        }
+        final long deadline = System.nanoTime() + budgetNanos;
+        int ticksPerformed = 0;
+        do {
+            this.lastLanded = null;
+            this.lastTookOff = null;
+            tower.tick();
+            rewindBuffer.record();
+            ticksPerformed++;
+        } while (ticksPerformed < maxTicks && System.nanoTime() < deadline);
+        updateRewindProperties();
+
+        updateInfoText();
+        if (ticksPerformed == 1) {
+            this.aircraftTakingOff.set(lastTookOff);
+            this.aircraftLanding.set(lastLanded);
+        } else {
+            // landings and take-offs happened somewhere within the batch, too fast to animate
+            this.aircraftTakingOff.set(null);
+            this.aircraftLanding.set(null);
         }
-        updateTakeoffLandAircraft();
         registerChange();
+        return ticksPerformed;
+    }
+
+    /**
+     * Restores the control tower to its state one tick earlier, if that tick is still held in
+     * the rewind buffer, and updates the state of the GUI.
+     *
+     * @return true if the tower was stepped back; false otherwise
+     */
+    public boolean stepBack() {
+        boolean stepped = rewindBuffer.stepBack();
+        refreshAfterRewind();
+        return stepped;
     }
 
-    /* Updates the lists of aircraft currently taking off and landing */
-    private void updateTakeoffLandAircraft() {
+    /**
+     * Restores the control tower to its state one tick later after it has been stepped back, and
+     * updates the state of the GUI. If the tower is already at its latest state, it is ticked
+     * instead.
+     */
+    public void stepForward() {
+        if (rewindBuffer.stepForward()) {
+            refreshAfterRewind();
+        } else {
+            tick();
+        }
+    }
+
+    /**
+     * Steps the control tower backwards or forwards to the given position in the rewind buffer,
+     * and updates the state of the GUI.
+     *
+     * @param position position to restore, from 0 (the oldest tick held) to the number of ticks
+     *                 held (the latest tick)
+     */
+    public void rewindTo(int position) {
+        rewindBuffer.seek(Math.max(0, Math.min(position, rewindBuffer.size())));
+        refreshAfterRewind();
+    }
+
+    /**
+     * Returns the aircraft whose callsigns start with the given text, in ascending order of
+     * callsign, for suggesting matches while a callsign is being typed.
+     *
+     * @param prefix start of the callsigns to find
+     * @param limit  maximum number of aircraft to return
+     * @return aircraft with matching callsigns
+     */
+    public List<Aircraft> findAircraftByCallsignPrefix(String prefix, int limit) {
+        return tower.getCallsignIndex().findByPrefix(prefix, limit);
+    }
+
+    /**
+     * Selects the aircraft with the given callsign. If no aircraft has exactly that callsign, the
+     * first aircraft whose callsign starts with it is selected instead.
+     *
+     * @param callsign callsign, or start of the callsign, of the aircraft to select
+     * @return true if an aircraft was selected; false if no callsign matched
+     */
+    public boolean selectAircraftByCallsign(String callsign) {
+        Aircraft aircraft = tower.getCallsignIndex().find(callsign);
+        if (aircraft == null) {
+            List<Aircraft> matches = tower.getCallsignIndex().findByPrefix(callsign, 1);
+            if (matches.isEmpty()) {
+                return false;
+            }
+            aircraft = matches.get(0);
+        }
+        selectedAircraft.set(aircraft);
+        registerChange();
+        return true;
+    }
+
+    /* Updates the state of the GUI after the control tower was restored to an earlier state */
+    private void refreshAfterRewind() {
+        updateRewindProperties();
+        updateInfoText();
         this.aircraftTakingOff.set(null);
         this.aircraftLanding.set(null);
-        for (Aircraft aircraft : getControlTower().getAircraft()) {
-            TaskType currentTaskType = aircraft.getTaskList().getCurrentTask().getType();
-            if (currentTaskType == TaskType.AWAY && allTakeoffAircraft.contains(aircraft)) {
-                // Aircraft has just taken off
-                this.aircraftTakingOff.set(aircraft);
-            }
-            if ((currentTaskType == TaskType.WAIT || currentTaskType == TaskType.LOAD)
-                    && allLandAircraft.contains(aircraft)) {
-                // Aircraft has just landed
-                this.aircraftLanding.set(aircraft);
+        findAwayAircraft();
+        registerChange();
+    }
+
+    /* Updates the properties describing the contents of the rewind buffer */
+    private void updateRewindProperties() {
+        this.rewindSize.set(rewindBuffer.size());
+        this.rewindPosition.set(rewindBuffer.getPosition());
+        this.rewindMemory.set(rewindBuffer.getMemoryUsed());
+    }
+
+    /*
+     * Finds the aircraft whose current task is AWAY by checking every aircraft, for when the
+     * tower has changed without publishing events
+     */
+    private void findAwayAircraft() {
+        this.awayAircraftIds.clear();
+        for (Aircraft aircraft : tower.getAircraft()) {
+            if (aircraft.getTaskList().getCurrentTask().getType() == TaskType.AWAY) {
+                this.awayAircraftIds.add(tower.getAircraftRegistry().getId(aircraft));
             }
         }
-        fillTakeoffLandAircraftLists();
+        this.numAircraftSeen = tower.getAircraft().size();
     }
 
     /*
-     * Places all aircraft that have a TAKEOFF task into the list of aircraft taking off;
-     * same for LAND
+     * Updates the information text boxes after the control tower has changed, skipping any text
+     * whose contents cannot have changed
      */
-    private void fillTakeoffLandAircraftLists() {
-        this.allTakeoffAircraft = findAircraftWithTask(getControlTower().getAircraft(),
-                TaskType.TAKEOFF);
-        this.allLandAircraft = findAircraftWithTask(getControlTower().getAircraft(),
-                TaskType.LAND);
+    private void updateInfoText() {
+        boolean loading = !tower.getLoadingAircraft().isEmpty();
+        if (loading || this.loadingInfoShown) {
+            this.loadingInfoText.set(generateLoadingInfoText());
+            this.loadingInfoShown = loading;
+        }
+
+        Aircraft aircraft = selectedAircraft.get();
+        if (aircraft == null) {
+            return;
+        }
+        // the landing forecast counts down every tick while the aircraft is waiting to land
+        boolean forecastChanged = tower.getTicksElapsed() != this.infoTextTick
+                && aircraft.getTaskList().getCurrentTask().getType() == TaskType.LAND;
+        if (aircraft != this.infoTextAircraft || aircraft.getVersion() != this.infoTextVersion
+                || forecastChanged) {
+            showAircraftInfoText(aircraft);
+        }
     }
 
-    /* Returns all aircraft in the given list whose current task's type is the given type */
-    private List<Aircraft> findAircraftWithTask(List<Aircraft> aircraft, TaskType taskType) {
-        return aircraft.stream()
-                .filter(a -> a.getTaskList().getCurrentTask().getType() == taskType)
-                .collect(Collectors.toList());
+    /* Shows the information text for the given aircraft, recording its version */
+    private void showAircraftInfoText(Aircraft aircraft) {
+        this.aircraftInfoText.set(generateAircraftInfoText(aircraft));
+        this.infoTextAircraft = aircraft;
+        this.infoTextVersion = aircraft.getVersion();
+        this.infoTextTick = tower.getTicksElapsed();
     }
 
     /* Generates the formatted information text for the given aircraft */
@@ -386,10 +641,24 @@ public class ViewModel {
         lineJoiner.add("% occupied:\t" + aircraft.calculateOccupancyLevel() + "%");
         lineJoiner.add("Emergency:\t" + aircraft.hasEmergency());
         lineJoiner.add("Task list:   \t" + aircraft.getTaskList().encode());
+        lineJoiner.add("Landing ETA:\t" + generateLandingForecastText(aircraft));
 
         return lineJoiner.toString();
     }
 
+    /* Generates the forecast landing tick of the given aircraft, if it is waiting to land */
+    private String generateLandingForecastText(Aircraft aircraft) {
+        if (aircraft.getTaskList().getCurrentTask().getType() != TaskType.LAND) {
+            return "not waiting to land";
+        }
+        long landingTick = tower.getLandingForecaster().getForecastLandingTick(aircraft);
+        if (landingTick == LandingForecaster.UNKNOWN) {
+            return "unknown (no gate expected to be free)";
+        }
+        return String.format("tick %d (in %d ticks)", landingTick,
+                landingTick - tower.getTicksElapsed());
+    }
+
     /* Generates the formatted information text for the map of loading aircraft */
     private String generateLoadingInfoText() {
         Map<Aircraft, Integer> loadingAircraft = this.getControlTower().getLoadingAircraft();
@@ -437,6 +706,68 @@ public class ViewModel {
                 new FileWriter((this.defaultTerminalsSaveLocation)));
     }
 
+    /**
+     * Starts recording a per-tick telemetry time series of the control tower to the given CSV
+     * file, as described in {@link TelemetryRecorder}. Any recording already in progress is
+     * finished first.
+     *
+     * @param file file to write the telemetry to
+     * @throws IOException if the file could not be created, or the previous recording could not
+     *                     be finished
+     */
+    public void startTelemetry(Path file) throws IOException {
+        stopTelemetry();
+        this.telemetry = new TelemetryRecorder(tower, file, TelemetryRecorder.DEFAULT_CAPACITY);
+        this.recordingTelemetry.set(true);
+    }
+
+    /**
+     * Finishes recording telemetry, writing out every record taken so far. Does nothing if
+     * telemetry is not being recorded.
+     *
+     * @throws IOException if the records could not be written
+     */
+    public void stopTelemetry() throws IOException {
+        if (telemetry == null) {
+            return;
+        }
+        TelemetryRecorder recorder = telemetry;
+        this.telemetry = null;
+        this.recordingTelemetry.set(false);
+        recorder.close();
+    }
+
+    /**
+     * Returns the property storing whether telemetry is being recorded.
+     *
+     * @return recording telemetry property
+     */
+    public BooleanProperty getRecordingTelemetry() {
+        return recordingTelemetry;
+    }
+
+    /**
+     * Returns the latency statistics kept since the simulation was loaded.
+     *
+     * @return latency statistics of the control tower
+     */
+    public LatencyStats getLatencyStats() {
+        return latencyStats;
+    }
+
+    /**
+     * Writes a summary of the latency statistics to the given CSV file, in the format described
+     * in {@link LatencyStats#writeCsv(Appendable)}, replacing anything already in it.
+     *
+     * @param file file to write the summary to
+     * @throws IOException if the file could not be written
+     */
+    public void exportLatencyStats(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            latencyStats.writeCsv(out);
+        }
+    }
+
     /**
      * Returns whether or not the state of the model has changed since it was last checked for a
      * change.
@@ -516,6 +847,43 @@ public class ViewModel {
         return pauseMenuText;
     }
 
+    /**
+     * Returns the property storing the measured simulation speed, in ticks per second.
+     *
+     * @return tick rate property
+     */
+    public LongProperty getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * Returns the property storing the position of the control tower's current state in the
+     * rewind buffer.
+     *
+     * @return rewind position property
+     */
+    public IntegerProperty getRewindPosition() {
+        return rewindPosition;
+    }
+
+    /**
+     * Returns the property storing the number of ticks held in the rewind buffer.
+     *
+     * @return rewind buffer size property
+     */
+    public IntegerProperty getRewindSize() {
+        return rewindSize;
+    }
+
+    /**
+     * Returns the property storing the memory used by the rewind buffer, in bytes.
+     *
+     * @return rewind buffer memory property
+     */
+    public LongProperty getRewindMemory() {
+        return rewindMemory;
+    }
+
     /**
      * Returns the property storing the number of terminals managed by the control tower.
      *
@@ -567,6 +935,20 @@ public class ViewModel {
         return aircraftTakingOff;
     }
 
+    /**
+     * Returns the aircraft whose current task is AWAY, in the order they were added to the
+     * control tower.
+     *
+     * @return aircraft currently away
+     */
+    public List<Aircraft> getAwayAircraft() {
+        List<Aircraft> away = new ArrayList<>(awayAircraftIds.size());
+        for (int id : awayAircraftIds) {
+            away.add(tower.getAircraftRegistry().getAircraft(id));
+        }
+        return away;
+    }
+
     /**
      * Creates and shows an error dialog.
      *
@@ -16,6 +16,12 @@ public class Gate implements Encodable {
     /** Aircraft currently occupying the gate; or null if gate is empty. */
     private Aircraft aircraftAtGate;
 
+    /** Number of times an aircraft has parked at or left this gate. */
+    private long version;
+
+    /** Terminal this gate has been added to; or null if it is not part of a terminal. */
+    private Terminal terminal;
+
     /**
      * Creates a new Gate with the given unique gate number.
      * <p>
@@ -57,6 +63,10 @@ public class Gate implements Encodable {
                     + " is occupied, cannot park aircraft");
         }
         this.aircraftAtGate = aircraft;
+        this.version++;
+        if (this.terminal != null) {
+            this.terminal.gateOccupancyChanged(-1);
+        }
     }
 
     /**
@@ -66,7 +76,13 @@ public class Gate implements Encodable {
      * @ass1
      */
     public void aircraftLeaves() {
-        this.aircraftAtGate = null;
+        if (this.aircraftAtGate != null) {
+            this.aircraftAtGate = null;
+            this.version++;
+            if (this.terminal != null) {
+                this.terminal.gateOccupancyChanged(1);
+            }
+        }
     }
 
     /**
@@ -89,6 +105,34 @@ public class Gate implements Encodable {
         return this.aircraftAtGate;
     }
 
+    /**
+     * Returns the terminal this gate has been added to.
+     *
+     * @return terminal containing this gate; or null if it is not part of a terminal
+     */
+    public Terminal getTerminal() {
+        return this.terminal;
+    }
+
+    /**
+     * Records the terminal this gate has been added to.
+     *
+     * @param terminal terminal containing this gate
+     */
+    void setTerminal(Terminal terminal) {
+        this.terminal = terminal;
+    }
+
+    /**
+     * Returns the version of this gate, which increases every time an aircraft parks at or leaves
+     * the gate. Changes to the parked aircraft itself are tracked by {@link Aircraft#getVersion()}.
+     *
+     * @return version of this gate
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
     /**
      * Returns true if and only if this gate is equal to the other given gate.
      * For two gates to be equal, they must have the same gate number.
@@ -0,0 +1,20 @@
+package towersim.ground;
+
+/**
+ * Receives changes to the number of gates of a terminal at which an aircraft could park.
+ * <p>
+ * A gate is available if it is unoccupied and its terminal is not in a state of emergency.
+ * Listeners are registered with {@link Terminal#addGateAvailabilityListener}, and are called
+ * whenever a gate is added to the terminal, an aircraft parks at or leaves one of its gates, or
+ * an emergency is declared or cleared, if the number of available gates changes as a result.
+ */
+public interface GateAvailabilityListener {
+    /**
+     * Called when the number of available gates of a terminal changes.
+     *
+     * @param terminal terminal whose gates changed
+     * @param change   number of gates that became available; negative if gates became
+     *                 unavailable
+     */
+    void availableGatesChanged(Terminal terminal, int change);
+}
@@ -0,0 +1,123 @@
+package towersim.ground;
+
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.FreightAircraft;
+import towersim.aircraft.PassengerAircraft;
+import towersim.util.Encodable;
+
+/**
+ * Represents the ground crew and fuel trucks available to load aircraft parked at the gates of a
+ * terminal.
+ * <p>
+ * Passenger aircraft need one passenger crew and freight aircraft one freight crew for as long as
+ * they are loading, and every loading aircraft needs one fuel truck. Other aircraft only need a
+ * fuel truck. A terminal without ground resources can load any number of aircraft at once.
+ * <p>
+ * Ground resources are immutable; they describe how many of each resource a terminal has, not how
+ * many are in use.
+ */
+public class GroundResources implements Encodable {
+
+    /** Number of crews for loading passengers. */
+    private final int passengerCrews;
+
+    /** Number of crews for loading freight. */
+    private final int freightCrews;
+
+    /** Number of trucks for refuelling aircraft. */
+    private final int fuelTrucks;
+
+    /**
+     * Creates new ground resources with the given number of each resource.
+     *
+     * @param passengerCrews number of crews for loading passengers
+     * @param freightCrews   number of crews for loading freight
+     * @param fuelTrucks     number of trucks for refuelling aircraft
+     * @throws IllegalArgumentException if any of the numbers is negative
+     */
+    public GroundResources(int passengerCrews, int freightCrews, int fuelTrucks) {
+        if (passengerCrews < 0 || freightCrews < 0 || fuelTrucks < 0) {
+            throw new IllegalArgumentException("Number of ground resources cannot be negative");
+        }
+        this.passengerCrews = passengerCrews;
+        this.freightCrews = freightCrews;
+        this.fuelTrucks = fuelTrucks;
+    }
+
+    /**
+     * Returns the number of crews for loading passengers.
+     *
+     * @return number of passenger crews
+     */
+    public int getPassengerCrews() {
+        return passengerCrews;
+    }
+
+    /**
+     * Returns the number of crews for loading freight.
+     *
+     * @return number of freight crews
+     */
+    public int getFreightCrews() {
+        return freightCrews;
+    }
+
+    /**
+     * Returns the number of trucks for refuelling aircraft.
+     *
+     * @return number of fuel trucks
+     */
+    public int getFuelTrucks() {
+        return fuelTrucks;
+    }
+
+    /**
+     * Returns true if the given aircraft could start loading while the given numbers of each
+     * resource are already in use.
+     *
+     * @param aircraft           aircraft waiting to load
+     * @param passengerCrewsUsed number of passenger crews in use
+     * @param freightCrewsUsed   number of freight crews in use
+     * @param fuelTrucksUsed     number of fuel trucks in use
+     * @return true if the resources the aircraft needs are free; false otherwise
+     */
+    public boolean canLoad(Aircraft aircraft, int passengerCrewsUsed, int freightCrewsUsed,
+            int fuelTrucksUsed) {
+        if (fuelTrucksUsed >= fuelTrucks) {
+            return false;
+        }
+        if (aircraft instanceof PassengerAircraft) {
+            return passengerCrewsUsed < passengerCrews;
+        }
+        if (aircraft instanceof FreightAircraft) {
+            return freightCrewsUsed < freightCrews;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the human-readable string representation of these ground resources.
+     * <p>
+     * The format of the string to return is
+     * <pre>numPassenger passenger crews, numFreight freight crews, numTrucks fuel trucks</pre>
+     *
+     * @return string representation of these ground resources
+     */
+    @Override
+    public String toString() {
+        return String.format("%d passenger crews, %d freight crews, %d fuel trucks",
+                passengerCrews, freightCrews, fuelTrucks);
+    }
+
+    /**
+     * Returns the machine-readable string representation of these ground resources.
+     * The format of the string to return is:
+     * passengerCrews:freightCrews:fuelTrucks
+     *
+     * @return encoded string representation of these ground resources
+     */
+    @Override
+    public String encode() {
+        return String.format("%d:%d:%d", passengerCrews, freightCrews, fuelTrucks);
+    }
+}
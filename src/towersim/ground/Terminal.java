@@ -26,6 +26,18 @@ public abstract class Terminal implements EmergencyState, OccupancyLevel, Encoda
     /** Whether or not the terminal is currently in a state of emergency. */
     private boolean emergency;
 
+    /** Ground crew and fuel trucks at this terminal; or null if loading is unlimited. */
+    private GroundResources groundResources;
+
+    /** Number of changes made to the gates, emergency state and ground resources. */
+    private long version;
+
+    /** Number of gates in this terminal that are not occupied by an aircraft. */
+    private int numUnoccupiedGates;
+
+    /** Listeners notified when the number of available gates changes. */
+    private final List<GateAvailabilityListener> availabilityListeners = new ArrayList<>();
+
     /**
      * Creates a new Terminal with the given unique terminal number.
      * <p>
@@ -69,6 +81,14 @@ public abstract class Terminal implements EmergencyState, OccupancyLevel, Encoda
             throw new NoSpaceException("Maximum number of gates reached (" + MAX_NUM_GATES + ")");
         }
         this.gates.add(gate);
+        gate.setTerminal(this);
+        this.version++;
+        if (!gate.isOccupied()) {
+            this.numUnoccupiedGates++;
+            if (!this.emergency) {
+                notifyAvailabilityListeners(1);
+            }
+        }
     }
 
     /**
@@ -99,21 +119,127 @@ public abstract class Terminal implements EmergencyState, OccupancyLevel, Encoda
      * @ass1
      */
     public Gate findUnoccupiedGate() throws NoSuitableGateException {
-        for (Gate gate : this.gates) {
-            if (!gate.isOccupied()) {
-                return gate;
+        if (this.numUnoccupiedGates > 0) {
+            for (Gate gate : this.gates) {
+                if (!gate.isOccupied()) {
+                    return gate;
+                }
             }
         }
         throw new NoSuitableGateException("No unoccupied gate in terminal " + this.terminalNumber);
     }
 
+    /**
+     * Returns the number of gates in this terminal that are not occupied by an aircraft.
+     *
+     * @return number of unoccupied gates
+     */
+    public int getNumUnoccupiedGates() {
+        return this.numUnoccupiedGates;
+    }
+
+    /**
+     * Returns the number of gates in this terminal at which an aircraft could park: the number of
+     * unoccupied gates, or zero if the terminal is in a state of emergency.
+     *
+     * @return number of available gates
+     */
+    public int getNumAvailableGates() {
+        return this.emergency ? 0 : this.numUnoccupiedGates;
+    }
+
+    /**
+     * Registers a listener to be notified whenever the number of available gates of this
+     * terminal, as returned by {@link #getNumAvailableGates()}, changes.
+     *
+     * @param listener listener to register
+     */
+    public void addGateAvailabilityListener(GateAvailabilityListener listener) {
+        this.availabilityListeners.add(listener);
+    }
+
+    /**
+     * Stops notifying the given listener of changes to the number of available gates. Has no
+     * effect if the listener is not registered.
+     *
+     * @param listener listener to remove
+     */
+    public void removeGateAvailabilityListener(GateAvailabilityListener listener) {
+        this.availabilityListeners.remove(listener);
+    }
+
+    /**
+     * Records that an aircraft has parked at or left one of this terminal's gates.
+     *
+     * @param change change in the number of unoccupied gates
+     */
+    void gateOccupancyChanged(int change) {
+        this.numUnoccupiedGates += change;
+        this.version++;
+        if (!this.emergency) {
+            notifyAvailabilityListeners(change);
+        }
+    }
+
+    /* Notifies every availability listener of a change in the number of available gates */
+    private void notifyAvailabilityListeners(int change) {
+        if (change != 0) {
+            for (GateAvailabilityListener listener : this.availabilityListeners) {
+                listener.availableGatesChanged(this, change);
+            }
+        }
+    }
+
+    /**
+     * Returns the ground crew and fuel trucks available to load aircraft at this terminal.
+     * <p>
+     * Newly created terminals have no ground resources, meaning any number of aircraft may load
+     * at once.
+     *
+     * @return ground resources of this terminal; or null if loading is unlimited
+     */
+    public GroundResources getGroundResources() {
+        return groundResources;
+    }
+
+    /**
+     * Sets the ground crew and fuel trucks available to load aircraft at this terminal.
+     *
+     * @param groundResources ground resources of this terminal; or null if loading should be
+     *                        unlimited
+     */
+    public void setGroundResources(GroundResources groundResources) {
+        this.groundResources = groundResources;
+        this.version++;
+    }
+
+    /**
+     * Returns the version of this terminal's state.
+     * <p>
+     * The version increases whenever a gate is added, an aircraft parks at or leaves one of the
+     * terminal's gates, or the emergency state or ground resources of the terminal change. It
+     * never decreases. Changes to the parked aircraft themselves are tracked by
+     * {@link towersim.aircraft.Aircraft#getVersion()}.
+     *
+     * @return version of this terminal's state
+     */
+    public long getVersion() {
+        // gates report every aircraft parking or leaving to their terminal
+        return this.version;
+    }
+
     /**
      * {@inheritDoc}
      * @ass1
      */
     @Override
     public void declareEmergency() {
+        boolean wasAvailable = !this.emergency;
         this.emergency = true;
+        this.version++;
+        if (wasAvailable) {
+            notifyAvailabilityListeners(-this.numUnoccupiedGates);
+        }
     }
 
     /**
@@ -122,7 +248,12 @@ public abstract class Terminal implements EmergencyState, OccupancyLevel, Encoda
      */
     @Override
     public void clearEmergency() {
+        boolean wasAvailable = !this.emergency;
         this.emergency = false;
+        this.version++;
+        if (!wasAvailable) {
+            notifyAvailabilityListeners(this.numUnoccupiedGates);
+        }
     }
 
     /**
@@ -223,6 +354,8 @@ public abstract class Terminal implements EmergencyState, OccupancyLevel, Encoda
      * encodedGate2
      * ...
      * encodedGateN
+     * If the terminal has ground resources, they are encoded at the end of the first line:
+     * TerminalType:terminalNumber:emergency:numGates:encodedGroundResources
      *
      * @return encoded string representation of this terminal
      */
@@ -230,11 +363,12 @@ public abstract class Terminal implements EmergencyState, OccupancyLevel, Encoda
     public String encode() {
         // a string joiner of the terminal encode
         StringJoiner terminalEncode = new StringJoiner(System.lineSeparator());
-        terminalEncode.add(String.format("%s:%d:%b:%d",
+        terminalEncode.add(String.format("%s:%d:%b:%d%s",
                 this.getClass().getSimpleName(),
                 this.terminalNumber,
                 this.emergency,
-                this.gates.size()));
+                this.gates.size(),
+                this.groundResources == null ? "" : ":" + this.groundResources.encode()));
         for (Gate gate : this.gates) {
             terminalEncode.add(gate.encode());
         }
@@ -0,0 +1,266 @@
+package towersim.replay;
+
+import towersim.aircraft.Aircraft;
+import towersim.control.ControlTower;
+import towersim.ground.Terminal;
+import towersim.util.MalformedSaveException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a replay log written by {@link EventLogWriter}, and recreates the state of the recorded
+ * control tower at any tick.
+ * <p>
+ * Seeking to a tick loads the latest snapshot taken at or before that tick, then ticks the
+ * restored tower forward to the requested tick, re-applying the external events (emergencies)
+ * recorded in between. The cost of a seek therefore depends only on the snapshot interval, not
+ * on how far into the recording the tick is.
+ */
+public class EventLogReader implements Closeable {
+    /** Number of event records read from the events file at a time */
+    private static final int EVENTS_PER_READ = 4096;
+
+    /** Channel to the events file */
+    private final FileChannel eventChannel;
+
+    /** Channel to the snapshots file */
+    private final FileChannel snapshotChannel;
+
+    /** Tick of each snapshot, in the order they were taken */
+    private final long[] snapshotTicks;
+
+    /** Number of events recorded before each snapshot was taken */
+    private final long[] snapshotEvents;
+
+    /** Position of each snapshot in the snapshots file */
+    private final long[] snapshotPositions;
+
+    /** Length of each snapshot, in bytes */
+    private final int[] snapshotLengths;
+
+    /**
+     * Opens the replay log in the given directory.
+     *
+     * @param directory directory containing the log files
+     * @throws IOException if the log files could not be opened or the index could not be read
+     * @throws MalformedSaveException if the log does not contain any snapshots
+     */
+    public EventLogReader(Path directory) throws IOException, MalformedSaveException {
+        ByteBuffer index;
+        try (FileChannel indexChannel = FileChannel.open(
+                directory.resolve(EventLogWriter.INDEX_FILE), StandardOpenOption.READ)) {
+            index = ByteBuffer.allocate((int) indexChannel.size());
+            while (index.hasRemaining() && indexChannel.read(index) >= 0) {
+                // keep reading until the whole index has been read
+            }
+            index.flip();
+        }
+        int numSnapshots = index.remaining() / EventLogWriter.INDEX_RECORD_SIZE;
+        if (numSnapshots == 0) {
+            throw new MalformedSaveException("Replay log does not contain any snapshots");
+        }
+        this.snapshotTicks = new long[numSnapshots];
+        this.snapshotEvents = new long[numSnapshots];
+        this.snapshotPositions = new long[numSnapshots];
+        this.snapshotLengths = new int[numSnapshots];
+        for (int i = 0; i < numSnapshots; i++) {
+            snapshotTicks[i] = index.getLong();
+            snapshotEvents[i] = index.getLong();
+            snapshotPositions[i] = index.getLong();
+            snapshotLengths[i] = index.getInt();
+        }
+
+        this.eventChannel = FileChannel.open(directory.resolve(EventLogWriter.EVENTS_FILE),
+                StandardOpenOption.READ);
+        this.snapshotChannel = FileChannel.open(directory.resolve(EventLogWriter.SNAPSHOTS_FILE),
+                StandardOpenOption.READ);
+    }
+
+    /**
+     * Returns the number of events in the log.
+     *
+     * @return number of events
+     * @throws IOException if the size of the events file could not be read
+     */
+    public long getNumEvents() throws IOException {
+        return eventChannel.size() / ReplayEvent.RECORD_SIZE;
+    }
+
+    /**
+     * Returns the tick of the first snapshot in the log, which is the earliest tick that can be
+     * sought to.
+     *
+     * @return first tick in the log
+     */
+    public long getFirstTick() {
+        return snapshotTicks[0];
+    }
+
+    /**
+     * Recreates the state of the recorded control tower at the given tick, that is, after the
+     * given number of ticks had elapsed, including any emergencies declared or cleared before
+     * the next tick.
+     *
+     * @param tick tick to seek to
+     * @return new control tower in the state of the recorded tower at the given tick
+     * @throws IllegalArgumentException if the tick is before the first tick in the log
+     * @throws IOException if the log files could not be read
+     * @throws MalformedSaveException if the snapshot the tower is restored from is invalid
+     */
+    public ControlTower seek(long tick) throws IOException, MalformedSaveException {
+        int snapshot = findSnapshot(tick);
+        ControlTower tower = readSnapshot(snapshot).restore();
+        List<Aircraft> aircraft = tower.getAircraft();
+        List<Terminal> terminals = tower.getTerminals();
+
+        long eventNumber = snapshotEvents[snapshot];
+        long numEvents = getNumEvents();
+        ByteBuffer buffer = ByteBuffer.allocate(EVENTS_PER_READ * ReplayEvent.RECORD_SIZE);
+        buffer.flip();
+        while (eventNumber < numEvents) {
+            if (!buffer.hasRemaining()) {
+                readEvents(buffer, eventNumber);
+            }
+            ReplayEvent event = ReplayEvent.readFrom(buffer);
+            eventNumber++;
+            if (event.getTick() > tick) {
+                break;
+            }
+            if (!event.getType().isExternal()) {
+                // re-created by ticking the tower
+                continue;
+            }
+            while (tower.getTicksElapsed() < event.getTick()) {
+                tower.tick();
+            }
+            applyExternalEvent(event, aircraft, terminals);
+        }
+        while (tower.getTicksElapsed() < tick) {
+            tower.tick();
+        }
+        return tower;
+    }
+
+    /**
+     * Returns all events that happened between the two given ticks, inclusive.
+     *
+     * @param fromTick first tick to return events for
+     * @param toTick last tick to return events for
+     * @return events in the order they were recorded
+     * @throws IOException if the events file could not be read
+     */
+    public List<ReplayEvent> readEvents(long fromTick, long toTick) throws IOException {
+        List<ReplayEvent> events = new ArrayList<>();
+        long eventNumber = snapshotEvents[findSnapshot(Math.max(fromTick, getFirstTick()))];
+        long numEvents = getNumEvents();
+        ByteBuffer buffer = ByteBuffer.allocate(EVENTS_PER_READ * ReplayEvent.RECORD_SIZE);
+        buffer.flip();
+        while (eventNumber < numEvents) {
+            if (!buffer.hasRemaining()) {
+                readEvents(buffer, eventNumber);
+            }
+            ReplayEvent event = ReplayEvent.readFrom(buffer);
+            eventNumber++;
+            if (event.getTick() > toTick) {
+                break;
+            }
+            if (event.getTick() >= fromTick) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /*
+     * Returns the index of the latest snapshot taken at or before the given tick. Snapshots are
+     * taken in tick order, so the index can be binary searched.
+     */
+    private int findSnapshot(long tick) {
+        if (tick < snapshotTicks[0]) {
+            throw new IllegalArgumentException("Tick " + tick + " is before the first tick ("
+                    + snapshotTicks[0] + ") in the replay log");
+        }
+        int low = 0;
+        int high = snapshotTicks.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) / 2;
+            if (snapshotTicks[middle] <= tick) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /* Reads the snapshot with the given index from the snapshots file */
+    private TowerSnapshot readSnapshot(int snapshot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(snapshotLengths[snapshot]);
+        long position = snapshotPositions[snapshot];
+        while (buffer.hasRemaining()) {
+            if (snapshotChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Replay log snapshot is truncated");
+            }
+        }
+        buffer.flip();
+        return TowerSnapshot.fromBytes(buffer);
+    }
+
+    /*
+     * Fills the given buffer with as many whole event records as fit, starting from the event
+     * with the given number, and flips it ready for reading.
+     */
+    private void readEvents(ByteBuffer buffer, long firstEvent) throws IOException {
+        buffer.clear();
+        long position = firstEvent * ReplayEvent.RECORD_SIZE;
+        long available = eventChannel.size() - position;
+        if (available < buffer.capacity()) {
+            buffer.limit((int) (available - available % ReplayEvent.RECORD_SIZE));
+        }
+        while (buffer.hasRemaining()) {
+            if (eventChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Replay log events are truncated");
+            }
+        }
+        buffer.flip();
+    }
+
+    /* Applies an external event to the aircraft or terminal it happened to */
+    private static void applyExternalEvent(ReplayEvent event, List<Aircraft> aircraft,
+                                           List<Terminal> terminals) {
+        switch (event.getType()) {
+            case AIRCRAFT_EMERGENCY_DECLARED:
+                aircraft.get(event.getSubject()).declareEmergency();
+                break;
+            case AIRCRAFT_EMERGENCY_CLEARED:
+                aircraft.get(event.getSubject()).clearEmergency();
+                break;
+            case TERMINAL_EMERGENCY_DECLARED:
+                terminals.get(event.getSubject()).declareEmergency();
+                break;
+            case TERMINAL_EMERGENCY_CLEARED:
+                terminals.get(event.getSubject()).clearEmergency();
+                break;
+            default:
+                // not an external event
+        }
+    }
+
+    /**
+     * Closes the log files.
+     *
+     * @throws IOException if the files could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        eventChannel.close();
+        snapshotChannel.close();
+    }
+}
@@ -0,0 +1,401 @@
+package towersim.replay;
+
+import towersim.aircraft.Aircraft;
+import towersim.control.ControlTower;
+import towersim.control.TowerListener;
+import towersim.ground.Gate;
+import towersim.ground.Terminal;
+import towersim.tasks.TaskType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the events of a running control tower to a replay log on disk.
+ * <p>
+ * A replay log is a directory containing three files:
+ * <ul>
+ * <li>{@value #EVENTS_FILE}: every event, as fixed size binary records (see
+ * {@link ReplayEvent#RECORD_SIZE})</li>
+ * <li>{@value #SNAPSHOTS_FILE}: full snapshots of the tower (see {@link TowerSnapshot}), taken
+ * every {@code snapshotInterval} ticks and whenever aircraft, terminals or gates are added</li>
+ * <li>{@value #INDEX_FILE}: one record per snapshot, giving its tick, the number of events
+ * recorded before it was taken, and its position in the snapshots file</li>
+ * </ul>
+ * Events are collected in a buffer and written to the events file through a
+ * {@link FileChannel} whenever the buffer fills up, or when {@link #flush()} is called.
+ * Logs are read back by {@link EventLogReader}.
+ * <p>
+ * The writer receives the tower's events as a {@link TowerListener}, registered with the tower by
+ * {@link #attachTo(ControlTower)}.
+ */
+public class EventLogWriter implements TowerListener, Closeable {
+    /** Name of the file containing the event records */
+    public static final String EVENTS_FILE = "events.bin";
+
+    /** Name of the file containing the snapshots */
+    public static final String SNAPSHOTS_FILE = "snapshots.bin";
+
+    /** Name of the file indexing the snapshots */
+    public static final String INDEX_FILE = "snapshots.idx";
+
+    /**
+     * Size of a snapshot index record, in bytes: the tick (8), the number of events before the
+     * snapshot (8), the position of the snapshot (8) and its length (4).
+     */
+    public static final int INDEX_RECORD_SIZE = 28;
+
+    /** Default number of ticks between periodic snapshots */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 1000;
+
+    /** Number of event records held in the buffer before it is written out */
+    private static final int BUFFERED_EVENTS = 4096;
+
+    /** Channel to the events file */
+    private final FileChannel eventChannel;
+
+    /** Channel to the snapshots file */
+    private final FileChannel snapshotChannel;
+
+    /** Channel to the snapshot index file */
+    private final FileChannel indexChannel;
+
+    /** Events that have been recorded but not yet written to the events file */
+    private final ByteBuffer eventBuffer;
+
+    /** Number of ticks between periodic snapshots */
+    private final int snapshotInterval;
+
+    /** Number of events recorded so far */
+    private long numEvents;
+
+    /** Index of each aircraft in the tower's list of aircraft at the last snapshot */
+    private final Map<Aircraft, Integer> aircraftIndices;
+
+    /** Index of each terminal in the tower's list of terminals at the last snapshot */
+    private final Map<Terminal, Integer> terminalIndices;
+
+    /** Number of aircraft in the tower at the last snapshot */
+    private int numAircraft;
+
+    /** Total number of gates across all terminals at the last snapshot */
+    private int numGates;
+
+    /**
+     * Creates a new replay log in the given directory, replacing any log already there.
+     *
+     * @param directory directory to write the log files to; created if it does not exist
+     * @param snapshotInterval number of ticks between periodic snapshots
+     * @throws IOException if the log files could not be created
+     * @throws IllegalArgumentException if snapshotInterval &lt; 1
+     */
+    public EventLogWriter(Path directory, int snapshotInterval) throws IOException {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be at least one tick");
+        }
+        Files.createDirectories(directory);
+        this.eventChannel = openForWriting(directory.resolve(EVENTS_FILE));
+        this.snapshotChannel = openForWriting(directory.resolve(SNAPSHOTS_FILE));
+        this.indexChannel = openForWriting(directory.resolve(INDEX_FILE));
+        this.eventBuffer = ByteBuffer.allocateDirect(BUFFERED_EVENTS * ReplayEvent.RECORD_SIZE);
+        this.snapshotInterval = snapshotInterval;
+        this.aircraftIndices = new HashMap<>();
+        this.terminalIndices = new IdentityHashMap<>();
+    }
+
+    /* Opens the given file for writing, emptying it if it already exists */
+    private static FileChannel openForWriting(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Starts recording the given control tower, by taking an initial snapshot and setting this
+     * log as the tower's event log.
+     *
+     * @param tower control tower to record
+     * @throws IOException if the initial snapshot could not be written
+     */
+    public void attachTo(ControlTower tower) throws IOException {
+        writeSnapshot(tower);
+        tower.setEventLog(this);
+    }
+
+    /**
+     * Records an event that happened to the given aircraft.
+     * <p>
+     * Aircraft that are not managed by the recorded control tower are ignored.
+     *
+     * @param tick tick in which the event happened
+     * @param type kind of event
+     * @param aircraft aircraft the event happened to
+     * @param detail extra information about the event (see {@link EventType}); 0 if unused
+     * @throws UncheckedIOException if the buffered events could not be written out
+     */
+    public void record(long tick, EventType type, Aircraft aircraft, int detail) {
+        Integer index = aircraftIndices.get(aircraft);
+        if (index != null) {
+            record(new ReplayEvent(tick, type, index, detail));
+        }
+    }
+
+    /* Adds the given event to the buffer, writing the buffer out first if it is full */
+    private void record(ReplayEvent event) {
+        if (eventBuffer.remaining() < ReplayEvent.RECORD_SIZE) {
+            try {
+                writeBufferedEvents();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        event.writeTo(eventBuffer);
+        numEvents++;
+    }
+
+    /**
+     * Called by the control tower at the start of each tick.
+     * <p>
+     * Takes a snapshot if aircraft, terminals or gates have been added since the last one, as
+     * these changes cannot be replayed from events.
+     *
+     * @param tower recorded control tower
+     * @throws UncheckedIOException if a snapshot could not be written
+     */
+    @Override
+    public void beforeTick(ControlTower tower) {
+        List<Terminal> terminals = tower.getTerminals();
+        if (tower.getAircraft().size() != numAircraft
+                || terminals.size() != terminalIndices.size()
+                || countGates(terminals) != numGates) {
+            try {
+                writeSnapshot(tower);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Called by the control tower at the end of each tick. Takes a periodic snapshot if one is
+     * due.
+     *
+     * @param tower recorded control tower
+     * @throws UncheckedIOException if a snapshot could not be written
+     */
+    @Override
+    public void afterTick(ControlTower tower) {
+        if (tower.getTicksElapsed() % snapshotInterval == 0) {
+            try {
+                writeSnapshot(tower);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Records an event of type {@link EventType#LANDED}.
+     *
+     * @param tick tick in which the event happened
+     * @param aircraft aircraft that landed
+     */
+    @Override
+    public void aircraftLanded(long tick, Aircraft aircraft) {
+        record(tick, EventType.LANDED, aircraft, 0);
+    }
+
+    /**
+     * Records an event of type {@link EventType#TOOK_OFF}.
+     *
+     * @param tick tick in which the event happened
+     * @param aircraft aircraft that took off
+     */
+    @Override
+    public void aircraftTookOff(long tick, Aircraft aircraft) {
+        record(tick, EventType.TOOK_OFF, aircraft, 0);
+    }
+
+    /**
+     * Records an event of type {@link EventType#PARKED}.
+     *
+     * @param tick tick in which the event happened
+     * @param aircraft aircraft that was parked
+     * @param gate gate the aircraft was parked at
+     */
+    @Override
+    public void aircraftParked(long tick, Aircraft aircraft, Gate gate) {
+        record(tick, EventType.PARKED, aircraft, gate.getGateNumber());
+    }
+
+    /**
+     * Records an event of type {@link EventType#LEFT_GATE}.
+     *
+     * @param tick tick in which the event happened
+     * @param aircraft aircraft that left the gate
+     * @param gate gate the aircraft left
+     */
+    @Override
+    public void aircraftLeftGate(long tick, Aircraft aircraft, Gate gate) {
+        record(tick, EventType.LEFT_GATE, aircraft, gate.getGateNumber());
+    }
+
+    /**
+     * Records an event of type {@link EventType#LOADING_FINISHED}.
+     *
+     * @param tick tick in which the event happened
+     * @param aircraft aircraft that finished loading
+     */
+    @Override
+    public void loadingFinished(long tick, Aircraft aircraft) {
+        record(tick, EventType.LOADING_FINISHED, aircraft, 0);
+    }
+
+    /**
+     * Records an event of type {@link EventType#TASK_ADVANCED}.
+     *
+     * @param tick tick in which the event happened
+     * @param aircraft aircraft whose task changed
+     * @param taskType type of the aircraft's new current task
+     */
+    @Override
+    public void taskAdvanced(long tick, Aircraft aircraft, TaskType taskType) {
+        record(tick, EventType.TASK_ADVANCED, aircraft, taskType.ordinal());
+    }
+
+    /**
+     * Records an event of type {@link EventType#AIRCRAFT_EMERGENCY_DECLARED} or
+     * {@link EventType#AIRCRAFT_EMERGENCY_CLEARED}.
+     *
+     * @param tick tick in which the change was noticed
+     * @param aircraft aircraft whose emergency state changed
+     * @param emergency true if an emergency was declared; false if it was cleared
+     */
+    @Override
+    public void aircraftEmergencyChanged(long tick, Aircraft aircraft, boolean emergency) {
+        record(tick, emergency ? EventType.AIRCRAFT_EMERGENCY_DECLARED
+                : EventType.AIRCRAFT_EMERGENCY_CLEARED, aircraft, 0);
+    }
+
+    /**
+     * Records an event of type {@link EventType#TERMINAL_EMERGENCY_DECLARED} or
+     * {@link EventType#TERMINAL_EMERGENCY_CLEARED}.
+     * <p>
+     * Terminals added to the tower since the last snapshot are ignored, as the next snapshot
+     * records their state.
+     *
+     * @param tick tick in which the change was noticed
+     * @param terminal terminal whose emergency state changed
+     * @param emergency true if an emergency was declared; false if it was cleared
+     */
+    @Override
+    public void terminalEmergencyChanged(long tick, Terminal terminal, boolean emergency) {
+        Integer index = terminalIndices.get(terminal);
+        if (index != null) {
+            record(new ReplayEvent(tick, emergency ? EventType.TERMINAL_EMERGENCY_DECLARED
+                    : EventType.TERMINAL_EMERGENCY_CLEARED, index, 0));
+        }
+    }
+
+    /*
+     * Writes a snapshot of the given tower and its index record, and resets the aircraft and
+     * terminal indices that later events are recorded against.
+     */
+    private void writeSnapshot(ControlTower tower) throws IOException {
+        ByteBuffer snapshot = ByteBuffer.wrap(TowerSnapshot.capture(tower).toBytes());
+        long position = snapshotChannel.size();
+        int length = snapshot.remaining();
+        while (snapshot.hasRemaining()) {
+            snapshotChannel.write(snapshot, position + snapshot.position());
+        }
+
+        ByteBuffer indexRecord = ByteBuffer.allocate(INDEX_RECORD_SIZE);
+        indexRecord.putLong(tower.getTicksElapsed());
+        indexRecord.putLong(numEvents);
+        indexRecord.putLong(position);
+        indexRecord.putInt(length);
+        indexRecord.flip();
+        long indexPosition = indexChannel.size();
+        while (indexRecord.hasRemaining()) {
+            indexChannel.write(indexRecord, indexPosition + indexRecord.position());
+        }
+
+        List<Aircraft> aircraft = tower.getAircraft();
+        aircraftIndices.clear();
+        for (int i = 0; i < aircraft.size(); i++) {
+            aircraftIndices.put(aircraft.get(i), i);
+        }
+        numAircraft = aircraft.size();
+        List<Terminal> terminals = tower.getTerminals();
+        terminalIndices.clear();
+        for (int i = 0; i < terminals.size(); i++) {
+            terminalIndices.put(terminals.get(i), i);
+        }
+        numGates = countGates(terminals);
+    }
+
+    /* Returns the total number of gates across the given terminals */
+    private static int countGates(List<Terminal> terminals) {
+        int gates = 0;
+        for (Terminal terminal : terminals) {
+            gates += terminal.getGates().size();
+        }
+        return gates;
+    }
+
+    /* Writes all buffered events to the end of the events file */
+    private void writeBufferedEvents() throws IOException {
+        eventBuffer.flip();
+        while (eventBuffer.hasRemaining()) {
+            eventChannel.write(eventBuffer);
+        }
+        eventBuffer.clear();
+    }
+
+    /**
+     * Returns the number of events recorded so far.
+     *
+     * @return number of events
+     */
+    public long getNumEvents() {
+        return numEvents;
+    }
+
+    /**
+     * Writes all buffered events to disk, so that they can be read by an
+     * {@link EventLogReader}.
+     *
+     * @throws IOException if the events could not be written
+     */
+    public void flush() throws IOException {
+        writeBufferedEvents();
+        eventChannel.force(false);
+        snapshotChannel.force(false);
+        indexChannel.force(false);
+    }
+
+    /**
+     * Writes all buffered events to disk and closes the log files.
+     *
+     * @throws IOException if the events could not be written or the files could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBufferedEvents();
+        } finally {
+            eventChannel.close();
+            snapshotChannel.close();
+            indexChannel.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package towersim.replay;
+
+/**
+ * The kinds of event that the control tower records in its replay event log.
+ * <p>
+ * Most events are the result of the simulation itself and are reproduced exactly by ticking the
+ * control tower again from an earlier snapshot. External events (changes to emergency states)
+ * are made from outside the simulation, so they need to be re-applied when replaying.
+ */
+public enum EventType {
+    /** An aircraft was removed from the landing queue and landed. */
+    LANDED(false),
+
+    /** An aircraft was removed from the takeoff queue and took off. */
+    TOOK_OFF(false),
+
+    /** An aircraft was parked at a gate; the detail is the gate number. */
+    PARKED(false),
+
+    /** An aircraft left the gate it was parked at; the detail is the gate number. */
+    LEFT_GATE(false),
+
+    /** An aircraft finished loading its cargo at a gate. */
+    LOADING_FINISHED(false),
+
+    /** An aircraft moved to its next task; the detail is the ordinal of the new task type. */
+    TASK_ADVANCED(false),
+
+    /** A state of emergency was declared on an aircraft. */
+    AIRCRAFT_EMERGENCY_DECLARED(true),
+
+    /** The state of emergency on an aircraft was cleared. */
+    AIRCRAFT_EMERGENCY_CLEARED(true),
+
+    /** A state of emergency was declared on a terminal; the subject is the terminal's index. */
+    TERMINAL_EMERGENCY_DECLARED(true),
+
+    /** The state of emergency on a terminal was cleared; the subject is the terminal's index. */
+    TERMINAL_EMERGENCY_CLEARED(true);
+
+    /** Whether this event is made from outside the simulation and must be re-applied on replay */
+    private final boolean external;
+
+    EventType(boolean external) {
+        this.external = external;
+    }
+
+    /**
+     * Returns whether events of this type are made from outside the simulation, and so must be
+     * re-applied when replaying the simulation from a snapshot.
+     *
+     * @return true if this is an external event type; false otherwise
+     */
+    public boolean isExternal() {
+        return external;
+    }
+}
@@ -0,0 +1,119 @@
+package towersim.replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A single event read from, or written to, a replay event log.
+ * <p>
+ * Events are stored as fixed size binary records so that the n<sup>th</sup> event in a log can
+ * be found without reading the events before it.
+ */
+public class ReplayEvent {
+    /**
+     * Size of an encoded event, in bytes: the tick (8), the event type (1), the subject (4) and
+     * the detail (4).
+     */
+    public static final int RECORD_SIZE = 17;
+
+    /** Tick in which the event happened */
+    private final long tick;
+
+    /** Kind of event */
+    private final EventType type;
+
+    /** Index of the aircraft (or terminal) the event happened to */
+    private final int subject;
+
+    /** Extra information about the event, depending on its type; 0 if unused */
+    private final int detail;
+
+    /**
+     * Creates a new replay event.
+     *
+     * @param tick tick in which the event happened
+     * @param type kind of event
+     * @param subject index of the aircraft in {@code ControlTower.getAircraft()}, or for terminal
+     *                emergency events, the index of the terminal in
+     *                {@code ControlTower.getTerminals()}
+     * @param detail extra information about the event (see {@link EventType}); 0 if unused
+     */
+    public ReplayEvent(long tick, EventType type, int subject, int detail) {
+        this.tick = tick;
+        this.type = type;
+        this.subject = subject;
+        this.detail = detail;
+    }
+
+    /**
+     * Returns the tick in which this event happened.
+     *
+     * @return event tick
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the kind of this event.
+     *
+     * @return event type
+     */
+    public EventType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the index of the aircraft (or terminal) that this event happened to.
+     *
+     * @return subject index
+     */
+    public int getSubject() {
+        return subject;
+    }
+
+    /**
+     * Returns the extra information stored with this event, or 0 if there is none.
+     *
+     * @return event detail
+     */
+    public int getDetail() {
+        return detail;
+    }
+
+    /**
+     * Writes the binary record of this event to the given buffer.
+     *
+     * @param buffer buffer with at least {@link #RECORD_SIZE} bytes remaining
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(tick);
+        buffer.put((byte) type.ordinal());
+        buffer.putInt(subject);
+        buffer.putInt(detail);
+    }
+
+    /**
+     * Reads the binary record of an event from the given buffer.
+     *
+     * @param buffer buffer with at least {@link #RECORD_SIZE} bytes remaining
+     * @return event read from the buffer
+     */
+    static ReplayEvent readFrom(ByteBuffer buffer) {
+        long tick = buffer.getLong();
+        EventType type = EventType.values()[buffer.get()];
+        int subject = buffer.getInt();
+        int detail = buffer.getInt();
+        return new ReplayEvent(tick, type, subject, detail);
+    }
+
+    /**
+     * Returns the human-readable string representation of this event.
+     * The format of the string to return is: tick: TYPE subject (detail).
+     *
+     * @return string representation of this event
+     */
+    @Override
+    public String toString() {
+        return String.format("%d: %s %d (%d)", tick, type, subject, detail);
+    }
+}
@@ -0,0 +1,958 @@
+package towersim.replay;
+
+import towersim.aircraft.Aircraft;
+import towersim.control.AgingPolicy;
+import towersim.control.AircraftQueue;
+import towersim.control.ArrivalManager;
+import towersim.control.ControlTower;
+import towersim.control.LandingQueue;
+import towersim.control.QueueListener;
+import towersim.control.TakeoffQueue;
+import towersim.ground.Gate;
+import towersim.ground.Terminal;
+import towersim.util.NoSpaceException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the recent history of a control tower, so that it can be stepped backwards and forwards
+ * through the last few ticks.
+ * <p>
+ * After each tick, {@link #record()} compares the tower against the state it was in after the
+ * previous tick, and stores only the values that changed (a delta) in a ring buffer. Each delta
+ * holds both the old and new value of everything that changed, so stepping back or forward
+ * applies a single delta to the tower in place, in time proportional to the size of the delta
+ * rather than the size of the tower. The landing queue's aging state, that is its tick count,
+ * aging policy and the tick in which each aircraft joined it, is recorded along with its contents,
+ * as are the arrival manager's held aircraft and holding statistics.
+ * <p>
+ * Only the aircraft, terminals and arrival manager whose version has changed since the last
+ * record are compared, along with the aircraft that were or are loading if the loading aircraft
+ * changed, so recording a tick in which little changed costs little more than reading each
+ * version. Changes to the queues are not compared at all: the buffer listens to both queues, and
+ * records each aircraft added to or removed from the takeoff queue, and the count, added order
+ * and added tick of each aircraft whose place in the landing queue changed. Stepping replays or
+ * undoes these one aircraft at a time, rather than refilling the queues.
+ * <p>
+ * The buffer holds at most a given number of ticks, and discards the oldest deltas whenever the
+ * memory they use would exceed its budget. Adding aircraft, terminals or gates, or replacing the
+ * tower's arrival manager, cannot be undone, so doing so clears the buffer.
+ */
+public class RewindBuffer {
+    /** Default maximum number of ticks held in the buffer */
+    public static final int DEFAULT_MAX_TICKS = 10000;
+
+    /** Default memory budget of the buffer, in bytes */
+    public static final long DEFAULT_MEMORY_BUDGET = 4 * 1024 * 1024;
+
+    /** Approximate memory used by each delta on top of its contents, in bytes */
+    private static final int DELTA_OVERHEAD = 16;
+
+    /* Kinds of change stored in a delta */
+    private static final byte TICKS = 0;
+    private static final byte FUEL = 1;
+    private static final byte TASK = 2;
+    private static final byte CARGO = 3;
+    private static final byte AIRCRAFT_EMERGENCY = 4;
+    private static final byte TERMINAL_EMERGENCY = 5;
+    private static final byte GATE = 6;
+    private static final byte LOADING = 7;
+    private static final byte TAKEOFF_QUEUE = 8;
+    private static final byte LANDING_QUEUE = 9;
+    private static final byte LANDING_QUEUE_TICKS = 10;
+    private static final byte AGING_POLICY = 11;
+    private static final byte HOLDING = 12;
+
+    /** Number of holding statistics kept by an arrival manager */
+    private static final int NUM_HOLDING_STATISTICS = 3;
+
+    /** Value stored for an empty gate or an aircraft that is not loading */
+    private static final int NONE = -1;
+
+    /** Control tower whose history is recorded */
+    private final ControlTower tower;
+
+    /** Deltas between consecutive recorded states, oldest first starting at {@code first} */
+    private final byte[][] deltas;
+
+    /** Maximum memory used by the deltas, in bytes */
+    private final long memoryBudget;
+
+    /** Index in {@code deltas} of the oldest delta */
+    private int first;
+
+    /** Number of deltas in the buffer */
+    private int size;
+
+    /**
+     * Number of deltas that have been applied to the oldest state held to reach the tower's
+     * current state; less than {@code size} after stepping back
+     */
+    private int position;
+
+    /** Memory currently used by the deltas, in bytes */
+    private long memoryUsed;
+
+    /** Buffer that the next delta is written into */
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+
+    /* The tower's structure when the buffer was last reset */
+    private List<Aircraft> aircraft;
+    private Map<Aircraft, Integer> aircraftIndices;
+    private List<Terminal> terminals;
+    private List<Gate> gates;
+    private int[] firstGates;
+    private int numRegistered;
+    private ArrivalManager arrivalManager;
+
+    /* The state of the tower when it was last recorded or stepped */
+    private long ticks;
+    private double[] fuel;
+    private int[] taskIndices;
+    private int[] cargo;
+    private boolean[] aircraftEmergencies;
+    private boolean[] terminalEmergencies;
+    private int[] gateOccupants;
+    private int[] loadingTimes;
+    private int[] landingCounts;
+    private int[] landingOrders;
+    private long[] landingAddedTicks;
+    private long landingQueueTicks;
+    private int[] agingWeights;
+    private int[] holding;
+    private long[] holdingSince;
+    private long[] holdingStatistics;
+
+    /* The version of each part of the tower when it was last compared */
+    private long[] aircraftVersions;
+    private long[] terminalVersions;
+    private long loadingVersion;
+    private long landingQueueVersion;
+    private long holdingVersion;
+
+    /*
+     * The indices of the aircraft that were loading when the tower was last recorded or stepped,
+     * in no particular order, and the position of each aircraft in that list, or NONE
+     */
+    private int[] loadingIndices;
+    private int numLoading;
+    private int[] loadingPositions;
+
+    /*
+     * The changes made to the queues since the tower was last recorded or stepped: the index of
+     * each aircraft added to the takeoff queue, or the complement of the index of each aircraft
+     * removed from it, in order; and the indices of the aircraft whose place in the landing queue
+     * may have changed, each listed once
+     */
+    private int[] takeoffChanges = new int[16];
+    private int numTakeoffChanges;
+    private boolean[] landingChanged;
+    private int[] landingChanges = new int[16];
+    private int numLandingChanges;
+
+    /** Whether an aircraft the buffer does not know of has been added to a queue */
+    private boolean unknownAircraftQueued;
+
+    /** Whether a delta is being applied, so the changes it makes are not recorded again */
+    private boolean applying;
+
+    /** Records the changes made to the queues as they are made */
+    private final QueueListener queueTracker = new QueueListener() {
+        @Override
+        public void aircraftAdded(AircraftQueue queue, Aircraft added) {
+            queueChanged(queue, added, true);
+        }
+
+        @Override
+        public void aircraftRemoved(AircraftQueue queue, Aircraft removed) {
+            queueChanged(queue, removed, false);
+        }
+
+        @Override
+        public void aircraftMoved(AircraftQueue queue, Aircraft moved) {
+            // only the landing queue moves aircraft, and it does not matter how they changed
+            queueChanged(queue, moved, true);
+        }
+    };
+
+    /**
+     * Creates a new rewind buffer for the given control tower, starting from its current state.
+     *
+     * @param tower control tower to record
+     * @param maxTicks maximum number of ticks to hold
+     * @param memoryBudget maximum memory used to hold ticks, in bytes
+     * @throws IllegalArgumentException if maxTicks &lt; 1 or memoryBudget &lt; 1
+     */
+    public RewindBuffer(ControlTower tower, int maxTicks, long memoryBudget) {
+        if (maxTicks < 1) {
+            throw new IllegalArgumentException("Rewind buffer must hold at least one tick");
+        }
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("Rewind buffer memory budget must be positive");
+        }
+        this.tower = tower;
+        this.deltas = new byte[maxTicks][];
+        this.memoryBudget = memoryBudget;
+        reset();
+        tower.getTakeoffQueue().addListener(queueTracker);
+        tower.getLandingQueue().addListener(queueTracker);
+    }
+
+    /**
+     * Discards all recorded ticks, and starts recording again from the tower's current state.
+     */
+    public void reset() {
+        clear();
+
+        aircraft = tower.getAircraft();
+        numRegistered = tower.getAircraftRegistry().size();
+        aircraftIndices = new HashMap<>();
+        for (int i = 0; i < aircraft.size(); i++) {
+            aircraftIndices.put(aircraft.get(i), i);
+        }
+        terminals = tower.getTerminals();
+        gates = new ArrayList<>();
+        firstGates = new int[terminals.size() + 1];
+        for (int i = 0; i < terminals.size(); i++) {
+            firstGates[i] = gates.size();
+            gates.addAll(terminals.get(i).getGates());
+        }
+        firstGates[terminals.size()] = gates.size();
+
+        ticks = tower.getTicksElapsed();
+        fuel = new double[aircraft.size()];
+        taskIndices = new int[aircraft.size()];
+        cargo = new int[aircraft.size()];
+        aircraftEmergencies = new boolean[aircraft.size()];
+        aircraftVersions = new long[aircraft.size()];
+        for (int i = 0; i < aircraft.size(); i++) {
+            Aircraft eachAircraft = aircraft.get(i);
+            aircraftVersions[i] = eachAircraft.getVersion();
+            fuel[i] = eachAircraft.getFuelAmount();
+            taskIndices[i] = eachAircraft.getTaskList().getCurrentTaskIndex();
+            cargo[i] = eachAircraft.getCargoAmount();
+            aircraftEmergencies[i] = eachAircraft.hasEmergency();
+        }
+        loadingTimes = new int[aircraft.size()];
+        Arrays.fill(loadingTimes, NONE);
+        loadingIndices = new int[aircraft.size()];
+        numLoading = 0;
+        loadingPositions = new int[aircraft.size()];
+        Arrays.fill(loadingPositions, NONE);
+        for (Map.Entry<Aircraft, Integer> entry : tower.getLoadingAircraft().entrySet()) {
+            setLoadingTime(indexOf(entry.getKey()), entry.getValue());
+        }
+        terminalEmergencies = new boolean[terminals.size()];
+        terminalVersions = new long[terminals.size()];
+        for (int i = 0; i < terminals.size(); i++) {
+            terminalEmergencies[i] = terminals.get(i).hasEmergency();
+            terminalVersions[i] = terminals.get(i).getVersion();
+        }
+        gateOccupants = new int[gates.size()];
+        for (int i = 0; i < gates.size(); i++) {
+            gateOccupants[i] = indexOf(gates.get(i).getAircraftAtGate());
+        }
+        loadingVersion = tower.getLoadingVersion();
+        LandingQueue landingQueue = tower.getLandingQueue();
+        landingQueueVersion = landingQueue.getVersion();
+        landingCounts = new int[aircraft.size()];
+        landingOrders = new int[aircraft.size()];
+        landingAddedTicks = new long[aircraft.size()];
+        for (Aircraft queued : landingQueue.getAircraftInAddedOrder()) {
+            int index = indexOf(queued);
+            landingCounts[index] = landingQueue.getCount(queued);
+            landingOrders[index] = landingQueue.getAddedOrder(queued);
+            landingAddedTicks[index] = landingQueue.getAddedTick(queued);
+        }
+        landingQueueTicks = landingQueue.getTicks();
+        agingWeights = weightsOf(landingQueue.getAgingPolicy());
+        numTakeoffChanges = 0;
+        landingChanged = new boolean[aircraft.size()];
+        numLandingChanges = 0;
+        unknownAircraftQueued = false;
+
+        arrivalManager = tower.getArrivalManager();
+        List<Aircraft> held = holdingAircraft();
+        holding = indicesOf(held);
+        holdingSince = holdingSinceOf(held);
+        holdingStatistics = holdingStatistics();
+        holdingVersion = arrivalManager == null ? 0 : arrivalManager.getVersion();
+    }
+
+    /**
+     * Records the changes made to the tower since it was last recorded or stepped.
+     * <p>
+     * This should be called after each tick. If the tower had been stepped back, the ticks after
+     * its current state are discarded, as the tower's history now continues from there.
+     *
+     * @return true if a delta was recorded; false if nothing had changed, the changes were too
+     * large to hold within the memory budget, or the buffer was cleared because the tower's
+     * aircraft, terminals, gates or arrival manager changed
+     */
+    public boolean record() {
+        if (structureChanged()) {
+            reset();
+            return false;
+        }
+        byte[] delta = captureDelta();
+        if (delta == null) {
+            return false;
+        }
+        if (delta.length + DELTA_OVERHEAD > memoryBudget) {
+            // without this delta, no earlier state can be reached from the current one
+            clear();
+            return false;
+        }
+        // the tower has moved on from the current position, so the later history is replaced
+        while (size > position) {
+            removeNewest();
+        }
+        while (size > 0 && (size == deltas.length
+                || memoryUsed + delta.length + DELTA_OVERHEAD > memoryBudget)) {
+            removeOldest();
+        }
+        deltas[(first + size) % deltas.length] = delta;
+        size++;
+        position++;
+        memoryUsed += delta.length + DELTA_OVERHEAD;
+        return true;
+    }
+
+    /**
+     * Restores the tower to the state it was in one recorded tick earlier.
+     * <p>
+     * Any changes made to the tower since it was last recorded are recorded first, so they are
+     * the first thing undone.
+     *
+     * @return true if the tower was stepped back; false if there is no earlier state held
+     */
+    public boolean stepBack() {
+        record();
+        if (position == 0) {
+            return false;
+        }
+        position--;
+        apply(deltas[(first + position) % deltas.length], false);
+        return true;
+    }
+
+    /**
+     * Restores the tower to the state it was in one recorded tick later, after it has been
+     * stepped back.
+     *
+     * @return true if the tower was stepped forward; false if it is already at the latest state
+     * held, or has been changed since it was stepped back
+     */
+    public boolean stepForward() {
+        record();
+        if (position == size) {
+            return false;
+        }
+        apply(deltas[(first + position) % deltas.length], true);
+        position++;
+        return true;
+    }
+
+    /**
+     * Steps the tower backwards or forwards until it is at the given position in the buffer.
+     *
+     * @param newPosition position to restore, from 0 (the oldest state held) to {@link #size()}
+     *                    (the latest state held)
+     * @throws IllegalArgumentException if the position is outside the buffer
+     */
+    public void seek(int newPosition) {
+        record();
+        if (newPosition < 0 || newPosition > size) {
+            throw new IllegalArgumentException("Rewind position out of range: " + newPosition);
+        }
+        while (position > newPosition) {
+            position--;
+            apply(deltas[(first + position) % deltas.length], false);
+        }
+        while (position < newPosition) {
+            apply(deltas[(first + position) % deltas.length], true);
+            position++;
+        }
+    }
+
+    /**
+     * Returns the number of ticks held in the buffer.
+     *
+     * @return number of ticks held
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the position of the tower's current state in the buffer, from 0 (the oldest state
+     * held) to {@link #size()} (the latest state held).
+     *
+     * @return current position
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the approximate memory used to hold the recorded ticks, in bytes.
+     *
+     * @return memory used
+     */
+    public long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    /**
+     * Returns the maximum memory used to hold recorded ticks, in bytes.
+     *
+     * @return memory budget
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /*
+     * Returns whether aircraft, terminals or gates have been added, or the arrival manager
+     * replaced, since the last reset
+     */
+    private boolean structureChanged() {
+        List<Terminal> currentTerminals = tower.getTerminals();
+        if (unknownAircraftQueued || tower.getArrivalManager() != arrivalManager
+                || tower.getAircraftRegistry().size() != numRegistered
+                || currentTerminals.size() != terminals.size()) {
+            return true;
+        }
+        for (int i = 0; i < terminals.size(); i++) {
+            // adding a gate changes the terminal's version
+            Terminal terminal = terminals.get(i);
+            if (terminal.getVersion() != terminalVersions[i]
+                    && terminal.getGates().size() != firstGates[i + 1] - firstGates[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Compares the tower against its last recorded state, updating the recorded state, and
+     * returns the changes as a delta; or null if nothing has changed.
+     */
+    private byte[] captureDelta() {
+        scratch.clear();
+        if (tower.getTicksElapsed() != ticks) {
+            ensureSpace(1 + 2 * Long.BYTES);
+            scratch.put(TICKS).putLong(ticks).putLong(tower.getTicksElapsed());
+            ticks = tower.getTicksElapsed();
+        }
+
+        for (int i = 0; i < aircraft.size(); i++) {
+            Aircraft eachAircraft = aircraft.get(i);
+            long version = eachAircraft.getVersion();
+            if (version == aircraftVersions[i]) {
+                continue;
+            }
+            aircraftVersions[i] = version;
+            double newFuel = eachAircraft.getFuelAmount();
+            if (Double.doubleToLongBits(newFuel) != Double.doubleToLongBits(fuel[i])) {
+                ensureSpace(1 + Integer.BYTES + 2 * Double.BYTES);
+                scratch.put(FUEL).putInt(i).putDouble(fuel[i]).putDouble(newFuel);
+                fuel[i] = newFuel;
+            }
+            taskIndices[i] = putIfChanged(TASK, i, taskIndices[i],
+                    eachAircraft.getTaskList().getCurrentTaskIndex());
+            cargo[i] = putIfChanged(CARGO, i, cargo[i], eachAircraft.getCargoAmount());
+            if (eachAircraft.hasEmergency() != aircraftEmergencies[i]) {
+                aircraftEmergencies[i] = !aircraftEmergencies[i];
+                ensureSpace(1 + Integer.BYTES);
+                scratch.put(AIRCRAFT_EMERGENCY).putInt(i);
+            }
+        }
+        if (tower.getLoadingVersion() != loadingVersion) {
+            loadingVersion = tower.getLoadingVersion();
+            captureLoading();
+        }
+        for (int i = 0; i < terminals.size(); i++) {
+            Terminal terminal = terminals.get(i);
+            if (terminal.getVersion() == terminalVersions[i]) {
+                continue;
+            }
+            terminalVersions[i] = terminal.getVersion();
+            if (terminal.hasEmergency() != terminalEmergencies[i]) {
+                terminalEmergencies[i] = !terminalEmergencies[i];
+                ensureSpace(1 + Integer.BYTES);
+                scratch.put(TERMINAL_EMERGENCY).putInt(i);
+            }
+            for (int j = firstGates[i]; j < firstGates[i + 1]; j++) {
+                gateOccupants[j] = putIfChanged(GATE, j, gateOccupants[j],
+                        indexOf(gates.get(j).getAircraftAtGate()));
+            }
+        }
+        if (numTakeoffChanges > 0) {
+            ensureSpace(1 + (1 + numTakeoffChanges) * Integer.BYTES);
+            scratch.put(TAKEOFF_QUEUE).putInt(numTakeoffChanges);
+            for (int i = 0; i < numTakeoffChanges; i++) {
+                scratch.putInt(takeoffChanges[i]);
+            }
+            numTakeoffChanges = 0;
+        }
+        captureLandingQueue();
+        captureHolding();
+
+        if (scratch.position() == 0) {
+            return null;
+        }
+        byte[] delta = new byte[scratch.position()];
+        scratch.flip();
+        scratch.get(delta);
+        return delta;
+    }
+
+    /*
+     * Writes the changes to the loading aircraft since they were last recorded, updating the
+     * recorded state. Only the aircraft that were loading and those loading now are compared.
+     */
+    private void captureLoading() {
+        Map<Aircraft, Integer> loading = tower.getLoadingAircraft();
+        // backwards, as an aircraft that has finished is replaced by the last one in the list
+        for (int i = numLoading - 1; i >= 0; i--) {
+            int index = loadingIndices[i];
+            Integer time = loading.get(aircraft.get(index));
+            putLoadingTime(index, time == null ? NONE : time);
+        }
+        for (Map.Entry<Aircraft, Integer> entry : loading.entrySet()) {
+            int index = indexOf(entry.getKey());
+            if (loadingPositions[index] == NONE) {
+                putLoadingTime(index, entry.getValue());
+            }
+        }
+    }
+
+    /* Writes a change to the loading time of an aircraft if it has changed */
+    private void putLoadingTime(int index, int newTime) {
+        if (loadingTimes[index] != newTime) {
+            ensureSpace(1 + 3 * Integer.BYTES);
+            scratch.put(LOADING).putInt(index).putInt(loadingTimes[index]).putInt(newTime);
+            setLoadingTime(index, newTime);
+        }
+    }
+
+    /* Sets the recorded loading time of an aircraft, keeping the list of loading aircraft */
+    private void setLoadingTime(int index, int time) {
+        loadingTimes[index] = time;
+        if (time != NONE && loadingPositions[index] == NONE) {
+            loadingPositions[index] = numLoading;
+            loadingIndices[numLoading++] = index;
+        } else if (time == NONE && loadingPositions[index] != NONE) {
+            int last = loadingIndices[--numLoading];
+            loadingIndices[loadingPositions[index]] = last;
+            loadingPositions[last] = loadingPositions[index];
+            loadingPositions[index] = NONE;
+        }
+    }
+
+    /*
+     * Writes the changes to the landing queue's aging state since it was last recorded, and to
+     * the place of each aircraft whose place may have changed, updating the recorded state. An
+     * aircraft's place is the number of times it is queued, and the added order and added tick of
+     * its latest addition.
+     */
+    private void captureLandingQueue() {
+        LandingQueue queue = tower.getLandingQueue();
+        if (queue.getTicks() != landingQueueTicks) {
+            ensureSpace(1 + 2 * Long.BYTES);
+            scratch.put(LANDING_QUEUE_TICKS).putLong(landingQueueTicks).putLong(queue.getTicks());
+            landingQueueTicks = queue.getTicks();
+        }
+        if (queue.getVersion() != landingQueueVersion) {
+            landingQueueVersion = queue.getVersion();
+            int[] newWeights = weightsOf(queue.getAgingPolicy());
+            if (!Arrays.equals(agingWeights, newWeights)) {
+                ensureSpace(1 + 4 * Integer.BYTES);
+                scratch.put(AGING_POLICY).putInt(agingWeights[0]).putInt(agingWeights[1])
+                        .putInt(newWeights[0]).putInt(newWeights[1]);
+                agingWeights = newWeights;
+            }
+        }
+        for (int i = 0; i < numLandingChanges; i++) {
+            int index = landingChanges[i];
+            landingChanged[index] = false;
+            Aircraft queued = aircraft.get(index);
+            int count = queue.getCount(queued);
+            int order = count == 0 ? 0 : queue.getAddedOrder(queued);
+            long addedTick = count == 0 ? 0 : queue.getAddedTick(queued);
+            if (count != landingCounts[index] || order != landingOrders[index]
+                    || addedTick != landingAddedTicks[index]) {
+                ensureSpace(1 + 5 * Integer.BYTES + 2 * Long.BYTES);
+                scratch.put(LANDING_QUEUE).putInt(index)
+                        .putInt(landingCounts[index]).putInt(landingOrders[index])
+                        .putLong(landingAddedTicks[index])
+                        .putInt(count).putInt(order).putLong(addedTick);
+                landingCounts[index] = count;
+                landingOrders[index] = order;
+                landingAddedTicks[index] = addedTick;
+            }
+        }
+        numLandingChanges = 0;
+    }
+
+    /*
+     * Notes that the given aircraft was added to or removed from the given queue, or moved within
+     * it, unless the change was made by applying a delta
+     */
+    private void queueChanged(AircraftQueue queue, Aircraft changed, boolean added) {
+        if (applying) {
+            return;
+        }
+        Integer index = aircraftIndices.get(changed);
+        if (index == null) {
+            // the aircraft is new to the tower, so the next record starts again
+            unknownAircraftQueued = true;
+            return;
+        }
+        if (queue == tower.getTakeoffQueue()) {
+            if (numTakeoffChanges == takeoffChanges.length) {
+                takeoffChanges = Arrays.copyOf(takeoffChanges, 2 * numTakeoffChanges);
+            }
+            takeoffChanges[numTakeoffChanges++] = added ? index : ~index;
+        } else if (!landingChanged[index]) {
+            landingChanged[index] = true;
+            if (numLandingChanges == landingChanges.length) {
+                landingChanges = Arrays.copyOf(landingChanges, 2 * numLandingChanges);
+            }
+            landingChanges[numLandingChanges++] = index;
+        }
+    }
+
+    /*
+     * Writes the changes to the arrival manager's held aircraft and holding statistics since they
+     * were last recorded, updating the recorded state
+     */
+    private void captureHolding() {
+        if (arrivalManager == null || arrivalManager.getVersion() == holdingVersion) {
+            return;
+        }
+        holdingVersion = arrivalManager.getVersion();
+        List<Aircraft> held = holdingAircraft();
+        int[] newHolding = indicesOf(held);
+        long[] newHoldingSince = holdingSinceOf(held);
+        long[] newStatistics = holdingStatistics();
+        if (!Arrays.equals(holding, newHolding) || !Arrays.equals(holdingSince, newHoldingSince)
+                || !Arrays.equals(holdingStatistics, newStatistics)) {
+            ensureSpace(1 + (2 + holding.length + newHolding.length) * Integer.BYTES
+                    + (holding.length + newHolding.length + 2 * NUM_HOLDING_STATISTICS)
+                    * Long.BYTES);
+            scratch.put(HOLDING);
+            putInts(holding);
+            putLongs(holdingSince);
+            putLongs(holdingStatistics);
+            putInts(newHolding);
+            putLongs(newHoldingSince);
+            putLongs(newStatistics);
+            holding = newHolding;
+            holdingSince = newHoldingSince;
+            holdingStatistics = newStatistics;
+        }
+    }
+
+    /* Writes a change to an int value if it has changed, and returns the new value */
+    private int putIfChanged(byte kind, int index, int oldValue, int newValue) {
+        if (oldValue != newValue) {
+            ensureSpace(1 + 3 * Integer.BYTES);
+            scratch.put(kind).putInt(index).putInt(oldValue).putInt(newValue);
+        }
+        return newValue;
+    }
+
+    /* Writes the length of the given array followed by its elements */
+    private void putInts(int[] values) {
+        scratch.putInt(values.length);
+        for (int value : values) {
+            scratch.putInt(value);
+        }
+    }
+
+    /* Writes the elements of the given array, whose length has already been written */
+    private void putLongs(long[] values) {
+        for (long value : values) {
+            scratch.putLong(value);
+        }
+    }
+
+    /* Reads an array of the given length written by putLongs() */
+    private static long[] getLongs(ByteBuffer buffer, int length) {
+        long[] values = new long[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = buffer.getLong();
+        }
+        return values;
+    }
+
+    /* Reads an array written by putInts() */
+    private static int[] getInts(ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    /* Grows the scratch buffer if it does not have the given number of bytes remaining */
+    private void ensureSpace(int bytes) {
+        if (scratch.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * scratch.capacity(),
+                    scratch.position() + bytes));
+            scratch.flip();
+            larger.put(scratch);
+            scratch = larger;
+        }
+    }
+
+    /*
+     * Applies the given delta to the tower and the recorded state, setting each changed value to
+     * its new value if forward is true, or to its old value otherwise.
+     */
+    private void apply(byte[] delta, boolean forward) {
+        applying = true;
+        try {
+            applyChanges(delta, forward);
+        } finally {
+            applying = false;
+        }
+    }
+
+    /* Applies each change in the given delta, as for apply() */
+    private void applyChanges(byte[] delta, boolean forward) {
+        ByteBuffer buffer = ByteBuffer.wrap(delta);
+        while (buffer.hasRemaining()) {
+            byte kind = buffer.get();
+            switch (kind) {
+                case TICKS: {
+                    long oldTicks = buffer.getLong();
+                    long newTicks = buffer.getLong();
+                    ticks = forward ? newTicks : oldTicks;
+                    tower.setTicksElapsed(ticks);
+                    break;
+                }
+                case FUEL: {
+                    int index = buffer.getInt();
+                    double oldFuel = buffer.getDouble();
+                    double newFuel = buffer.getDouble();
+                    fuel[index] = forward ? newFuel : oldFuel;
+                    aircraft.get(index).setFuelAmount(fuel[index]);
+                    break;
+                }
+                case AIRCRAFT_EMERGENCY: {
+                    int index = buffer.getInt();
+                    aircraftEmergencies[index] = !aircraftEmergencies[index];
+                    if (aircraftEmergencies[index]) {
+                        aircraft.get(index).declareEmergency();
+                    } else {
+                        aircraft.get(index).clearEmergency();
+                    }
+                    break;
+                }
+                case TERMINAL_EMERGENCY: {
+                    int index = buffer.getInt();
+                    terminalEmergencies[index] = !terminalEmergencies[index];
+                    if (terminalEmergencies[index]) {
+                        terminals.get(index).declareEmergency();
+                    } else {
+                        terminals.get(index).clearEmergency();
+                    }
+                    break;
+                }
+                case TAKEOFF_QUEUE: {
+                    int[] changes = getInts(buffer);
+                    TakeoffQueue queue = tower.getTakeoffQueue();
+                    if (forward) {
+                        for (int change : changes) {
+                            if (change >= 0) {
+                                queue.addAircraft(aircraft.get(change));
+                            } else {
+                                queue.removeAircraft();
+                            }
+                        }
+                    } else {
+                        // undo the changes in reverse, putting removed aircraft back in front
+                        for (int i = changes.length - 1; i >= 0; i--) {
+                            if (changes[i] >= 0) {
+                                queue.removeLastAircraft();
+                            } else {
+                                queue.addAircraftToFront(aircraft.get(~changes[i]));
+                            }
+                        }
+                    }
+                    break;
+                }
+                case LANDING_QUEUE: {
+                    int index = buffer.getInt();
+                    int oldCount = buffer.getInt();
+                    int oldOrder = buffer.getInt();
+                    long oldAddedTick = buffer.getLong();
+                    int newCount = buffer.getInt();
+                    int newOrder = buffer.getInt();
+                    long newAddedTick = buffer.getLong();
+                    landingCounts[index] = forward ? newCount : oldCount;
+                    landingOrders[index] = forward ? newOrder : oldOrder;
+                    landingAddedTicks[index] = forward ? newAddedTick : oldAddedTick;
+                    tower.getLandingQueue().setEntry(aircraft.get(index), landingCounts[index],
+                            landingOrders[index], landingAddedTicks[index]);
+                    break;
+                }
+                case LANDING_QUEUE_TICKS: {
+                    long oldTicks = buffer.getLong();
+                    long newTicks = buffer.getLong();
+                    landingQueueTicks = forward ? newTicks : oldTicks;
+                    tower.getLandingQueue().setTicks(landingQueueTicks);
+                    break;
+                }
+                case AGING_POLICY: {
+                    int[] oldWeights = {buffer.getInt(), buffer.getInt()};
+                    int[] newWeights = {buffer.getInt(), buffer.getInt()};
+                    agingWeights = forward ? newWeights : oldWeights;
+                    tower.getLandingQueue().setAgingPolicy(agingWeights[0] == NONE
+                            ? null : new AgingPolicy(agingWeights[0], agingWeights[1]));
+                    break;
+                }
+                case HOLDING: {
+                    int[] oldHolding = getInts(buffer);
+                    long[] oldHoldingSince = getLongs(buffer, oldHolding.length);
+                    long[] oldStatistics = getLongs(buffer, NUM_HOLDING_STATISTICS);
+                    int[] newHolding = getInts(buffer);
+                    long[] newHoldingSince = getLongs(buffer, newHolding.length);
+                    long[] newStatistics = getLongs(buffer, NUM_HOLDING_STATISTICS);
+                    holding = forward ? newHolding : oldHolding;
+                    holdingSince = forward ? newHoldingSince : oldHoldingSince;
+                    holdingStatistics = forward ? newStatistics : oldStatistics;
+                    List<Aircraft> held = new ArrayList<>();
+                    for (int index : holding) {
+                        held.add(aircraft.get(index));
+                    }
+                    arrivalManager.setHolding(held, holdingSince);
+                    arrivalManager.setStatistics(holdingStatistics[0], holdingStatistics[1],
+                            holdingStatistics[2]);
+                    break;
+                }
+                default: {
+                    int index = buffer.getInt();
+                    int oldValue = buffer.getInt();
+                    int newValue = buffer.getInt();
+                    applyInt(kind, index, forward ? newValue : oldValue);
+                }
+            }
+        }
+    }
+
+    /* Sets the value of an int-valued change */
+    private void applyInt(byte kind, int index, int value) {
+        switch (kind) {
+            case TASK:
+                taskIndices[index] = value;
+                aircraft.get(index).getTaskList().setCurrentTaskIndex(value);
+                break;
+            case CARGO:
+                cargo[index] = value;
+                aircraft.get(index).setCargoAmount(value);
+                break;
+            case LOADING:
+                setLoadingTime(index, value);
+                if (value == NONE) {
+                    tower.getLoadingAircraft().remove(aircraft.get(index));
+                } else {
+                    tower.getLoadingAircraft().put(aircraft.get(index), value);
+                }
+                break;
+            case GATE:
+                gateOccupants[index] = value;
+                Gate gate = gates.get(index);
+                gate.aircraftLeaves();
+                if (value != NONE) {
+                    try {
+                        gate.parkAircraft(aircraft.get(value));
+                    } catch (NoSpaceException ignored) {
+                        // not possible, the aircraft has just left the gate
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown rewind delta kind: " + kind);
+        }
+    }
+
+    /* Returns the index of the given aircraft, or NONE for null */
+    private int indexOf(Aircraft eachAircraft) {
+        return eachAircraft == null ? NONE : aircraftIndices.get(eachAircraft);
+    }
+
+    /* Returns the aircraft held by the arrival manager, or none if there is no arrival manager */
+    private List<Aircraft> holdingAircraft() {
+        return arrivalManager == null ? new ArrayList<>() : arrivalManager.getHoldingAircraft();
+    }
+
+    /* Returns the tick in which each of the given aircraft started holding */
+    private long[] holdingSinceOf(List<Aircraft> held) {
+        long[] since = new long[held.size()];
+        for (int i = 0; i < since.length; i++) {
+            since[i] = arrivalManager.getHoldingSince(held.get(i));
+        }
+        return since;
+    }
+
+    /* Returns the arrival manager's holding statistics, or zeros if there is no arrival manager */
+    private long[] holdingStatistics() {
+        if (arrivalManager == null) {
+            return new long[NUM_HOLDING_STATISTICS];
+        }
+        return new long[] {arrivalManager.getAircraftHeld(),
+            arrivalManager.getTotalHoldingTicks(), arrivalManager.getLongestHold()};
+    }
+
+    /* Returns the weights of the given aging policy, or NONE for both if there is no policy */
+    private static int[] weightsOf(AgingPolicy agingPolicy) {
+        return agingPolicy == null ? new int[] {NONE, NONE}
+                : new int[] {agingPolicy.getPassengerWeight(), agingPolicy.getOtherWeight()};
+    }
+
+    /* Returns the indices of the given aircraft */
+    private int[] indicesOf(List<Aircraft> queued) {
+        int[] indices = new int[queued.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = indexOf(queued.get(i));
+        }
+        return indices;
+    }
+
+    /* Discards every delta held */
+    private void clear() {
+        for (int i = 0; i < size; i++) {
+            deltas[(first + i) % deltas.length] = null;
+        }
+        first = 0;
+        size = 0;
+        position = 0;
+        memoryUsed = 0;
+    }
+
+    /* Discards the oldest delta */
+    private void removeOldest() {
+        memoryUsed -= deltas[first].length + DELTA_OVERHEAD;
+        deltas[first] = null;
+        first = (first + 1) % deltas.length;
+        size--;
+        position = Math.max(0, position - 1);
+    }
+
+    /* Discards the newest delta */
+    private void removeNewest() {
+        int newest = (first + size - 1) % deltas.length;
+        memoryUsed -= deltas[newest].length + DELTA_OVERHEAD;
+        deltas[newest] = null;
+        size--;
+    }
+}
@@ -0,0 +1,329 @@
+package towersim.replay;
+
+import towersim.aircraft.Aircraft;
+import towersim.control.AgingPolicy;
+import towersim.control.ArrivalManager;
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.control.LandingQueue;
+import towersim.ground.Terminal;
+import towersim.util.MalformedSaveException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * A full copy of the state of a control tower at one point in time.
+ * <p>
+ * Snapshots use the same four sections as the save files read by
+ * {@link ControlTowerInitialiser#createControlTower}, with two differences that make a restored
+ * tower behave exactly like the original one: fuel amounts are stored at full precision, and the
+ * landing queue lists its aircraft in the order they were added rather than in queue order.
+ * <p>
+ * A fifth section holds the state that save files leave out: the landing queue's tick count,
+ * aging policy and the tick in which each of its aircraft was added, and the tower's arrival
+ * manager with its statistics and held aircraft. Snapshots encoded before this section existed
+ * are still read, and restore a landing queue without aging and no arrival manager.
+ */
+public class TowerSnapshot {
+    /** Contents of the tick section */
+    private final String tick;
+
+    /** Contents of the aircraft section */
+    private final String aircraft;
+
+    /** Contents of the queues section */
+    private final String queues;
+
+    /** Contents of the terminals with gates section */
+    private final String terminalsWithGates;
+
+    /** Contents of the flow control section; empty for snapshots encoded without it */
+    private final String flowControl;
+
+    /**
+     * Creates a new snapshot from its encoded sections.
+     *
+     * @param tick encoded number of ticks elapsed
+     * @param aircraft encoded list of aircraft
+     * @param queues encoded takeoff queue, landing queue and loading aircraft
+     * @param terminalsWithGates encoded terminals and their gates
+     * @param flowControl encoded landing queue aging state and arrival manager
+     */
+    private TowerSnapshot(String tick, String aircraft, String queues,
+                          String terminalsWithGates, String flowControl) {
+        this.tick = tick;
+        this.aircraft = aircraft;
+        this.queues = queues;
+        this.terminalsWithGates = terminalsWithGates;
+        this.flowControl = flowControl;
+    }
+
+    /**
+     * Captures the current state of the given control tower.
+     *
+     * @param tower control tower to capture
+     * @return snapshot of the tower's state
+     */
+    public static TowerSnapshot capture(ControlTower tower) {
+        StringJoiner aircraftJoiner = new StringJoiner(System.lineSeparator());
+        aircraftJoiner.add(Integer.toString(tower.getAircraft().size()));
+        for (Aircraft eachAircraft : tower.getAircraft()) {
+            aircraftJoiner.add(encodeExactly(eachAircraft));
+        }
+
+        StringJoiner queueJoiner = new StringJoiner(System.lineSeparator());
+        queueJoiner.add(tower.getTakeoffQueue().encode());
+        // the landing queue is listed in added order, so reloading it keeps the same priorities
+        queueJoiner.add("LandingQueue:" + tower.getLandingQueue().getAircraftInOrder().size());
+        StringJoiner landingJoiner = new StringJoiner(",");
+        for (Aircraft eachAircraft : tower.getLandingQueue().getAircraftInAddedOrder()) {
+            landingJoiner.add(eachAircraft.getCallsign());
+        }
+        if (landingJoiner.length() > 0) {
+            queueJoiner.add(landingJoiner.toString());
+        }
+        Map<Aircraft, Integer> loadingAircraft = tower.getLoadingAircraft();
+        queueJoiner.add("LoadingAircraft:" + loadingAircraft.size());
+        StringJoiner loadingJoiner = new StringJoiner(",");
+        for (Map.Entry<Aircraft, Integer> entry : loadingAircraft.entrySet()) {
+            loadingJoiner.add(entry.getKey().getCallsign() + ":" + entry.getValue());
+        }
+        if (loadingJoiner.length() > 0) {
+            queueJoiner.add(loadingJoiner.toString());
+        }
+
+        StringJoiner terminalJoiner = new StringJoiner(System.lineSeparator());
+        terminalJoiner.add(Integer.toString(tower.getTerminals().size()));
+        for (Terminal terminal : tower.getTerminals()) {
+            terminalJoiner.add(terminal.encode());
+        }
+
+        return new TowerSnapshot(Long.toString(tower.getTicksElapsed()),
+                aircraftJoiner.toString(), queueJoiner.toString(), terminalJoiner.toString(),
+                encodeFlowControl(tower));
+    }
+
+    /*
+     * Encodes the landing queue's tick count, aging policy, and the tick in which each of its
+     * aircraft was added, in the same order as the landing queue section, followed by the arrival
+     * manager's limits, statistics and held aircraft
+     */
+    private static String encodeFlowControl(ControlTower tower) {
+        LandingQueue landingQueue = tower.getLandingQueue();
+        AgingPolicy agingPolicy = landingQueue.getAgingPolicy();
+        StringJoiner joiner = new StringJoiner(System.lineSeparator());
+        joiner.add("LandingQueueTicks:" + landingQueue.getTicks());
+        joiner.add(agingPolicy == null ? "AgingPolicy:none" : "AgingPolicy:"
+                + agingPolicy.getPassengerWeight() + ":" + agingPolicy.getOtherWeight());
+        List<Aircraft> queued = landingQueue.getAircraftInAddedOrder();
+        joiner.add("AddedTicks:" + queued.size());
+        StringJoiner addedJoiner = new StringJoiner(",");
+        for (Aircraft eachAircraft : queued) {
+            addedJoiner.add(Long.toString(landingQueue.getAddedTick(eachAircraft)));
+        }
+        if (addedJoiner.length() > 0) {
+            joiner.add(addedJoiner.toString());
+        }
+
+        ArrivalManager arrivalManager = tower.getArrivalManager();
+        if (arrivalManager == null) {
+            joiner.add("ArrivalManager:none");
+            return joiner.toString();
+        }
+        joiner.add("ArrivalManager:" + arrivalManager.getMaxQueueDepth()
+                + ":" + arrivalManager.getMaxArrivalsPerTick()
+                + ":" + arrivalManager.getAircraftHeld()
+                + ":" + arrivalManager.getTotalHoldingTicks()
+                + ":" + arrivalManager.getLongestHold());
+        List<Aircraft> holding = arrivalManager.getHoldingAircraft();
+        joiner.add("Holding:" + holding.size());
+        StringJoiner holdingJoiner = new StringJoiner(",");
+        for (Aircraft eachAircraft : holding) {
+            holdingJoiner.add(eachAircraft.getCallsign() + ":"
+                    + arrivalManager.getHoldingSince(eachAircraft));
+        }
+        if (holdingJoiner.length() > 0) {
+            joiner.add(holdingJoiner.toString());
+        }
+        return joiner.toString();
+    }
+
+    /*
+     * Encodes the given aircraft as in Aircraft.encode(), but with the fuel amount at full
+     * precision rather than rounded to two decimal places.
+     */
+    private static String encodeExactly(Aircraft aircraft) {
+        String[] aircraftInformation = aircraft.encode().split(":");
+        aircraftInformation[3] = Double.toString(aircraft.getFuelAmount());
+        return String.join(":", aircraftInformation);
+    }
+
+    /**
+     * Creates a new control tower in the state captured by this snapshot.
+     *
+     * @return restored control tower
+     * @throws MalformedSaveException if the snapshot's contents are invalid
+     */
+    public ControlTower restore() throws MalformedSaveException {
+        ControlTower tower;
+        try {
+            tower = ControlTowerInitialiser.createControlTower(new StringReader(tick),
+                    new StringReader(aircraft), new StringReader(queues),
+                    new StringReader(terminalsWithGates));
+        } catch (IOException ex) {
+            // reading from a string never fails
+            throw new UncheckedIOException(ex);
+        }
+        if (!flowControl.isEmpty()) {
+            restoreFlowControl(tower);
+        }
+        return tower;
+    }
+
+    /*
+     * Restores the landing queue's aging state and the arrival manager from the flow control
+     * section
+     */
+    private void restoreFlowControl(ControlTower tower) throws MalformedSaveException {
+        // snapshots may have been encoded on a platform with a different line separator
+        String[] lines = flowControl.split("\\R");
+        LandingQueue landingQueue = tower.getLandingQueue();
+        List<Aircraft> queued = landingQueue.getAircraftInAddedOrder();
+        try {
+            landingQueue.setTicks(Long.parseLong(valueOf(lines, 0, "LandingQueueTicks")));
+            String agingPolicy = valueOf(lines, 1, "AgingPolicy");
+            if (!agingPolicy.equals("none")) {
+                String[] weights = agingPolicy.split(":", -1);
+                if (weights.length != 2) {
+                    throw new MalformedSaveException("Invalid aging policy: " + agingPolicy);
+                }
+                landingQueue.setAgingPolicy(new AgingPolicy(Integer.parseInt(weights[0]),
+                        Integer.parseInt(weights[1])));
+            }
+            if (Integer.parseInt(valueOf(lines, 2, "AddedTicks")) != queued.size()) {
+                throw new MalformedSaveException("Added ticks do not match the landing queue");
+            }
+            String[] addedTicks = queued.isEmpty() ? new String[0] : lines[3].split(",", -1);
+            if (addedTicks.length != queued.size()) {
+                throw new MalformedSaveException("Added ticks do not match the landing queue");
+            }
+            for (int i = 0; i < addedTicks.length; i++) {
+                landingQueue.setAddedTick(queued.get(i), Long.parseLong(addedTicks[i]));
+            }
+            restoreArrivalManager(tower, lines, queued.isEmpty() ? 3 : 4);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new MalformedSaveException("Invalid flow control section", ex);
+        }
+    }
+
+    /*
+     * Restores the arrival manager from the given lines of the flow control section, starting at
+     * the given index
+     */
+    private static void restoreArrivalManager(ControlTower tower, String[] lines, int index)
+            throws MalformedSaveException {
+        String limits = valueOf(lines, index, "ArrivalManager");
+        if (limits.equals("none")) {
+            return;
+        }
+        String[] values = limits.split(":", -1);
+        if (values.length != 5) {
+            throw new MalformedSaveException("Invalid arrival manager: " + limits);
+        }
+        ArrivalManager arrivalManager = new ArrivalManager(Integer.parseInt(values[0]),
+                Integer.parseInt(values[1]));
+        arrivalManager.setStatistics(Long.parseLong(values[2]), Long.parseLong(values[3]),
+                Long.parseLong(values[4]));
+
+        int numHolding = Integer.parseInt(valueOf(lines, index + 1, "Holding"));
+        String[] held = numHolding == 0 ? new String[0] : lines[index + 2].split(",", -1);
+        if (held.length != numHolding) {
+            throw new MalformedSaveException("Held aircraft do not match their count");
+        }
+        List<Aircraft> holding = new ArrayList<>();
+        long[] since = new long[held.length];
+        for (int i = 0; i < held.length; i++) {
+            String[] heldInformation = held[i].split(":", -1);
+            if (heldInformation.length != 2) {
+                throw new MalformedSaveException("Invalid held aircraft: " + held[i]);
+            }
+            Aircraft aircraft = tower.getCallsignIndex().find(heldInformation[0]);
+            if (aircraft == null) {
+                throw new MalformedSaveException("Unknown held aircraft: " + heldInformation[0]);
+            }
+            holding.add(aircraft);
+            since[i] = Long.parseLong(heldInformation[1]);
+        }
+        arrivalManager.setHolding(holding, since);
+        tower.setArrivalManager(arrivalManager);
+    }
+
+    /*
+     * Returns the value of the line at the given index of the given lines, which must start with
+     * the given key followed by a colon
+     */
+    private static String valueOf(String[] lines, int index, String key)
+            throws MalformedSaveException {
+        if (index >= lines.length || !lines[index].startsWith(key + ":")) {
+            throw new MalformedSaveException("Expected " + key + " in flow control section");
+        }
+        return lines[index].substring(key.length() + 1);
+    }
+
+    /**
+     * Returns the binary encoding of this snapshot: each of the five sections as UTF-8 bytes,
+     * preceded by their length.
+     *
+     * @return encoded snapshot
+     */
+    public byte[] toBytes() {
+        byte[][] sections = new byte[][] {
+            tick.getBytes(StandardCharsets.UTF_8),
+            aircraft.getBytes(StandardCharsets.UTF_8),
+            queues.getBytes(StandardCharsets.UTF_8),
+            terminalsWithGates.getBytes(StandardCharsets.UTF_8),
+            flowControl.getBytes(StandardCharsets.UTF_8)
+        };
+        int length = 0;
+        for (byte[] section : sections) {
+            length += Integer.BYTES + section.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] section : sections) {
+            buffer.putInt(section.length);
+            buffer.put(section);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reads a snapshot from the binary encoding returned by {@link #toBytes()}. The encoded
+     * snapshot must end at the end of the buffer, since snapshots encoded before the flow control
+     * section existed end after the terminals with gates section.
+     *
+     * @param buffer buffer positioned at the start of an encoded snapshot
+     * @return decoded snapshot
+     */
+    public static TowerSnapshot fromBytes(ByteBuffer buffer) {
+        String[] sections = new String[5];
+        for (int i = 0; i < sections.length; i++) {
+            if (i == 4 && !buffer.hasRemaining()) {
+                sections[i] = "";
+                break;
+            }
+            byte[] section = new byte[buffer.getInt()];
+            buffer.get(section);
+            sections[i] = new String(section, StandardCharsets.UTF_8);
+        }
+        return new TowerSnapshot(sections[0], sections[1], sections[2], sections[3],
+                sections[4]);
+    }
+}
@@ -0,0 +1,239 @@
+package towersim.sweep;
+
+import towersim.control.ArrivalManager;
+import towersim.control.ControlTower;
+import towersim.util.MalformedSaveException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Runs many independent control towers, generated from the points of a parameter grid and a
+ * range of seeds, and aggregates their results for each point.
+ * <p>
+ * Every point is run once with each seed, so the points are compared over the same random draws
+ * wherever their parameters allow. Each run loads a tower from the scenario generated by
+ * {@link SweepPoint#toScenario(long)}, attaches the point's arrival manager and ticks the tower
+ * for a fixed number of ticks.
+ * <p>
+ * The runs are split between the workers of a fork/join pool by recursively halving the range of
+ * runs, so idle workers steal halves from busy ones and the load stays balanced even though runs
+ * take different times. Runs share no mutable state apart from the results they are added to,
+ * once each when they finish, so throughput grows with the number of workers. Each worker reuses
+ * one {@link RunProbe} for every run it makes.
+ * <p>
+ * A point's result is passed to the listener given to {@link #run(ForkJoinPool, Consumer)} as
+ * soon as its last run finishes, so a summary table can be written while the sweep is still
+ * running.
+ */
+public class MonteCarloSweep {
+    /** Points of the sweep, in order */
+    private final List<SweepPoint> points;
+
+    /** Number of runs of each point, one with each seed */
+    private final int seedsPerPoint;
+
+    /** Seed of the first run of each point */
+    private final long firstSeed;
+
+    /** Number of ticks in each run */
+    private final long numTicks;
+
+    /** Probe reused by each worker for every run it makes */
+    private final ThreadLocal<RunProbe> probes = ThreadLocal.withInitial(RunProbe::new);
+
+    /**
+     * Creates a new sweep over the given points.
+     *
+     * @param points        points to run
+     * @param seedsPerPoint number of runs of each point, with consecutive seeds
+     * @param firstSeed     seed of the first run of each point
+     * @param numTicks      number of ticks in each run
+     * @throws IllegalArgumentException if there are no points, or seedsPerPoint or numTicks is
+     *                                  less than one
+     */
+    public MonteCarloSweep(List<SweepPoint> points, int seedsPerPoint, long firstSeed,
+            long numTicks) {
+        if (points.isEmpty()) {
+            throw new IllegalArgumentException("A sweep needs at least one point");
+        }
+        if (seedsPerPoint < 1 || numTicks < 1) {
+            throw new IllegalArgumentException("Seeds and ticks must be at least one");
+        }
+        if ((long) points.size() * seedsPerPoint > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many runs in one sweep");
+        }
+        this.points = List.copyOf(points);
+        this.seedsPerPoint = seedsPerPoint;
+        this.firstSeed = firstSeed;
+        this.numTicks = numTicks;
+    }
+
+    /**
+     * Runs every point of the sweep with every seed on the given pool, returning once all the
+     * runs have finished.
+     * <p>
+     * The listener is called once for each point, as soon as its last run finishes, from the
+     * worker that finished it. It may be called from several workers at once, so it must be
+     * thread-safe.
+     *
+     * @param pool     pool to make the runs on
+     * @param finished called with the result of each point once it is complete
+     * @return results of each point, in the order of the points
+     * @throws IllegalStateException if a generated scenario could not be loaded
+     */
+    public List<SweepResult> run(ForkJoinPool pool, Consumer<SweepResult> finished) {
+        List<SweepResult> results = new ArrayList<>(points.size());
+        for (SweepPoint point : points) {
+            results.add(new SweepResult(point, seedsPerPoint, numTicks));
+        }
+        pool.invoke(new Runs(results, finished, 0, points.size() * seedsPerPoint));
+        return Collections.unmodifiableList(results);
+    }
+
+    /* Makes one run, adding it to its point's result */
+    private void runOnce(int run, List<SweepResult> results, Consumer<SweepResult> finished) {
+        SweepResult result = results.get(run / seedsPerPoint);
+        SweepPoint point = result.getPoint();
+        ControlTower tower;
+        try {
+            tower = point.toScenario(firstSeed + run % seedsPerPoint).createControlTower();
+        } catch (MalformedSaveException e) {
+            // not possible, the scenario's save files are generated
+            throw new IllegalStateException("Scenario could not be loaded: " + point, e);
+        }
+        ArrivalManager arrivalManager = point.newArrivalManager();
+        tower.setArrivalManager(arrivalManager);
+
+        RunProbe probe = probes.get();
+        probe.attach(tower);
+        for (long tick = 0; tick < numTicks; tick++) {
+            tower.tick();
+        }
+        probe.detach();
+        if (result.add(probe, arrivalManager)) {
+            finished.accept(result);
+        }
+    }
+
+    /**
+     * A range of runs, made by splitting it in half until each half is a single run.
+     */
+    private class Runs extends RecursiveAction {
+        /** Version of the serialized form */
+        private static final long serialVersionUID = 1L;
+
+        /** Results of each point */
+        private final List<SweepResult> results;
+
+        /** Called with each point's result once it is complete */
+        private final Consumer<SweepResult> finished;
+
+        /** First run of the range */
+        private final int from;
+
+        /** Run after the last run of the range */
+        private final int to;
+
+        Runs(List<SweepResult> results, Consumer<SweepResult> finished, int from, int to) {
+            this.results = results;
+            this.finished = finished;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                runOnce(from, results, finished);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Runs(results, finished, from, middle),
+                        new Runs(results, finished, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Sweeps a grid of parameters, printing a summary table with a row for each point as soon as
+     * all of its runs have finished.
+     * <p>
+     * Usage: {@code seeds_per_point num_ticks [terminals [gates [aircraft [helicopter_share
+     * [emergency_rate [max_queue_depth]]]]]]}
+     * <p>
+     * Each parameter after the first two is a comma-separated list of the values to sweep it
+     * over, as described in {@link SweepPoint#SweepPoint(int, int, int, double, double, int)}.
+     * A maximum queue depth can be given as {@code unlimited}. Parameters not given take the
+     * values {@code 1,2}, {@code 2,4}, {@code 10,20}, {@code 0.25}, {@code 0.05} and
+     * {@code unlimited} respectively. The runs are made on one worker per available processor.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 8) {
+            System.err.println("Usage: seeds_per_point num_ticks [terminals [gates [aircraft"
+                    + " [helicopter_share [emergency_rate [max_queue_depth]]]]]]");
+            System.exit(1);
+        }
+        int seeds;
+        long ticks;
+        ParameterGrid grid;
+        MonteCarloSweep sweep;
+        try {
+            seeds = Integer.parseInt(args[0]);
+            ticks = Long.parseLong(args[1]);
+            grid = new ParameterGrid(parseInts(args, 2, "1,2"), parseInts(args, 3, "2,4"),
+                    parseInts(args, 4, "10,20"), parseDoubles(args, 5, "0.25"),
+                    parseDoubles(args, 6, "0.05"), parseInts(args, 7, "unlimited"));
+            sweep = new MonteCarloSweep(grid.getPoints(), seeds, 0, ticks);
+        } catch (IllegalArgumentException e) {
+            // also thrown for numbers that cannot be parsed
+            System.err.println("Invalid arguments: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        System.out.print(SweepResult.formatHeader());
+        long start = System.nanoTime();
+        try {
+            sweep.run(pool, result -> {
+                synchronized (System.out) {
+                    System.out.print(result.formatRow());
+                    System.out.flush();
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+        long runs = (long) grid.getPoints().size() * seeds;
+        System.out.printf("Ran %,d runs of %,d ticks on %d threads in %.3f s: %,.0f ticks/s%n",
+                runs, ticks, numThreads, elapsed / 1e9, runs * ticks / (elapsed / 1e9));
+    }
+
+    /* Parses a comma-separated list of integers, or the default if the argument is not given */
+    private static int[] parseInts(String[] args, int index, String defaultValues) {
+        String[] values = (index < args.length ? args[index] : defaultValues).split(",");
+        int[] parsed = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            parsed[i] = values[i].equals("unlimited")
+                    ? ArrivalManager.UNLIMITED : Integer.parseInt(values[i]);
+        }
+        return parsed;
+    }
+
+    /* Parses a comma-separated list of numbers, or the default if the argument is not given */
+    private static double[] parseDoubles(String[] args, int index, String defaultValues) {
+        String[] values = (index < args.length ? args[index] : defaultValues).split(",");
+        double[] parsed = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            parsed[i] = Double.parseDouble(values[i]);
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,62 @@
+package towersim.sweep;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Grid of the values to sweep each parameter of a {@link SweepPoint} over.
+ * <p>
+ * The points of the grid are every combination of one value of each parameter, ordered with the
+ * last parameter, the maximum queue depth, varying fastest.
+ */
+public class ParameterGrid {
+    /** Points of the grid, in order */
+    private final List<SweepPoint> points;
+
+    /**
+     * Creates a grid of every combination of the given values.
+     *
+     * @param numTerminals     numbers of terminals
+     * @param gatesPerTerminal numbers of gates in each terminal
+     * @param numAircraft      numbers of aircraft in the fleet
+     * @param helicopterShares fractions of the fleet that are helicopters
+     * @param emergencyRates   chances of each aircraft starting in a state of emergency
+     * @param maxQueueDepths   largest numbers of aircraft in the landing queue
+     * @throws IllegalArgumentException if any parameter has no values, or any combination is
+     *                                  not a valid {@link SweepPoint}
+     */
+    public ParameterGrid(int[] numTerminals, int[] gatesPerTerminal, int[] numAircraft,
+            double[] helicopterShares, double[] emergencyRates, int[] maxQueueDepths) {
+        if (numTerminals.length == 0 || gatesPerTerminal.length == 0 || numAircraft.length == 0
+                || helicopterShares.length == 0 || emergencyRates.length == 0
+                || maxQueueDepths.length == 0) {
+            throw new IllegalArgumentException("Every parameter needs at least one value");
+        }
+        List<SweepPoint> points = new ArrayList<>();
+        for (int terminals : numTerminals) {
+            for (int gates : gatesPerTerminal) {
+                for (int aircraft : numAircraft) {
+                    for (double helicopterShare : helicopterShares) {
+                        for (double emergencyRate : emergencyRates) {
+                            for (int maxQueueDepth : maxQueueDepths) {
+                                points.add(new SweepPoint(terminals, gates, aircraft,
+                                        helicopterShare, emergencyRate, maxQueueDepth));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        this.points = Collections.unmodifiableList(points);
+    }
+
+    /**
+     * Returns the points of the grid, in order.
+     *
+     * @return unmodifiable list of every combination of the parameters' values
+     */
+    public List<SweepPoint> getPoints() {
+        return points;
+    }
+}
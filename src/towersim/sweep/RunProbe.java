@@ -0,0 +1,155 @@
+package towersim.sweep;
+
+import towersim.aircraft.Aircraft;
+import towersim.control.AircraftRegistry;
+import towersim.control.ControlTower;
+import towersim.control.TowerListener;
+import towersim.tasks.TaskType;
+import towersim.telemetry.LatencyHistogram;
+
+import java.util.Arrays;
+
+/**
+ * Measures one run of a sweep: the movements of the tower and the time its aircraft waited in
+ * the landing and takeoff queues.
+ * <p>
+ * Each worker of a sweep keeps one probe and attaches it to every tower it runs in turn, so the
+ * histograms and the arrays of start ticks are allocated once per worker rather than once per
+ * run. Queue waits are measured in the same way as by {@link towersim.telemetry.LatencyStats}.
+ */
+class RunProbe implements TowerListener {
+    /** Marks an aircraft that is not in a queue */
+    private static final long NOT_QUEUED = -1;
+
+    /** Tower being measured, or null if the probe is not attached */
+    private ControlTower tower;
+
+    /** Tick each aircraft joined the landing queue in, indexed by aircraft id */
+    private long[] landingStarts = new long[0];
+
+    /** Tick each aircraft joined the takeoff queue in, indexed by aircraft id */
+    private long[] takeoffStarts = new long[0];
+
+    /** Ticks aircraft waited in the landing queue */
+    private final LatencyHistogram landingWait = new LatencyHistogram();
+
+    /** Ticks aircraft waited in the takeoff queue */
+    private final LatencyHistogram takeoffWait = new LatencyHistogram();
+
+    /** Number of aircraft that landed */
+    private long landings;
+
+    /** Number of aircraft that took off */
+    private long takeoffs;
+
+    /**
+     * Clears the measurements of the last run and starts measuring the given tower.
+     *
+     * @param tower control tower to measure
+     */
+    void attach(ControlTower tower) {
+        Arrays.fill(landingStarts, NOT_QUEUED);
+        Arrays.fill(takeoffStarts, NOT_QUEUED);
+        landingWait.reset();
+        takeoffWait.reset();
+        landings = 0;
+        takeoffs = 0;
+        this.tower = tower;
+        tower.addListener(this);
+    }
+
+    /**
+     * Stops measuring the tower. The measurements can still be read until the probe is attached
+     * again.
+     */
+    void detach() {
+        tower.removeListener(this);
+        tower = null;
+    }
+
+    /**
+     * Returns the ticks aircraft waited in the landing queue. The histogram is reused by the next
+     * run, so it must be copied or merged before the probe is attached again.
+     *
+     * @return histogram of landing queue waits
+     */
+    LatencyHistogram getLandingWait() {
+        return landingWait;
+    }
+
+    /**
+     * Returns the ticks aircraft waited in the takeoff queue. The histogram is reused by the next
+     * run, so it must be copied or merged before the probe is attached again.
+     *
+     * @return histogram of takeoff queue waits
+     */
+    LatencyHistogram getTakeoffWait() {
+        return takeoffWait;
+    }
+
+    /**
+     * Returns the number of aircraft that landed.
+     *
+     * @return number of landings
+     */
+    long getLandings() {
+        return landings;
+    }
+
+    /**
+     * Returns the number of aircraft that took off.
+     *
+     * @return number of takeoffs
+     */
+    long getTakeoffs() {
+        return takeoffs;
+    }
+
+    @Override
+    public void aircraftQueued(long tick, Aircraft aircraft, TaskType taskType) {
+        int id = tower.getAircraftRegistry().getId(aircraft);
+        if (id == AircraftRegistry.NO_ID) {
+            return;
+        }
+        if (taskType == TaskType.LAND) {
+            landingStarts = ensureCapacity(landingStarts, id);
+            landingStarts[id] = tick;
+        } else {
+            takeoffStarts = ensureCapacity(takeoffStarts, id);
+            takeoffStarts[id] = tick;
+        }
+    }
+
+    @Override
+    public void aircraftLanded(long tick, Aircraft aircraft) {
+        landings++;
+        finish(landingStarts, landingWait, aircraft, tick);
+    }
+
+    @Override
+    public void aircraftTookOff(long tick, Aircraft aircraft) {
+        takeoffs++;
+        finish(takeoffStarts, takeoffWait, aircraft, tick);
+    }
+
+    /* Counts the wait of an aircraft leaving a queue, if it was seen joining it */
+    private void finish(long[] starts, LatencyHistogram waits, Aircraft aircraft, long tick) {
+        int id = tower.getAircraftRegistry().getId(aircraft);
+        if (id == AircraftRegistry.NO_ID || id >= starts.length || starts[id] == NOT_QUEUED) {
+            return;
+        }
+        waits.record(tick - starts[id]);
+        starts[id] = NOT_QUEUED;
+    }
+
+    /* Returns the given array, or a larger copy of it, able to hold the given id */
+    private static long[] ensureCapacity(long[] starts, int id) {
+        if (id < starts.length) {
+            return starts;
+        }
+        int length = Math.max(id + 1, starts.length * 2);
+        long[] grown = Arrays.copyOf(starts, length);
+        Arrays.fill(grown, starts.length, length, NOT_QUEUED);
+        return grown;
+    }
+}
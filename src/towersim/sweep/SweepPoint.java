@@ -0,0 +1,246 @@
+package towersim.sweep;
+
+import towersim.aircraft.AircraftCharacteristics;
+import towersim.aircraft.AircraftType;
+import towersim.control.ArrivalManager;
+import towersim.ground.Terminal;
+import towersim.verify.Scenario;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * One combination of the parameters of a sweep, from which any number of random scenarios can be
+ * generated.
+ * <p>
+ * A point fixes the size of the airport, the size and mix of the fleet using it, how often
+ * aircraft are in a state of emergency and how deep the landing queue may grow before arriving
+ * aircraft are held. The rest of each scenario, such as each aircraft's characteristics, fuel,
+ * cargo and cycle of tasks, is drawn at random from the seed it is generated from.
+ */
+public class SweepPoint {
+    /** Characteristics of each type of aircraft, indexed by type */
+    private static final AircraftCharacteristics[][] CHARACTERISTICS_BY_TYPE = byType();
+
+    /** Number of terminals */
+    private final int numTerminals;
+
+    /** Number of gates in each terminal */
+    private final int gatesPerTerminal;
+
+    /** Number of aircraft in the fleet */
+    private final int numAircraft;
+
+    /** Fraction of the fleet, and of the terminals, for helicopters */
+    private final double helicopterShare;
+
+    /** Chance of each aircraft starting in a state of emergency */
+    private final double emergencyRate;
+
+    /** Largest number of aircraft in the landing queue, or ArrivalManager.UNLIMITED */
+    private final int maxQueueDepth;
+
+    /**
+     * Creates a new point of a sweep.
+     *
+     * @param numTerminals     number of terminals
+     * @param gatesPerTerminal number of gates in each terminal
+     * @param numAircraft      number of aircraft in the fleet
+     * @param helicopterShare  fraction of the fleet that are helicopters, which is also the
+     *                         fraction of terminals, rounded to the nearest terminal, that are
+     *                         helicopter terminals
+     * @param emergencyRate    chance of each aircraft starting in a state of emergency
+     * @param maxQueueDepth    largest number of aircraft in the landing queue before arriving
+     *                         aircraft are held, or {@link ArrivalManager#UNLIMITED}
+     * @throws IllegalArgumentException if numTerminals, numAircraft or maxQueueDepth is less than
+     *                                  one, gatesPerTerminal is less than one or greater than
+     *                                  {@link Terminal#MAX_NUM_GATES}, or either rate is not
+     *                                  between zero and one
+     */
+    public SweepPoint(int numTerminals, int gatesPerTerminal, int numAircraft,
+            double helicopterShare, double emergencyRate, int maxQueueDepth) {
+        if (numTerminals < 1 || numAircraft < 1 || maxQueueDepth < 1) {
+            throw new IllegalArgumentException(
+                    "Terminals, aircraft and queue depth must be at least one");
+        }
+        if (gatesPerTerminal < 1 || gatesPerTerminal > Terminal.MAX_NUM_GATES) {
+            throw new IllegalArgumentException("Gates per terminal must be between 1 and "
+                    + Terminal.MAX_NUM_GATES);
+        }
+        if (!(helicopterShare >= 0 && helicopterShare <= 1)
+                || !(emergencyRate >= 0 && emergencyRate <= 1)) {
+            throw new IllegalArgumentException("Rates must be between zero and one");
+        }
+        this.numTerminals = numTerminals;
+        this.gatesPerTerminal = gatesPerTerminal;
+        this.numAircraft = numAircraft;
+        this.helicopterShare = helicopterShare;
+        this.emergencyRate = emergencyRate;
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    /**
+     * Returns the number of terminals.
+     *
+     * @return number of terminals
+     */
+    public int getNumTerminals() {
+        return numTerminals;
+    }
+
+    /**
+     * Returns the number of gates in each terminal.
+     *
+     * @return number of gates in each terminal
+     */
+    public int getGatesPerTerminal() {
+        return gatesPerTerminal;
+    }
+
+    /**
+     * Returns the number of aircraft in the fleet.
+     *
+     * @return number of aircraft
+     */
+    public int getNumAircraft() {
+        return numAircraft;
+    }
+
+    /**
+     * Returns the fraction of the fleet, and of the terminals, for helicopters.
+     *
+     * @return share of helicopters, between zero and one
+     */
+    public double getHelicopterShare() {
+        return helicopterShare;
+    }
+
+    /**
+     * Returns the chance of each aircraft starting in a state of emergency.
+     *
+     * @return emergency rate, between zero and one
+     */
+    public double getEmergencyRate() {
+        return emergencyRate;
+    }
+
+    /**
+     * Returns the largest number of aircraft in the landing queue before arriving aircraft are
+     * held.
+     *
+     * @return maximum queue depth, or {@link ArrivalManager#UNLIMITED}
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Creates a new arrival manager applying this point's limit on the depth of the landing
+     * queue, which also keeps the holding statistics of a run.
+     *
+     * @return new arrival manager
+     */
+    public ArrivalManager newArrivalManager() {
+        return new ArrivalManager(maxQueueDepth, ArrivalManager.UNLIMITED);
+    }
+
+    /**
+     * Generates a random scenario of this point from the given seed. The same point and seed
+     * always give the same scenario.
+     * <p>
+     * The terminals are numbered from one, helicopter terminals first, and all their gates start
+     * empty. Each aircraft is a helicopter with a chance of the helicopter share, and otherwise
+     * an airplane, of random characteristics, fuel and cargo. As in
+     * {@link Scenario#generate(long)}, each starts away with a cycle of tasks that lands,
+     * optionally waits, loads and takes off again, and the queues start empty.
+     *
+     * @param seed seed of the random scenario
+     * @return scenario generated from the seed
+     */
+    public Scenario toScenario(long seed) {
+        Random random = new Random(seed);
+        String newline = System.lineSeparator();
+
+        StringBuilder terminals = new StringBuilder();
+        terminals.append(numTerminals);
+        int numHelicopterTerminals = (int) Math.round(numTerminals * helicopterShare);
+        int gateNumber = 1;
+        for (int terminalNumber = 1; terminalNumber <= numTerminals; terminalNumber++) {
+            terminals.append(newline)
+                    .append(terminalNumber <= numHelicopterTerminals
+                            ? "HelicopterTerminal" : "AirplaneTerminal")
+                    .append(':').append(terminalNumber)
+                    .append(":false:").append(gatesPerTerminal);
+            for (int i = 0; i < gatesPerTerminal; i++) {
+                terminals.append(newline).append(gateNumber++).append(":empty");
+            }
+        }
+
+        List<String> aircraft = new ArrayList<>(numAircraft);
+        for (int i = 0; i < numAircraft; i++) {
+            AircraftCharacteristics[] ofType = CHARACTERISTICS_BY_TYPE[
+                    random.nextDouble() < helicopterShare
+                            ? AircraftType.HELICOPTER.ordinal() : AircraftType.AIRPLANE.ordinal()];
+            AircraftCharacteristics type = ofType[random.nextInt(ofType.length)];
+            StringBuilder tasks = new StringBuilder();
+            int numAway = 1 + random.nextInt(4);
+            for (int j = 0; j < numAway; j++) {
+                tasks.append("AWAY,");
+            }
+            tasks.append("LAND,");
+            int numWaits = random.nextInt(4);
+            for (int j = 0; j < numWaits; j++) {
+                tasks.append("WAIT,");
+            }
+            tasks.append("LOAD@").append(random.nextInt(101)).append(",TAKEOFF");
+
+            // round down so that the fuel written never exceeds the capacity
+            double fuel = Math.floor(random.nextDouble() * type.fuelCapacity * 100) / 100;
+            int capacity = type.passengerCapacity > 0
+                    ? type.passengerCapacity : type.freightCapacity;
+            aircraft.add(String.format(Locale.ROOT, "SWP%05d:%s:%s:%.2f:%b:%d", i, type.name(),
+                    tasks, fuel, random.nextDouble() < emergencyRate,
+                    random.nextInt(capacity + 1)));
+        }
+
+        return new Scenario(seed, "0", numAircraft + newline + String.join(newline, aircraft),
+                String.join(newline, "TakeoffQueue:0", "LandingQueue:0", "LoadingAircraft:0"),
+                terminals.toString());
+    }
+
+    /**
+     * Returns the parameters of this point, for identifying it in reports.
+     *
+     * @return parameters of the point
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "terminals=%d gates=%d aircraft=%d helicopters=%.2f emergencies=%.2f depth=%s",
+                numTerminals, gatesPerTerminal, numAircraft, helicopterShare, emergencyRate,
+                formatDepth(maxQueueDepth));
+    }
+
+    /* Returns a queue depth as a number, or "unlimited" */
+    static String formatDepth(int depth) {
+        return depth == ArrivalManager.UNLIMITED ? "unlimited" : Integer.toString(depth);
+    }
+
+    /* Groups the characteristics of every aircraft by the type of aircraft */
+    private static AircraftCharacteristics[][] byType() {
+        AircraftCharacteristics[][] byType = new AircraftCharacteristics[
+                AircraftType.values().length][];
+        for (AircraftType type : AircraftType.values()) {
+            List<AircraftCharacteristics> ofType = new ArrayList<>();
+            for (AircraftCharacteristics characteristics : AircraftCharacteristics.values()) {
+                if (characteristics.type == type) {
+                    ofType.add(characteristics);
+                }
+            }
+            byType[type.ordinal()] = ofType.toArray(new AircraftCharacteristics[0]);
+        }
+        return byType;
+    }
+}
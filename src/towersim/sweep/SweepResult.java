@@ -0,0 +1,229 @@
+package towersim.sweep;
+
+import towersim.control.ArrivalManager;
+import towersim.telemetry.LatencyHistogram;
+
+import java.util.Locale;
+
+/**
+ * Results of every run of one point of a sweep, aggregated as each run finishes.
+ * <p>
+ * Runs are added by the workers of the sweep as they finish them, so a result can be read while
+ * the sweep is still running, and is complete once {@link #isComplete()} returns true. Queue
+ * waits are merged into one histogram over every run, so a result takes the same amount of
+ * memory however many runs it aggregates.
+ */
+public class SweepResult {
+    /** Percentiles of the queue waits given in the summary table */
+    private static final double[] PERCENTILES = {50, 99};
+
+    /** Format of each row of the summary table */
+    private static final String ROW_FORMAT =
+            "%9s %5s %8s %6s %6s %9s %6s %9s %9s %7s %7s %7s %7s %8s %8s %7s%n";
+
+    /** Point of the sweep the runs were of */
+    private final SweepPoint point;
+
+    /** Number of runs the point will have once the sweep has finished */
+    private final int expectedRuns;
+
+    /** Number of ticks in each run */
+    private final long ticksPerRun;
+
+    /** Number of runs added so far */
+    private int runs;
+
+    /** Total number of landings over every run */
+    private long landings;
+
+    /** Total number of takeoffs over every run */
+    private long takeoffs;
+
+    /** Ticks aircraft waited in the landing queue over every run */
+    private final LatencyHistogram landingWait = new LatencyHistogram();
+
+    /** Ticks aircraft waited in the takeoff queue over every run */
+    private final LatencyHistogram takeoffWait = new LatencyHistogram();
+
+    /** Total number of aircraft held before joining the landing queue over every run */
+    private long aircraftHeld;
+
+    /** Total number of ticks aircraft were held over every run */
+    private long holdingTicks;
+
+    /** Longest time any aircraft was held in any run */
+    private long longestHold;
+
+    /**
+     * Creates a new, empty result for a point of a sweep.
+     *
+     * @param point        point of the sweep
+     * @param expectedRuns number of runs the point will have
+     * @param ticksPerRun  number of ticks in each run
+     */
+    SweepResult(SweepPoint point, int expectedRuns, long ticksPerRun) {
+        this.point = point;
+        this.expectedRuns = expectedRuns;
+        this.ticksPerRun = ticksPerRun;
+    }
+
+    /**
+     * Adds the measurements of a finished run.
+     *
+     * @param run             probe that measured the run
+     * @param arrivalManager  arrival manager of the run's tower, holding its holding statistics
+     * @return true if this was the last run of the point
+     */
+    synchronized boolean add(RunProbe run, ArrivalManager arrivalManager) {
+        runs++;
+        landings += run.getLandings();
+        takeoffs += run.getTakeoffs();
+        landingWait.add(run.getLandingWait());
+        takeoffWait.add(run.getTakeoffWait());
+        aircraftHeld += arrivalManager.getAircraftHeld();
+        holdingTicks += arrivalManager.getTotalHoldingTicks();
+        longestHold = Math.max(longestHold, arrivalManager.getLongestHold());
+        return runs == expectedRuns;
+    }
+
+    /**
+     * Returns the point of the sweep the runs were of.
+     *
+     * @return point of the sweep
+     */
+    public SweepPoint getPoint() {
+        return point;
+    }
+
+    /**
+     * Returns the number of runs added so far.
+     *
+     * @return number of runs
+     */
+    public synchronized int getRuns() {
+        return runs;
+    }
+
+    /**
+     * Returns whether every run of the point has been added.
+     *
+     * @return true if the result is complete
+     */
+    public synchronized boolean isComplete() {
+        return runs == expectedRuns;
+    }
+
+    /**
+     * Returns the mean number of aircraft that took off per thousand ticks, over every run.
+     *
+     * @return takeoff throughput; or zero if there have been no runs
+     */
+    public synchronized double getTakeoffsPerThousandTicks() {
+        return perThousandTicks(takeoffs);
+    }
+
+    /**
+     * Returns the mean number of aircraft that landed per thousand ticks, over every run.
+     *
+     * @return landing throughput; or zero if there have been no runs
+     */
+    public synchronized double getLandingsPerThousandTicks() {
+        return perThousandTicks(landings);
+    }
+
+    /**
+     * Returns a snapshot of the ticks aircraft waited in the landing queue, over every run.
+     *
+     * @return copy of the histogram of landing queue waits
+     */
+    public synchronized LatencyHistogram getLandingQueueWait() {
+        return landingWait.copy();
+    }
+
+    /**
+     * Returns a snapshot of the ticks aircraft waited in the takeoff queue, over every run.
+     *
+     * @return copy of the histogram of takeoff queue waits
+     */
+    public synchronized LatencyHistogram getTakeoffQueueWait() {
+        return takeoffWait.copy();
+    }
+
+    /**
+     * Returns the mean number of aircraft held before joining the landing queue in each run.
+     *
+     * @return aircraft held per run; or zero if there have been no runs
+     */
+    public synchronized double getAircraftHeldPerRun() {
+        return runs == 0 ? 0 : (double) aircraftHeld / runs;
+    }
+
+    /**
+     * Returns the mean number of ticks each held aircraft was held for.
+     *
+     * @return mean hold; or zero if no aircraft have been held
+     */
+    public synchronized double getMeanHold() {
+        return aircraftHeld == 0 ? 0 : (double) holdingTicks / aircraftHeld;
+    }
+
+    /**
+     * Returns the longest time any aircraft was held for, in any run.
+     *
+     * @return longest hold in ticks
+     */
+    public synchronized long getLongestHold() {
+        return longestHold;
+    }
+
+    /**
+     * Returns the header of the summary table whose rows are given by {@link #formatRow()}.
+     *
+     * @return header line of the table
+     */
+    public static String formatHeader() {
+        return String.format(ROW_FORMAT, "Terminals", "Gates", "Aircraft", "Heli", "Emerg",
+                "Depth", "Runs", "Takeoff/k", "Landing/k", "LandP50", "LandP99", "TkofP50",
+                "TkofP99", "Held/run", "MeanHold", "MaxHold");
+    }
+
+    /**
+     * Returns a row of the summary table for this point, in fixed-width columns: the parameters
+     * of the point, the number of runs, the takeoff and landing throughput per thousand ticks,
+     * the 50th and 99th percentiles of the landing and takeoff queue waits, the number of
+     * aircraft held per run, the mean hold and the longest hold, in ticks.
+     *
+     * @return line of the table
+     */
+    public synchronized String formatRow() {
+        return String.format(ROW_FORMAT, point.getNumTerminals(), point.getGatesPerTerminal(),
+                point.getNumAircraft(), format(point.getHelicopterShare()),
+                format(point.getEmergencyRate()), SweepPoint.formatDepth(point.getMaxQueueDepth()),
+                runs, format(getTakeoffsPerThousandTicks()), format(getLandingsPerThousandTicks()),
+                landingWait.getValueAtPercentile(PERCENTILES[0]),
+                landingWait.getValueAtPercentile(PERCENTILES[1]),
+                takeoffWait.getValueAtPercentile(PERCENTILES[0]),
+                takeoffWait.getValueAtPercentile(PERCENTILES[1]),
+                format(getAircraftHeldPerRun()), format(getMeanHold()), longestHold);
+    }
+
+    /**
+     * Returns the parameters of the point and the number of runs added so far.
+     *
+     * @return description of the result
+     */
+    @Override
+    public synchronized String toString() {
+        return point + " runs=" + runs;
+    }
+
+    /* Returns the mean of a total over every run, per thousand ticks */
+    private double perThousandTicks(long total) {
+        return runs == 0 ? 0 : total * 1000.0 / ((double) runs * ticksPerRun);
+    }
+
+    /* Formats a fractional number for the table */
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -17,6 +17,9 @@ public class TaskList implements Encodable {
     /** Index of current task in tasks list. */
     private int currentTaskIndex;
 
+    /** Number of times the current task has changed. */
+    private long version;
+
     /**
      * Creates a new TaskList with the given list of tasks.
      * <p>
@@ -36,6 +39,16 @@ public class TaskList implements Encodable {
         checkValidation();
     }
 
+    /*
+     * Creates a task list on the same tasks as the given one, at the same position. The tasks
+     * were validated when the original was created and are never changed, so they are shared.
+     */
+    private TaskList(TaskList original) {
+        this.tasks = original.tasks;
+        this.currentTaskIndex = original.currentTaskIndex;
+        this.version = original.version;
+    }
+
     /**
      * Check if the task list is valid or not. Throw an IllegalArgumentException if not.
      *
@@ -96,6 +109,20 @@ public class TaskList implements Encodable {
         return this.tasks.get(nextTaskIndex);
     }
 
+    /**
+     * Returns the task in the list that comes the given number of tasks after the current task,
+     * treating the list as circular.
+     * <p>
+     * {@code getTaskAfter(0)} returns the current task, and {@code getTaskAfter(1)} the same task
+     * as {@link #getNextTask()}.
+     *
+     * @param offset number of tasks after the current task, at least 0
+     * @return task at the given offset from the current task
+     */
+    public Task getTaskAfter(int offset) {
+        return this.tasks.get((this.currentTaskIndex + offset) % this.tasks.size());
+    }
+
     /**
      * Moves the reference to the current task forward by one in the circular task list.
      * <p>
@@ -108,6 +135,63 @@ public class TaskList implements Encodable {
      */
     public void moveToNextTask() {
         this.currentTaskIndex = (this.currentTaskIndex + 1) % this.tasks.size();
+        this.version++;
+    }
+
+    /**
+     * Returns the number of tasks in the list.
+     *
+     * @return number of tasks
+     */
+    public int size() {
+        return this.tasks.size();
+    }
+
+    /**
+     * Returns the position of the current task in the list, starting from zero.
+     *
+     * @return index of current task
+     */
+    public int getCurrentTaskIndex() {
+        return this.currentTaskIndex;
+    }
+
+    /**
+     * Sets the current task to the task at the given position in the list, starting from zero.
+     * <p>
+     * This is used to restore a task list to a previously recorded state.
+     *
+     * @param currentTaskIndex index of new current task
+     * @throws IllegalArgumentException if the index is not a position in the list
+     */
+    public void setCurrentTaskIndex(int currentTaskIndex) {
+        if (currentTaskIndex < 0 || currentTaskIndex >= this.tasks.size()) {
+            throw new IllegalArgumentException("Task index out of range: " + currentTaskIndex);
+        }
+        this.currentTaskIndex = currentTaskIndex;
+        this.version++;
+    }
+
+    /**
+     * Returns the version of this task list, which increases every time the current task
+     * changes.
+     *
+     * @return version of this task list
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns a copy of this task list, on the same current task and at the same version.
+     * <p>
+     * Moving either list on to another task does not affect the other. The sequence of tasks
+     * itself cannot change, so the copy shares it with this list rather than duplicating it.
+     *
+     * @return copy of this task list
+     */
+    public TaskList copy() {
+        return new TaskList(this);
     }
 
     /**
@@ -145,8 +229,7 @@ public class TaskList implements Encodable {
         // a string joiner of the task list encode
         StringJoiner taskListEncode = new StringJoiner(",");
         for (int i = 0; i < tasks.size(); i++) {
-            taskListEncode.add(getCurrentTask().encode());
-            moveToNextTask();
+            taskListEncode.add(getTaskAfter(i).encode());
         }
         return taskListEncode.toString();
     }
@@ -0,0 +1,61 @@
+package towersim.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for drawing the airport onto the GUI's canvas.
+ * <p>
+ * Regions of the canvas are only drawn again if what they show has changed, so each event
+ * records how many regions were drawn, and whether the whole canvas was cleared first. The
+ * canvas is drawn every frame, so only draws taking at least the threshold, 1 millisecond by
+ * default, are recorded, and without stack traces.
+ */
+@Name("towersim.CanvasDraw")
+@Label("Canvas Draw")
+@Category({"Tower Simulation", "Display"})
+@Description("Drawing the airport onto the canvas")
+@StackTrace(false)
+@Threshold("1 ms")
+public class CanvasDrawEvent extends Event {
+    /** Number of ticks elapsed in the tower drawn */
+    @Label("Tick")
+    long tick;
+
+    /** Whether the whole canvas was cleared and drawn again */
+    @Label("Full Redraw")
+    boolean fullRedraw;
+
+    /** Number of regions of the canvas drawn again, not counting the runway */
+    @Label("Regions Drawn")
+    int regionsDrawn;
+
+    /**
+     * Creates an event for a draw and starts timing it.
+     */
+    public CanvasDrawEvent() {
+        begin();
+    }
+
+    /**
+     * Stops timing the draw and records it if it should be recorded.
+     *
+     * @param tick         number of ticks elapsed in the tower drawn
+     * @param fullRedraw   whether the whole canvas was cleared and drawn again
+     * @param regionsDrawn number of regions drawn again
+     */
+    public void finish(long tick, boolean fullRedraw, int regionsDrawn) {
+        if (!shouldCommit()) {
+            return;
+        }
+        this.tick = tick;
+        this.fullRedraw = fullRedraw;
+        this.regionsDrawn = regionsDrawn;
+        commit();
+    }
+}
@@ -0,0 +1,100 @@
+package towersim.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import towersim.aircraft.Aircraft;
+import towersim.ground.Gate;
+import towersim.ground.Terminal;
+
+/**
+ * Flight Recorder event for a search for an unoccupied gate for an aircraft.
+ * <p>
+ * Each search records the number of terminals probed, that is, the compatible terminals not in a
+ * state of emergency that were asked for a gate, and the terminal and gate found, if any.
+ * Searches are made for every landing, so only those taking at least the threshold, 10
+ * microseconds by default, are recorded, and without stack traces. Searches made while gate
+ * searches are not being recorded share a single event, see {@link #start()}.
+ */
+@Name("towersim.GateSearch")
+@Label("Gate Search")
+@Category({"Tower Simulation", "Control Tower"})
+@Description("Search for an unoccupied gate for an aircraft")
+@StackTrace(false)
+@Threshold("10 us")
+public class GateSearchEvent extends Event {
+    /** Type of this event, for checking whether it is being recorded */
+    private static final EventType TYPE = EventType.getEventType(GateSearchEvent.class);
+
+    /** Event shared by all searches made while gate searches are not being recorded */
+    private static final GateSearchEvent DISABLED = new GateSearchEvent();
+
+    /** Callsign of the aircraft needing a gate */
+    @Label("Callsign")
+    String callsign;
+
+    /** Type of the aircraft needing a gate */
+    @Label("Aircraft Type")
+    String aircraftType;
+
+    /** Number of terminals asked for a gate */
+    @Label("Terminals Probed")
+    int terminalsProbed;
+
+    /** Whether a gate was found */
+    @Label("Found")
+    boolean found;
+
+    /** Number of the terminal of the gate found, or -1 if none was */
+    @Label("Terminal Number")
+    int terminalNumber = -1;
+
+    /** Number of the gate found, or -1 if none was */
+    @Label("Gate Number")
+    int gateNumber = -1;
+
+    /**
+     * Creates an event for a gate search and starts timing it.
+     */
+    public GateSearchEvent() {
+        begin();
+    }
+
+    /**
+     * Returns an event timing a gate search. If gate searches are not being recorded, a shared
+     * event that records nothing is returned instead.
+     *
+     * @return event timing the search
+     */
+    public static GateSearchEvent start() {
+        return TYPE.isEnabled() ? new GateSearchEvent() : DISABLED;
+    }
+
+    /**
+     * Stops timing the search and records its outcome if it should be recorded.
+     *
+     * @param aircraft        aircraft needing a gate
+     * @param terminalsProbed number of terminals asked for a gate
+     * @param terminal        terminal of the gate found, or null if none was
+     * @param gate            gate found, or null if none was
+     */
+    public void finish(Aircraft aircraft, int terminalsProbed, Terminal terminal, Gate gate) {
+        if (this == DISABLED || !shouldCommit()) {
+            return;
+        }
+        this.callsign = aircraft.getCallsign();
+        this.aircraftType = aircraft.getCharacteristics().type.name();
+        this.terminalsProbed = terminalsProbed;
+        if (gate != null) {
+            this.found = true;
+            this.terminalNumber = terminal.getTerminalNumber();
+            this.gateNumber = gate.getGateNumber();
+        }
+        commit();
+    }
+}
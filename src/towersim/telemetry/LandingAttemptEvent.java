@@ -0,0 +1,88 @@
+package towersim.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import towersim.aircraft.Aircraft;
+
+/**
+ * Flight Recorder event for an attempt to land an aircraft from the landing queue.
+ * <p>
+ * An attempt either lands an aircraft or finds none that can land, either because the queue is
+ * empty or because no aircraft in it has a free gate. Attempts happen at most every other tick,
+ * so every attempt is recorded by default, without a stack trace.
+ */
+@Name("towersim.LandingAttempt")
+@Label("Landing Attempt")
+@Category({"Tower Simulation", "Runway"})
+@Description("Attempt to land an aircraft from the landing queue")
+@StackTrace(false)
+@Threshold("0 ms")
+public class LandingAttemptEvent extends Event {
+    /** Type of this event, for checking whether it is being recorded */
+    private static final EventType TYPE = EventType.getEventType(LandingAttemptEvent.class);
+
+    /** Event shared by all attempts made while landing attempts are not being recorded */
+    private static final LandingAttemptEvent DISABLED = new LandingAttemptEvent(-1, 0);
+
+    /** Tick in which the attempt was made */
+    @Label("Tick")
+    long tick;
+
+    /** Number of aircraft in the landing queue when the attempt was made */
+    @Label("Landing Queue Length")
+    int queueLength;
+
+    /** Whether an aircraft landed */
+    @Label("Landed")
+    boolean landed;
+
+    /** Callsign of the aircraft that landed, or null if none did */
+    @Label("Callsign")
+    String callsign;
+
+    /**
+     * Creates an event for a landing attempt and starts timing it.
+     *
+     * @param tick        tick in which the attempt is made
+     * @param queueLength number of aircraft in the landing queue
+     */
+    public LandingAttemptEvent(long tick, int queueLength) {
+        this.tick = tick;
+        this.queueLength = queueLength;
+        begin();
+    }
+
+    /**
+     * Returns an event timing a landing attempt, or a shared event that records nothing if
+     * landing attempts are not being recorded.
+     *
+     * @param tick        tick in which the attempt is made
+     * @param queueLength number of aircraft in the landing queue
+     * @return event timing the attempt
+     */
+    public static LandingAttemptEvent start(long tick, int queueLength) {
+        return TYPE.isEnabled() ? new LandingAttemptEvent(tick, queueLength) : DISABLED;
+    }
+
+    /**
+     * Stops timing the attempt and records its outcome if it should be recorded.
+     *
+     * @param aircraft aircraft that landed, or null if none did
+     */
+    public void finish(Aircraft aircraft) {
+        if (this == DISABLED || !shouldCommit()) {
+            return;
+        }
+        if (aircraft != null) {
+            this.landed = true;
+            this.callsign = aircraft.getCallsign();
+        }
+        commit();
+    }
+}
@@ -0,0 +1,204 @@
+package towersim.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * Counts a stream of non-negative latencies, measured in ticks, in a fixed amount of memory.
+ * <p>
+ * Values are counted in log-linear buckets, in the same way as an HdrHistogram: every value below
+ * {@value #SUB_BUCKETS} has a bucket of its own, and each doubling of the range above that is
+ * split into {@value #SUB_BUCKETS}/2 equal buckets. A value is therefore reported to within one
+ * part in 32 of its size, whatever its magnitude, and values up to
+ * {@link Integer#MAX_VALUE} ticks take {@value #NUM_BUCKETS} counters. Larger values are counted
+ * as {@link Integer#MAX_VALUE}.
+ * <p>
+ * Histograms with the same layout can be merged by adding their counts, so a histogram can be
+ * kept per worker or per category and combined afterwards, and {@link #copy()} takes a snapshot
+ * that can be read and merged while the original keeps counting.
+ * <p>
+ * A histogram is not thread-safe.
+ */
+public class LatencyHistogram {
+    /** Number of buckets below the first doubling, each holding a single value */
+    static final int SUB_BUCKETS = 64;
+
+    /** Number of bits needed to index the sub-buckets */
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /** Number of doublings above the sub-buckets needed to reach {@link Integer#MAX_VALUE} */
+    private static final int DOUBLINGS = 31 - SUB_BUCKET_BITS;
+
+    /** Total number of buckets */
+    static final int NUM_BUCKETS = SUB_BUCKETS + DOUBLINGS * (SUB_BUCKETS / 2);
+
+    /** Number of values counted in each bucket */
+    private final long[] counts;
+
+    /** Number of values counted */
+    private long totalCount;
+
+    /** Sum of the values counted, for the mean */
+    private long sum;
+
+    /** Smallest value counted, or Long.MAX_VALUE if none have been */
+    private long min = Long.MAX_VALUE;
+
+    /** Largest value counted, or 0 if none have been */
+    private long max;
+
+    /**
+     * Creates a new, empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new long[NUM_BUCKETS];
+    }
+
+    /**
+     * Counts a latency.
+     *
+     * @param value latency in ticks
+     * @throws IllegalArgumentException if value &lt; 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Latency cannot be negative: " + value);
+        }
+        long clamped = Math.min(value, Integer.MAX_VALUE);
+        counts[bucketOf(clamped)]++;
+        totalCount++;
+        sum += clamped;
+        min = Math.min(min, clamped);
+        max = Math.max(max, clamped);
+    }
+
+    /**
+     * Returns the number of latencies counted.
+     *
+     * @return number of values counted
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the smallest latency counted.
+     *
+     * @return smallest value; or 0 if the histogram is empty
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the largest latency counted.
+     *
+     * @return largest value; or 0 if the histogram is empty
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of the latencies counted.
+     *
+     * @return mean value; or 0 if the histogram is empty
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Returns the latency at or below which the given percentage of the values counted lie.
+     * <p>
+     * The value returned is the largest value that would be counted in the same bucket as the
+     * true percentile, capped at the largest value counted, so it is never less than the true
+     * percentile and at most one part in 32 above it.
+     *
+     * @param percentile percentage of values, from 0 to 100 inclusive; for example, 99.9 for the
+     *                   99.9th percentile
+     * @return latency at the given percentile; or 0 if the histogram is empty
+     * @throws IllegalArgumentException if percentile is outside the range 0 to 100
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be from 0 to 100: "
+                    + percentile);
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        // rank of the value at the percentile, counting from 1, rounded as HdrHistogram does so
+        // that percentiles such as 99.9 are not pushed up a rank by rounding error
+        long rank = Math.max(1, (long) (percentile / 100 * totalCount + 0.5));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Adds the counts of another histogram to this one, as if every value counted by the other
+     * histogram had also been counted by this one.
+     *
+     * @param other histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        if (other.totalCount == 0) {
+            return;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns a copy of this histogram, which does not change as more values are counted.
+     *
+     * @return snapshot of this histogram
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * Removes every value counted, leaving the histogram empty.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /* Returns the index of the bucket counting the given value, at most Integer.MAX_VALUE */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // number of low bits dropped so that the value fits in the top half of the sub-buckets
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS / 2;
+        return SUB_BUCKETS + (shift - 1) * (SUB_BUCKETS / 2) + subBucket;
+    }
+
+    /* Returns the largest value counted in the bucket with the given index */
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / (SUB_BUCKETS / 2) + 1;
+        long subBucket = (bucket - SUB_BUCKETS) % (SUB_BUCKETS / 2) + SUB_BUCKETS / 2;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,348 @@
+package towersim.telemetry;
+
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftType;
+import towersim.aircraft.PassengerAircraft;
+import towersim.control.AircraftRegistry;
+import towersim.control.ControlTower;
+import towersim.control.TowerListener;
+import towersim.ground.Gate;
+import towersim.tasks.TaskType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Keeps latency histograms of the time aircraft spend in each stage of their visit to a control
+ * tower, broken down by aircraft type and cargo class.
+ * <p>
+ * The latencies measured, in ticks, are given by {@link Metric}. Each is measured from the event
+ * starting it to the event ending it, so an aircraft that was already part way through a stage
+ * when the statistics started being kept is not counted for that stage.
+ * <p>
+ * Every latency is counted in a {@link LatencyHistogram}, so the statistics take the same amount
+ * of memory however long the tower runs, apart from the tick each aircraft started its current
+ * stages. Histograms are returned as snapshots, which can be merged with snapshots from other
+ * towers, for example across the runs of a batch.
+ * <p>
+ * The statistics are updated by the thread ticking the tower, and should only be read by that
+ * thread.
+ */
+public class LatencyStats implements TowerListener {
+    /** Marks an aircraft that has not started a stage */
+    private static final long NOT_STARTED = -1;
+
+    /** Percentiles reported by {@link #writeCsv(Appendable)} and {@link #formatTable()} */
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    /**
+     * Stages of an aircraft's visit whose latency is measured.
+     */
+    public enum Metric {
+        /** Ticks from joining the landing queue to landing */
+        LANDING_QUEUE_WAIT("landing_queue_wait"),
+
+        /** Ticks from joining the takeoff queue to taking off */
+        TAKEOFF_QUEUE_WAIT("takeoff_queue_wait"),
+
+        /** Ticks from parking at a gate to leaving it */
+        GATE_DWELL("gate_dwell"),
+
+        /** Ticks from landing to taking off again */
+        TURNAROUND("turnaround");
+
+        /** Name of the metric in exported statistics */
+        private final String columnName;
+
+        Metric(String columnName) {
+            this.columnName = columnName;
+        }
+
+        /**
+         * Returns the name of the metric used in exported statistics.
+         *
+         * @return lower case name of the metric
+         */
+        public String getColumnName() {
+            return columnName;
+        }
+    }
+
+    /**
+     * Kinds of cargo an aircraft can carry.
+     */
+    public enum CargoClass {
+        /** Aircraft carrying passengers */
+        PASSENGER,
+
+        /** Aircraft carrying freight */
+        FREIGHT;
+
+        /**
+         * Returns the kind of cargo carried by the given aircraft.
+         *
+         * @param aircraft aircraft to classify
+         * @return PASSENGER for passenger aircraft; FREIGHT otherwise
+         */
+        public static CargoClass of(Aircraft aircraft) {
+            return aircraft instanceof PassengerAircraft ? PASSENGER : FREIGHT;
+        }
+    }
+
+    /** Control tower whose aircraft are measured */
+    private final ControlTower tower;
+
+    /** Histogram of each metric, aircraft type and cargo class */
+    private final LatencyHistogram[][][] histograms;
+
+    /** Tick each aircraft started each metric's stage in, indexed by metric and aircraft id */
+    private final long[][] starts;
+
+    /**
+     * Creates new, empty statistics and starts measuring the given control tower.
+     * <p>
+     * This must be called by the thread that ticks the tower.
+     *
+     * @param tower control tower to measure
+     */
+    public LatencyStats(ControlTower tower) {
+        this.tower = tower;
+        this.histograms = new LatencyHistogram[Metric.values().length]
+                [AircraftType.values().length][CargoClass.values().length];
+        for (LatencyHistogram[][] byType : histograms) {
+            for (LatencyHistogram[] byCargo : byType) {
+                for (int i = 0; i < byCargo.length; i++) {
+                    byCargo[i] = new LatencyHistogram();
+                }
+            }
+        }
+        this.starts = new long[Metric.values().length][0];
+        tower.addListener(this);
+    }
+
+    /**
+     * Stops measuring the tower. The statistics kept so far can still be read.
+     * <p>
+     * This must be called by the thread that ticks the tower.
+     */
+    public void stop() {
+        tower.removeListener(this);
+    }
+
+    /**
+     * Returns a snapshot of the latencies of one metric for aircraft of the given type and cargo
+     * class.
+     *
+     * @param metric     stage whose latencies to return
+     * @param type       type of aircraft
+     * @param cargoClass kind of cargo carried by the aircraft
+     * @return copy of the histogram of latencies
+     */
+    public LatencyHistogram getHistogram(Metric metric, AircraftType type,
+            CargoClass cargoClass) {
+        return histograms[metric.ordinal()][type.ordinal()][cargoClass.ordinal()].copy();
+    }
+
+    /**
+     * Returns a snapshot of the latencies of one metric for every aircraft.
+     *
+     * @param metric stage whose latencies to return
+     * @return histogram of latencies, merged over every aircraft type and cargo class
+     */
+    public LatencyHistogram getHistogram(Metric metric) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram[] byCargo : histograms[metric.ordinal()]) {
+            for (LatencyHistogram histogram : byCargo) {
+                merged.add(histogram);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Removes every latency counted so far. Stages already in progress are still measured.
+     */
+    public void reset() {
+        for (LatencyHistogram[][] byType : histograms) {
+            for (LatencyHistogram[] byCargo : byType) {
+                for (LatencyHistogram histogram : byCargo) {
+                    histogram.reset();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a summary of the statistics as CSV.
+     * <p>
+     * The first line is the header
+     * {@code metric,aircraft_type,cargo_class,count,min,p50,p99,p999,max,mean}, followed by one
+     * line for each metric, aircraft type and cargo class with at least one latency counted, and
+     * one line for each metric over every aircraft, whose type and class are given as
+     * {@code ALL}. Latencies are in ticks.
+     *
+     * @param out destination to write to
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("metric,aircraft_type,cargo_class,count,min,p50,p99,p999,max,mean")
+                .append(System.lineSeparator());
+        for (Metric metric : Metric.values()) {
+            for (AircraftType type : AircraftType.values()) {
+                for (CargoClass cargoClass : CargoClass.values()) {
+                    LatencyHistogram histogram =
+                            histograms[metric.ordinal()][type.ordinal()][cargoClass.ordinal()];
+                    if (histogram.getCount() > 0) {
+                        appendCsvRow(out, metric, type.name(), cargoClass.name(), histogram);
+                    }
+                }
+            }
+            appendCsvRow(out, metric, "ALL", "ALL", getHistogram(metric));
+        }
+    }
+
+    /**
+     * Returns a summary of the statistics as a table of fixed-width columns, with the same rows
+     * as {@link #writeCsv(Appendable)}, suitable for displaying in a monospaced font.
+     *
+     * @return text of the table
+     */
+    public String formatTable() {
+        StringBuilder table = new StringBuilder();
+        String format = "%-20s %-10s %-9s %8s %8s %8s %8s %8s%n";
+        table.append(String.format(format, "Metric", "Type", "Cargo", "Count", "p50", "p99",
+                "p99.9", "Max"));
+        for (Metric metric : Metric.values()) {
+            for (AircraftType type : AircraftType.values()) {
+                for (CargoClass cargoClass : CargoClass.values()) {
+                    LatencyHistogram histogram =
+                            histograms[metric.ordinal()][type.ordinal()][cargoClass.ordinal()];
+                    if (histogram.getCount() > 0) {
+                        appendTableRow(table, format, metric, type.name(), cargoClass.name(),
+                                histogram);
+                    }
+                }
+            }
+            appendTableRow(table, format, metric, "ALL", "ALL", getHistogram(metric));
+        }
+        return table.toString();
+    }
+
+    /**
+     * Starts measuring the wait of an aircraft joining a queue.
+     *
+     * @param tick     tick in which the aircraft joined the queue
+     * @param aircraft aircraft that joined a queue
+     * @param taskType LAND for the landing queue; TAKEOFF for the takeoff queue
+     */
+    @Override
+    public void aircraftQueued(long tick, Aircraft aircraft, TaskType taskType) {
+        start(taskType == TaskType.LAND ? Metric.LANDING_QUEUE_WAIT : Metric.TAKEOFF_QUEUE_WAIT,
+                aircraft, tick);
+    }
+
+    /**
+     * Counts the landing queue wait of an aircraft and starts measuring its turnaround.
+     *
+     * @param tick     tick in which the aircraft landed
+     * @param aircraft aircraft that landed
+     */
+    @Override
+    public void aircraftLanded(long tick, Aircraft aircraft) {
+        finish(Metric.LANDING_QUEUE_WAIT, aircraft, tick);
+        start(Metric.TURNAROUND, aircraft, tick);
+    }
+
+    /**
+     * Starts measuring the time an aircraft spends at its gate.
+     *
+     * @param tick     tick in which the aircraft was parked
+     * @param aircraft aircraft that was parked
+     * @param gate     gate the aircraft was parked at
+     */
+    @Override
+    public void aircraftParked(long tick, Aircraft aircraft, Gate gate) {
+        start(Metric.GATE_DWELL, aircraft, tick);
+    }
+
+    /**
+     * Counts the time an aircraft spent at its gate.
+     *
+     * @param tick     tick in which the aircraft left the gate
+     * @param aircraft aircraft that left the gate
+     * @param gate     gate the aircraft left
+     */
+    @Override
+    public void aircraftLeftGate(long tick, Aircraft aircraft, Gate gate) {
+        finish(Metric.GATE_DWELL, aircraft, tick);
+    }
+
+    /**
+     * Counts the takeoff queue wait and turnaround of an aircraft.
+     *
+     * @param tick     tick in which the aircraft took off
+     * @param aircraft aircraft that took off
+     */
+    @Override
+    public void aircraftTookOff(long tick, Aircraft aircraft) {
+        finish(Metric.TAKEOFF_QUEUE_WAIT, aircraft, tick);
+        finish(Metric.TURNAROUND, aircraft, tick);
+    }
+
+    /* Records the tick an aircraft started the stage of a metric */
+    private void start(Metric metric, Aircraft aircraft, long tick) {
+        int id = tower.getAircraftRegistry().getId(aircraft);
+        if (id == AircraftRegistry.NO_ID) {
+            return;
+        }
+        long[] started = starts[metric.ordinal()];
+        if (id >= started.length) {
+            int length = Math.max(id + 1, started.length * 2);
+            started = Arrays.copyOf(started, length);
+            Arrays.fill(started, starts[metric.ordinal()].length, length, NOT_STARTED);
+            starts[metric.ordinal()] = started;
+        }
+        started[id] = tick;
+    }
+
+    /* Counts the latency of an aircraft finishing the stage of a metric, if it was measured */
+    private void finish(Metric metric, Aircraft aircraft, long tick) {
+        int id = tower.getAircraftRegistry().getId(aircraft);
+        long[] started = starts[metric.ordinal()];
+        if (id == AircraftRegistry.NO_ID || id >= started.length
+                || started[id] == NOT_STARTED) {
+            return;
+        }
+        long latency = tick - started[id];
+        started[id] = NOT_STARTED;
+        // the tower may have been rewound since the stage started
+        if (latency >= 0) {
+            histograms[metric.ordinal()][aircraft.getCharacteristics().type.ordinal()]
+                    [CargoClass.of(aircraft).ordinal()].record(latency);
+        }
+    }
+
+    /* Appends one line of the CSV summary */
+    private static void appendCsvRow(Appendable out, Metric metric, String type,
+            String cargoClass, LatencyHistogram histogram) throws IOException {
+        out.append(metric.getColumnName()).append(',').append(type).append(',')
+                .append(cargoClass).append(',').append(Long.toString(histogram.getCount()))
+                .append(',').append(Long.toString(histogram.getMin()));
+        for (double percentile : PERCENTILES) {
+            out.append(',').append(Long.toString(histogram.getValueAtPercentile(percentile)));
+        }
+        out.append(',').append(Long.toString(histogram.getMax())).append(',')
+                .append(String.format(Locale.ROOT, "%.2f", histogram.getMean()))
+                .append(System.lineSeparator());
+    }
+
+    /* Appends one row of the fixed-width table */
+    private static void appendTableRow(StringBuilder table, String format, Metric metric,
+            String type, String cargoClass, LatencyHistogram histogram) {
+        table.append(String.format(format, metric.getColumnName(), type, cargoClass,
+                histogram.getCount(), histogram.getValueAtPercentile(PERCENTILES[0]),
+                histogram.getValueAtPercentile(PERCENTILES[1]),
+                histogram.getValueAtPercentile(PERCENTILES[2]), histogram.getMax()));
+    }
+}
@@ -0,0 +1,81 @@
+package towersim.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import towersim.aircraft.Aircraft;
+import towersim.ground.Gate;
+
+/**
+ * Flight Recorder event for an aircraft finishing loading and leaving its gate.
+ * <p>
+ * Every completion is recorded by default, without a stack trace.
+ */
+@Name("towersim.LoadingCompleted")
+@Label("Loading Completed")
+@Category({"Tower Simulation", "Ground"})
+@Description("Aircraft finishing loading and leaving its gate")
+@StackTrace(false)
+@Threshold("0 ms")
+public class LoadingCompletedEvent extends Event {
+    /** Type of this event, for checking whether it is being recorded */
+    private static final EventType TYPE = EventType.getEventType(LoadingCompletedEvent.class);
+
+    /** Event shared by all completions while completions are not being recorded */
+    private static final LoadingCompletedEvent DISABLED = new LoadingCompletedEvent(-1);
+
+    /** Tick in which the aircraft finished loading */
+    @Label("Tick")
+    long tick;
+
+    /** Callsign of the aircraft */
+    @Label("Callsign")
+    String callsign;
+
+    /** Number of the gate the aircraft left, or -1 if it was not at a gate */
+    @Label("Gate Number")
+    int gateNumber = -1;
+
+    /**
+     * Creates an event for an aircraft finishing loading and starts timing it.
+     *
+     * @param tick tick in which the aircraft finished loading
+     */
+    public LoadingCompletedEvent(long tick) {
+        this.tick = tick;
+        begin();
+    }
+
+    /**
+     * Returns an event timing an aircraft finishing loading, or a shared event that records
+     * nothing if completions are not being recorded.
+     *
+     * @param tick tick in which the aircraft finished loading
+     * @return event timing the completion
+     */
+    public static LoadingCompletedEvent start(long tick) {
+        return TYPE.isEnabled() ? new LoadingCompletedEvent(tick) : DISABLED;
+    }
+
+    /**
+     * Stops timing the event and records it if it should be recorded.
+     *
+     * @param aircraft aircraft that finished loading
+     * @param gate     gate the aircraft left, or null if it was not at a gate
+     */
+    public void finish(Aircraft aircraft, Gate gate) {
+        if (this == DISABLED || !shouldCommit()) {
+            return;
+        }
+        this.callsign = aircraft.getCallsign();
+        if (gate != null) {
+            this.gateNumber = gate.getGateNumber();
+        }
+        commit();
+    }
+}
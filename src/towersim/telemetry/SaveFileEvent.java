@@ -0,0 +1,92 @@
+package towersim.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for loading or saving one of the four save files of a control tower.
+ * <p>
+ * Each event records the file and the number of entities read or written: ticks for the tick
+ * file, aircraft for the aircraft file, queued and loading aircraft for the queues file, and
+ * terminals for the terminals file. An event whose operation failed is still recorded, with
+ * {@code succeeded} false. Saves and loads are rare and worth knowing the caller of, so every
+ * one is recorded by default, with a stack trace.
+ */
+@Name("towersim.SaveFile")
+@Label("Save File")
+@Category({"Tower Simulation", "Save Files"})
+@Description("Loading or saving a control tower save file")
+@StackTrace(true)
+@Threshold("0 ms")
+public class SaveFileEvent extends Event {
+    /** Operation reading a save file */
+    public static final String LOAD = "Load";
+
+    /** Operation writing a save file */
+    public static final String SAVE = "Save";
+
+    /** Save file holding the number of ticks elapsed */
+    public static final String TICK_FILE = "tick";
+
+    /** Save file holding the aircraft */
+    public static final String AIRCRAFT_FILE = "aircraft";
+
+    /** Save file holding the queues and loading aircraft */
+    public static final String QUEUES_FILE = "queues";
+
+    /** Save file holding the terminals and their gates */
+    public static final String TERMINALS_FILE = "terminalsWithGates";
+
+    /** Whether the file was loaded or saved */
+    @Label("Operation")
+    String operation;
+
+    /** Which of the save files was loaded or saved */
+    @Label("File")
+    String file;
+
+    /** Number of entities read or written, or -1 if the operation failed */
+    @Label("Entities")
+    int entities = -1;
+
+    /** Whether the operation succeeded */
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /**
+     * Creates an event for loading or saving a file and starts timing it.
+     *
+     * @param operation {@link #LOAD} or {@link #SAVE}
+     * @param file      one of the file constants, such as {@link #TICK_FILE}
+     */
+    public SaveFileEvent(String operation, String file) {
+        this.operation = operation;
+        this.file = file;
+        begin();
+    }
+
+    /**
+     * Marks the operation as having succeeded.
+     *
+     * @param entities number of entities read or written
+     */
+    public void succeeded(int entities) {
+        this.entities = entities;
+        this.succeeded = true;
+    }
+
+    /**
+     * Stops timing the operation and records it if it should be recorded. This should be called
+     * whether or not the operation succeeded.
+     */
+    public void finish() {
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
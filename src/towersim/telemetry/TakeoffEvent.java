@@ -0,0 +1,79 @@
+package towersim.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import towersim.aircraft.Aircraft;
+import towersim.control.AircraftQueue;
+
+/**
+ * Flight Recorder event for an aircraft taking off from the front of the takeoff queue.
+ * <p>
+ * Every takeoff is recorded by default, without a stack trace.
+ */
+@Name("towersim.Takeoff")
+@Label("Takeoff")
+@Category({"Tower Simulation", "Runway"})
+@Description("Aircraft taking off from the takeoff queue")
+@StackTrace(false)
+@Threshold("0 ms")
+public class TakeoffEvent extends Event {
+    /** Type of this event, for checking whether it is being recorded */
+    private static final EventType TYPE = EventType.getEventType(TakeoffEvent.class);
+
+    /** Event shared by all takeoffs while takeoffs are not being recorded */
+    private static final TakeoffEvent DISABLED = new TakeoffEvent(-1);
+
+    /** Tick in which the aircraft took off */
+    @Label("Tick")
+    long tick;
+
+    /** Callsign of the aircraft that took off */
+    @Label("Callsign")
+    String callsign;
+
+    /** Number of aircraft left in the takeoff queue */
+    @Label("Takeoff Queue Length")
+    int queueLength;
+
+    /**
+     * Creates an event for a takeoff and starts timing it.
+     *
+     * @param tick tick in which the takeoff happens
+     */
+    public TakeoffEvent(long tick) {
+        this.tick = tick;
+        begin();
+    }
+
+    /**
+     * Returns an event timing a takeoff. While takeoffs are not being recorded, the same event is
+     * returned every time, and records nothing.
+     *
+     * @param tick tick in which the takeoff happens
+     * @return event timing the takeoff
+     */
+    public static TakeoffEvent start(long tick) {
+        return TYPE.isEnabled() ? new TakeoffEvent(tick) : DISABLED;
+    }
+
+    /**
+     * Stops timing the takeoff and records it if it should be recorded.
+     *
+     * @param aircraft     aircraft that took off
+     * @param takeoffQueue queue the aircraft took off from
+     */
+    public void finish(Aircraft aircraft, AircraftQueue takeoffQueue) {
+        if (this == DISABLED || !shouldCommit()) {
+            return;
+        }
+        this.callsign = aircraft.getCallsign();
+        this.queueLength = takeoffQueue.size();
+        commit();
+    }
+}
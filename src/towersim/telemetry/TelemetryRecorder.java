@@ -0,0 +1,337 @@
+package towersim.telemetry;
+
+import towersim.aircraft.Aircraft;
+import towersim.control.ControlTower;
+import towersim.control.TowerListener;
+import towersim.ground.Terminal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records a time series of a control tower's activity, one record per tick, to a CSV file.
+ * <p>
+ * Each record gives the following columns, in order:
+ * <ol>
+ * <li>{@code tick}: number of ticks elapsed at the end of the tick</li>
+ * <li>{@code landing_queue}: number of aircraft waiting to land</li>
+ * <li>{@code takeoff_queue}: number of aircraft waiting to take off</li>
+ * <li>{@code loading}: number of aircraft loading at gates</li>
+ * <li>{@code critical_fuel}: number of aircraft with at most {@value #CRITICAL_FUEL_PERCENT}% of
+ * their fuel remaining, the level at which the landing queue gives them priority</li>
+ * <li>{@code aircraft_emergencies}: number of aircraft in a state of emergency</li>
+ * <li>{@code terminal_emergencies}: number of terminals in a state of emergency</li>
+ * <li>{@code landings}: number of aircraft that landed during the tick</li>
+ * <li>{@code takeoffs}: number of aircraft that took off during the tick</li>
+ * <li>{@code terminal_N_occupancy}: occupancy level of terminal number N, as returned by
+ * {@link Terminal#calculateOccupancyLevel()}; one column for each terminal the tower had when
+ * recording started</li>
+ * </ol>
+ * <p>
+ * The thread ticking the tower never waits for the disk. Each record is written into a ring
+ * buffer of fixed capacity, allocated up front, and a background thread drains the buffer in
+ * batches and appends them to the file. If the background thread falls so far behind that the
+ * buffer is full, new records are dropped rather than waiting for space, and counted by
+ * {@link #getNumDropped()}.
+ */
+public class TelemetryRecorder implements TowerListener, Closeable {
+    /** Default number of records held in the ring buffer */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /** Fuel percentage at or below which an aircraft is counted as having critical fuel */
+    public static final int CRITICAL_FUEL_PERCENT = 20;
+
+    /** Number of columns recorded before the terminal occupancy columns, excluding the tick */
+    private static final int FIXED_COLUMNS = 8;
+
+    /** Longest time the background thread waits before checking for new records */
+    private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /** Control tower recorded */
+    private final ControlTower tower;
+
+    /** Terminals whose occupancy is recorded, in column order */
+    private final Terminal[] terminals;
+
+    /** Number of values in each record, excluding the tick */
+    private final int stride;
+
+    /** Maximum number of records held in the ring buffer */
+    private final int capacity;
+
+    /** Tick of each record in the ring buffer */
+    private final long[] ticks;
+
+    /** Values of each record in the ring buffer, {@code stride} values per record */
+    private final int[] values;
+
+    /** Writer of the CSV file; only used by the background thread once recording starts */
+    private final Writer out;
+
+    /** Background thread writing records to the file */
+    private final Thread drainer;
+
+    /** Number of records added to the ring buffer; only written by the ticking thread */
+    private volatile long head;
+
+    /** Number of records written to the file; only written by the background thread */
+    private volatile long tail;
+
+    /** Number of records dropped because the ring buffer was full */
+    private volatile long dropped;
+
+    /** Whether the recorder has been closed */
+    private volatile boolean closed;
+
+    /** Error that stopped the background thread from writing, or null if there has been none */
+    private volatile IOException failure;
+
+    /* Movements counted during the current tick */
+    private int landings;
+    private int takeoffs;
+
+    /**
+     * Creates a new recorder writing to the given file, replacing anything already in it, and
+     * starts recording the given control tower.
+     * <p>
+     * This must be called by the thread that ticks the tower.
+     *
+     * @param tower    control tower to record
+     * @param file     CSV file to write the records to
+     * @param capacity number of records the ring buffer can hold
+     * @throws IOException              if the file could not be created
+     * @throws IllegalArgumentException if capacity &lt; 1
+     */
+    public TelemetryRecorder(ControlTower tower, Path file, int capacity) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Telemetry buffer must hold at least one record");
+        }
+        this.tower = tower;
+        this.terminals = tower.getTerminals().toArray(new Terminal[0]);
+        this.stride = FIXED_COLUMNS + terminals.length;
+        this.capacity = capacity;
+        this.ticks = new long[capacity];
+        this.values = new int[capacity * stride];
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+
+        StringBuilder header = new StringBuilder("tick,landing_queue,takeoff_queue,loading,"
+                + "critical_fuel,aircraft_emergencies,terminal_emergencies,landings,takeoffs");
+        for (Terminal terminal : terminals) {
+            header.append(",terminal_").append(terminal.getTerminalNumber()).append("_occupancy");
+        }
+        out.write(header.append(System.lineSeparator()).toString());
+
+        this.drainer = new Thread(this::drain, "telemetry-writer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+        tower.addListener(this);
+    }
+
+    /**
+     * Returns the number of records taken so far, including any that were dropped.
+     *
+     * @return number of records taken
+     */
+    public long getNumRecorded() {
+        return head + dropped;
+    }
+
+    /**
+     * Returns the number of records dropped because the ring buffer was full.
+     *
+     * @return number of records dropped
+     */
+    public long getNumDropped() {
+        return dropped;
+    }
+
+    /**
+     * Resets the movement counts at the start of a tick.
+     *
+     * @param tower recorded control tower
+     */
+    @Override
+    public void beforeTick(ControlTower tower) {
+        landings = 0;
+        takeoffs = 0;
+    }
+
+    /**
+     * Counts an aircraft landing.
+     *
+     * @param tick tick in which the aircraft landed
+     * @param aircraft aircraft that landed
+     */
+    @Override
+    public void aircraftLanded(long tick, Aircraft aircraft) {
+        landings++;
+    }
+
+    /**
+     * Counts an aircraft taking off.
+     *
+     * @param tick tick in which the aircraft took off
+     * @param aircraft aircraft that took off
+     */
+    @Override
+    public void aircraftTookOff(long tick, Aircraft aircraft) {
+        takeoffs++;
+    }
+
+    /**
+     * Takes a record of the tower at the end of a tick and adds it to the ring buffer, or drops
+     * it if the buffer is full.
+     *
+     * @param tower recorded control tower
+     */
+    @Override
+    public void afterTick(ControlTower tower) {
+        long next = head;
+        if (next - tail >= capacity) {
+            dropped++;
+            LockSupport.unpark(drainer);
+            return;
+        }
+        int slot = (int) (next % capacity);
+        int offset = slot * stride;
+        int criticalFuel = 0;
+        int aircraftEmergencies = 0;
+        List<Aircraft> allAircraft = tower.getAircraft();
+        for (int i = 0; i < allAircraft.size(); i++) {
+            Aircraft aircraft = allAircraft.get(i);
+            if (aircraft.getFuelPercentRemaining() <= CRITICAL_FUEL_PERCENT) {
+                criticalFuel++;
+            }
+            if (aircraft.hasEmergency()) {
+                aircraftEmergencies++;
+            }
+        }
+        int terminalEmergencies = 0;
+        for (Terminal terminal : tower.getTerminals()) {
+            if (terminal.hasEmergency()) {
+                terminalEmergencies++;
+            }
+        }
+
+        ticks[slot] = tower.getTicksElapsed();
+        values[offset] = tower.getLandingQueue().size();
+        values[offset + 1] = tower.getTakeoffQueue().size();
+        values[offset + 2] = tower.getLoadingAircraft().size();
+        values[offset + 3] = criticalFuel;
+        values[offset + 4] = aircraftEmergencies;
+        values[offset + 5] = terminalEmergencies;
+        values[offset + 6] = landings;
+        values[offset + 7] = takeoffs;
+        for (int i = 0; i < terminals.length; i++) {
+            values[offset + FIXED_COLUMNS + i] = terminals[i].calculateOccupancyLevel();
+        }
+        // publishing the new head makes the record's values visible to the background thread
+        head = next + 1;
+        if (next + 1 - tail >= capacity / 2) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    /**
+     * Waits until every record taken so far has been written to the file.
+     * <p>
+     * This blocks, so it should not be called while the tower is being ticked at speed.
+     *
+     * @throws IOException if the records could not be written
+     */
+    public void flush() throws IOException {
+        long target = head;
+        while (tail < target && failure == null && drainer.isAlive()) {
+            LockSupport.unpark(drainer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for telemetry");
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stops recording, writes out every record taken so far and closes the file.
+     * <p>
+     * This must be called by the thread that ticks the tower.
+     *
+     * @throws IOException if the records could not be written or the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        tower.removeListener(this);
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted closing telemetry");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /* Writes records to the file in batches until the recorder is closed and drained */
+    private void drain() {
+        StringBuilder batch = new StringBuilder();
+        try {
+            while (true) {
+                boolean finishing = closed;
+                long available = head;
+                long written = tail;
+                if (written == available) {
+                    if (finishing) {
+                        break;
+                    }
+                    LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+                    continue;
+                }
+                batch.setLength(0);
+                for (long record = written; record < available; record++) {
+                    appendRecord(batch, (int) (record % capacity));
+                }
+                // the slots can be reused once the tail has moved past them
+                tail = available;
+                out.write(batch.toString());
+                out.flush();
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    /* Appends the record in the given slot of the ring buffer as a line of CSV */
+    private void appendRecord(StringBuilder batch, int slot) {
+        batch.append(ticks[slot]);
+        int offset = slot * stride;
+        for (int i = 0; i < stride; i++) {
+            batch.append(',').append(values[offset + i]);
+        }
+        batch.append(System.lineSeparator());
+    }
+}
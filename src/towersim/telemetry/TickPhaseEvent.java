@@ -0,0 +1,108 @@
+package towersim.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event timing one phase of a control tower tick.
+ * <p>
+ * A tick is timed as a sequence of phases: the tower starts an event with
+ * {@link #start(long, String)} as the first phase starts and calls {@link #next(String)} as it
+ * moves on to the next phase, so no time is left unaccounted for between phases. Only phases
+ * taking at least the threshold, 100 microseconds by default, are recorded, and without stack
+ * traces, as the phases of a tick always happen in the same place.
+ * <p>
+ * While tick phases are not being recorded, every tick shares a single event that is never
+ * recorded, so timing a tick allocates nothing.
+ */
+@Name("towersim.TickPhase")
+@Label("Tick Phase")
+@Category({"Tower Simulation", "Control Tower"})
+@Description("Time taken by one phase of a control tower tick")
+@StackTrace(false)
+@Threshold("100 us")
+public class TickPhaseEvent extends Event {
+    /** Phase in which every aircraft is ticked and aircraft that are away or waiting move on */
+    public static final String AIRCRAFT = "Aircraft";
+
+    /** Phase in which the arrival manager releases aircraft and the landing queue ages */
+    public static final String ARRIVALS = "Arrivals";
+
+    /** Phase in which loading aircraft are loaded and finished aircraft leave their gates */
+    public static final String LOADING = "Loading";
+
+    /** Phase in which an aircraft lands or takes off */
+    public static final String RUNWAY = "Runway";
+
+    /** Phase in which aircraft are placed in their queues and ground crew are allocated */
+    public static final String QUEUES = "Queues";
+
+    /** Type of this event, for checking whether it is being recorded */
+    private static final EventType TYPE = EventType.getEventType(TickPhaseEvent.class);
+
+    /** Event shared by all ticks while tick phases are not being recorded */
+    private static final TickPhaseEvent DISABLED = new TickPhaseEvent(-1, null);
+
+    /** Tick the phase is part of */
+    @Label("Tick")
+    long tick;
+
+    /** Name of the phase */
+    @Label("Phase")
+    String phase;
+
+    /**
+     * Creates an event for a tick phase and starts timing it.
+     *
+     * @param tick  tick the phase is part of
+     * @param phase name of the phase
+     */
+    public TickPhaseEvent(long tick, String phase) {
+        this.tick = tick;
+        this.phase = phase;
+        begin();
+    }
+
+    /**
+     * Returns an event timing the first phase of a tick, or an event that records nothing if tick
+     * phases are not being recorded.
+     *
+     * @param tick  tick the phase is part of
+     * @param phase name of the phase
+     * @return event timing the phase
+     */
+    public static TickPhaseEvent start(long tick, String phase) {
+        return TYPE.isEnabled() ? new TickPhaseEvent(tick, phase) : DISABLED;
+    }
+
+    /**
+     * Stops timing this phase, recording it if it should be, and starts timing the next phase of
+     * the same tick. If this event records nothing, neither does the next one, so a tick is
+     * either timed from its first phase or not at all.
+     *
+     * @param nextPhase name of the next phase
+     * @return event timing the next phase
+     */
+    public TickPhaseEvent next(String nextPhase) {
+        if (this == DISABLED) {
+            return DISABLED;
+        }
+        finish();
+        return start(tick, nextPhase);
+    }
+
+    /**
+     * Stops timing this phase and records it if it should be.
+     */
+    public void finish() {
+        if (this != DISABLED && shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package towersim.verify;
+
+import towersim.aircraft.Aircraft;
+import towersim.control.ControlTower;
+import towersim.ground.Terminal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Canonical encoding of the state of a control tower, and differences between two encodings.
+ * <p>
+ * The encoding is a list of lines, one for each part of the state, so that a difference between
+ * two states can be reported as the few lines that differ. The lines are, in order:
+ * <ol>
+ * <li>{@code ticks N}, the number of ticks elapsed</li>
+ * <li>{@code aircraft ...} for each aircraft, in the order they were added, as given by
+ * {@link Aircraft#encode()}</li>
+ * <li>{@code takeoff ...} and {@code landing ...}, each line of the encoding of the takeoff and
+ * landing queues, which lists their aircraft in order</li>
+ * <li>{@code loading CALLSIGN:TICKS} for each loading aircraft, in order of callsign</li>
+ * <li>{@code terminal ...} for each line of the encoding of each terminal, which gives its
+ * emergency state, ground resources and the aircraft at each of its gates</li>
+ * </ol>
+ */
+public final class CanonicalState {
+
+    private CanonicalState() {
+    }
+
+    /**
+     * Returns the canonical encoding of the given control tower's state.
+     *
+     * @param tower control tower to encode
+     * @return lines of the encoding
+     */
+    public static List<String> encode(ControlTower tower) {
+        List<String> lines = new ArrayList<>();
+        lines.add("ticks " + tower.getTicksElapsed());
+        for (Aircraft aircraft : tower.getAircraft()) {
+            lines.add("aircraft " + aircraft.encode());
+        }
+        addLines(lines, "takeoff ", tower.getTakeoffQueue().encode());
+        addLines(lines, "landing ", tower.getLandingQueue().encode());
+        Map<String, Integer> loading = new TreeMap<>();
+        for (Map.Entry<Aircraft, Integer> entry : tower.getLoadingAircraft().entrySet()) {
+            loading.put(entry.getKey().getCallsign(), entry.getValue());
+        }
+        for (Map.Entry<String, Integer> entry : loading.entrySet()) {
+            lines.add("loading " + entry.getKey() + ":" + entry.getValue());
+        }
+        for (Terminal terminal : tower.getTerminals()) {
+            addLines(lines, "terminal ", terminal.encode());
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the lines that differ between two encodings, at most the given number of them.
+     * <p>
+     * Encodings are compared line by line. For each position where they differ, the line of the
+     * expected encoding is given prefixed with {@code -}, followed by the line of the actual
+     * encoding prefixed with {@code +}, each preceded by the line number, counting from 1. A line
+     * missing from one of the encodings, because it is shorter, is left out.
+     *
+     * @param expected encoding of the expected state
+     * @param actual   encoding of the actual state
+     * @param maxLines largest number of differing positions to report
+     * @return lines of the difference; empty if the encodings are equal
+     */
+    public static List<String> diff(List<String> expected, List<String> actual, int maxLines) {
+        List<String> diff = new ArrayList<>();
+        int positions = 0;
+        for (int i = 0; i < Math.max(expected.size(), actual.size()); i++) {
+            String expectedLine = i < expected.size() ? expected.get(i) : null;
+            String actualLine = i < actual.size() ? actual.get(i) : null;
+            if (expectedLine != null && expectedLine.equals(actualLine)) {
+                continue;
+            }
+            if (positions++ == maxLines) {
+                diff.add("...");
+                break;
+            }
+            if (expectedLine != null) {
+                diff.add((i + 1) + " -" + expectedLine);
+            }
+            if (actualLine != null) {
+                diff.add((i + 1) + " +" + actualLine);
+            }
+        }
+        return diff;
+    }
+
+    /* Adds each line of the given encoding to the list, prefixed with the given section name */
+    private static void addLines(List<String> lines, String prefix, String encoded) {
+        for (String line : encoded.split("\\R")) {
+            lines.add(prefix + line);
+        }
+    }
+}
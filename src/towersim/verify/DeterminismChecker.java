@@ -0,0 +1,238 @@
+package towersim.verify;
+
+import towersim.control.ControlTower;
+import towersim.util.MalformedSaveException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Checks that a candidate {@link TickEngine} reaches exactly the same states as the reference
+ * engine, {@link ControlTower#tick()}, over generated scenarios.
+ * <p>
+ * For each scenario, a reference engine and a candidate engine are created from separate towers
+ * loaded from the scenario and ticked side by side. Their canonical states, as given by
+ * {@link CanonicalState}, are compared before the first tick, every {@code checkInterval} ticks
+ * and after the last tick. Comparing less often than every tick makes long runs cheaper; when the
+ * states are found to differ, the scenario is run again from the start, comparing every tick since
+ * the last check that matched, to find the first tick at which they differ.
+ * <p>
+ * Scenarios are independent of each other, so {@link #checkAll(long, int, int)} checks many of
+ * them in parallel, one per thread.
+ */
+public class DeterminismChecker {
+    /** Default number of ticks between comparisons */
+    public static final int DEFAULT_CHECK_INTERVAL = 100;
+
+    /** Largest number of differing lines reported for a divergence */
+    public static final int MAX_DIFF_LINES = 10;
+
+    /** Creates the candidate engine from a tower loaded from a scenario */
+    private final Function<ControlTower, TickEngine> candidate;
+
+    /** Number of ticks each scenario is run for */
+    private final long numTicks;
+
+    /** Number of ticks between comparisons */
+    private final int checkInterval;
+
+    /**
+     * Creates a new checker of the given candidate engine.
+     * <p>
+     * When scenarios are checked in parallel, the candidate factory is called from several threads
+     * at once, so it must be thread-safe, and the engines it creates must not share mutable state.
+     *
+     * @param candidate     creates a candidate engine from a tower loaded from a scenario
+     * @param numTicks      number of ticks to run each scenario for
+     * @param checkInterval number of ticks between comparisons of the engines' states
+     * @throws IllegalArgumentException if numTicks &lt; 0 or checkInterval &lt; 1
+     */
+    public DeterminismChecker(Function<ControlTower, TickEngine> candidate, long numTicks,
+            int checkInterval) {
+        if (numTicks < 0) {
+            throw new IllegalArgumentException("Number of ticks cannot be negative");
+        }
+        if (checkInterval < 1) {
+            throw new IllegalArgumentException("Check interval must be at least one tick");
+        }
+        this.candidate = candidate;
+        this.numTicks = numTicks;
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Checks the candidate engine against the reference engine on one scenario.
+     *
+     * @param scenario scenario to run
+     * @return first divergence between the engines; or null if they always agreed
+     * @throws MalformedSaveException if the scenario's save files are invalid
+     */
+    public Divergence check(Scenario scenario) throws MalformedSaveException {
+        Divergence divergence = run(scenario, 0, numTicks, checkInterval);
+        if (divergence == null || checkInterval == 1 || divergence.getTick() == 0) {
+            return divergence;
+        }
+        // the states last matched at the check before, so look for the first tick since then
+        long lastMatched = (divergence.getTick() - 1) / checkInterval * checkInterval;
+        Divergence first = run(scenario, lastMatched, divergence.getTick(), 1);
+        // the engines are deterministic, so they diverge again, but guard against ones that aren't
+        return first != null ? first : divergence;
+    }
+
+    /**
+     * Checks the candidate engine against the reference engine on the scenarios generated from a
+     * range of seeds, using the given number of threads.
+     *
+     * @param firstSeed    seed of the first scenario
+     * @param numScenarios number of scenarios, with consecutive seeds starting from firstSeed
+     * @param numThreads   number of scenarios to check at once
+     * @return divergences found, in order of seed; empty if the engines always agreed
+     * @throws InterruptedException     if interrupted while waiting for the checks to finish
+     * @throws IllegalArgumentException if numThreads &lt; 1
+     */
+    public List<Divergence> checkAll(long firstSeed, int numScenarios, int numThreads)
+            throws InterruptedException {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread thread = new Thread(runnable, "determinism-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Divergence>> results = new ArrayList<>(numScenarios);
+            for (int i = 0; i < numScenarios; i++) {
+                long seed = firstSeed + i;
+                results.add(pool.submit(() -> check(Scenario.generate(seed))));
+            }
+            List<Divergence> divergences = new ArrayList<>();
+            for (Future<Divergence> result : results) {
+                Divergence divergence = result.get();
+                if (divergence != null) {
+                    divergences.add(divergence);
+                }
+            }
+            return divergences;
+        } catch (ExecutionException e) {
+            // generated scenarios are always valid, and candidate errors are caught by check()
+            throw new IllegalStateException("Scenario could not be checked", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /*
+     * Runs both engines on the scenario for the given number of ticks, comparing their states at
+     * each multiple of the interval after the first tick to compare from, and after the last tick.
+     * Returns the first divergence found, or null if there was none.
+     */
+    private Divergence run(Scenario scenario, long compareAfter, long ticks, int interval)
+            throws MalformedSaveException {
+        TickEngine reference = TickEngine.reference(scenario.createControlTower());
+        TickEngine candidateEngine;
+        try {
+            candidateEngine = candidate.apply(scenario.createControlTower());
+        } catch (RuntimeException e) {
+            return new Divergence(scenario.getSeed(), 0, List.of(), e);
+        }
+        if (compareAfter == 0) {
+            Divergence divergence = compare(scenario, 0, reference, candidateEngine);
+            if (divergence != null) {
+                return divergence;
+            }
+        }
+        for (long tick = 1; tick <= ticks; tick++) {
+            reference.tick();
+            try {
+                candidateEngine.tick();
+            } catch (RuntimeException e) {
+                return new Divergence(scenario.getSeed(), tick, List.of(), e);
+            }
+            if (tick > compareAfter && (tick % interval == 0 || tick == ticks)) {
+                Divergence divergence = compare(scenario, tick, reference, candidateEngine);
+                if (divergence != null) {
+                    return divergence;
+                }
+            }
+        }
+        return null;
+    }
+
+    /* Compares the engines' states, returning their divergence or null if they are the same */
+    private static Divergence compare(Scenario scenario, long tick, TickEngine reference,
+            TickEngine candidateEngine) {
+        List<String> expected = reference.encodeState();
+        List<String> actual;
+        try {
+            actual = candidateEngine.encodeState();
+        } catch (RuntimeException e) {
+            return new Divergence(scenario.getSeed(), tick, List.of(), e);
+        }
+        if (expected.equals(actual)) {
+            return null;
+        }
+        return new Divergence(scenario.getSeed(), tick,
+                CanonicalState.diff(expected, actual, MAX_DIFF_LINES), null);
+    }
+
+    /**
+     * Checks that the reference engine is deterministic, by checking it against a second copy of
+     * itself over generated scenarios, and prints any divergences found.
+     * <p>
+     * Usage: {@code num_scenarios num_ticks [check_interval [first_seed]]}
+     * <p>
+     * The scenarios are checked on one thread per available processor. The process exits with a
+     * status of 1 if any scenario diverged.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Usage: num_scenarios num_ticks [check_interval [first_seed]]");
+            System.exit(1);
+        }
+        int numScenarios;
+        long ticks;
+        int interval;
+        long firstSeed;
+        try {
+            numScenarios = Integer.parseInt(args[0]);
+            ticks = Long.parseLong(args[1]);
+            interval = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CHECK_INTERVAL;
+            firstSeed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        } catch (NumberFormatException e) {
+            System.err.println("Arguments must be integers: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        DeterminismChecker checker = new DeterminismChecker(TickEngine::reference, ticks,
+                interval);
+        long start = System.nanoTime();
+        List<Divergence> divergences;
+        try {
+            divergences = checker.checkAll(firstSeed, numScenarios, numThreads);
+        } catch (InterruptedException e) {
+            System.err.println("Interrupted");
+            System.exit(1);
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        for (Divergence divergence : divergences) {
+            System.out.println(divergence);
+        }
+        System.out.printf("Checked %,d scenarios of %,d ticks on %d threads in %.3f s: "
+                + "%,d diverged%n", numScenarios, ticks, numThreads, elapsed / 1e9,
+                divergences.size());
+        if (!divergences.isEmpty()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package towersim.verify;
+
+import java.util.List;
+
+/**
+ * The first point at which a candidate engine was found to differ from the reference engine in a
+ * scenario, as reported by a {@link DeterminismChecker}.
+ */
+public class Divergence {
+    /** Seed of the scenario that diverged */
+    private final long seed;
+
+    /** Number of ticks run when the engines first differed */
+    private final long tick;
+
+    /** Lines of the canonical encodings that differed */
+    private final List<String> diff;
+
+    /** Exception thrown by the candidate engine, or null if it ran but reached another state */
+    private final RuntimeException error;
+
+    /**
+     * Creates a new divergence.
+     *
+     * @param seed  seed of the scenario that diverged
+     * @param tick  number of ticks run when the engines first differed
+     * @param diff  lines of the canonical encodings that differed, as given by
+     *              {@link CanonicalState#diff(List, List, int)}
+     * @param error exception thrown by the candidate engine, or null if it did not throw one
+     */
+    public Divergence(long seed, long tick, List<String> diff, RuntimeException error) {
+        this.seed = seed;
+        this.tick = tick;
+        this.diff = List.copyOf(diff);
+        this.error = error;
+    }
+
+    /**
+     * Returns the seed of the scenario that diverged, from which it can be generated again with
+     * {@link Scenario#generate(long)}.
+     *
+     * @return seed of the scenario
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of ticks the engines had run when they first differed. A divergence
+     * after 0 ticks means the candidate engine started in a different state.
+     *
+     * @return number of ticks run
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the lines of the canonical encodings that differed.
+     *
+     * @return lines of the difference; empty if the candidate engine threw an exception
+     */
+    public List<String> getDiff() {
+        return diff;
+    }
+
+    /**
+     * Returns the exception thrown by the candidate engine, if that is how it diverged.
+     *
+     * @return exception thrown; or null if the candidate reached a different state instead
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    /**
+     * Returns a description of the divergence, giving the scenario, the tick and either the
+     * exception thrown or the lines that differed, one per line.
+     *
+     * @return description of the divergence
+     */
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder(String.format(
+                "Scenario %d diverged after %d ticks", seed, tick));
+        if (error != null) {
+            description.append(": candidate threw ").append(error);
+        }
+        for (String line : diff) {
+            description.append(System.lineSeparator()).append("  ").append(line);
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package towersim.verify;
+
+import towersim.aircraft.AircraftCharacteristics;
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.util.MalformedSaveException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A control tower to simulate, held as the contents of its four save files so that any number of
+ * independent towers can be created in exactly the same state.
+ * <p>
+ * Scenarios are generated from a seed by {@link #generate(long)}. The same seed always gives the
+ * same scenario, so a scenario that exposes a problem can be reproduced from its seed alone.
+ */
+public class Scenario {
+    /** Largest number of terminals in a generated scenario */
+    private static final int MAX_TERMINALS = 4;
+
+    /** Largest number of gates in each terminal of a generated scenario */
+    private static final int MAX_GATES = 6;
+
+    /** Largest number of aircraft in a generated scenario */
+    private static final int MAX_AIRCRAFT = 30;
+
+    /** Seed the scenario was generated from */
+    private final long seed;
+
+    /** Contents of the tick file */
+    private final String tick;
+
+    /** Contents of the aircraft file */
+    private final String aircraft;
+
+    /** Contents of the queues file */
+    private final String queues;
+
+    /** Contents of the terminals file */
+    private final String terminalsWithGates;
+
+    /**
+     * Creates a scenario from the contents of its save files, in the formats read by
+     * {@link ControlTowerInitialiser#createControlTower}.
+     *
+     * @param seed               seed identifying the scenario
+     * @param tick               contents of the tick file
+     * @param aircraft           contents of the aircraft file
+     * @param queues             contents of the queues file
+     * @param terminalsWithGates contents of the terminals file
+     */
+    public Scenario(long seed, String tick, String aircraft, String queues,
+            String terminalsWithGates) {
+        this.seed = seed;
+        this.tick = tick;
+        this.aircraft = aircraft;
+        this.queues = queues;
+        this.terminalsWithGates = terminalsWithGates;
+    }
+
+    /**
+     * Generates a random scenario from the given seed.
+     * <p>
+     * A generated scenario has between one and {@value #MAX_TERMINALS} terminals of either type,
+     * each with up to {@value #MAX_GATES} gates, some in a state of emergency and some with
+     * limited ground resources. It has up to {@value #MAX_AIRCRAFT} aircraft of random
+     * characteristics, fuel and cargo, each starting away with a cycle of tasks that lands,
+     * optionally waits, loads and takes off again. Queues and gates start empty, so every aircraft
+     * reaches them through the simulation itself.
+     *
+     * @param seed seed of the random scenario
+     * @return scenario generated from the seed
+     */
+    public static Scenario generate(long seed) {
+        Random random = new Random(seed);
+        String newline = System.lineSeparator();
+
+        StringBuilder terminals = new StringBuilder();
+        int numTerminals = 1 + random.nextInt(MAX_TERMINALS);
+        terminals.append(numTerminals);
+        int gateNumber = 1;
+        for (int terminalNumber = 1; terminalNumber <= numTerminals; terminalNumber++) {
+            int numGates = 1 + random.nextInt(MAX_GATES);
+            terminals.append(newline)
+                    .append(random.nextBoolean() ? "AirplaneTerminal" : "HelicopterTerminal")
+                    .append(':').append(terminalNumber)
+                    .append(':').append(random.nextInt(10) == 0)
+                    .append(':').append(numGates);
+            if (random.nextInt(3) == 0) {
+                // limited ground crew and fuel trucks
+                terminals.append(':').append(1 + random.nextInt(3))
+                        .append(':').append(1 + random.nextInt(3))
+                        .append(':').append(1 + random.nextInt(3));
+            }
+            for (int i = 0; i < numGates; i++) {
+                terminals.append(newline).append(gateNumber++).append(":empty");
+            }
+        }
+
+        AircraftCharacteristics[] characteristics = AircraftCharacteristics.values();
+        List<String> aircraft = new ArrayList<>();
+        int numAircraft = 1 + random.nextInt(MAX_AIRCRAFT);
+        for (int i = 0; i < numAircraft; i++) {
+            AircraftCharacteristics type = characteristics[random.nextInt(characteristics.length)];
+            StringBuilder tasks = new StringBuilder();
+            int numAway = 1 + random.nextInt(4);
+            for (int j = 0; j < numAway; j++) {
+                tasks.append("AWAY,");
+            }
+            tasks.append("LAND,");
+            int numWaits = random.nextInt(4);
+            for (int j = 0; j < numWaits; j++) {
+                tasks.append("WAIT,");
+            }
+            tasks.append("LOAD@").append(random.nextInt(101)).append(",TAKEOFF");
+
+            // round down so that the fuel written never exceeds the capacity
+            double fuel = Math.floor(random.nextDouble() * type.fuelCapacity * 100) / 100;
+            int capacity = type.passengerCapacity > 0
+                    ? type.passengerCapacity : type.freightCapacity;
+            aircraft.add(String.format(Locale.ROOT, "SIM%03d:%s:%s:%.2f:%b:%d", i, type.name(),
+                    tasks, fuel, random.nextInt(20) == 0, random.nextInt(capacity + 1)));
+        }
+
+        return new Scenario(seed, Integer.toString(random.nextInt(1000)),
+                numAircraft + newline + String.join(newline, aircraft),
+                String.join(newline, "TakeoffQueue:0", "LandingQueue:0", "LoadingAircraft:0"),
+                terminals.toString());
+    }
+
+    /**
+     * Returns the seed identifying this scenario.
+     *
+     * @return seed of the scenario
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Creates a new control tower in the scenario's starting state. Each call returns a separate
+     * tower sharing nothing with towers created by earlier calls.
+     *
+     * @return new control tower
+     * @throws MalformedSaveException if the scenario's save files are invalid
+     */
+    public ControlTower createControlTower() throws MalformedSaveException {
+        try {
+            return ControlTowerInitialiser.createControlTower(new StringReader(tick),
+                    new StringReader(aircraft), new StringReader(queues),
+                    new StringReader(terminalsWithGates));
+        } catch (IOException e) {
+            // not possible, the files are read from strings
+            throw new MalformedSaveException(e);
+        }
+    }
+
+    /**
+     * Returns the contents of the scenario's save files, separated by blank lines.
+     *
+     * @return save files of the scenario
+     */
+    @Override
+    public String toString() {
+        String separator = System.lineSeparator() + System.lineSeparator();
+        return String.join(separator, tick, aircraft, queues, terminalsWithGates);
+    }
+}
@@ -0,0 +1,50 @@
+package towersim.verify;
+
+import towersim.control.ControlTower;
+
+import java.util.List;
+
+/**
+ * An implementation of the simulation that can be checked against the reference implementation,
+ * {@link ControlTower#tick()}, by a {@link DeterminismChecker}.
+ * <p>
+ * An engine is created from a control tower loaded from a {@link Scenario}, which it may use
+ * directly or convert into its own representation. However it is implemented, it must be able to
+ * describe its state in the canonical form given by {@link CanonicalState#encode(ControlTower)},
+ * which is what is compared.
+ */
+public interface TickEngine {
+    /**
+     * Advances the simulation by one tick.
+     */
+    void tick();
+
+    /**
+     * Returns the current state of the simulation in canonical form.
+     *
+     * @return lines of the canonical encoding of the state
+     * @see CanonicalState#encode(ControlTower)
+     */
+    List<String> encodeState();
+
+    /**
+     * Returns an engine that ticks the given control tower with {@link ControlTower#tick()}, the
+     * reference every other engine is checked against.
+     *
+     * @param tower control tower to tick
+     * @return reference engine
+     */
+    static TickEngine reference(ControlTower tower) {
+        return new TickEngine() {
+            @Override
+            public void tick() {
+                tower.tick();
+            }
+
+            @Override
+            public List<String> encodeState() {
+                return CanonicalState.encode(tower);
+            }
+        };
+    }
+}
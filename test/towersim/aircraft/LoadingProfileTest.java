@@ -0,0 +1,51 @@
+package towersim.aircraft;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LoadingProfileTest {
+
+    @Test
+    public void passengerProfile() {
+        // 65% of 150 passengers is 98 (rounded from 97.5), which takes log(98) = 2 ticks
+        LoadingProfile profile =
+                LoadingProfile.forPassengers(AircraftCharacteristics.AIRBUS_A320, 65);
+        assertEquals(2, profile.getLoadingTime());
+        assertEquals(49, profile.getCargoPerTick());
+        assertEquals(27200.0 / 2, profile.getFuelPerTick(), 1e-9);
+    }
+
+    @Test
+    public void freightProfile() {
+        // 50% of 137756kg is 68878kg, which takes 3 ticks
+        LoadingProfile profile =
+                LoadingProfile.forFreight(AircraftCharacteristics.BOEING_747_8F, 50);
+        assertEquals(3, profile.getLoadingTime());
+        assertEquals(22959, profile.getCargoPerTick());
+        assertEquals(226117.0 / 3, profile.getFuelPerTick(), 1e-9);
+    }
+
+    @Test
+    public void emptyLoadTakesOneTick() {
+        LoadingProfile profile =
+                LoadingProfile.forPassengers(AircraftCharacteristics.BOEING_787, 0);
+        assertEquals(1, profile.getLoadingTime());
+        assertEquals(0, profile.getCargoPerTick());
+    }
+
+    @Test
+    public void profilesAreShared() {
+        assertSame(LoadingProfile.forFreight(AircraftCharacteristics.SIKORSKY_SKYCRANE, 40),
+                LoadingProfile.forFreight(AircraftCharacteristics.SIKORSKY_SKYCRANE, 40));
+    }
+
+    @Test
+    public void loadAboveCapacity() {
+        // 150% of 4 passengers is 6, which takes log(6) = 1 tick
+        LoadingProfile profile =
+                LoadingProfile.forPassengers(AircraftCharacteristics.ROBINSON_R44, 150);
+        assertEquals(1, profile.getLoadingTime());
+        assertEquals(6, profile.getCargoPerTick());
+    }
+}
@@ -225,4 +225,33 @@ public class PassengerAircraftTest {
         // (130 + 38) / capacity = 168 / 150 = 112 percent occupancy (should cap at 100)
         assertEquals(failMsg, 100, fullAircraft.calculateOccupancyLevel());
     }
+
+    @Test
+    public void versionIncreasesWhenStateChanges() {
+        long version = aircraft1.getVersion();
+        aircraft1.tick(); // refuels while loading
+        assertTrue(aircraft1.getVersion() > version);
+
+        version = aircraft1.getVersion();
+        aircraft1.declareEmergency();
+        assertTrue(aircraft1.getVersion() > version);
+
+        version = aircraft1.getVersion();
+        aircraft1.getTaskList().moveToNextTask();
+        assertTrue(aircraft1.getVersion() > version);
+
+        version = aircraft1.getVersion();
+        aircraft1.unload();
+        assertTrue(aircraft1.getVersion() > version);
+    }
+
+    @Test
+    public void versionUnchangedWhenNothingChanges() {
+        aircraft1.getTaskList().moveToNextTask(); // TAKEOFF burns no fuel and loads nothing
+        long version = aircraft1.getVersion();
+        aircraft1.tick();
+        aircraft1.encode();
+        aircraft1.toString();
+        assertEquals(version, aircraft1.getVersion());
+    }
 }
@@ -0,0 +1,186 @@
+package towersim.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.control.LandingQueue;
+import towersim.control.TakeoffQueue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class TowerApiServerTest {
+
+    private ExecutorService writer;
+    private ControlTower tower;
+    private TowerApiServer server;
+
+    /* Status code and body of a response */
+    private static final class Reply {
+        private final int status;
+        private final String body;
+
+        private Reply(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        writer = Executors.newSingleThreadExecutor();
+        // the tower and server are created on the writer thread, which owns them
+        server = writer.submit(() -> {
+            tower = new ControlTower(0, new ArrayList<>(), new LandingQueue(),
+                    new TakeoffQueue(), new HashMap<>());
+            String[] terminals = {"AirplaneTerminal:1:false:2", "1:empty", "2:empty"};
+            BufferedReader reader = new BufferedReader(new StringReader(
+                    String.join(System.lineSeparator(), terminals)));
+            tower.addTerminal(ControlTowerInitialiser.readTerminal(reader.readLine(), reader,
+                    new ArrayList<>()));
+            tower.addAircraft(ControlTowerInitialiser.readAircraft(
+                    "PAX001:AIRBUS_A320:WAIT,LOAD@60,TAKEOFF,AWAY,LAND:20000.00:false:0"));
+            tower.addAircraft(ControlTowerInitialiser.readAircraft(
+                    "PAX002:BOEING_787:AWAY,LAND,LOAD@30,TAKEOFF:100000.00:false:0"));
+            return new TowerApiServer(tower, writer, 0);
+        }).get();
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+        writer.shutdownNow();
+    }
+
+    private Reply request(String method, String path, String body) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream()
+                : connection.getErrorStream();
+        String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        in.close();
+        connection.disconnect();
+        return new Reply(status, text);
+    }
+
+    @Test
+    public void getTower() throws IOException {
+        Reply reply = request("GET", "/tower", null);
+        assertEquals(200, reply.status);
+        assertTrue(reply.body.contains("\"ticks\":0"));
+        assertTrue(reply.body.contains("\"aircraft\":2"));
+        assertTrue(reply.body.contains("\"terminals\":1"));
+    }
+
+    @Test
+    public void getAircraft() throws IOException {
+        Reply all = request("GET", "/aircraft", null);
+        assertEquals(200, all.status);
+        assertTrue(all.body.startsWith("[{\"callsign\":\"PAX001\""));
+        assertTrue(all.body.contains("\"callsign\":\"PAX002\""));
+
+        Reply one = request("GET", "/aircraft/PAX002", null);
+        assertEquals(200, one.status);
+        assertTrue(one.body.contains("\"task\":\"AWAY\""));
+        assertTrue(one.body.contains("\"fuel\":100000.00"));
+
+        assertEquals(404, request("GET", "/aircraft/ABC123", null).status);
+    }
+
+    @Test
+    public void getQueuesAndGates() throws IOException {
+        Reply queues = request("GET", "/queues", null);
+        assertEquals(200, queues.status);
+        assertEquals("{\"landing\":[],\"takeoff\":[],\"loading\":{}}", queues.body);
+
+        Reply gates = request("GET", "/gates", null);
+        assertEquals(200, gates.status);
+        assertEquals("[{\"terminal\":1,\"emergency\":false,\"gates\":["
+                + "{\"number\":1,\"aircraft\":\"PAX001\"},{\"number\":2,\"aircraft\":null}]}]",
+                gates.body);
+    }
+
+    @Test
+    public void tickCommand() throws IOException {
+        Reply reply = request("POST", "/tick?count=5", null);
+        assertEquals(200, reply.status);
+        assertTrue(reply.body.contains("\"ticks\":5"));
+        assertEquals(5, tower.getTicksElapsed());
+        assertTrue(request("GET", "/tower", null).body.contains("\"ticks\":5"));
+
+        assertEquals(400, request("POST", "/tick?count=0", null).status);
+        assertEquals(400, request("POST", "/tick?count=many", null).status);
+        assertEquals(5, tower.getTicksElapsed());
+    }
+
+    @Test
+    public void addAircraftCommand() throws IOException {
+        Reply added = request("POST", "/aircraft",
+                "PAX003:AIRBUS_A320:LOAD@100,TAKEOFF,AWAY,LAND:20000.00:false:0");
+        assertEquals(200, added.status);
+        assertTrue(added.body.contains("\"aircraft\":3"));
+        assertEquals(200, request("GET", "/aircraft/PAX003", null).status);
+
+        assertEquals(409, request("POST", "/aircraft",
+                "PAX003:AIRBUS_A320:AWAY,LAND,LOAD@100,TAKEOFF:20000.00:false:0").status);
+        // both gates are now taken
+        assertEquals(409, request("POST", "/aircraft",
+                "PAX004:AIRBUS_A320:WAIT,LOAD@50,TAKEOFF,AWAY,LAND:20000.00:false:0").status);
+        assertEquals(400, request("POST", "/aircraft", "PAX005:AIRBUS_A320").status);
+        assertEquals(3, tower.getAircraft().size());
+    }
+
+    @Test
+    public void addTerminalCommand() throws IOException {
+        Reply added = request("POST", "/terminals",
+                "HelicopterTerminal:2:false:1\n3:empty\n");
+        assertEquals(200, added.status);
+        assertTrue(added.body.contains("\"terminals\":2"));
+        assertEquals(400, request("POST", "/terminals", "NoSuchTerminal:3:false:0").status);
+        assertEquals(2, tower.getTerminals().size());
+    }
+
+    @Test
+    public void emergencyCommands() throws IOException {
+        assertEquals(200, request("POST", "/aircraft/PAX002/emergency", null).status);
+        assertTrue(tower.getAircraft().get(1).hasEmergency());
+        assertTrue(request("GET", "/aircraft/PAX002", null).body.contains("\"emergency\":true"));
+        assertEquals(200, request("DELETE", "/aircraft/PAX002/emergency", null).status);
+        assertFalse(tower.getAircraft().get(1).hasEmergency());
+        assertEquals(404, request("POST", "/aircraft/ABC123/emergency", null).status);
+
+        assertEquals(200, request("POST", "/terminals/1/emergency", null).status);
+        assertTrue(tower.getTerminals().get(0).hasEmergency());
+        assertTrue(request("GET", "/gates", null).body.contains("\"emergency\":true"));
+        assertEquals(404, request("DELETE", "/terminals/7/emergency", null).status);
+    }
+
+    @Test
+    public void unknownEndpoint() throws IOException {
+        assertEquals(404, request("GET", "/runways", null).status);
+        assertEquals(404, request("DELETE", "/tower", null).status);
+    }
+}
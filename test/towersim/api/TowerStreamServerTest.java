@@ -0,0 +1,210 @@
+package towersim.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.control.LandingQueue;
+import towersim.control.TakeoffQueue;
+import towersim.ground.Terminal;
+import towersim.util.MalformedSaveException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class TowerStreamServerTest {
+
+    private static final String[] AIRCRAFT = {
+        "PAX001:AIRBUS_A320:WAIT,LOAD@60,TAKEOFF,AWAY,LAND:20000.00:false:0",
+        "HEL001:ROBINSON_R44:LOAD@100,TAKEOFF,AWAY,LAND:150.00:false:0",
+        "FRT001:BOEING_747_8F:AWAY,LAND,LOAD@90,TAKEOFF:200000.00:false:0",
+        "PAX002:BOEING_787:TAKEOFF,AWAY,LAND,LOAD@30:100000.00:false:0",
+        "PAX003:AIRBUS_A320:LAND,LOAD@100,TAKEOFF,AWAY:20000.00:false:0",
+    };
+
+    private ExecutorService writer;
+    private ControlTower tower;
+    private TowerStreamServer server;
+    private TowerStreamClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        writer = Executors.newSingleThreadExecutor();
+        server = writer.submit(() -> {
+            tower = new ControlTower(0, new ArrayList<>(), new LandingQueue(),
+                    new TakeoffQueue(), new HashMap<>());
+            String[] terminals = {
+                "AirplaneTerminal:1:false:2", "1:empty", "2:empty",
+                "HelicopterTerminal:2:false:1", "3:empty",
+            };
+            BufferedReader reader = new BufferedReader(new StringReader(
+                    String.join(System.lineSeparator(), terminals)));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                tower.addTerminal(ControlTowerInitialiser.readTerminal(line, reader,
+                        new ArrayList<>()));
+            }
+            for (String encoded : AIRCRAFT) {
+                tower.addAircraft(ControlTowerInitialiser.readAircraft(encoded));
+            }
+            return new TowerStreamServer(tower, writer, 0);
+        }).get();
+        server.start();
+        client = new TowerStreamClient("localhost", server.getPort());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+        writer.shutdownNow();
+    }
+
+    /* Returns a description of everything about the given tower that is streamed */
+    private static String describe(ControlTower controlTower) {
+        StringJoiner joiner = new StringJoiner("\n");
+        joiner.add(Long.toString(controlTower.getTicksElapsed()));
+        for (Aircraft aircraft : controlTower.getAircraft()) {
+            joiner.add(aircraft.encode());
+        }
+        for (Terminal terminal : controlTower.getTerminals()) {
+            joiner.add(terminal.encode());
+        }
+        joiner.add(controlTower.getTakeoffQueue().getAircraftInOrder().toString());
+        joiner.add(controlTower.getLandingQueue().getAircraftInOrder().toString());
+        Map<String, Integer> loading = new TreeMap<>();
+        for (Map.Entry<Aircraft, Integer> entry : controlTower.getLoadingAircraft().entrySet()) {
+            loading.put(entry.getKey().getCallsign(), entry.getValue());
+        }
+        joiner.add(loading.toString());
+        return joiner.toString();
+    }
+
+    /* Returns the description of the tower and the sequence of its latest published state */
+    private Object[] describeTower() throws Exception {
+        return writer.submit(() -> new Object[] {describe(tower),
+                server.getPublisher().getState().getSequence()}).get();
+    }
+
+    /* Receives frames until the mirror has caught up with the tower, and checks they match */
+    private void assertMirrorCatchesUp() throws Exception {
+        Object[] expected = describeTower();
+        while (client.getSequence() < (Long) expected[1]) {
+            client.receive();
+        }
+        assertEquals(expected[0], describe(client.getControlTower()));
+    }
+
+    @Test
+    public void resyncOnConnect() throws Exception {
+        assertNull(client.getControlTower());
+        ControlTower mirror = client.receive();
+        assertNotNull(mirror);
+        assertEquals(AIRCRAFT.length, mirror.getAircraft().size());
+        assertMirrorCatchesUp();
+    }
+
+    @Test
+    public void deltasKeepMirrorUpToDate() throws Exception {
+        ControlTower mirror = client.receive();
+        for (int i = 0; i < 40; i++) {
+            writer.submit(tower::tick).get();
+            assertMirrorCatchesUp();
+            assertSame(mirror, client.getControlTower());
+        }
+    }
+
+    @Test
+    public void slowClientCatchesUp() throws Exception {
+        client.receive();
+        writer.submit(() -> {
+            for (int i = 0; i < 200; i++) {
+                tower.tick();
+            }
+        }).get();
+        assertMirrorCatchesUp();
+    }
+
+    @Test
+    public void changesBetweenTicksAreStreamedWhenPublished() throws Exception {
+        client.receive();
+        writer.submit(() -> {
+            tower.getAircraft().get(2).declareEmergency();
+            tower.getTerminals().get(0).declareEmergency();
+            server.getPublisher().publish();
+        }).get();
+        assertMirrorCatchesUp();
+        assertTrue(client.getControlTower().getAircraft().get(2).hasEmergency());
+        assertTrue(client.getControlTower().getTerminals().get(0).hasEmergency());
+    }
+
+    @Test
+    public void addingAircraftResyncs() throws Exception {
+        ControlTower mirror = client.receive();
+        writer.submit(() -> {
+            tower.addAircraft(ControlTowerInitialiser.readAircraft(
+                    "PAX004:AIRBUS_A320:AWAY,LAND,LOAD@100,TAKEOFF:20000.00:false:0"));
+            server.getPublisher().publish();
+            return null;
+        }).get();
+        assertMirrorCatchesUp();
+        assertNotSame(mirror, client.getControlTower());
+        assertEquals(AIRCRAFT.length + 1, client.getControlTower().getAircraft().size());
+    }
+
+    @Test
+    public void manyClientsMirrorTheSameTower() throws Exception {
+        client.receive();
+        TowerStreamClient[] others = new TowerStreamClient[4];
+        for (int i = 0; i < others.length; i++) {
+            others[i] = new TowerStreamClient("localhost", server.getPort());
+        }
+        try {
+            for (int i = 0; i < 10; i++) {
+                writer.submit(tower::tick).get();
+            }
+            Object[] expected = describeTower();
+            for (TowerStreamClient other : others) {
+                while (other.getSequence() < (Long) expected[1]) {
+                    other.receive();
+                }
+                assertEquals(expected[0], describe(other.getControlTower()));
+            }
+            assertMirrorCatchesUp();
+        } finally {
+            for (TowerStreamClient other : others) {
+                other.close();
+            }
+        }
+    }
+
+    @Test(expected = MalformedSaveException.class)
+    public void rejectsInvalidFrames() throws Exception {
+        try (ServerSocket fake = new ServerSocket(0)) {
+            TowerStreamClient fakeClient = new TowerStreamClient("localhost",
+                    fake.getLocalPort());
+            try (Socket socket = fake.accept()) {
+                // a delta sent before any resync
+                socket.getOutputStream().write(new byte[] {0, 0, 0, 9, 1, 0, 0, 0, 0, 0, 0, 0, 0});
+                socket.getOutputStream().flush();
+                fakeClient.receive();
+            } finally {
+                fakeClient.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package towersim.control;
+
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftCharacteristics;
+import towersim.aircraft.PassengerAircraft;
+import towersim.tasks.Task;
+import towersim.tasks.TaskList;
+import towersim.tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AircraftRegistryTest {
+
+    private AircraftRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new AircraftRegistry();
+    }
+
+    private static Aircraft createAircraft(String callsign) {
+        return new PassengerAircraft(callsign, AircraftCharacteristics.AIRBUS_A320,
+                new TaskList(List.of(new Task(TaskType.AWAY), new Task(TaskType.LAND),
+                        new Task(TaskType.LOAD, 50), new Task(TaskType.TAKEOFF))),
+                10000, 0);
+    }
+
+    @Test
+    public void idsAreDense() {
+        List<Aircraft> aircraft = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            aircraft.add(createAircraft(String.format("ABC%03d", i)));
+            assertEquals(i, registry.register(aircraft.get(i)));
+        }
+        assertEquals(1000, registry.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, registry.getId(aircraft.get(i)));
+            assertSame(aircraft.get(i), registry.getAircraft(i));
+        }
+    }
+
+    @Test
+    public void registeringAgainKeepsId() {
+        Aircraft first = createAircraft("ABC001");
+        Aircraft second = createAircraft("ABC002");
+        registry.register(first);
+        registry.register(second);
+        assertEquals(0, registry.register(first));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void unregisteredAircraft() {
+        registry.register(createAircraft("ABC001"));
+        // equal aircraft are still told apart
+        assertEquals(AircraftRegistry.NO_ID, registry.getId(createAircraft("ABC001")));
+    }
+
+    @Test
+    public void copyKeepsIdsAndGrows() {
+        for (int i = 0; i < 100; i++) {
+            registry.register(createAircraft(String.format("ABC%03d", i)));
+        }
+        Map<Aircraft, Aircraft> copies = new IdentityHashMap<>();
+        AircraftRegistry copy = registry.copy(copies);
+        assertEquals(100, copy.size());
+        for (int id = 0; id < 100; id++) {
+            Aircraft original = registry.getAircraft(id);
+            assertNotSame(original, copy.getAircraft(id));
+            assertSame(copies.get(original), copy.getAircraft(id));
+            assertEquals(id, copy.getId(copy.getAircraft(id)));
+            assertEquals(AircraftRegistry.NO_ID, copy.getId(original));
+        }
+        // the copy goes on growing as more aircraft are registered with it
+        List<Aircraft> added = new ArrayList<>();
+        for (int i = 100; i < 1000; i++) {
+            added.add(createAircraft(String.format("ABC%03d", i)));
+            assertEquals(i, copy.register(added.get(i - 100)));
+        }
+        for (int i = 100; i < 1000; i++) {
+            assertEquals(i, copy.getId(added.get(i - 100)));
+        }
+        assertEquals(100, registry.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getAircraftOutOfRange() {
+        registry.register(createAircraft("ABC001"));
+        registry.getAircraft(1);
+    }
+}
@@ -0,0 +1,128 @@
+package towersim.control;
+
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftCharacteristics;
+import towersim.aircraft.PassengerAircraft;
+import towersim.tasks.Task;
+import towersim.tasks.TaskList;
+import towersim.tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArrivalManagerTest {
+
+    private ControlTower tower;
+    private List<Aircraft> aircraft;
+
+    @Before
+    public void setUp() {
+        aircraft = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            aircraft.add(new PassengerAircraft(String.format("ABC%03d", i),
+                    AircraftCharacteristics.AIRBUS_A320,
+                    new TaskList(List.of(new Task(TaskType.AWAY), new Task(TaskType.LAND),
+                            new Task(TaskType.LOAD, 50), new Task(TaskType.TAKEOFF))),
+                    AircraftCharacteristics.AIRBUS_A320.fuelCapacity, 0));
+        }
+        // no terminals, so nothing can land
+        tower = new ControlTower(0, new ArrayList<>(aircraft), new LandingQueue(),
+                new TakeoffQueue(), new HashMap<>());
+    }
+
+    /* Returns the number of aircraft whose current task is LAND */
+    private int countLanding() {
+        int landing = 0;
+        for (Aircraft eachAircraft : aircraft) {
+            if (eachAircraft.getTaskList().getCurrentTask().getType() == TaskType.LAND) {
+                landing++;
+            }
+        }
+        return landing;
+    }
+
+    @Test
+    public void unlimitedWithoutManager() {
+        tower.tick();
+        assertEquals(4, countLanding());
+        assertEquals(4, tower.getLandingQueue().getAircraftInOrder().size());
+    }
+
+    @Test
+    public void arrivalRateLimit() {
+        ArrivalManager manager = new ArrivalManager(ArrivalManager.UNLIMITED, 1);
+        tower.setArrivalManager(manager);
+        tower.tick();
+        assertEquals(List.of(aircraft.get(0)), tower.getLandingQueue().getAircraftInOrder());
+        assertEquals(aircraft.subList(1, 4), manager.getHoldingAircraft());
+        // held aircraft stay away
+        assertEquals(TaskType.AWAY,
+                aircraft.get(3).getTaskList().getCurrentTask().getType());
+
+        tower.tick();
+        tower.tick();
+        tower.tick();
+        assertEquals(4, countLanding());
+        assertTrue(manager.getHoldingAircraft().isEmpty());
+        assertEquals(3, manager.getAircraftHeld());
+        // held for 1, 2 and 3 ticks
+        assertEquals(6, manager.getTotalHoldingTicks());
+        assertEquals(3, manager.getLongestHold());
+    }
+
+    @Test
+    public void queueDepthLimit() {
+        ArrivalManager manager = new ArrivalManager(2, ArrivalManager.UNLIMITED);
+        tower.setArrivalManager(manager);
+        tower.tick();
+        tower.tick();
+        assertEquals(2, countLanding());
+        assertEquals(2, manager.getHoldingAircraft().size());
+    }
+
+    @Test
+    public void heldAircraftReleasedFirst() {
+        tower.setArrivalManager(new ArrivalManager(ArrivalManager.UNLIMITED, 1));
+        tower.tick();
+        assertEquals(aircraft.get(1), tower.getArrivalManager().getHoldingAircraft().get(0));
+        tower.tick();
+        assertEquals(TaskType.LAND, aircraft.get(1).getTaskList().getCurrentTask().getType());
+    }
+
+    @Test
+    public void emergenciesAreNotHeld() {
+        ArrivalManager manager = new ArrivalManager(1, 1);
+        tower.setArrivalManager(manager);
+        aircraft.get(2).declareEmergency();
+        aircraft.get(3).declareEmergency();
+        tower.tick();
+        assertEquals(2, countLanding());
+        assertEquals(List.of(aircraft.get(0), aircraft.get(1)), manager.getHoldingAircraft());
+    }
+
+    @Test
+    public void versionChangesWhileArrivingOrHolding() {
+        ArrivalManager manager = new ArrivalManager(ArrivalManager.UNLIMITED, 1);
+        tower.setArrivalManager(manager);
+        long version = manager.getVersion();
+        for (int i = 0; i < 4; i++) {
+            tower.tick();
+            assertTrue(manager.getVersion() > version);
+            version = manager.getVersion();
+        }
+        assertTrue(manager.getHoldingAircraft().isEmpty());
+        // nothing is arriving or held any more
+        tower.tick();
+        assertEquals(version, manager.getVersion());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void limitTooSmall() {
+        new ArrivalManager(0, 1);
+    }
+}
@@ -0,0 +1,81 @@
+package towersim.control;
+
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftCharacteristics;
+import towersim.aircraft.FreightAircraft;
+import towersim.aircraft.PassengerAircraft;
+import towersim.tasks.Task;
+import towersim.tasks.TaskList;
+import towersim.tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CallsignIndexTest {
+
+    private CallsignIndex index;
+    private List<Aircraft> aircraft;
+
+    @Before
+    public void setUp() {
+        aircraft = new ArrayList<>();
+        for (String callsign : new String[] {"QFA481", "UTD302", "QFA12", "UPS119", "QFB001"}) {
+            aircraft.add(createAircraft(callsign));
+        }
+        index = new CallsignIndex(aircraft);
+    }
+
+    private static Aircraft createAircraft(String callsign) {
+        return new PassengerAircraft(callsign, AircraftCharacteristics.AIRBUS_A320,
+                new TaskList(List.of(new Task(TaskType.AWAY), new Task(TaskType.LAND),
+                        new Task(TaskType.LOAD, 50), new Task(TaskType.TAKEOFF))),
+                10000, 0);
+    }
+
+    @Test
+    public void findExact() {
+        assertSame(aircraft.get(1), index.find("UTD302"));
+        assertNull(index.find("UTD30"));
+        assertNull(index.find("ABC123"));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    public void findByPrefix() {
+        assertEquals(List.of(aircraft.get(2), aircraft.get(0)), index.findByPrefix("QFA", 10));
+        assertEquals(List.of(aircraft.get(2), aircraft.get(0), aircraft.get(4)),
+                index.findByPrefix("QF", 10));
+        assertEquals(List.of(aircraft.get(2)), index.findByPrefix("QF", 1));
+        assertEquals(List.of(aircraft.get(0)), index.findByPrefix("QFA481", 10));
+        assertEquals(List.of(), index.findByPrefix("Z", 10));
+        assertEquals(5, index.findByPrefix("", 10).size());
+    }
+
+    @Test
+    public void addAfterPrefixSearch() {
+        index.findByPrefix("U", 10);
+        Aircraft added = createAircraft("UAE007");
+        index.add(added);
+        assertEquals(List.of(added, aircraft.get(3), aircraft.get(1)),
+                index.findByPrefix("U", 10));
+    }
+
+    @Test
+    public void firstAddedKept() {
+        Aircraft duplicate = new FreightAircraft("QFA481", AircraftCharacteristics.BOEING_747_8F,
+                new TaskList(List.of(new Task(TaskType.AWAY), new Task(TaskType.LAND),
+                        new Task(TaskType.LOAD, 50), new Task(TaskType.TAKEOFF))), 10000, 0);
+        index.add(duplicate);
+        assertSame(aircraft.get(0), index.find("QFA481"));
+        assertEquals(5, index.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLimit() {
+        index.findByPrefix("Q", -1);
+    }
+}
@@ -0,0 +1,156 @@
+package towersim.control;
+
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.ground.Terminal;
+import towersim.sweep.SweepPoint;
+import towersim.util.MalformedSaveException;
+import towersim.verify.CanonicalState;
+import towersim.verify.Scenario;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ControlTowerForkTest {
+
+    /* Ticks the tower the given number of times */
+    private static void tick(ControlTower tower, int numTicks) {
+        for (int i = 0; i < numTicks; i++) {
+            tower.tick();
+        }
+    }
+
+    /* Returns the callsigns of the given aircraft, in order */
+    private static List<String> callsigns(List<Aircraft> aircraft) {
+        List<String> callsigns = new ArrayList<>();
+        for (Aircraft each : aircraft) {
+            callsigns.add(each.getCallsign());
+        }
+        return callsigns;
+    }
+
+    @Test
+    public void forkEvolvesLikeOriginal() throws MalformedSaveException {
+        for (long seed = 0; seed < 20; seed++) {
+            ControlTower tower = Scenario.generate(seed).createControlTower();
+            tick(tower, 75);
+            ControlTower fork = tower.fork();
+            assertEquals(CanonicalState.encode(tower), CanonicalState.encode(fork));
+            for (int i = 0; i < 12; i++) {
+                tick(tower, 25);
+                tick(fork, 25);
+                assertEquals("seed " + seed, CanonicalState.encode(tower),
+                        CanonicalState.encode(fork));
+            }
+        }
+    }
+
+    @Test
+    public void forkCopiesArrivalManager() throws MalformedSaveException {
+        SweepPoint point = new SweepPoint(1, 2, 20, 0, 0, 2);
+        ControlTower tower = point.toScenario(4).createControlTower();
+        tower.setArrivalManager(point.newArrivalManager());
+        tick(tower, 60);
+        assertFalse(tower.getArrivalManager().getHoldingAircraft().isEmpty());
+
+        ControlTower fork = tower.fork();
+        ArrivalManager original = tower.getArrivalManager();
+        ArrivalManager copy = fork.getArrivalManager();
+        assertNotSame(original, copy);
+        assertEquals(original.toString(), copy.toString());
+        assertEquals(callsigns(original.getHoldingAircraft()),
+                callsigns(copy.getHoldingAircraft()));
+        assertTrue(fork.getAircraft().containsAll(copy.getHoldingAircraft()));
+
+        tick(tower, 200);
+        tick(fork, 200);
+        assertEquals(CanonicalState.encode(tower), CanonicalState.encode(fork));
+        assertEquals(original.toString(), copy.toString());
+    }
+
+    @Test
+    public void branchesAreIndependent() throws MalformedSaveException {
+        ControlTower tower = Scenario.generate(6).createControlTower();
+        tick(tower, 100);
+        ControlTower untouched = tower.fork();
+        ControlTower branch = tower.fork();
+        List<String> before = CanonicalState.encode(tower);
+        Aircraft declared = branch.getAircraft().get(0);
+        declared.declareEmergency();
+        for (Terminal terminal : branch.getTerminals()) {
+            terminal.declareEmergency();
+        }
+        assertEquals(before, CanonicalState.encode(tower));
+        assertEquals(before, CanonicalState.encode(untouched));
+
+        for (int i = 0; i < 300; i++) {
+            tower.tick();
+            untouched.tick();
+            branch.tick();
+        }
+        assertEquals(CanonicalState.encode(tower), CanonicalState.encode(untouched));
+        assertNotEquals(CanonicalState.encode(tower), CanonicalState.encode(branch));
+        assertTrue(declared.hasEmergency());
+        assertFalse(tower.getAircraft().get(0).hasEmergency());
+    }
+
+    @Test
+    public void sharesUnchangingState() throws MalformedSaveException {
+        ControlTower tower = Scenario.generate(2).createControlTower();
+        tick(tower, 40);
+        ControlTower fork = tower.fork();
+        assertEquals(tower.getAircraft().size(), fork.getAircraft().size());
+        for (int i = 0; i < tower.getAircraft().size(); i++) {
+            Aircraft original = tower.getAircraft().get(i);
+            Aircraft copy = fork.getAircraft().get(i);
+            assertNotSame(original, copy);
+            assertSame(original.getClass(), copy.getClass());
+            assertSame(original.getCallsign(), copy.getCallsign());
+            assertSame(original.getCharacteristics(), copy.getCharacteristics());
+            assertNotSame(original.getTaskList(), copy.getTaskList());
+            assertEquals(original.getVersion(), copy.getVersion());
+            assertEquals(i, fork.getAircraftRegistry().getId(copy));
+            assertSame(copy, fork.getCallsignIndex().find(copy.getCallsign()));
+
+            int index = original.getTaskList().getCurrentTaskIndex();
+            copy.getTaskList().moveToNextTask();
+            assertEquals(index, original.getTaskList().getCurrentTaskIndex());
+        }
+        for (int i = 0; i < tower.getTerminals().size(); i++) {
+            assertSame(tower.getTerminals().get(i).getGroundResources(),
+                    fork.getTerminals().get(i).getGroundResources());
+        }
+    }
+
+    @Test
+    public void forksRunInParallel() throws Exception {
+        ControlTower tower = Scenario.generate(13).createControlTower();
+        tick(tower, 50);
+        List<String> before = CanonicalState.encode(tower);
+        ControlTower expected = tower.fork();
+        tick(expected, 400);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> branches = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                ControlTower fork = tower.fork();
+                branches.add(pool.submit(() -> {
+                    tick(fork, 400);
+                    return CanonicalState.encode(fork);
+                }));
+            }
+            for (Future<List<String>> branch : branches) {
+                assertEquals(CanonicalState.encode(expected), branch.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(before, CanonicalState.encode(tower));
+    }
+}
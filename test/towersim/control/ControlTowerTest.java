@@ -0,0 +1,208 @@
+package towersim.control;
+
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.ground.Gate;
+import towersim.ground.Terminal;
+import towersim.tasks.TaskType;
+import towersim.util.MalformedSaveException;
+import towersim.util.NoSpaceException;
+import towersim.util.NoSuitableGateException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ControlTowerTest {
+
+    private static final String[] AIRCRAFT = {
+        "PAX001:AIRBUS_A320:WAIT,LOAD@60,TAKEOFF,AWAY,LAND:20000.00:false:0",
+        "HEL001:ROBINSON_R44:LOAD@100,TAKEOFF,AWAY,LAND:150.00:false:0",
+        "FRT001:BOEING_747_8F:AWAY,LAND,LOAD@90,TAKEOFF:200000.00:false:0",
+        "PAX002:BOEING_787:LOAD@30,TAKEOFF,AWAY,LAND:100000.00:false:0",
+        "HEL002:ROBINSON_R44:WAIT,LOAD@20,TAKEOFF,AWAY,LAND:150.00:false:0",
+        "FRT002:BOEING_747_8F:TAKEOFF,AWAY,LAND,LOAD@40:200000.00:false:0",
+        "PAX003:FOKKER_100:LOAD@100,TAKEOFF,AWAY,LAND:10000.00:false:0",
+        "PAX004:AIRBUS_A320:WAIT,LOAD@100,TAKEOFF,AWAY,LAND:20000.00:false:0",
+        "HEL003:ROBINSON_R44:LOAD@100,TAKEOFF,AWAY,LAND:150.00:false:0",
+        "PAX005:AIRBUS_A320:LAND,LOAD@100,TAKEOFF,AWAY:20000.00:false:0",
+    };
+
+    private ControlTower sequential;
+    private ControlTower bulk;
+    private List<Aircraft> sequentialAircraft;
+    private List<Aircraft> bulkAircraft;
+
+    /* Creates a tower with no aircraft and a mix of terminals, one in a state of emergency */
+    private static ControlTower createTower() throws IOException, MalformedSaveException {
+        ControlTower tower = new ControlTower(0, new ArrayList<>(), new LandingQueue(),
+                new TakeoffQueue(), new HashMap<>());
+        String[] terminals = {
+            "AirplaneTerminal:1:false:1", "1:empty",
+            "HelicopterTerminal:2:false:1", "2:empty",
+            "AirplaneTerminal:3:true:2", "3:empty", "4:empty",
+            "AirplaneTerminal:4:false:2", "5:empty", "6:empty",
+            "HelicopterTerminal:5:false:1", "7:empty",
+        };
+        BufferedReader reader = new BufferedReader(new StringReader(
+                String.join(System.lineSeparator(), terminals)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            tower.addTerminal(ControlTowerInitialiser.readTerminal(line, reader,
+                    new ArrayList<>()));
+        }
+        return tower;
+    }
+
+    /* Creates new aircraft from their encoded representations */
+    private static List<Aircraft> createAircraft() throws MalformedSaveException {
+        List<Aircraft> aircraft = new ArrayList<>();
+        for (String encoded : AIRCRAFT) {
+            aircraft.add(ControlTowerInitialiser.readAircraft(encoded));
+        }
+        return aircraft;
+    }
+
+    /* Returns the callsign of the aircraft at each gate of the given tower */
+    private static List<String> gateOccupants(ControlTower tower) {
+        List<String> occupants = new ArrayList<>();
+        for (Terminal terminal : tower.getTerminals()) {
+            for (Gate gate : terminal.getGates()) {
+                occupants.add(gate.encode());
+            }
+        }
+        return occupants;
+    }
+
+    @Before
+    public void setUp() throws IOException, MalformedSaveException {
+        sequential = createTower();
+        bulk = createTower();
+        sequentialAircraft = createAircraft();
+        bulkAircraft = createAircraft();
+    }
+
+    @Test
+    public void addAllAircraftMatchesSequentialAdds() {
+        List<Aircraft> sequentialFailures = new ArrayList<>();
+        for (Aircraft aircraft : sequentialAircraft) {
+            try {
+                sequential.addAircraft(aircraft);
+            } catch (NoSuitableGateException e) {
+                sequentialFailures.add(aircraft);
+            }
+        }
+        List<Aircraft> bulkFailures = bulk.addAllAircraft(bulkAircraft);
+
+        assertEquals(sequentialFailures, bulkFailures);
+        assertEquals(sequential.getAircraft(), bulk.getAircraft());
+        assertEquals(gateOccupants(sequential), gateOccupants(bulk));
+        assertEquals(sequential.getLandingQueue().encode(), bulk.getLandingQueue().encode());
+        assertEquals(sequential.getTakeoffQueue().encode(), bulk.getTakeoffQueue().encode());
+        assertEquals(sequential.getLoadingAircraft().toString(),
+                bulk.getLoadingAircraft().toString());
+    }
+
+    @Test
+    public void addAllAircraftReportsFailures() {
+        List<Aircraft> failures = bulk.addAllAircraft(bulkAircraft);
+        // three airplane gates and two helicopter gates are free outside the emergency terminal
+        List<String> callsigns = new ArrayList<>();
+        for (Aircraft aircraft : failures) {
+            callsigns.add(aircraft.getCallsign());
+        }
+        assertEquals(List.of("PAX004", "HEL003"), callsigns);
+        assertFalse(bulk.getAircraft().containsAll(failures));
+        assertSame(bulkAircraft.get(9), bulk.getCallsignIndex().find("PAX005"));
+    }
+
+    @Test
+    public void landingFollowsGateChangesMadeOutsideTower() throws MalformedSaveException,
+            NoSpaceException, NoSuitableGateException {
+        List<Terminal> terminals = bulk.getTerminals();
+        // every airplane gate outside the emergency terminal becomes unavailable
+        terminals.get(0).getGates().get(0).parkAircraft(sequentialAircraft.get(0));
+        terminals.get(3).declareEmergency();
+        bulk.addAircraft(bulkAircraft.get(9)); // PAX005, landing
+        Aircraft helicopter = ControlTowerInitialiser.readAircraft(
+                "HEL009:ROBINSON_R44:LAND,LOAD@100,TAKEOFF,AWAY:150.00:false:0");
+        bulk.addAircraft(helicopter);
+
+        assertTrue(bulk.tryLandAircraft());
+        assertSame(helicopter, terminals.get(1).getGates().get(0).getAircraftAtGate());
+        assertEquals(1, bulk.getLandingQueue().getAircraftInOrder().size());
+
+        terminals.get(3).clearEmergency();
+        assertTrue(bulk.tryLandAircraft());
+        assertSame(bulkAircraft.get(9), terminals.get(3).getGates().get(0).getAircraftAtGate());
+        assertEquals(0, bulk.getLandingQueue().getAircraftInOrder().size());
+    }
+
+    @Test
+    public void listenersReceiveEvents() throws NoSuitableGateException {
+        List<String> events = new ArrayList<>();
+        bulk.addListener(new TowerListener() {
+            @Override
+            public void beforeTick(ControlTower tower) {
+                events.add("before");
+            }
+
+            @Override
+            public void afterTick(ControlTower tower) {
+                events.add("after");
+            }
+
+            @Override
+            public void aircraftLanded(long tick, Aircraft aircraft) {
+                events.add(tick + " landed " + aircraft.getCallsign());
+            }
+
+            @Override
+            public void aircraftTookOff(long tick, Aircraft aircraft) {
+                events.add(tick + " tookOff " + aircraft.getCallsign());
+            }
+
+            @Override
+            public void aircraftParked(long tick, Aircraft aircraft, Gate gate) {
+                events.add(tick + " parked " + aircraft.getCallsign() + " "
+                        + gate.getGateNumber());
+            }
+
+            @Override
+            public void taskAdvanced(long tick, Aircraft aircraft, TaskType taskType) {
+                events.add(tick + " advanced " + aircraft.getCallsign() + " " + taskType);
+            }
+
+            @Override
+            public void aircraftEmergencyChanged(long tick, Aircraft aircraft,
+                    boolean emergency) {
+                events.add(tick + " emergency " + aircraft.getCallsign() + " " + emergency);
+            }
+        });
+        bulk.addAircraft(bulkAircraft.get(5)); // FRT002, taking off
+        bulk.addAircraft(bulkAircraft.get(9)); // PAX005, landing
+
+        bulk.tick();
+        bulkAircraft.get(5).declareEmergency();
+        bulk.tick();
+
+        assertEquals(List.of(
+                "before",
+                "1 tookOff FRT002",
+                "1 advanced FRT002 AWAY",
+                "after",
+                "1 emergency FRT002 true",
+                "before",
+                "2 advanced FRT002 LAND",
+                "2 landed PAX005",
+                "2 parked PAX005 1",
+                "2 advanced PAX005 LOAD",
+                "after"), events);
+    }
+}
@@ -0,0 +1,320 @@
+package towersim.control;
+
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftCharacteristics;
+import towersim.aircraft.AircraftType;
+import towersim.aircraft.FreightAircraft;
+import towersim.ground.GroundResources;
+import towersim.ground.Terminal;
+import towersim.sweep.SweepPoint;
+import towersim.tasks.Task;
+import towersim.tasks.TaskList;
+import towersim.tasks.TaskType;
+import towersim.util.MalformedSaveException;
+import towersim.util.NoSuitableGateException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LandingForecasterTest {
+
+    private static final String AWAY = String.join(",", Collections.nCopies(60, "AWAY"));
+
+    private static final String[] QUEUED = {
+        "PAX001:AIRBUS_A320:LAND,WAIT,LOAD@60,TAKEOFF," + AWAY + ":20000.00:false:0",
+        "FRT001:BOEING_747_8F:LAND,LOAD@90,TAKEOFF," + AWAY + ":200000.00:false:0",
+        "PAX002:BOEING_787:LAND,WAIT,WAIT,WAIT,LOAD@30,TAKEOFF," + AWAY + ":100000.00:false:0",
+        "HEL001:ROBINSON_R44:LAND,WAIT,LOAD@100,TAKEOFF," + AWAY + ":150.00:false:0",
+        "FRT002:SIKORSKY_SKYCRANE:LAND,LOAD@10,TAKEOFF," + AWAY + ":3000.00:false:0",
+        "PAX003:FOKKER_100:LAND,LOAD@100,TAKEOFF," + AWAY + ":10000.00:false:0",
+        "FRT003:BOEING_747_8F:LAND,WAIT,LOAD@40,TAKEOFF," + AWAY + ":200000.00:false:0",
+        "HEL002:ROBINSON_R44:LAND,LOAD@20,TAKEOFF," + AWAY + ":150.00:false:0",
+        "PAX004:AIRBUS_A320:LAND,WAIT,LOAD@100,TAKEOFF," + AWAY + ":20000.00:false:0",
+    };
+
+    private ControlTower tower;
+
+    @Before
+    public void setUp() throws IOException, MalformedSaveException {
+        List<String> aircraft = new ArrayList<>();
+        aircraft.add(Integer.toString(QUEUED.length + 2));
+        aircraft.add("GATE01:BOEING_787:WAIT,WAIT,LOAD@100,TAKEOFF," + AWAY
+                + ",LAND:100000.00:false:0");
+        aircraft.add("LOADER:BOEING_787:LOAD@50,TAKEOFF," + AWAY
+                + ",LAND,WAIT:100000.00:false:0");
+        List<String> callsigns = new ArrayList<>();
+        for (String queued : QUEUED) {
+            aircraft.add(queued);
+            callsigns.add(queued.split(":")[0]);
+        }
+        String queues = String.join(System.lineSeparator(),
+                "TakeoffQueue:0",
+                "LandingQueue:" + callsigns.size(),
+                String.join(",", callsigns),
+                "LoadingAircraft:1",
+                "LOADER:2");
+        String terminals = String.join(System.lineSeparator(),
+                "2",
+                "AirplaneTerminal:1:false:3",
+                "1:GATE01",
+                "2:LOADER",
+                "3:empty",
+                "HelicopterTerminal:2:false:1",
+                "4:empty");
+        tower = ControlTowerInitialiser.createControlTower(new StringReader("3"),
+                new StringReader(String.join(System.lineSeparator(), aircraft)),
+                new StringReader(queues), new StringReader(terminals));
+    }
+
+    /* Ticks the tower until no aircraft is waiting to land, returning the tick each one landed */
+    private Map<Aircraft, Long> tickUntilLanded() {
+        Map<Aircraft, Long> landingTicks = new HashMap<>();
+        List<Aircraft> waiting = tower.getLandingQueue().getAircraftInOrder();
+        for (int i = 0; i < 100 && landingTicks.size() < waiting.size(); i++) {
+            tower.tick();
+            for (Aircraft aircraft : waiting) {
+                if (!landingTicks.containsKey(aircraft)
+                        && aircraft.getTaskList().getCurrentTask().getType() != TaskType.LAND) {
+                    landingTicks.put(aircraft, tower.getTicksElapsed());
+                }
+            }
+        }
+        return landingTicks;
+    }
+
+    @Test
+    public void forecastMatchesLandings() {
+        Map<Aircraft, Long> forecasts =
+                tower.getLandingForecaster().getForecastLandingTicks();
+        assertEquals(QUEUED.length, forecasts.size());
+        assertEquals(tickUntilLanded(), forecasts);
+    }
+
+    @Test
+    public void forecastInQueueOrder() {
+        Map<Aircraft, Long> forecasts =
+                tower.getLandingForecaster().getForecastLandingTicks();
+        assertEquals(tower.getLandingQueue().getAircraftInOrder(),
+                new ArrayList<>(forecasts.keySet()));
+        // the first landing tick is the next even tick
+        assertEquals(4L, (long) forecasts.values().iterator().next());
+    }
+
+    @Test
+    public void incrementalForecastMatchesFreshForecast() {
+        for (int i = 0; i < 40; i++) {
+            if (i == 5) {
+                tower.getLandingQueue().getAircraftInOrder().get(4).declareEmergency();
+            } else if (i == 11) {
+                tower.getTerminals().get(1).declareEmergency();
+            } else if (i == 17) {
+                tower.getTerminals().get(1).clearEmergency();
+            }
+            assertEquals("Forecast differs after " + i + " ticks",
+                    new LandingForecaster(tower).getForecastLandingTicks(),
+                    tower.getLandingForecaster().getForecastLandingTicks());
+            tower.tick();
+        }
+    }
+
+    /* Returns the given forecasts by callsign, keeping their order */
+    private static Map<String, Long> byCallsign(Map<Aircraft, Long> forecasts) {
+        Map<String, Long> byCallsign = new LinkedHashMap<>();
+        for (Map.Entry<Aircraft, Long> forecast : forecasts.entrySet()) {
+            byCallsign.put(forecast.getKey().getCallsign(), forecast.getValue());
+        }
+        return byCallsign;
+    }
+
+    @Test
+    public void incrementalForecastMatchesFreshForecastUnderChanges()
+            throws MalformedSaveException {
+        SweepPoint point = new SweepPoint(3, 3, 40, 0.3, 0, 20);
+        for (long seed = 1; seed <= 6; seed++) {
+            tower = point.toScenario(seed).createControlTower();
+            // aircraft at the first terminal wait for ground crew
+            tower.getTerminals().get(0).setGroundResources(new GroundResources(1, 1, 1));
+            Random random = new Random(seed);
+            for (int i = 0; i < 200; i++) {
+                List<Aircraft> aircraft = tower.getAircraft();
+                Aircraft chosen = aircraft.get(random.nextInt(aircraft.size()));
+                Terminal terminal = tower.getTerminals().get(random.nextInt(3));
+                int change = random.nextInt(20);
+                if (change == 0) {
+                    chosen.declareEmergency();
+                } else if (change == 1) {
+                    chosen.clearEmergency();
+                } else if (change == 2) {
+                    terminal.declareEmergency();
+                } else if (change == 3) {
+                    terminal.clearEmergency();
+                } else if (change == 4) {
+                    tower.getLandingQueue().setAgingPolicy(
+                            random.nextBoolean() ? null : new AgingPolicy(0, 10));
+                }
+                // changes build up between forecasts when they are not asked for every tick
+                if (random.nextInt(3) > 0) {
+                    assertEquals("Forecast differs after " + i + " ticks of scenario " + seed,
+                            new ArrayList<>(byCallsign(tower.fork().getLandingForecaster()
+                                    .getForecastLandingTicks()).entrySet()),
+                            new ArrayList<>(byCallsign(tower.getLandingForecaster()
+                                    .getForecastLandingTicks()).entrySet()));
+                }
+                tower.tick();
+            }
+        }
+    }
+
+    @Test
+    public void joiningAircraftTakesEarlierFreeGate() throws IOException,
+            MalformedSaveException, NoSuitableGateException {
+        String aircraft = String.join(System.lineSeparator(),
+                "4",
+                "LOADER:BOEING_787:LOAD@50,TAKEOFF," + AWAY + ",LAND,WAIT:100000.00:false:0",
+                QUEUED[0],
+                QUEUED[8],
+                QUEUED[3]);
+        String queues = String.join(System.lineSeparator(),
+                "TakeoffQueue:0",
+                "LandingQueue:3",
+                "PAX001,PAX004,HEL001",
+                "LoadingAircraft:1",
+                "LOADER:20");
+        String terminals = String.join(System.lineSeparator(),
+                "2",
+                "AirplaneTerminal:1:false:1",
+                "1:LOADER",
+                "HelicopterTerminal:2:false:1",
+                "2:empty");
+        tower = ControlTowerInitialiser.createControlTower(new StringReader("3"),
+                new StringReader(aircraft), new StringReader(queues),
+                new StringReader(terminals));
+        Map<Aircraft, Long> before = tower.getLandingForecaster().getForecastLandingTicks();
+        // a helicopter behind the airplanes lands once the helicopter in front of it has, while
+        // the airplanes wait for their only gate to be free
+        Aircraft helicopter = new FreightAircraft("HEL003",
+                AircraftCharacteristics.SIKORSKY_SKYCRANE,
+                new TaskList(List.of(new Task(TaskType.LAND), new Task(TaskType.LOAD, 10),
+                        new Task(TaskType.TAKEOFF), new Task(TaskType.AWAY))),
+                3000, 0);
+        tower.addAircraft(helicopter);
+        Map<Aircraft, Long> after = tower.getLandingForecaster().getForecastLandingTicks();
+        assertEquals(new ArrayList<>(byCallsign(tower.fork().getLandingForecaster()
+                        .getForecastLandingTicks()).entrySet()),
+                new ArrayList<>(byCallsign(after).entrySet()));
+        Aircraft airplane = tower.getCallsignIndex().find("PAX001");
+        assertTrue(after.get(helicopter) < after.get(airplane));
+        assertEquals(before.get(airplane), after.get(airplane));
+        assertEquals(tickUntilLanded(), after);
+    }
+
+    @Test
+    public void crewShortageHoldsUpGate() {
+        // the aircraft parked at the first gate never gets a crew to load it
+        tower.getTerminals().get(0).setGroundResources(new GroundResources(0, 0, 0));
+        for (int i = 0; i < 30; i++) {
+            assertEquals("Forecast differs after " + i + " ticks",
+                    new ArrayList<>(byCallsign(tower.fork().getLandingForecaster()
+                            .getForecastLandingTicks()).entrySet()),
+                    new ArrayList<>(byCallsign(tower.getLandingForecaster()
+                            .getForecastLandingTicks()).entrySet()));
+            tower.tick();
+        }
+    }
+
+    @Test
+    public void emergencyLandsNext() {
+        tower.getLandingForecaster().getForecastLandingTicks();
+        Aircraft last = tower.getLandingQueue().getAircraftInOrder().get(QUEUED.length - 1);
+        last.declareEmergency();
+        assertEquals(4, tower.getLandingForecaster().getForecastLandingTick(last));
+    }
+
+    @Test
+    public void terminalEmergencyHoldsUpType() {
+        tower.getTerminals().get(0).declareEmergency();
+        Map<Aircraft, Long> forecasts =
+                tower.getLandingForecaster().getForecastLandingTicks();
+        Map<Aircraft, Long> landingTicks = tickUntilLanded();
+        for (Map.Entry<Aircraft, Long> forecast : forecasts.entrySet()) {
+            if (forecast.getKey().getCharacteristics().type == AircraftType.AIRPLANE) {
+                assertEquals(LandingForecaster.UNKNOWN, (long) forecast.getValue());
+                assertFalse(landingTicks.containsKey(forecast.getKey()));
+            } else {
+                // helicopters are not held up by the airplanes in front of them
+                assertEquals(landingTicks.get(forecast.getKey()), forecast.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void blockedTypeDoesNotHoldUpQueue() {
+        tower.getTerminals().get(1).declareEmergency();
+        Aircraft helicopter = tower.getCallsignIndex().find("HEL001");
+        helicopter.declareEmergency();
+        assertSame(helicopter, tower.getLandingQueue().peekAircraft());
+        Map<Aircraft, Long> forecasts =
+                tower.getLandingForecaster().getForecastLandingTicks();
+        forecasts.values().removeIf(forecast -> forecast == LandingForecaster.UNKNOWN);
+        Map<Aircraft, Long> landingTicks = tickUntilLanded();
+        assertEquals(landingTicks, forecasts);
+        // airplanes behind the helicopter land while it waits for a gate
+        assertEquals(4L, (long) landingTicks.get(tower.getCallsignIndex().find("PAX001")));
+        assertFalse(landingTicks.containsKey(helicopter));
+    }
+
+    @Test
+    public void gateHeldByWaitOnlyAircraftNeverFrees() throws IOException,
+            MalformedSaveException {
+        String aircraft = String.join(System.lineSeparator(),
+                "3",
+                "PARKED:BOEING_787:WAIT:100000.00:false:0",
+                QUEUED[0],
+                QUEUED[3]);
+        String queues = String.join(System.lineSeparator(),
+                "TakeoffQueue:0",
+                "LandingQueue:2",
+                "PAX001,HEL001",
+                "LoadingAircraft:0");
+        String terminals = String.join(System.lineSeparator(),
+                "2",
+                "AirplaneTerminal:1:false:1",
+                "1:PARKED",
+                "HelicopterTerminal:2:false:1",
+                "2:empty");
+        tower = ControlTowerInitialiser.createControlTower(new StringReader("3"),
+                new StringReader(aircraft), new StringReader(queues),
+                new StringReader(terminals));
+        Aircraft airplane = tower.getCallsignIndex().find("PAX001");
+        Aircraft helicopter = tower.getCallsignIndex().find("HEL001");
+
+        Map<Aircraft, Long> forecasts =
+                tower.getLandingForecaster().getForecastLandingTicks();
+        assertEquals(LandingForecaster.UNKNOWN, (long) forecasts.get(airplane));
+        assertEquals(4L, (long) forecasts.get(helicopter));
+        for (int i = 0; i < 20; i++) {
+            tower.tick();
+            assertEquals(LandingForecaster.UNKNOWN,
+                    tower.getLandingForecaster().getForecastLandingTick(airplane));
+        }
+        assertEquals(TaskType.LAND, airplane.getTaskList().getCurrentTask().getType());
+    }
+
+    @Test
+    public void notWaitingToLand() {
+        Aircraft atGate = tower.getAircraft().get(0);
+        assertEquals(LandingForecaster.UNKNOWN,
+                tower.getLandingForecaster().getForecastLandingTick(atGate));
+    }
+}
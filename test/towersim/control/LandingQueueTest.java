@@ -4,6 +4,7 @@ import org.junit.Before;
 import org.junit.Test;
 import towersim.aircraft.Aircraft;
 import towersim.aircraft.AircraftCharacteristics;
+import towersim.aircraft.AircraftType;
 import towersim.aircraft.FreightAircraft;
 import towersim.aircraft.PassengerAircraft;
 import towersim.tasks.Task;
@@ -11,7 +12,10 @@ import towersim.tasks.TaskList;
 import towersim.tasks.TaskType;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -261,6 +265,21 @@ public class LandingQueueTest {
         assertEquals(2, landingQueue1.getAircraftInOrder().size());
     }
 
+    @Test
+    public void sizeMatchesListSize() {
+        TakeoffQueue takeoffQueue = new TakeoffQueue();
+        for (AircraftQueue queue : List.of(landingQueue1, takeoffQueue)) {
+            assertEquals(0, queue.size());
+            queue.addAircraft(freightAircraft2);
+            queue.addAircraft(passengerAircraft2);
+            queue.addAircraft(passengerAircraft1);
+            assertEquals(queue.getAircraftInOrder().size(), queue.size());
+            queue.removeAircraft();
+            assertEquals(queue.getAircraftInOrder().size(), queue.size());
+            assertEquals(2, queue.size());
+        }
+    }
+
     @Test
     public void removeAircraft_Test5() {
         landingQueue1.addAircraft(freightAircraft2);
@@ -624,4 +643,276 @@ public class LandingQueueTest {
         assertEquals("LandingQueue [ABC002, XYZ987, ABC123]", landingQueue1.toString());
     }
 
+    @Test
+    public void peekAircraftOfTypes() {
+        PassengerAircraft helicopter = new PassengerAircraft("HEL001",
+                AircraftCharacteristics.ROBINSON_R44,
+                new TaskList(List.of(new Task(TaskType.AWAY), new Task(TaskType.LAND),
+                        new Task(TaskType.LOAD), new Task(TaskType.TAKEOFF))),
+                AircraftCharacteristics.ROBINSON_R44.fuelCapacity, 0);
+        landingQueue1.addAircraft(passengerAircraft1);
+        landingQueue1.addAircraft(helicopter);
+        helicopter.declareEmergency();
+
+        assertSame(helicopter, landingQueue1.peekAircraft());
+        assertSame(passengerAircraft1,
+                landingQueue1.peekAircraft(EnumSet.of(AircraftType.AIRPLANE)));
+        assertNull(landingQueue1.peekAircraft(EnumSet.noneOf(AircraftType.class)));
+    }
+
+    @Test
+    public void removeAircraftOfTypes() {
+        PassengerAircraft helicopter = new PassengerAircraft("HEL001",
+                AircraftCharacteristics.ROBINSON_R44,
+                new TaskList(List.of(new Task(TaskType.AWAY), new Task(TaskType.LAND),
+                        new Task(TaskType.LOAD), new Task(TaskType.TAKEOFF))),
+                AircraftCharacteristics.ROBINSON_R44.fuelCapacity, 0);
+        landingQueue1.addAircraft(helicopter);
+        landingQueue1.addAircraft(freightAircraft1);
+        landingQueue1.addAircraft(passengerAircraft1);
+
+        assertSame(passengerAircraft1,
+                landingQueue1.removeAircraft(EnumSet.of(AircraftType.AIRPLANE)));
+        assertSame(freightAircraft1,
+                landingQueue1.removeAircraft(EnumSet.of(AircraftType.AIRPLANE)));
+        assertNull(landingQueue1.removeAircraft(EnumSet.of(AircraftType.AIRPLANE)));
+        assertEquals(List.of(helicopter), landingQueue1.getAircraftInOrder());
+    }
+
+    @Test
+    public void agingPromotesWaitingAircraft() {
+        landingQueue1.setAgingPolicy(new AgingPolicy(0, 20));
+        landingQueue1.addAircraft(freightAircraft1);
+        for (int i = 0; i < 19; i++) {
+            landingQueue1.tick();
+        }
+        // passenger aircraft are in front until the freight aircraft has waited 20 ticks
+        landingQueue1.addAircraft(passengerAircraft1);
+        landingQueue1.tick();
+        landingQueue1.addAircraft(passengerAircraft2);
+        assertEquals(List.of(passengerAircraft1, freightAircraft1, passengerAircraft2),
+                landingQueue1.getAircraftInOrder());
+        assertSame(passengerAircraft1, landingQueue1.removeAircraft());
+        assertSame(freightAircraft1, landingQueue1.peekAircraft());
+    }
+
+    @Test
+    public void agingKeepsEmergenciesInFront() {
+        landingQueue1.setAgingPolicy(new AgingPolicy(0, 5));
+        landingQueue1.addAircraft(freightAircraft1);
+        for (int i = 0; i < 10; i++) {
+            landingQueue1.tick();
+        }
+        landingQueue1.addAircraft(passengerAircraft1);
+        assertSame(freightAircraft1, landingQueue1.peekAircraft());
+        passengerAircraft1.declareEmergency();
+        assertSame(passengerAircraft1, landingQueue1.peekAircraft());
+    }
+
+    @Test
+    public void removingAgingPolicy() {
+        landingQueue1.setAgingPolicy(new AgingPolicy(0, 0));
+        landingQueue1.addAircraft(freightAircraft1);
+        landingQueue1.tick();
+        landingQueue1.addAircraft(passengerAircraft1);
+        assertSame(freightAircraft1, landingQueue1.peekAircraft());
+        landingQueue1.setAgingPolicy(null);
+        assertSame(passengerAircraft1, landingQueue1.peekAircraft());
+    }
+
+    @Test
+    public void rankChangesWhileQueuedMoveAircraft() {
+        landingQueue1.addAircraft(passengerAircraft1);
+        landingQueue1.addAircraft(freightAircraft1);
+        landingQueue1.addAircraft(freightAircraft2);
+        assertSame(passengerAircraft1, landingQueue1.peekAircraft());
+        freightAircraft2.setFuelAmount(AircraftCharacteristics.BOEING_747_8F.fuelCapacity * 0.1);
+        assertSame(freightAircraft2, landingQueue1.peekAircraft());
+        freightAircraft1.declareEmergency();
+        assertSame(freightAircraft1, landingQueue1.removeAircraft());
+        freightAircraft2.setFuelAmount(AircraftCharacteristics.BOEING_747_8F.fuelCapacity);
+        assertEquals(List.of(passengerAircraft1, freightAircraft2),
+                landingQueue1.getAircraftInOrder());
+
+        // aircraft that have left the queue no longer move within it
+        assertSame(passengerAircraft1, landingQueue1.removeAircraft());
+        assertSame(freightAircraft2, landingQueue1.removeAircraft());
+        landingQueue1.addAircraft(passengerAircraft2);
+        freightAircraft2.declareEmergency();
+        assertEquals(List.of(passengerAircraft2), landingQueue1.getAircraftInOrder());
+    }
+
+    @Test
+    public void orderMatchesLinearScan() {
+        Random random = new Random(34);
+        List<Aircraft> pool = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            pool.add(i % 3 == 0
+                    ? new FreightAircraft("FRT" + i, AircraftCharacteristics.BOEING_747_8F,
+                            new TaskList(List.of(new Task(TaskType.LAND), new Task(TaskType.LOAD),
+                                    new Task(TaskType.TAKEOFF), new Task(TaskType.AWAY))),
+                            AircraftCharacteristics.BOEING_747_8F.fuelCapacity, 0)
+                    : new PassengerAircraft("PAX" + i, i % 3 == 1
+                            ? AircraftCharacteristics.AIRBUS_A320
+                            : AircraftCharacteristics.ROBINSON_R44,
+                            new TaskList(List.of(new Task(TaskType.LAND), new Task(TaskType.LOAD),
+                                    new Task(TaskType.TAKEOFF), new Task(TaskType.AWAY))),
+                            i % 3 == 1 ? AircraftCharacteristics.AIRBUS_A320.fuelCapacity
+                                    : AircraftCharacteristics.ROBINSON_R44.fuelCapacity, 0));
+        }
+        // distinct aircraft in the queue in the order they were added, and when they were added
+        List<Aircraft> added = new ArrayList<>();
+        List<Long> addedTicks = new ArrayList<>();
+        long ticks = 0;
+        for (int step = 0; step < 2000; step++) {
+            Aircraft aircraft = pool.get(random.nextInt(pool.size()));
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    int index = added.indexOf(aircraft);
+                    if (index >= 0) {
+                        added.remove(index);
+                        addedTicks.remove(index);
+                    }
+                    added.add(aircraft);
+                    addedTicks.add(ticks);
+                    landingQueue1.addAircraft(aircraft);
+                    break;
+                case 2:
+                    Aircraft removed = landingQueue1.removeAircraft();
+                    if (removed != null && !landingQueue1.containsAircraft(removed)) {
+                        addedTicks.remove(added.indexOf(removed));
+                        added.remove(removed);
+                    }
+                    break;
+                case 3:
+                    if (aircraft.hasEmergency()) {
+                        aircraft.clearEmergency();
+                    } else {
+                        aircraft.declareEmergency();
+                    }
+                    break;
+                case 4:
+                    double capacity = aircraft.getCharacteristics().fuelCapacity;
+                    aircraft.setFuelAmount(random.nextBoolean() ? capacity : capacity * 0.1);
+                    break;
+                default:
+                    landingQueue1.tick();
+                    ticks++;
+                    if (random.nextInt(20) == 0) {
+                        landingQueue1.setAgingPolicy(random.nextBoolean()
+                                ? null : new AgingPolicy(random.nextInt(5), random.nextInt(5)));
+                    }
+            }
+
+            // the front aircraft by a linear scan of the aircraft in added order
+            Aircraft front = null;
+            long frontPriority = 0;
+            List<Long> priorities = new ArrayList<>();
+            for (int i = 0; i < added.size(); i++) {
+                Aircraft queued = added.get(i);
+                long priority;
+                if (queued.hasEmergency()) {
+                    priority = 0;
+                } else if (queued.getFuelPercentRemaining() <= 20) {
+                    priority = 1;
+                } else {
+                    boolean passenger = queued instanceof PassengerAircraft;
+                    AgingPolicy policy = landingQueue1.getAgingPolicy();
+                    priority = policy == null ? (passenger ? 2 : 3) : 2 + addedTicks.get(i)
+                            + (passenger ? policy.getPassengerWeight() : policy.getOtherWeight());
+                }
+                priorities.add(priority);
+                if (front == null || priority < frontPriority) {
+                    front = queued;
+                    frontPriority = priority;
+                }
+            }
+            assertSame(front, landingQueue1.peekAircraft());
+
+            // the whole queue is in order of priority, then added order
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < added.size(); i++) {
+                order.add(i);
+            }
+            order.sort(Comparator.comparingLong(priorities::get));
+            List<Aircraft> expected = new ArrayList<>();
+            for (int i : order) {
+                expected.add(added.get(i));
+            }
+            List<Aircraft> distinct = new ArrayList<>();
+            for (Aircraft queued : landingQueue1.getAircraftInOrder()) {
+                // copies of an aircraft added more than once are next to each other
+                if (distinct.isEmpty() || distinct.get(distinct.size() - 1) != queued) {
+                    distinct.add(queued);
+                }
+            }
+            assertEquals(expected, distinct);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeAgingWeight() {
+        new AgingPolicy(-1, 10);
+    }
+
+    @Test
+    public void versionIncreasesWhenQueueChanges() {
+        long version = landingQueue1.getVersion();
+        landingQueue1.addAircraft(passengerAircraft1);
+        landingQueue1.addAircraft(freightAircraft1);
+        assertTrue(landingQueue1.getVersion() > version);
+
+        version = landingQueue1.getVersion();
+        landingQueue1.peekAircraft();
+        landingQueue1.getAircraftInOrder();
+        landingQueue1.tick();
+        assertEquals(version, landingQueue1.getVersion());
+
+        landingQueue1.setAgingPolicy(new AgingPolicy(0, 5));
+        assertTrue(landingQueue1.getVersion() > version);
+
+        // an emergency moves the aircraft forward
+        version = landingQueue1.getVersion();
+        freightAircraft1.declareEmergency();
+        assertTrue(landingQueue1.getVersion() > version);
+
+        version = landingQueue1.getVersion();
+        landingQueue1.removeAircraft();
+        assertTrue(landingQueue1.getVersion() > version);
+    }
+
+    @Test
+    public void setEntryRestoresPlace() {
+        landingQueue1.addAircraft(passengerAircraft1);
+        landingQueue1.addAircraft(passengerAircraft2);
+        landingQueue1.addAircraft(freightAircraft2);
+        int order = landingQueue1.getAddedOrder(passengerAircraft2);
+        List<Aircraft> expected = landingQueue1.getAircraftInOrder();
+
+        List<String> changes = new ArrayList<>();
+        landingQueue1.addListener(new QueueListener() {
+            @Override
+            public void aircraftAdded(AircraftQueue queue, Aircraft aircraft) {
+                changes.add("added " + aircraft.getCallsign());
+            }
+
+            @Override
+            public void aircraftRemoved(AircraftQueue queue, Aircraft aircraft) {
+                changes.add("removed " + aircraft.getCallsign());
+            }
+
+            @Override
+            public void aircraftMoved(AircraftQueue queue, Aircraft aircraft) {
+                changes.add("moved " + aircraft.getCallsign());
+            }
+        });
+        landingQueue1.setEntry(passengerAircraft2, 0, 0, 0);
+        assertEquals(0, landingQueue1.getCount(passengerAircraft2));
+        assertFalse(landingQueue1.containsAircraft(passengerAircraft2));
+        // putting it back with its old added order restores its place among equal aircraft
+        landingQueue1.setEntry(passengerAircraft2, 1, order, 0);
+        assertEquals(expected, landingQueue1.getAircraftInOrder());
+        assertEquals(List.of("removed XYZ987", "added XYZ987"), changes);
+    }
 }
@@ -0,0 +1,255 @@
+package towersim.control;
+
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.ground.AirplaneTerminal;
+import towersim.ground.Gate;
+import towersim.ground.GroundResources;
+import towersim.ground.Terminal;
+import towersim.util.MalformedSaveException;
+import towersim.util.NoSuitableGateException;
+import towersim.util.NoSpaceException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class LoadingSchedulerTest {
+
+    private ControlTower tower;
+    private Aircraft slowPassengers;
+    private Aircraft fastPassengers;
+    private Aircraft freight;
+
+    /* Creates a tower whose airplane terminal has the given encoded ground resources */
+    private static ControlTower createTower(String groundResources)
+            throws IOException, MalformedSaveException {
+        return createTower(groundResources, "LoadingAircraft:0");
+    }
+
+    /*
+     * Creates a tower whose airplane terminal has the given encoded ground resources, with the
+     * given encoded loading aircraft
+     */
+    private static ControlTower createTower(String groundResources, String loadingAircraft)
+            throws IOException, MalformedSaveException {
+        String aircraft = String.join(System.lineSeparator(),
+                "3",
+                // 150 passengers take 2 ticks to load
+                "PAX001:AIRBUS_A320:LOAD@100,TAKEOFF,AWAY,LAND:10000.00:false:0",
+                // 15 passengers take 1 tick to load
+                "PAX002:AIRBUS_A320:LOAD@10,TAKEOFF,AWAY,LAND:10000.00:false:0",
+                // 123980kg of freight takes 3 ticks to load
+                "FRT001:BOEING_747_8F:LOAD@90,TAKEOFF,AWAY,LAND:100000.00:false:0");
+        String queues = String.join(System.lineSeparator(),
+                "TakeoffQueue:0",
+                "LandingQueue:0",
+                loadingAircraft);
+        String terminals = String.join(System.lineSeparator(),
+                "1",
+                "AirplaneTerminal:1:false:3" + groundResources,
+                "1:PAX001",
+                "2:PAX002",
+                "3:FRT001");
+        return ControlTowerInitialiser.createControlTower(new StringReader("0"),
+                new StringReader(aircraft), new StringReader(queues),
+                new StringReader(terminals));
+    }
+
+    @Before
+    public void setUp() throws IOException, MalformedSaveException {
+        tower = createTower(":1:1:2");
+        slowPassengers = tower.getCallsignIndex().find("PAX001");
+        fastPassengers = tower.getCallsignIndex().find("PAX002");
+        freight = tower.getCallsignIndex().find("FRT001");
+    }
+
+    @Test
+    public void shortestLoadingTimeFirst() {
+        tower.placeAllAircraftInQueues();
+        // only one passenger crew, which goes to the aircraft that will free its gate first
+        assertEquals(Set.of(fastPassengers, freight), tower.getLoadingAircraft().keySet());
+        assertEquals(List.of(slowPassengers),
+                tower.getLoadingScheduler().getAircraftWaitingForCrew());
+        assertTrue(tower.getLoadingScheduler().isWaitingForCrew(slowPassengers));
+        assertFalse(tower.getLoadingScheduler().isWaitingForCrew(freight));
+    }
+
+    @Test
+    public void crewMovesOnWhenLoadingFinishes() {
+        tower.placeAllAircraftInQueues();
+        double fuel = slowPassengers.getFuelAmount();
+        tower.tick();
+        assertNull(tower.findGateOfAircraft(fastPassengers));
+        assertEquals(2, (int) tower.getLoadingAircraft().get(slowPassengers));
+        // nothing was loaded while the aircraft waited for its crew
+        assertEquals(fuel, slowPassengers.getFuelAmount(), 1e-9);
+        assertTrue(tower.getLoadingScheduler().getAircraftWaitingForCrew().isEmpty());
+    }
+
+    @Test
+    public void emergencyFirst() {
+        slowPassengers.declareEmergency();
+        tower.placeAllAircraftInQueues();
+        assertEquals(Set.of(slowPassengers, freight), tower.getLoadingAircraft().keySet());
+    }
+
+    @Test
+    public void fuelTrucksLimitLoading() throws IOException, MalformedSaveException {
+        tower = createTower(":2:1:1");
+        tower.placeAllAircraftInQueues();
+        assertEquals(Set.of(tower.getCallsignIndex().find("PAX002")),
+                tower.getLoadingAircraft().keySet());
+    }
+
+    @Test
+    public void unlimitedWithoutGroundResources() throws IOException, MalformedSaveException {
+        tower = createTower("");
+        tower.placeAllAircraftInQueues();
+        assertEquals(3, tower.getLoadingAircraft().size());
+        assertTrue(tower.getLoadingScheduler().getAircraftWaitingForCrew().isEmpty());
+    }
+
+    @Test
+    public void savedLoadingAircraftHoldCrew() throws IOException, MalformedSaveException {
+        tower = createTower(":1:1:2", String.join(System.lineSeparator(),
+                "LoadingAircraft:1",
+                "PAX001:2"));
+        tower.placeAllAircraftInQueues();
+        // the passenger crew is still loading the aircraft it was loading when saved
+        assertEquals(Set.of(tower.getCallsignIndex().find("PAX001"),
+                tower.getCallsignIndex().find("FRT001")), tower.getLoadingAircraft().keySet());
+        tower.tick();
+        tower.tick();
+        assertEquals(Set.of(tower.getCallsignIndex().find("PAX002"),
+                tower.getCallsignIndex().find("FRT001")), tower.getLoadingAircraft().keySet());
+    }
+
+    @Test
+    public void forkKeepsCrewInUse() {
+        tower.placeAllAircraftInQueues();
+        ControlTower fork = tower.fork();
+        fork.placeAllAircraftInQueues();
+        assertEquals(List.of(fork.getCallsignIndex().find("PAX001")),
+                fork.getLoadingScheduler().getAircraftWaitingForCrew());
+        Aircraft loaded = fork.getCallsignIndex().find("PAX002");
+        fork.getLoadingAircraft().remove(loaded);
+        loaded.getTaskList().moveToNextTask();
+        fork.placeAllAircraftInQueues();
+        // the crew freed by the aircraft removed from the loading map moves on
+        assertTrue(fork.getLoadingAircraft().containsKey(fork.getCallsignIndex().find("PAX001")));
+        assertTrue(tower.getLoadingScheduler().isWaitingForCrew(slowPassengers));
+    }
+
+    /* Creates a tower without aircraft, with two airplane terminals with ground resources */
+    private static ControlTower createEmptyTower() throws NoSpaceException {
+        ControlTower empty = new ControlTower(0, new ArrayList<>(), new LandingQueue(),
+                new TakeoffQueue(), new HashMap<>());
+        for (int i = 1; i <= 2; i++) {
+            Terminal terminal = new AirplaneTerminal(i);
+            terminal.setGroundResources(new GroundResources(i, 1, i + 1));
+            for (int j = 1; j <= 3; j++) {
+                terminal.addGate(new Gate(10 * i + j));
+            }
+            empty.addTerminal(terminal);
+        }
+        return empty;
+    }
+
+    /* Reads the given encoded aircraft */
+    private static List<Aircraft> readAircraft(List<String> encoded)
+            throws MalformedSaveException {
+        List<Aircraft> aircraft = new ArrayList<>();
+        for (String each : encoded) {
+            aircraft.add(ControlTowerInitialiser.readAircraft(each));
+        }
+        return aircraft;
+    }
+
+    /* Returns the loading time remaining of each loading aircraft, by callsign */
+    private static Map<String, Integer> loadingTimes(ControlTower tower) {
+        Map<String, Integer> loading = new HashMap<>();
+        for (Map.Entry<Aircraft, Integer> entry : tower.getLoadingAircraft().entrySet()) {
+            loading.put(entry.getKey().getCallsign(), entry.getValue());
+        }
+        return loading;
+    }
+
+    /* Returns the callsigns of the aircraft waiting for ground crew, in the order given crew */
+    private static List<String> waitingForCrew(ControlTower tower) {
+        List<String> callsigns = new ArrayList<>();
+        for (Aircraft aircraft : tower.getLoadingScheduler().getAircraftWaitingForCrew()) {
+            callsigns.add(aircraft.getCallsign());
+        }
+        return callsigns;
+    }
+
+    @Test
+    public void addAllMatchesSequentialAdds() throws MalformedSaveException, NoSpaceException {
+        List<String> encoded = List.of(
+                "PAX001:AIRBUS_A320:LOAD@100,TAKEOFF,AWAY,LAND:10000.00:false:0",
+                "PAX002:AIRBUS_A320:LOAD@10,TAKEOFF,AWAY,LAND:10000.00:false:0",
+                "FRT001:BOEING_747_8F:LOAD@90,TAKEOFF,AWAY,LAND:100000.00:false:0",
+                "PAX003:AIRBUS_A320:AWAY,LAND,LOAD@50,TAKEOFF:10000.00:false:0",
+                "PAX004:AIRBUS_A320:LOAD@50,TAKEOFF,AWAY,LAND:10000.00:true:0",
+                "FRT002:BOEING_747_8F:LOAD@20,TAKEOFF,AWAY,LAND:100000.00:false:0",
+                "PAX005:AIRBUS_A320:WAIT,LOAD@30,TAKEOFF,AWAY,LAND:10000.00:false:0",
+                // no gate is left for this aircraft
+                "PAX006:AIRBUS_A320:LOAD@5,TAKEOFF,AWAY,LAND:10000.00:false:0");
+
+        ControlTower sequential = createEmptyTower();
+        List<String> notAddedSequentially = new ArrayList<>();
+        for (Aircraft aircraft : readAircraft(encoded)) {
+            try {
+                sequential.addAircraft(aircraft);
+            } catch (NoSuitableGateException ex) {
+                notAddedSequentially.add(aircraft.getCallsign());
+            }
+        }
+        ControlTower bulk = createEmptyTower();
+        List<String> notAdded = new ArrayList<>();
+        for (Aircraft aircraft : bulk.addAllAircraft(readAircraft(encoded))) {
+            notAdded.add(aircraft.getCallsign());
+        }
+
+        assertEquals(List.of("PAX006"), notAddedSequentially);
+        assertEquals(notAddedSequentially, notAdded);
+        assertEquals(loadingTimes(sequential), loadingTimes(bulk));
+        assertEquals(waitingForCrew(sequential), waitingForCrew(bulk));
+        // the slow passenger aircraft was added first, so it has the first terminal's crew
+        assertTrue(loadingTimes(bulk).containsKey("PAX001"));
+        assertFalse(waitingForCrew(bulk).isEmpty());
+        for (int i = 0; i < 20; i++) {
+            sequential.tick();
+            bulk.tick();
+        }
+        assertEquals(loadingTimes(sequential), loadingTimes(bulk));
+        assertEquals(waitingForCrew(sequential), waitingForCrew(bulk));
+    }
+
+    @Test
+    public void groundResourcesAreSaved() throws IOException, MalformedSaveException {
+        Terminal terminal = tower.getTerminals().get(0);
+        String[] encoded = terminal.encode().split(System.lineSeparator(), 2);
+        assertEquals("AirplaneTerminal:1:false:3:1:1:2", encoded[0]);
+        Terminal read = ControlTowerInitialiser.readTerminal(encoded[0],
+                new BufferedReader(new StringReader(encoded[1])), tower.getAircraft());
+        GroundResources resources = read.getGroundResources();
+        assertEquals(1, resources.getPassengerCrews());
+        assertEquals(1, resources.getFreightCrews());
+        assertEquals(2, resources.getFuelTrucks());
+    }
+
+    @Test(expected = MalformedSaveException.class)
+    public void negativeGroundResources() throws IOException, MalformedSaveException {
+        createTower(":1:-1:2");
+    }
+}
@@ -0,0 +1,242 @@
+package towersim.control;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.ground.Terminal;
+import towersim.util.MalformedSaveException;
+import towersim.verify.CanonicalState;
+import towersim.verify.Scenario;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PipelinedLoadingTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /* Encodes the tower into the contents of its four save files */
+    private static String[] save(ControlTower tower) {
+        String newline = System.lineSeparator();
+        StringJoiner aircraft = new StringJoiner(newline);
+        aircraft.add(Integer.toString(tower.getAircraft().size()));
+        for (Aircraft eachAircraft : tower.getAircraft()) {
+            aircraft.add(eachAircraft.encode());
+        }
+        StringJoiner loading = new StringJoiner(",");
+        for (Map.Entry<Aircraft, Integer> entry : tower.getLoadingAircraft().entrySet()) {
+            loading.add(entry.getKey().getCallsign() + ":" + entry.getValue());
+        }
+        StringJoiner queues = new StringJoiner(newline);
+        queues.add(tower.getTakeoffQueue().encode());
+        queues.add(tower.getLandingQueue().encode());
+        queues.add("LoadingAircraft:" + tower.getLoadingAircraft().size());
+        if (!tower.getLoadingAircraft().isEmpty()) {
+            queues.add(loading.toString());
+        }
+        StringJoiner terminals = new StringJoiner(newline);
+        terminals.add(Integer.toString(tower.getTerminals().size()));
+        for (Terminal terminal : tower.getTerminals()) {
+            terminals.add(terminal.encode());
+        }
+        return new String[] {Long.toString(tower.getTicksElapsed()), aircraft.toString(),
+            queues.toString(), terminals.toString()};
+    }
+
+    /* Loads the save one file after another, returning its state or the exception thrown */
+    private static Object loadSequentially(String[] files) {
+        return loadSequentially(files, SaveLimits.DEFAULT);
+    }
+
+    /* Loads the save one file after another within the given limits */
+    private static Object loadSequentially(String[] files, SaveLimits limits) {
+        try {
+            return CanonicalState.encode(ControlTowerInitialiser.createControlTower(
+                    new StringReader(files[0]), new StringReader(files[1]),
+                    new StringReader(files[2]), new StringReader(files[3]), limits));
+        } catch (MalformedSaveException | IOException | RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    /* Loads the save with all files at once, returning its state or the exception thrown */
+    private Object loadConcurrently(String[] files) {
+        return loadConcurrently(files, SaveLimits.DEFAULT, executor);
+    }
+
+    /* Loads the save with all files at once within the given limits */
+    private static Object loadConcurrently(String[] files, SaveLimits limits,
+                                           Executor executor) {
+        try {
+            return CanonicalState.encode(ControlTowerInitialiser.createControlTower(
+                    new StringReader(files[0]), new StringReader(files[1]),
+                    new StringReader(files[2]), new StringReader(files[3]),
+                    limits, executor));
+        } catch (MalformedSaveException | IOException | RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    private static String[][] savesWithLinks() throws MalformedSaveException {
+        String[][] saves = new String[20][];
+        for (int seed = 0; seed < saves.length; seed++) {
+            ControlTower tower = Scenario.generate(seed).createControlTower();
+            for (int i = 0; i < 60 + seed * 7; i++) {
+                tower.tick();
+            }
+            saves[seed] = save(tower);
+        }
+        return saves;
+    }
+
+    @Test
+    public void loadsSameTowerAsSequentialLoading() throws MalformedSaveException {
+        int linked = 0;
+        for (String[] files : savesWithLinks()) {
+            Object expected = loadSequentially(files);
+            assertTrue(expected.toString(), expected instanceof List);
+            assertEquals(expected, loadConcurrently(files));
+            if (!files[2].startsWith("TakeoffQueue:0") || files[3].matches("(?s).*:[A-Z].*")) {
+                linked++;
+            }
+        }
+        // the saves refer to aircraft from their queues and gates
+        assertTrue(linked > 0);
+    }
+
+    @Test
+    public void reportsSameErrorsAsSequentialLoading() throws MalformedSaveException {
+        Random random = new Random(48);
+        String corruptions = "x:,0-9 \n";
+        int rejected = 0;
+        for (String[] save : savesWithLinks()) {
+            for (int i = 0; i < 40; i++) {
+                String[] files = save.clone();
+                int file = random.nextInt(files.length);
+                StringBuilder contents = new StringBuilder(files[file]);
+                int position = random.nextInt(contents.length());
+                contents.setCharAt(position,
+                        corruptions.charAt(random.nextInt(corruptions.length())));
+                files[file] = contents.toString();
+                if (random.nextInt(4) == 0) {
+                    // corrupt a second file, so the first one wrong must be reported
+                    int other = (file + 1 + random.nextInt(3)) % files.length;
+                    files[other] = files[other] + ":";
+                }
+                Object expected = loadSequentially(files);
+                if (!(expected instanceof List)) {
+                    rejected++;
+                }
+                assertEquals(expected, loadConcurrently(files));
+            }
+        }
+        assertTrue(rejected > 100);
+    }
+
+    @Test
+    public void reportsSameErrorsAsSequentialLoadingNearTotalLimit()
+            throws MalformedSaveException {
+        String[] files = savesWithLinks()[5];
+        // one aircraft fewer than the count, found only once the whole file has been read
+        files[1] = files[1].substring(0, files[1].lastIndexOf(System.lineSeparator()));
+        // running the other files' tasks directly reads them all before the aircraft file
+        Executor direct = Runnable::run;
+        int total = 0;
+        int limitErrors = 0;
+        int formatErrors = 0;
+        for (String file : files) {
+            total += file.length();
+            for (int limit = total - 1; limit <= total + 1; limit++) {
+                SaveLimits limits = new SaveLimits(SaveLimits.DEFAULT.getMaxLineLength(),
+                        SaveLimits.DEFAULT.getMaxAircraft(), SaveLimits.DEFAULT.getMaxTerminals(),
+                        limit);
+                Object expected = loadSequentially(files, limits);
+                if (expected.toString().contains("Save larger than")) {
+                    limitErrors++;
+                } else {
+                    formatErrors++;
+                }
+                assertEquals(expected, loadConcurrently(files, limits, direct));
+                assertEquals(expected, loadConcurrently(files, limits, executor));
+            }
+        }
+        assertTrue(limitErrors > 0);
+        assertTrue(formatErrors > 0);
+    }
+
+    @Test
+    public void rejectsUnknownCallsignsWhenLinking() {
+        String[] files = {"0", String.join(System.lineSeparator(), "1",
+            "PAX001:AIRBUS_A320:WAIT,LOAD@60,TAKEOFF,AWAY,LAND:20000.00:false:0"),
+            String.join(System.lineSeparator(), "TakeoffQueue:0", "LandingQueue:0",
+                    "LoadingAircraft:0"),
+            String.join(System.lineSeparator(), "1", "AirplaneTerminal:1:false:1", "1:PAX002")};
+        assertTrue(loadConcurrently(files).toString().startsWith(
+                MalformedSaveException.class.getName()));
+        files[3] = files[3].replace("PAX002", "PAX001");
+        assertTrue(loadConcurrently(files) instanceof List);
+        files[2] = files[2].replace("TakeoffQueue:0", "TakeoffQueue:1"
+                + System.lineSeparator() + "PAX002");
+        assertTrue(loadConcurrently(files).toString().startsWith(
+                MalformedSaveException.class.getName()));
+    }
+
+    @Test(timeout = 20_000)
+    public void readsFilesAtTheSameTime() throws IOException, MalformedSaveException {
+        // each file waits until all four have started to be read before giving its contents
+        CountDownLatch started = new CountDownLatch(4);
+        String[] files = savesWithLinks()[3];
+        Reader[] readers = new Reader[files.length];
+        for (int i = 0; i < files.length; i++) {
+            StringReader contents = new StringReader(files[i]);
+            readers[i] = new Reader() {
+                private boolean waited;
+
+                @Override
+                public int read(char[] buffer, int offset, int length) throws IOException {
+                    if (!waited) {
+                        waited = true;
+                        started.countDown();
+                        try {
+                            assertTrue(started.await(10, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                    }
+                    return contents.read(buffer, offset, length);
+                }
+
+                @Override
+                public void close() {
+                    contents.close();
+                }
+            };
+        }
+        ControlTower tower = ControlTowerInitialiser.createControlTower(readers[0], readers[1],
+                readers[2], readers[3], SaveLimits.DEFAULT, executor);
+        assertEquals(loadSequentially(files), CanonicalState.encode(tower));
+    }
+}
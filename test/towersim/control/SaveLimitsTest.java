@@ -0,0 +1,174 @@
+package towersim.control;
+
+import org.junit.Test;
+import towersim.util.MalformedSaveException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class SaveLimitsTest {
+
+    private static final String AIRCRAFT = String.join(System.lineSeparator(), "2",
+            "PAX001:AIRBUS_A320:WAIT,LOAD@60,TAKEOFF,AWAY,LAND:20000.00:false:0",
+            "FRT001:BOEING_747_8F:AWAY,LAND,LOAD@90,TAKEOFF:20000.00:false:0");
+    private static final String QUEUES = String.join(System.lineSeparator(), "TakeoffQueue:0",
+            "LandingQueue:1", "FRT001", "LoadingAircraft:1", "PAX001:1");
+    private static final String TERMINALS = String.join(System.lineSeparator(), "1",
+            "AirplaneTerminal:1:false:2", "1:PAX001", "2:empty");
+
+    /* Reader giving the given line first, followed by an endless line, counting what it gives */
+    private static class EndlessReader extends Reader {
+        private final String start;
+        private long charsGiven;
+
+        EndlessReader(String start) {
+            this.start = start;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                buffer[offset + i] = charsGiven < start.length()
+                        ? start.charAt((int) charsGiven) : 'X';
+                charsGiven++;
+            }
+            return length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static ControlTower create(String tick, String aircraft, String queues,
+            String terminals, SaveLimits limits) throws IOException, MalformedSaveException {
+        return ControlTowerInitialiser.createControlTower(new StringReader(tick),
+                new StringReader(aircraft), new StringReader(queues),
+                new StringReader(terminals), limits);
+    }
+
+    @Test
+    public void loadsWithinLimits() throws IOException, MalformedSaveException {
+        ControlTower tower = create("5", AIRCRAFT, QUEUES, TERMINALS,
+                new SaveLimits(80, 2, 1, 400));
+        assertEquals(5, tower.getTicksElapsed());
+        assertEquals(2, tower.getAircraft().size());
+        assertEquals(1, tower.getTerminals().size());
+    }
+
+    @Test
+    public void rejectsLongLineWithoutReadingIt() throws IOException {
+        EndlessReader reader = new EndlessReader("1" + System.lineSeparator());
+        try {
+            ControlTowerInitialiser.createControlTower(new StringReader("0"),
+                    new StringReader(AIRCRAFT), new StringReader(QUEUES), reader,
+                    new SaveLimits(1000, 10, 10, 1 << 20));
+            fail("An endless line should be rejected");
+        } catch (MalformedSaveException expected) {
+            assertTrue(expected.getCause() instanceof BoundedReader.LimitExceededException);
+        }
+        assertTrue(reader.charsGiven < 100_000);
+    }
+
+    @Test
+    public void defaultLimitsRejectEndlessLine() throws IOException {
+        EndlessReader reader = new EndlessReader("");
+        try {
+            ControlTowerInitialiser.loadAircraft(reader);
+            fail("An endless line should be rejected");
+        } catch (MalformedSaveException expected) {
+            // the line is longer than the default limit
+        }
+        assertTrue(reader.charsGiven
+                <= SaveLimits.DEFAULT.getMaxLineLength() + (1 << 20));
+    }
+
+    @Test
+    public void rejectsCountsOverLimit() throws IOException {
+        SaveLimits limits = new SaveLimits(1000, 1, 1, 1 << 20);
+        try {
+            // the aircraft are rejected on the count alone, before the aircraft are read
+            ControlTowerInitialiser.createControlTower(new StringReader("0"),
+                    new EndlessReader("2" + System.lineSeparator()), new StringReader(QUEUES),
+                    new StringReader(TERMINALS), limits);
+            fail("Too many aircraft should be rejected");
+        } catch (MalformedSaveException expected) {
+            assertTrue(expected.getMessage().contains("2 aircraft"));
+        }
+        try {
+            create("0", "0", "TakeoffQueue:0" + System.lineSeparator()
+                    + "LandingQueue:2000000000", "0", limits);
+            fail("Too large a queue should be rejected");
+        } catch (MalformedSaveException expected) {
+            assertTrue(expected.getMessage().contains("LandingQueue"));
+        }
+        try {
+            create("0", "0", "", "3", limits);
+            fail("Too many terminals should be rejected");
+        } catch (MalformedSaveException expected) {
+            assertTrue(expected.getMessage().contains("3 terminals"));
+        }
+    }
+
+    @Test
+    public void rejectsExtraEntitiesAsSoonAsReached() throws IOException {
+        EndlessReader reader = new EndlessReader(String.join(System.lineSeparator(), "1",
+                "PAX001:AIRBUS_A320:WAIT,LOAD@60,TAKEOFF,AWAY,LAND:20000.00:false:0",
+                "PAX002:AIRBUS_A320:WAIT:20000.00:false:0", ""));
+        try {
+            ControlTowerInitialiser.loadAircraft(reader);
+            fail("More aircraft than specified should be rejected");
+        } catch (MalformedSaveException expected) {
+            // the second aircraft is rejected before the endless line after it is read
+            assertNull(expected.getCause());
+        }
+        assertTrue(reader.charsGiven < 100_000);
+    }
+
+    @Test
+    public void limitsTotalSizeOfAllFiles() throws IOException, MalformedSaveException {
+        int total = 1 + AIRCRAFT.length() + QUEUES.length() + TERMINALS.length();
+        create("0", AIRCRAFT, QUEUES, TERMINALS, new SaveLimits(80, 2, 1, total));
+        try {
+            create("0", AIRCRAFT, QUEUES, TERMINALS, new SaveLimits(80, 2, 1, total - 1));
+            fail("A save larger than the limit should be rejected");
+        } catch (MalformedSaveException expected) {
+            assertTrue(expected.getCause() instanceof BoundedReader.LimitExceededException);
+        }
+    }
+
+    @Test
+    public void readsLinesLikeBufferedReader() throws IOException {
+        StringBuilder text = new StringBuilder();
+        String[] terminators = {"\n", "\r", "\r\n"};
+        for (int i = 0; i < 3000; i++) {
+            text.append("x".repeat(i % 23)).append(terminators[i % 3]);
+        }
+        text.append("last");
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        BufferedReader plain = new BufferedReader(new StringReader(text.toString()));
+        BufferedReader bounded = new BoundedReader(new StringReader(text.toString()),
+                new SaveLimits(22, 1, 1, text.length()), new AtomicLong());
+        String line;
+        while ((line = plain.readLine()) != null) {
+            expected.add(line);
+        }
+        while ((line = bounded.readLine()) != null) {
+            actual.add(line);
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroLimit() {
+        new SaveLimits(80, 0, 1, 100);
+    }
+}
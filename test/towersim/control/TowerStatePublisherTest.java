@@ -0,0 +1,203 @@
+package towersim.control;
+
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.ground.Gate;
+import towersim.ground.Terminal;
+import towersim.tasks.TaskType;
+import towersim.util.MalformedSaveException;
+import towersim.util.NoSuitableGateException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class TowerStatePublisherTest {
+
+    private static final String[] AIRCRAFT = {
+        "PAX001:AIRBUS_A320:WAIT,LOAD@60,TAKEOFF,AWAY,LAND:20000.00:false:0",
+        "HEL001:ROBINSON_R44:LOAD@100,TAKEOFF,AWAY,LAND:150.00:false:0",
+        "FRT001:BOEING_747_8F:AWAY,LAND,LOAD@90,TAKEOFF:200000.00:false:0",
+        "PAX002:BOEING_787:TAKEOFF,AWAY,LAND,LOAD@30:100000.00:false:0",
+        "PAX003:AIRBUS_A320:LAND,LOAD@100,TAKEOFF,AWAY:20000.00:false:0",
+    };
+
+    private ControlTower tower;
+    private TowerStatePublisher publisher;
+
+    @Before
+    public void setUp() throws IOException, MalformedSaveException {
+        tower = new ControlTower(0, new ArrayList<>(), new LandingQueue(), new TakeoffQueue(),
+                new HashMap<>());
+        String[] terminals = {
+            "AirplaneTerminal:1:false:2", "1:empty", "2:empty",
+            "HelicopterTerminal:2:false:1", "3:empty",
+        };
+        BufferedReader reader = new BufferedReader(new StringReader(
+                String.join(System.lineSeparator(), terminals)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            tower.addTerminal(ControlTowerInitialiser.readTerminal(line, reader,
+                    new ArrayList<>()));
+        }
+        List<Aircraft> aircraft = new ArrayList<>();
+        for (String encoded : AIRCRAFT) {
+            aircraft.add(ControlTowerInitialiser.readAircraft(encoded));
+        }
+        assertTrue(tower.addAllAircraft(aircraft).isEmpty());
+        publisher = new TowerStatePublisher(tower);
+    }
+
+    /* Checks that the given state describes the tower as it currently is */
+    private void assertMatchesTower(TowerState state) {
+        assertEquals(tower.getTicksElapsed(), state.getTicksElapsed());
+        assertEquals(tower.getAircraft().size(), state.getAircraft().size());
+        for (Aircraft aircraft : tower.getAircraft()) {
+            TowerState.AircraftState aircraftState = state.findAircraft(aircraft.getCallsign());
+            assertEquals(aircraft.getTaskList().getCurrentTask().getType(),
+                    aircraftState.getTaskType());
+            assertEquals(aircraft.getFuelAmount(), aircraftState.getFuelAmount(), 1e-9);
+            assertEquals(aircraft.hasEmergency(), aircraftState.hasEmergency());
+        }
+        List<String> landing = new ArrayList<>();
+        for (Aircraft aircraft : tower.getLandingQueue().getAircraftInOrder()) {
+            landing.add(aircraft.getCallsign());
+        }
+        assertEquals(landing, state.getLandingQueue());
+        List<String> takeoff = new ArrayList<>();
+        for (Aircraft aircraft : tower.getTakeoffQueue().getAircraftInOrder()) {
+            takeoff.add(aircraft.getCallsign());
+        }
+        assertEquals(takeoff, state.getTakeoffQueue());
+        for (int i = 0; i < tower.getTerminals().size(); i++) {
+            List<Gate> gates = tower.getTerminals().get(i).getGates();
+            TowerState.TerminalState terminalState = state.getTerminals().get(i);
+            assertEquals(gates.size(), terminalState.getNumGates());
+            for (int j = 0; j < gates.size(); j++) {
+                Aircraft parked = gates.get(j).getAircraftAtGate();
+                assertEquals(parked == null ? null : parked.getCallsign(),
+                        terminalState.getParkedCallsign(j));
+            }
+        }
+        assertEquals(tower.getLoadingAircraft().size(), state.getLoadingAircraft().size());
+    }
+
+    @Test
+    public void publishesStateAfterEachTick() {
+        assertMatchesTower(publisher.getState());
+        for (int i = 0; i < 12; i++) {
+            long sequence = publisher.getState().getSequence();
+            tower.tick();
+            assertEquals(sequence + 1, publisher.getState().getSequence());
+            assertMatchesTower(publisher.getState());
+        }
+    }
+
+    @Test
+    public void changesBetweenTicksArePublishedOnRequest() {
+        Aircraft aircraft = tower.getAircraft().get(0);
+        aircraft.declareEmergency();
+        Terminal terminal = tower.getTerminals().get(1);
+        terminal.declareEmergency();
+        assertFalse(publisher.getState().findAircraft("PAX001").hasEmergency());
+
+        publisher.publish();
+        assertTrue(publisher.getState().findAircraft("PAX001").hasEmergency());
+        assertTrue(publisher.getState().getTerminals().get(1).hasEmergency());
+    }
+
+    @Test
+    public void unchangedStatesAreReused() {
+        TowerState before = publisher.getState();
+        publisher.publish();
+        TowerState after = publisher.getState();
+        assertNotSame(before, after);
+        for (int i = 0; i < before.getAircraft().size(); i++) {
+            assertSame(before.getAircraft().get(i), after.getAircraft().get(i));
+        }
+        assertSame(before.getTerminals().get(0), after.getTerminals().get(0));
+
+        tower.getAircraft().get(2).declareEmergency(); // FRT001
+        publisher.publish();
+        assertNotSame(after.findAircraft("FRT001"), publisher.getState().findAircraft("FRT001"));
+        assertSame(after.findAircraft("PAX001"), publisher.getState().findAircraft("PAX001"));
+    }
+
+    @Test
+    public void unchangedPartsAreReused()
+            throws MalformedSaveException, NoSuitableGateException {
+        TowerState before = publisher.getState();
+        publisher.publish();
+        TowerState after = publisher.getState();
+        assertSame(before.getAircraft(), after.getAircraft());
+        assertSame(before.getTerminals(), after.getTerminals());
+        assertSame(before.getLandingQueue(), after.getLandingQueue());
+        assertSame(before.getTakeoffQueue(), after.getTakeoffQueue());
+        assertSame(before.getLoadingAircraft(), after.getLoadingAircraft());
+
+        // an emergency reorders the landing queue without adding or removing aircraft
+        List<Aircraft> landing = tower.getLandingQueue().getAircraftInOrder();
+        landing.get(landing.size() - 1).declareEmergency();
+        publisher.publish();
+        assertMatchesTower(publisher.getState());
+        assertSame(after.getTakeoffQueue(), publisher.getState().getTakeoffQueue());
+
+        after = publisher.getState();
+        tower.addAircraft(ControlTowerInitialiser.readAircraft(
+                "PAX004:AIRBUS_A320:AWAY,LAND,LOAD@50,TAKEOFF:20000.00:false:0"));
+        publisher.publish();
+        assertMatchesTower(publisher.getState());
+        assertNull(after.findAircraft("PAX004"));
+        assertEquals(AIRCRAFT.length, after.getAircraft().size());
+        assertSame(after.getTerminals(), publisher.getState().getTerminals());
+    }
+
+    @Test
+    public void publishedStatesAreImmutable() {
+        TowerState state = publisher.getState();
+        try {
+            state.getLandingQueue().add("ABC123");
+            fail("Published landing queue should not be modifiable");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+        tower.tick();
+        tower.tick();
+        assertEquals(0, state.getTicksElapsed());
+    }
+
+    @Test
+    public void readersSeeConsistentStatesWhileTowerTicks() throws InterruptedException {
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            TowerState previous = publisher.getState();
+            while (previous.getTicksElapsed() < 2000 && failure.get() == null) {
+                TowerState state = publisher.getState();
+                if (state.getSequence() < previous.getSequence()
+                        || state.getTicksElapsed() < previous.getTicksElapsed()) {
+                    failure.set("States went backwards: " + previous + " then " + state);
+                }
+                for (String callsign : state.getLandingQueue()) {
+                    if (state.findAircraft(callsign).getTaskType() != TaskType.LAND) {
+                        failure.set(callsign + " queued to land in " + state);
+                    }
+                }
+                previous = state;
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2000; i++) {
+            tower.tick();
+        }
+        reader.join(10000);
+        assertFalse(reader.isAlive());
+        assertNull(failure.get());
+    }
+}
@@ -167,4 +167,18 @@ public class GateTest {
 
         assertEquals("Gate 2 [XYZ987]", gate.toString());
     }
+
+    @Test
+    public void versionIncreasesWhenAircraftParksOrLeaves() throws NoSpaceException {
+        long version = gate.getVersion();
+        gate.aircraftLeaves(); // no aircraft to leave
+        assertEquals(version, gate.getVersion());
+
+        gate.parkAircraft(aircraft1);
+        assertTrue(gate.getVersion() > version);
+
+        version = gate.getVersion();
+        gate.aircraftLeaves();
+        assertTrue(gate.getVersion() > version);
+    }
 }
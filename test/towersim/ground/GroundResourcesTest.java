@@ -0,0 +1,59 @@
+package towersim.ground;
+
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftCharacteristics;
+import towersim.aircraft.FreightAircraft;
+import towersim.aircraft.PassengerAircraft;
+import towersim.tasks.Task;
+import towersim.tasks.TaskList;
+import towersim.tasks.TaskType;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GroundResourcesTest {
+    private GroundResources resources;
+    private Aircraft passengerAircraft;
+    private Aircraft freightAircraft;
+
+    @Before
+    public void setup() {
+        this.resources = new GroundResources(2, 1, 2);
+        TaskList tasks = new TaskList(List.of(new Task(TaskType.LOAD, 50),
+                new Task(TaskType.TAKEOFF), new Task(TaskType.AWAY), new Task(TaskType.LAND)));
+        this.passengerAircraft = new PassengerAircraft("ABC123",
+                AircraftCharacteristics.AIRBUS_A320, tasks,
+                AircraftCharacteristics.AIRBUS_A320.fuelCapacity, 0);
+        this.freightAircraft = new FreightAircraft("XYZ987",
+                AircraftCharacteristics.BOEING_747_8F, tasks,
+                AircraftCharacteristics.BOEING_747_8F.fuelCapacity, 0);
+    }
+
+    @Test
+    public void canLoadNeedsMatchingCrew() {
+        assertTrue(resources.canLoad(passengerAircraft, 1, 1, 0));
+        assertFalse(resources.canLoad(passengerAircraft, 2, 0, 0));
+        assertTrue(resources.canLoad(freightAircraft, 2, 0, 1));
+        assertFalse(resources.canLoad(freightAircraft, 0, 1, 0));
+    }
+
+    @Test
+    public void canLoadNeedsFuelTruck() {
+        assertFalse(resources.canLoad(passengerAircraft, 0, 0, 2));
+        assertFalse(resources.canLoad(freightAircraft, 0, 0, 2));
+    }
+
+    @Test
+    public void encode() {
+        assertEquals("2:1:2", resources.encode());
+        assertEquals("2 passenger crews, 1 freight crews, 2 fuel trucks", resources.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeResources() {
+        new GroundResources(1, 1, -1);
+    }
+}
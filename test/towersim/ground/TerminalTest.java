@@ -281,4 +281,53 @@ public class TerminalTest {
         helicopterTerminal.declareEmergency();
         assertEquals("HelicopterTerminal 2, 3 gates (EMERGENCY)", helicopterTerminal.toString());
     }
+
+    @Test
+    public void versionIncludesGates() throws NoSpaceException {
+        long version = airplaneTerminal.getVersion();
+        airplaneTerminal.addGate(gate1);
+        assertTrue(airplaneTerminal.getVersion() > version);
+
+        version = airplaneTerminal.getVersion();
+        gate1.parkAircraft(aircraft);
+        assertTrue(airplaneTerminal.getVersion() > version);
+
+        version = airplaneTerminal.getVersion();
+        airplaneTerminal.declareEmergency();
+        assertTrue(airplaneTerminal.getVersion() > version);
+
+        version = airplaneTerminal.getVersion();
+        airplaneTerminal.calculateOccupancyLevel();
+        assertEquals(version, airplaneTerminal.getVersion());
+    }
+
+    @Test
+    public void countsAvailableGates() throws NoSpaceException {
+        int[] available = new int[1];
+        airplaneTerminal.addGateAvailabilityListener((terminal, change) -> {
+            assertSame(airplaneTerminal, terminal);
+            available[0] += change;
+            assertEquals(terminal.getNumAvailableGates(), available[0]);
+        });
+        gate3.parkAircraft(aircraft);
+        airplaneTerminal.addGate(gate1);
+        airplaneTerminal.addGate(gate2);
+        airplaneTerminal.addGate(gate3);
+        assertSame(airplaneTerminal, gate1.getTerminal());
+        assertEquals(2, available[0]);
+        assertEquals(2, airplaneTerminal.getNumUnoccupiedGates());
+
+        gate1.parkAircraft(aircraft);
+        assertEquals(1, available[0]);
+        airplaneTerminal.declareEmergency();
+        assertEquals(0, available[0]);
+        assertEquals(1, airplaneTerminal.getNumUnoccupiedGates());
+        gate3.aircraftLeaves();
+        gate3.aircraftLeaves();
+        assertEquals(0, available[0]);
+        airplaneTerminal.declareEmergency();
+        airplaneTerminal.clearEmergency();
+        assertEquals(2, available[0]);
+        assertEquals(2, airplaneTerminal.getNumAvailableGates());
+    }
 }
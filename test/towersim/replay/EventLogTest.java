@@ -0,0 +1,183 @@
+package towersim.replay;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftCharacteristics;
+import towersim.aircraft.PassengerAircraft;
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.tasks.Task;
+import towersim.tasks.TaskList;
+import towersim.tasks.TaskType;
+import towersim.util.MalformedSaveException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class EventLogTest {
+
+    private static final String AIRCRAFT = String.join(System.lineSeparator(),
+            "4",
+            "QFA481:AIRBUS_A320:AWAY,AWAY,LAND,WAIT,WAIT,LOAD@60,TAKEOFF,AWAY:10000.00:false:132",
+            "UTD302:BOEING_787:WAIT,LOAD@100,TAKEOFF,AWAY,AWAY,AWAY,LAND:10000.00:false:0",
+            "UPS119:BOEING_747_8F:WAIT,LOAD@50,TAKEOFF,AWAY,AWAY,AWAY,LAND:4000.00:false:0",
+            "VH-BFK:ROBINSON_R44:LAND,WAIT,LOAD@75,TAKEOFF,AWAY,AWAY:40.00:false:4");
+
+    private static final String QUEUES = String.join(System.lineSeparator(),
+            "TakeoffQueue:0",
+            "LandingQueue:1",
+            "VH-BFK",
+            "LoadingAircraft:0");
+
+    private static final String TERMINALS = String.join(System.lineSeparator(),
+            "3",
+            "AirplaneTerminal:1:false:3",
+            "1:UTD302",
+            "2:empty",
+            "3:empty",
+            "HelicopterTerminal:2:false:2",
+            "4:empty",
+            "5:empty",
+            "AirplaneTerminal:3:false:2",
+            "6:empty",
+            "7:UPS119");
+
+    private Path directory;
+    private ControlTower tower;
+
+    @Before
+    public void setUp() throws IOException, MalformedSaveException {
+        directory = Files.createTempDirectory("replay");
+        tower = ControlTowerInitialiser.createControlTower(new StringReader("5"),
+                new StringReader(AIRCRAFT), new StringReader(QUEUES),
+                new StringReader(TERMINALS));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /*
+     * Runs the tower for the given number of ticks while recording it, declaring and clearing
+     * emergencies and adding an aircraft part way through. Returns the encoded snapshot of the
+     * tower after each tick, starting from the tick the recording began at.
+     */
+    private List<byte[]> record(int snapshotInterval, int ticks) throws Exception {
+        List<byte[]> states = new ArrayList<>();
+        try (EventLogWriter writer = new EventLogWriter(directory, snapshotInterval)) {
+            writer.attachTo(tower);
+            states.add(TowerSnapshot.capture(tower).toBytes());
+            for (int i = 1; i <= ticks; i++) {
+                if (i == 4) {
+                    tower.getAircraft().get(0).declareEmergency();
+                } else if (i == 9) {
+                    tower.getTerminals().get(0).declareEmergency();
+                } else if (i == 13) {
+                    tower.getAircraft().get(0).clearEmergency();
+                    tower.getTerminals().get(0).clearEmergency();
+                } else if (i == 17) {
+                    List<Task> tasks = new ArrayList<>();
+                    tasks.add(new Task(TaskType.AWAY));
+                    tasks.add(new Task(TaskType.LAND));
+                    tasks.add(new Task(TaskType.WAIT));
+                    tasks.add(new Task(TaskType.LOAD, 40));
+                    tasks.add(new Task(TaskType.TAKEOFF));
+                    tower.addAircraft(new PassengerAircraft("ABC123",
+                            AircraftCharacteristics.FOKKER_100, new TaskList(tasks), 500.0, 0));
+                }
+                // changes made between ticks are part of the state at the previous tick
+                states.set(i - 1, TowerSnapshot.capture(tower).toBytes());
+                tower.tick();
+                states.add(TowerSnapshot.capture(tower).toBytes());
+            }
+        }
+        return states;
+    }
+
+    @Test
+    public void seekToEveryTick() throws Exception {
+        List<byte[]> states = record(5, 40);
+        try (EventLogReader reader = new EventLogReader(directory)) {
+            assertEquals(5, reader.getFirstTick());
+            for (int i = 0; i < states.size(); i++) {
+                ControlTower replayed = reader.seek(5 + i);
+                assertEquals(5 + i, replayed.getTicksElapsed());
+                assertTrue("State differs at tick " + (5 + i), Arrays.equals(states.get(i),
+                        TowerSnapshot.capture(replayed).toBytes()));
+            }
+        }
+    }
+
+    @Test
+    public void seekWithoutPeriodicSnapshots() throws Exception {
+        List<byte[]> states = record(1000, 40);
+        try (EventLogReader reader = new EventLogReader(directory)) {
+            assertTrue(Arrays.equals(states.get(12),
+                    TowerSnapshot.capture(reader.seek(17)).toBytes()));
+            assertTrue(Arrays.equals(states.get(40),
+                    TowerSnapshot.capture(reader.seek(45)).toBytes()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void seekBeforeFirstTick() throws Exception {
+        record(5, 10);
+        try (EventLogReader reader = new EventLogReader(directory)) {
+            reader.seek(4);
+        }
+    }
+
+    @Test
+    public void readEvents() throws Exception {
+        record(5, 40);
+        try (EventLogReader reader = new EventLogReader(directory)) {
+            List<ReplayEvent> events = reader.readEvents(0, Long.MAX_VALUE);
+            assertEquals(reader.getNumEvents(), events.size());
+
+            List<ReplayEvent> emergencies = new ArrayList<>();
+            for (ReplayEvent event : events) {
+                if (event.getType().isExternal()) {
+                    emergencies.add(event);
+                }
+            }
+            assertEquals("[8: AIRCRAFT_EMERGENCY_DECLARED 0 (0), "
+                    + "13: TERMINAL_EMERGENCY_DECLARED 0 (0), "
+                    + "17: AIRCRAFT_EMERGENCY_CLEARED 0 (0), "
+                    + "17: TERMINAL_EMERGENCY_CLEARED 0 (0)]", emergencies.toString());
+
+            for (ReplayEvent event : reader.readEvents(20, 22)) {
+                assertTrue(event.getTick() >= 20 && event.getTick() <= 22);
+            }
+        }
+    }
+
+    @Test
+    public void landingRecorded() throws Exception {
+        record(5, 10);
+        try (EventLogReader reader = new EventLogReader(directory)) {
+            List<String> landing = new ArrayList<>();
+            for (ReplayEvent event : reader.readEvents(6, 6)) {
+                if (event.getSubject() == 3) {
+                    landing.add(event.toString());
+                }
+            }
+            // VH-BFK lands on the first even tick, at the helicopter terminal's first gate
+            assertEquals(List.of("6: LANDED 3 (0)", "6: PARKED 3 (4)",
+                    "6: TASK_ADVANCED 3 (" + TaskType.WAIT.ordinal() + ")"), landing);
+        }
+    }
+}
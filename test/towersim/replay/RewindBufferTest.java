@@ -0,0 +1,322 @@
+package towersim.replay;
+
+import org.junit.Before;
+import org.junit.Test;
+import towersim.control.AgingPolicy;
+import towersim.control.ArrivalManager;
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.ground.Gate;
+import towersim.sweep.SweepPoint;
+import towersim.util.MalformedSaveException;
+import towersim.verify.Scenario;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RewindBufferTest {
+
+    private static final String AIRCRAFT = String.join(System.lineSeparator(),
+            "4",
+            "QFA481:AIRBUS_A320:AWAY,AWAY,LAND,WAIT,WAIT,LOAD@60,TAKEOFF,AWAY:10000.00:false:132",
+            "UTD302:BOEING_787:WAIT,LOAD@100,TAKEOFF,AWAY,AWAY,AWAY,LAND:10000.00:false:0",
+            "UPS119:BOEING_747_8F:WAIT,LOAD@50,TAKEOFF,AWAY,AWAY,AWAY,LAND:4000.00:false:0",
+            "VH-BFK:ROBINSON_R44:LAND,WAIT,LOAD@75,TAKEOFF,AWAY,AWAY:40.00:false:4");
+
+    private static final String QUEUES = String.join(System.lineSeparator(),
+            "TakeoffQueue:0",
+            "LandingQueue:1",
+            "VH-BFK",
+            "LoadingAircraft:0");
+
+    private static final String TERMINALS = String.join(System.lineSeparator(),
+            "2",
+            "AirplaneTerminal:1:false:3",
+            "1:UTD302",
+            "2:empty",
+            "3:UPS119",
+            "HelicopterTerminal:2:false:2",
+            "4:empty",
+            "5:empty");
+
+    private ControlTower tower;
+
+    @Before
+    public void setUp() throws IOException, MalformedSaveException {
+        tower = ControlTowerInitialiser.createControlTower(new StringReader("0"),
+                new StringReader(AIRCRAFT), new StringReader(QUEUES),
+                new StringReader(TERMINALS));
+    }
+
+    /* Returns the encoded state of the tower, for comparing states */
+    private byte[] state() {
+        return TowerSnapshot.capture(tower).toBytes();
+    }
+
+    /* Ticks and records the tower, returning its state before the first tick and after each */
+    private List<byte[]> tickAndRecord(RewindBuffer buffer, int ticks) {
+        List<byte[]> states = new ArrayList<>();
+        states.add(state());
+        for (int i = 1; i <= ticks; i++) {
+            if (i == 7) {
+                tower.getAircraft().get(1).declareEmergency();
+                tower.getTerminals().get(0).declareEmergency();
+            } else if (i == 12) {
+                tower.getTerminals().get(0).clearEmergency();
+            }
+            tower.tick();
+            buffer.record();
+            states.add(state());
+        }
+        return states;
+    }
+
+    @Test
+    public void stepBackAndForward() {
+        RewindBuffer buffer = new RewindBuffer(tower, 100, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        List<byte[]> states = tickAndRecord(buffer, 30);
+        assertEquals(30, buffer.size());
+        assertEquals(30, buffer.getPosition());
+
+        for (int i = 29; i >= 0; i--) {
+            assertTrue(buffer.stepBack());
+            assertEquals(i, buffer.getPosition());
+            assertEquals(i, tower.getTicksElapsed());
+            assertTrue("State differs at tick " + i, Arrays.equals(states.get(i), state()));
+        }
+        assertFalse(buffer.stepBack());
+
+        for (int i = 1; i <= 30; i++) {
+            assertTrue(buffer.stepForward());
+            assertTrue("State differs at tick " + i, Arrays.equals(states.get(i), state()));
+        }
+        assertFalse(buffer.stepForward());
+    }
+
+    @Test
+    public void seek() {
+        RewindBuffer buffer = new RewindBuffer(tower, 100, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        List<byte[]> states = tickAndRecord(buffer, 20);
+        buffer.seek(3);
+        assertTrue(Arrays.equals(states.get(3), state()));
+        buffer.seek(17);
+        assertTrue(Arrays.equals(states.get(17), state()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void seekOutOfRange() {
+        RewindBuffer buffer = new RewindBuffer(tower, 100, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        tickAndRecord(buffer, 5);
+        buffer.seek(6);
+    }
+
+    @Test
+    public void resumingAfterRewindMatchesOriginalRun() {
+        RewindBuffer buffer = new RewindBuffer(tower, 100, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        List<byte[]> states = tickAndRecord(buffer, 20);
+        buffer.seek(4);
+        for (int i = 5; i <= 6; i++) {
+            tower.tick();
+            buffer.record();
+            assertTrue(Arrays.equals(states.get(i), state()));
+        }
+        // the later history was replaced by the ticks after resuming
+        assertEquals(6, buffer.size());
+        assertFalse(buffer.stepForward());
+    }
+
+    @Test
+    public void changesWhileRewoundAreUndoneFirst() {
+        RewindBuffer buffer = new RewindBuffer(tower, 100, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        List<byte[]> states = tickAndRecord(buffer, 10);
+        buffer.seek(5);
+        tower.getAircraft().get(0).declareEmergency();
+        assertTrue(buffer.stepBack());
+        assertTrue(Arrays.equals(states.get(5), state()));
+        assertEquals(6, buffer.size());
+    }
+
+    @Test
+    public void changesBetweenTicksAreRecorded() {
+        RewindBuffer buffer = new RewindBuffer(tower, 100, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        List<byte[]> states = tickAndRecord(buffer, 5);
+        assertFalse(buffer.record());
+
+        tower.getAircraft().get(0).setFuelAmount(1234.5);
+        tower.getAircraft().get(0).setCargoAmount(7);
+        tower.getAircraft().get(2).getTaskList().setCurrentTaskIndex(4);
+        tower.getTerminals().get(1).declareEmergency();
+        assertTrue(buffer.record());
+        assertFalse(buffer.record());
+        byte[] changed = state();
+
+        assertTrue(buffer.stepBack());
+        assertTrue(Arrays.equals(states.get(5), state()));
+        // restoring the old values is not itself a change
+        assertFalse(buffer.record());
+        assertTrue(buffer.stepForward());
+        assertTrue(Arrays.equals(changed, state()));
+    }
+
+    @Test
+    public void maxTicks() {
+        RewindBuffer buffer = new RewindBuffer(tower, 8, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        List<byte[]> states = tickAndRecord(buffer, 20);
+        assertEquals(8, buffer.size());
+        buffer.seek(0);
+        assertTrue(Arrays.equals(states.get(12), state()));
+    }
+
+    @Test
+    public void memoryBudget() {
+        RewindBuffer buffer = new RewindBuffer(tower, 1000, 500);
+        tickAndRecord(buffer, 50);
+        assertTrue(buffer.size() > 0);
+        assertTrue(buffer.size() < 50);
+        assertTrue(buffer.getMemoryUsed() <= 500);
+    }
+
+    @Test
+    public void deltaLargerThanBudgetIsNotRecorded() {
+        RewindBuffer buffer = new RewindBuffer(tower, 100, 40);
+        tower.tick();
+        // a tick changes more than the whole budget can hold
+        assertFalse(buffer.record());
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getMemoryUsed());
+        assertFalse(buffer.stepBack());
+    }
+
+    @Test
+    public void queuesAreRewound() throws MalformedSaveException {
+        for (long seed = 1; seed <= 5; seed++) {
+            tower = Scenario.generate(seed).createControlTower();
+            RewindBuffer buffer = new RewindBuffer(tower, 200,
+                    RewindBuffer.DEFAULT_MEMORY_BUDGET);
+            List<byte[]> states = new ArrayList<>();
+            states.add(state());
+            for (int i = 1; i <= 150; i++) {
+                if (i % 25 == 0) {
+                    // move an aircraft within the landing queue
+                    tower.getAircraft().get(i % tower.getNumAircraft()).declareEmergency();
+                } else if (i % 25 == 10) {
+                    tower.getAircraft().get((i - 10) % tower.getNumAircraft())
+                            .clearEmergency();
+                }
+                tower.tick();
+                buffer.record();
+                states.add(state());
+            }
+            for (int i = 149; i >= 0; i--) {
+                assertTrue(buffer.stepBack());
+                assertTrue("State differs at tick " + i + " of scenario " + seed,
+                        Arrays.equals(states.get(i), state()));
+            }
+            for (int i = 1; i <= 150; i++) {
+                assertTrue(buffer.stepForward());
+                assertTrue("State differs at tick " + i + " of scenario " + seed,
+                        Arrays.equals(states.get(i), state()));
+            }
+            // the queues keep the same order when the tower runs on from a rewound state
+            buffer.seek(70);
+            for (int i = 71; i <= 150; i++) {
+                if (i % 25 == 0) {
+                    tower.getAircraft().get(i % tower.getNumAircraft()).declareEmergency();
+                } else if (i % 25 == 10) {
+                    tower.getAircraft().get((i - 10) % tower.getNumAircraft())
+                            .clearEmergency();
+                }
+                tower.tick();
+                buffer.record();
+                assertTrue("State differs at tick " + i + " of scenario " + seed,
+                        Arrays.equals(states.get(i), state()));
+            }
+        }
+    }
+
+    @Test
+    public void agingStateIsRewound() throws MalformedSaveException {
+        tower = Scenario.generate(8).createControlTower();
+        tower.getLandingQueue().setAgingPolicy(new AgingPolicy(0, 3));
+        RewindBuffer buffer = new RewindBuffer(tower, 100, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        List<byte[]> states = new ArrayList<>();
+        states.add(state());
+        for (int i = 1; i <= 60; i++) {
+            if (i == 20) {
+                tower.getLandingQueue().setAgingPolicy(new AgingPolicy(2, 0));
+            } else if (i == 40) {
+                tower.getLandingQueue().setAgingPolicy(null);
+            }
+            tower.tick();
+            buffer.record();
+            states.add(state());
+        }
+
+        buffer.seek(10);
+        assertTrue(Arrays.equals(states.get(10), state()));
+        assertEquals(10, tower.getLandingQueue().getTicks());
+        // the aircraft waiting to land keep their waiting times when the tower runs on
+        for (int i = 11; i <= 60; i++) {
+            if (i == 20) {
+                tower.getLandingQueue().setAgingPolicy(new AgingPolicy(2, 0));
+            } else if (i == 40) {
+                tower.getLandingQueue().setAgingPolicy(null);
+            }
+            tower.tick();
+            buffer.record();
+            assertTrue("State differs at tick " + i, Arrays.equals(states.get(i), state()));
+        }
+        for (int i = 59; i >= 0; i--) {
+            assertTrue(buffer.stepBack());
+            assertTrue("State differs at tick " + i, Arrays.equals(states.get(i), state()));
+        }
+    }
+
+    @Test
+    public void holdingStateIsRewound() throws MalformedSaveException {
+        SweepPoint point = new SweepPoint(1, 2, 20, 0, 0, 2);
+        tower = point.toScenario(4).createControlTower();
+        tower.setArrivalManager(point.newArrivalManager());
+        RewindBuffer buffer = new RewindBuffer(tower, 200, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        List<byte[]> states = tickAndRecord(buffer, 120);
+        assertFalse(tower.getArrivalManager().getHoldingAircraft().isEmpty());
+
+        for (int i = 119; i >= 0; i--) {
+            assertTrue(buffer.stepBack());
+            assertTrue("State differs at tick " + i, Arrays.equals(states.get(i), state()));
+        }
+        assertEquals(0, tower.getArrivalManager().getAircraftHeld());
+        buffer.seek(60);
+        assertTrue(Arrays.equals(states.get(60), state()));
+        // held aircraft are released in the same order when the tower runs on
+        for (int i = 61; i <= 120; i++) {
+            tower.tick();
+            buffer.record();
+            assertTrue("State differs at tick " + i, Arrays.equals(states.get(i), state()));
+        }
+    }
+
+    @Test
+    public void replacingArrivalManagerClearsBuffer() {
+        RewindBuffer buffer = new RewindBuffer(tower, 100, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        tickAndRecord(buffer, 5);
+        tower.setArrivalManager(new ArrivalManager(1, 1));
+        assertFalse(buffer.stepBack());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void addingGateClearsBuffer() throws Exception {
+        RewindBuffer buffer = new RewindBuffer(tower, 100, RewindBuffer.DEFAULT_MEMORY_BUDGET);
+        tickAndRecord(buffer, 5);
+        tower.getTerminals().get(1).addGate(new Gate(6));
+        assertFalse(buffer.stepBack());
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getMemoryUsed());
+    }
+}
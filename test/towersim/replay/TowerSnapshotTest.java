@@ -0,0 +1,144 @@
+package towersim.replay;
+
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.control.AgingPolicy;
+import towersim.control.ArrivalManager;
+import towersim.control.ControlTower;
+import towersim.sweep.SweepPoint;
+import towersim.util.MalformedSaveException;
+import towersim.verify.Scenario;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TowerSnapshotTest {
+
+    /* Returns the callsigns of the given aircraft, in order */
+    private static List<String> callsigns(List<Aircraft> aircraft) {
+        List<String> callsigns = new ArrayList<>();
+        for (Aircraft eachAircraft : aircraft) {
+            callsigns.add(eachAircraft.getCallsign());
+        }
+        return callsigns;
+    }
+
+    /* Returns the callsigns of the aircraft in the tower's landing queue, in queue order */
+    private static List<String> landingOrder(ControlTower tower) {
+        return callsigns(tower.getLandingQueue().getAircraftInOrder());
+    }
+
+    @Test
+    public void restoresAgingState() throws MalformedSaveException {
+        ControlTower tower = Scenario.generate(3).createControlTower();
+        tower.getLandingQueue().setAgingPolicy(new AgingPolicy(0, 4));
+        for (int i = 0; i < 60; i++) {
+            tower.tick();
+        }
+        assertTrue(tower.getLandingQueue().getAircraftInOrder().size() > 1);
+
+        byte[] bytes = TowerSnapshot.capture(tower).toBytes();
+        ControlTower restored = TowerSnapshot.fromBytes(ByteBuffer.wrap(bytes)).restore();
+        assertTrue(Arrays.equals(bytes, TowerSnapshot.capture(restored).toBytes()));
+        assertEquals(tower.getLandingQueue().getTicks(), restored.getLandingQueue().getTicks());
+        assertEquals(tower.getLandingQueue().getAgingPolicy().toString(),
+                restored.getLandingQueue().getAgingPolicy().toString());
+        assertEquals(landingOrder(tower), landingOrder(restored));
+
+        for (int i = 0; i < 100; i++) {
+            tower.tick();
+            restored.tick();
+            assertEquals(landingOrder(tower), landingOrder(restored));
+        }
+        assertTrue(Arrays.equals(TowerSnapshot.capture(tower).toBytes(),
+                TowerSnapshot.capture(restored).toBytes()));
+    }
+
+    @Test
+    public void restoresArrivalManager() throws MalformedSaveException {
+        SweepPoint point = new SweepPoint(1, 2, 20, 0, 0, 2);
+        ControlTower tower = point.toScenario(4).createControlTower();
+        tower.setArrivalManager(point.newArrivalManager());
+        for (int i = 0; i < 60; i++) {
+            tower.tick();
+        }
+        ArrivalManager original = tower.getArrivalManager();
+        assertFalse(original.getHoldingAircraft().isEmpty());
+
+        byte[] bytes = TowerSnapshot.capture(tower).toBytes();
+        ControlTower restored = TowerSnapshot.fromBytes(ByteBuffer.wrap(bytes)).restore();
+        assertTrue(Arrays.equals(bytes, TowerSnapshot.capture(restored).toBytes()));
+        ArrivalManager copy = restored.getArrivalManager();
+        assertEquals(original.toString(), copy.toString());
+        assertEquals(callsigns(original.getHoldingAircraft()),
+                callsigns(copy.getHoldingAircraft()));
+        assertTrue(restored.getAircraft().containsAll(copy.getHoldingAircraft()));
+
+        for (int i = 0; i < 200; i++) {
+            tower.tick();
+            restored.tick();
+        }
+        assertTrue(Arrays.equals(TowerSnapshot.capture(tower).toBytes(),
+                TowerSnapshot.capture(restored).toBytes()));
+        assertEquals(original.toString(), copy.toString());
+    }
+
+    /* Re-encodes the given snapshot bytes with every line break replaced by the given one */
+    private static byte[] withLineBreaks(byte[] bytes, String lineBreak) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (buffer.hasRemaining()) {
+            byte[] section = new byte[buffer.getInt()];
+            buffer.get(section);
+            byte[] replaced = new String(section, StandardCharsets.UTF_8).replaceAll("\\R",
+                    lineBreak).getBytes(StandardCharsets.UTF_8);
+            out.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(replaced.length).array());
+            out.writeBytes(replaced);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void readsSnapshotsFromOtherPlatforms() throws MalformedSaveException {
+        SweepPoint point = new SweepPoint(1, 2, 20, 0, 0, 2);
+        ControlTower tower = point.toScenario(4).createControlTower();
+        tower.setArrivalManager(point.newArrivalManager());
+        tower.getLandingQueue().setAgingPolicy(new AgingPolicy(0, 4));
+        for (int i = 0; i < 60; i++) {
+            tower.tick();
+        }
+        byte[] bytes = TowerSnapshot.capture(tower).toBytes();
+        for (String lineBreak : List.of("\n", "\r\n")) {
+            ControlTower restored = TowerSnapshot.fromBytes(
+                    ByteBuffer.wrap(withLineBreaks(bytes, lineBreak))).restore();
+            assertTrue(lineBreak, Arrays.equals(bytes,
+                    TowerSnapshot.capture(restored).toBytes()));
+        }
+    }
+
+    @Test
+    public void readsSnapshotsWithoutFlowControl() throws MalformedSaveException {
+        ControlTower tower = Scenario.generate(5).createControlTower();
+        for (int i = 0; i < 20; i++) {
+            tower.tick();
+        }
+        byte[] bytes = TowerSnapshot.capture(tower).toBytes();
+        // skip the first four sections, and drop the flow control section after them
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        for (int i = 0; i < 4; i++) {
+            buffer.position(buffer.position() + Integer.BYTES + buffer.getInt(buffer.position()));
+        }
+        ControlTower restored = TowerSnapshot.fromBytes(
+                ByteBuffer.wrap(Arrays.copyOf(bytes, buffer.position()))).restore();
+        assertEquals(tower.getAircraft().size(), restored.getAircraft().size());
+        assertEquals(landingOrder(tower), landingOrder(restored));
+        assertEquals(0, restored.getLandingQueue().getTicks());
+        assertNull(restored.getLandingQueue().getAgingPolicy());
+    }
+}
@@ -0,0 +1,152 @@
+package towersim.sweep;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftType;
+import towersim.control.ArrivalManager;
+import towersim.control.ControlTower;
+import towersim.telemetry.LatencyHistogram;
+import towersim.telemetry.LatencyStats;
+import towersim.util.MalformedSaveException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class MonteCarloSweepTest {
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void gridHasEveryCombination() {
+        ParameterGrid grid = new ParameterGrid(new int[] {1, 2}, new int[] {3}, new int[] {5, 6},
+                new double[] {0, 0.5}, new double[] {0.1}, new int[] {2, ArrivalManager.UNLIMITED});
+        List<SweepPoint> points = grid.getPoints();
+        assertEquals(16, points.size());
+        assertEquals(1, points.get(0).getNumTerminals());
+        assertEquals(2, points.get(0).getMaxQueueDepth());
+        assertEquals(ArrivalManager.UNLIMITED, points.get(1).getMaxQueueDepth());
+        assertEquals(2, points.get(15).getNumTerminals());
+        assertEquals(6, points.get(15).getNumAircraft());
+        assertEquals(0.5, points.get(15).getHelicopterShare(), 0);
+    }
+
+    @Test
+    public void scenariosFollowTheirPoint() throws MalformedSaveException {
+        SweepPoint point = new SweepPoint(4, 3, 50, 0.5, 1, 3);
+        assertEquals(point.toScenario(9).toString(), point.toScenario(9).toString());
+        ControlTower tower = point.toScenario(9).createControlTower();
+        assertEquals(4, tower.getTerminals().size());
+        assertEquals(50, tower.getAircraft().size());
+        int helicopters = 0;
+        for (Aircraft aircraft : tower.getAircraft()) {
+            assertTrue(aircraft.hasEmergency());
+            if (aircraft.getCharacteristics().type == AircraftType.HELICOPTER) {
+                helicopters++;
+            }
+        }
+        assertTrue(helicopters > 10 && helicopters < 40);
+        assertEquals(2, tower.getTerminals().stream()
+                .filter(terminal -> terminal.getClass().getSimpleName()
+                        .equals("HelicopterTerminal")).count());
+    }
+
+    @Test
+    public void aggregatesEveryRun() {
+        SweepPoint busy = new SweepPoint(1, 2, 30, 0, 0, 2);
+        SweepPoint quiet = new SweepPoint(2, 6, 5, 0, 0, ArrivalManager.UNLIMITED);
+        MonteCarloSweep sweep = new MonteCarloSweep(List.of(busy, quiet), 8, 100, 400);
+        List<SweepResult> streamed = Collections.synchronizedList(new ArrayList<>());
+        List<SweepResult> results = sweep.run(pool, streamed::add);
+
+        assertEquals(2, results.size());
+        assertEquals(2, streamed.size());
+        assertTrue(streamed.containsAll(results));
+        for (SweepResult result : results) {
+            assertTrue(result.isComplete());
+            assertEquals(8, result.getRuns());
+            assertTrue(result.getTakeoffsPerThousandTicks() > 0);
+            assertTrue(result.getLandingQueueWait().getCount() > 0);
+        }
+        // too few gates for the fleet, and a shallow queue, hold aircraft
+        assertTrue(results.get(0).getAircraftHeldPerRun() > 0);
+        assertTrue(results.get(0).getLongestHold() > 0);
+        assertTrue(results.get(0).getMeanHold() > 0);
+        assertEquals(0, results.get(1).getAircraftHeldPerRun(), 0);
+    }
+
+    @Test
+    public void matchesRunsMadeOneByOne() throws MalformedSaveException {
+        SweepPoint point = new SweepPoint(2, 3, 25, 0.3, 0.1, 4);
+        int seeds = 6;
+        int ticks = 300;
+        SweepResult result = new MonteCarloSweep(List.of(point), seeds, 40, ticks)
+                .run(pool, r -> { }).get(0);
+
+        // run the same scenarios on this thread, measured by the tower's own statistics
+        LatencyHistogram landingWait = new LatencyHistogram();
+        LatencyHistogram takeoffWait = new LatencyHistogram();
+        long held = 0;
+        for (int seed = 40; seed < 40 + seeds; seed++) {
+            ControlTower tower = point.toScenario(seed).createControlTower();
+            ArrivalManager arrivalManager = point.newArrivalManager();
+            tower.setArrivalManager(arrivalManager);
+            LatencyStats stats = new LatencyStats(tower);
+            for (int i = 0; i < ticks; i++) {
+                tower.tick();
+            }
+            landingWait.add(stats.getHistogram(LatencyStats.Metric.LANDING_QUEUE_WAIT));
+            takeoffWait.add(stats.getHistogram(LatencyStats.Metric.TAKEOFF_QUEUE_WAIT));
+            held += arrivalManager.getAircraftHeld();
+        }
+        assertSameHistogram(landingWait, result.getLandingQueueWait());
+        assertSameHistogram(takeoffWait, result.getTakeoffQueueWait());
+        assertEquals((double) held / seeds, result.getAircraftHeldPerRun(), 1e-9);
+        assertEquals(takeoffWait.getCount() * 1000.0 / (seeds * ticks),
+                result.getTakeoffsPerThousandTicks(), 1e-9);
+    }
+
+    @Test
+    public void formatsTableRows() {
+        SweepResult result = new MonteCarloSweep(List.of(new SweepPoint(1, 2, 4, 0, 0, 5)), 2,
+                0, 100).run(pool, r -> { }).get(0);
+        String header = SweepResult.formatHeader();
+        String row = result.formatRow();
+        assertEquals(header.length(), row.length());
+        assertTrue(header.startsWith("Terminals"));
+        assertTrue(row.trim().startsWith("1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManyGates() {
+        new SweepPoint(1, 7, 10, 0, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptySweep() {
+        new MonteCarloSweep(List.of(), 1, 0, 10);
+    }
+
+    private static void assertSameHistogram(LatencyHistogram expected,
+            LatencyHistogram actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMax(), actual.getMax());
+        assertEquals(expected.getMean(), actual.getMean(), 1e-9);
+        assertEquals(expected.getValueAtPercentile(50), actual.getValueAtPercentile(50));
+    }
+}
@@ -47,6 +47,17 @@ public class TaskListTest {
                 new Task(TaskType.TAKEOFF)));
     }
 
+    @Test
+    public void sizeTest() {
+        TaskList taskList = new TaskList(List.of(new Task(TaskType.AWAY),
+                new Task(TaskType.LAND),
+                new Task(TaskType.LOAD),
+                new Task(TaskType.TAKEOFF)));
+        assertEquals(4, taskList.size());
+        taskList.moveToNextTask();
+        assertEquals(4, taskList.size());
+    }
+
     @Test
     public void encodeTest() {
         TaskList taskList = new TaskList(List.of(new Task(TaskType.AWAY),
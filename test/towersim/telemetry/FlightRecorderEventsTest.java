@@ -0,0 +1,166 @@
+package towersim.telemetry;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.control.TowerListener;
+import towersim.util.MalformedSaveException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FlightRecorderEventsTest {
+
+    private Recording recording;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        recording = new Recording();
+        for (String name : new String[] {"towersim.TickPhase", "towersim.GateSearch",
+            "towersim.LandingAttempt", "towersim.Takeoff", "towersim.LoadingCompleted",
+            "towersim.SaveFile"}) {
+            recording.enable(name).withThreshold(Duration.ZERO);
+        }
+        file = Files.createTempFile("towersim", ".jfr");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        recording.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void recordsTowerOperations() throws IOException, MalformedSaveException {
+        recording.start();
+        ControlTower tower = ControlTowerInitialiser.createControlTower(
+                new StringReader("0"),
+                new StringReader(String.join(System.lineSeparator(), "2",
+                        "PAX001:AIRBUS_A320:WAIT,LOAD@60,TAKEOFF,AWAY,LAND:20000.00:false:0",
+                        "FRT001:BOEING_747_8F:AWAY,LAND,LOAD@90,TAKEOFF:20000.00:false:0")),
+                new StringReader(String.join(System.lineSeparator(), "TakeoffQueue:0",
+                        "LandingQueue:0", "LoadingAircraft:1", "PAX001:1")),
+                new StringReader(String.join(System.lineSeparator(), "1",
+                        "AirplaneTerminal:1:false:2", "1:PAX001", "2:empty")));
+        int[] movements = new int[2];
+        tower.addListener(new TowerListener() {
+            @Override
+            public void aircraftLanded(long tick, Aircraft aircraft) {
+                movements[0]++;
+            }
+
+            @Override
+            public void aircraftTookOff(long tick, Aircraft aircraft) {
+                movements[1]++;
+            }
+        });
+        int numTicks = 200;
+        for (int i = 0; i < numTicks; i++) {
+            tower.tick();
+        }
+        recording.stop();
+        recording.dump(file);
+
+        List<RecordedEvent> phases = new ArrayList<>();
+        int landings = 0;
+        int takeoffs = 0;
+        int loads = 0;
+        int gateSearches = 0;
+        List<String> files = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            switch (event.getEventType().getName()) {
+                case "towersim.TickPhase":
+                    phases.add(event);
+                    break;
+                case "towersim.LandingAttempt":
+                    if (event.getBoolean("landed")) {
+                        landings++;
+                        assertNotNull(event.getString("callsign"));
+                    }
+                    break;
+                case "towersim.Takeoff":
+                    takeoffs++;
+                    break;
+                case "towersim.LoadingCompleted":
+                    loads++;
+                    break;
+                case "towersim.GateSearch":
+                    gateSearches++;
+                    assertTrue(event.getInt("terminalsProbed") <= 1);
+                    break;
+                case "towersim.SaveFile":
+                    assertEquals("Load", event.getString("operation"));
+                    assertTrue(event.getBoolean("succeeded"));
+                    files.add(event.getString("file"));
+                    break;
+                default:
+                    break;
+            }
+        }
+        // five phases per tick
+        assertEquals(5 * numTicks, phases.size());
+        assertEquals(movements[0], landings);
+        assertEquals(movements[1], takeoffs);
+        assertTrue(takeoffs > 0);
+        assertTrue(loads > 0);
+        assertTrue(gateSearches >= landings);
+        assertEquals(List.of("tick", "aircraft", "terminalsWithGates", "queues"), files);
+    }
+
+    @Test
+    public void sharesEventsWhileNotRecording() {
+        assertSame(TickPhaseEvent.start(1, TickPhaseEvent.AIRCRAFT),
+                TickPhaseEvent.start(2, TickPhaseEvent.RUNWAY));
+        TickPhaseEvent phase = TickPhaseEvent.start(1, TickPhaseEvent.AIRCRAFT);
+        assertSame(phase, phase.next(TickPhaseEvent.ARRIVALS));
+        assertSame(GateSearchEvent.start(), GateSearchEvent.start());
+        assertSame(LandingAttemptEvent.start(1, 0), LandingAttemptEvent.start(2, 3));
+        assertSame(TakeoffEvent.start(1), TakeoffEvent.start(2));
+        assertSame(LoadingCompletedEvent.start(1), LoadingCompletedEvent.start(2));
+
+        recording.start();
+        assertNotSame(TickPhaseEvent.start(1, TickPhaseEvent.AIRCRAFT),
+                TickPhaseEvent.start(2, TickPhaseEvent.RUNWAY));
+        assertNotSame(TakeoffEvent.start(1), TakeoffEvent.start(2));
+        recording.stop();
+    }
+
+    @Test
+    public void recordsFailedLoad() throws IOException {
+        recording.start();
+        try {
+            ControlTowerInitialiser.loadTick(new StringReader("-5"));
+            fail("Negative ticks should not load");
+        } catch (MalformedSaveException expected) {
+            // the event is still recorded
+        }
+        recording.stop();
+        recording.dump(file);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent saveFile = null;
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("towersim.SaveFile")) {
+                saveFile = event;
+            }
+        }
+        assertNotNull(saveFile);
+        assertFalse(saveFile.getBoolean("succeeded"));
+        assertEquals(-1, saveFile.getInt("entities"));
+        assertNotNull(saveFile.getStackTrace());
+    }
+}
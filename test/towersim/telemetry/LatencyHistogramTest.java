@@ -0,0 +1,130 @@
+package towersim.telemetry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0.0, histogram.getMean(), 0.0);
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+        assertEquals(50, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(50, histogram.getMax());
+        assertEquals(25, histogram.getValueAtPercentile(50));
+        assertEquals(50, histogram.getValueAtPercentile(99));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(25.5, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void largeValuesWithinPrecision() {
+        for (long value = 1; value < Integer.MAX_VALUE / 2; value = value * 3 + 1) {
+            LatencyHistogram single = new LatencyHistogram();
+            single.record(value);
+            single.record(value * 2);
+            long reported = single.getValueAtPercentile(50);
+            assertTrue(value + " reported as " + reported,
+                    reported >= value && reported <= value + value / 32);
+        }
+    }
+
+    @Test
+    public void bucketsCoverRange() {
+        int last = -1;
+        for (long value = 0; value < Integer.MAX_VALUE; value += 1 + value / 100) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket >= last);
+            assertTrue(value <= LatencyHistogram.highestValueIn(bucket));
+            if (bucket > 0) {
+                assertTrue(value > LatencyHistogram.highestValueIn(bucket - 1));
+            }
+            last = bucket;
+        }
+        assertEquals(LatencyHistogram.NUM_BUCKETS - 1,
+                LatencyHistogram.bucketOf(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void clampsHugeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE, histogram.getMax());
+        assertEquals(Integer.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void percentilesOfSkewedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.record(10);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(100_000);
+        assertEquals(10, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(99));
+        long p999 = histogram.getValueAtPercentile(99.9);
+        assertTrue(p999 >= 1000 && p999 <= 1000 + 1000 / 32);
+        assertEquals(100_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void mergeMatchesRecordingTogether() {
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int i = 0; i < 1000; i++) {
+            long value = (i * 7919L) % 5000;
+            all.record(value);
+            (i % 2 == 0 ? first : second).record(value);
+        }
+        LatencyHistogram merged = first.copy();
+        merged.add(second);
+        assertEquals(all.getCount(), merged.getCount());
+        assertEquals(all.getMin(), merged.getMin());
+        assertEquals(all.getMax(), merged.getMax());
+        assertEquals(all.getMean(), merged.getMean(), 1e-9);
+        for (double percentile : new double[] {0, 25, 50, 90, 99, 99.9, 100}) {
+            assertEquals(all.getValueAtPercentile(percentile),
+                    merged.getValueAtPercentile(percentile));
+        }
+    }
+
+    @Test
+    public void copyIsSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5);
+        LatencyHistogram snapshot = histogram.copy();
+        histogram.record(500);
+        histogram.reset();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(5, snapshot.getMax());
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeValue() {
+        new LatencyHistogram().record(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidPercentile() {
+        new LatencyHistogram().getValueAtPercentile(100.5);
+    }
+}
@@ -0,0 +1,200 @@
+package towersim.telemetry;
+
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.aircraft.AircraftType;
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.control.LandingQueue;
+import towersim.control.TakeoffQueue;
+import towersim.control.TowerListener;
+import towersim.ground.Gate;
+import towersim.tasks.TaskType;
+import towersim.util.MalformedSaveException;
+import towersim.util.NoSuitableGateException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LatencyStatsTest {
+
+    private ControlTower tower;
+
+    @Before
+    public void setUp() throws IOException, MalformedSaveException, NoSuitableGateException {
+        tower = new ControlTower(0, new ArrayList<>(), new LandingQueue(), new TakeoffQueue(),
+                new HashMap<>());
+        String[] terminals = {
+            "AirplaneTerminal:1:false:2", "1:empty", "2:empty",
+            "HelicopterTerminal:2:false:1", "3:empty",
+        };
+        BufferedReader reader = new BufferedReader(new StringReader(
+                String.join(System.lineSeparator(), terminals)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            tower.addTerminal(ControlTowerInitialiser.readTerminal(line, reader,
+                    new ArrayList<>()));
+        }
+        String[] aircraft = {
+            "PAX001:AIRBUS_A320:WAIT,LOAD@60,TAKEOFF,AWAY,LAND:20000.00:false:0",
+            "HEL001:ROBINSON_R44:LOAD@100,TAKEOFF,AWAY,LAND:150.00:false:0",
+            "FRT001:BOEING_747_8F:AWAY,LAND,LOAD@90,TAKEOFF:20000.00:false:0",
+            "PAX002:BOEING_787:TAKEOFF,AWAY,LAND,LOAD@30:100000.00:false:0",
+        };
+        for (String encoded : aircraft) {
+            tower.addAircraft(ControlTowerInitialiser.readAircraft(encoded));
+        }
+    }
+
+    @Test
+    public void matchesEventTimes() {
+        LatencyStats stats = new LatencyStats(tower);
+        // independently work out the latencies from the tower's events
+        Map<String, Long> queued = new HashMap<>();
+        Map<String, Long> landed = new HashMap<>();
+        Map<String, Long> parked = new HashMap<>();
+        List<Long> landingWaits = new ArrayList<>();
+        List<Long> takeoffWaits = new ArrayList<>();
+        List<Long> dwells = new ArrayList<>();
+        List<Long> turnarounds = new ArrayList<>();
+        tower.addListener(new TowerListener() {
+            @Override
+            public void aircraftQueued(long tick, Aircraft aircraft, TaskType taskType) {
+                queued.put(aircraft.getCallsign(), tick);
+            }
+
+            @Override
+            public void aircraftLanded(long tick, Aircraft aircraft) {
+                Long start = queued.remove(aircraft.getCallsign());
+                if (start != null) {
+                    landingWaits.add(tick - start);
+                }
+                landed.put(aircraft.getCallsign(), tick);
+            }
+
+            @Override
+            public void aircraftParked(long tick, Aircraft aircraft, Gate gate) {
+                parked.put(aircraft.getCallsign(), tick);
+            }
+
+            @Override
+            public void aircraftLeftGate(long tick, Aircraft aircraft, Gate gate) {
+                // aircraft added to the tower at a gate were never seen parking
+                Long start = parked.remove(aircraft.getCallsign());
+                if (start != null) {
+                    dwells.add(tick - start);
+                }
+            }
+
+            @Override
+            public void aircraftTookOff(long tick, Aircraft aircraft) {
+                Long start = queued.remove(aircraft.getCallsign());
+                if (start != null) {
+                    takeoffWaits.add(tick - start);
+                }
+                Long landing = landed.remove(aircraft.getCallsign());
+                if (landing != null) {
+                    turnarounds.add(tick - landing);
+                }
+            }
+        });
+        // queue everything up before the first tick, as loading a tower does
+        tower.placeAllAircraftInQueues();
+        for (int i = 0; i < 500; i++) {
+            tower.tick();
+        }
+
+        assertSameLatencies(landingWaits,
+                stats.getHistogram(LatencyStats.Metric.LANDING_QUEUE_WAIT));
+        assertSameLatencies(takeoffWaits,
+                stats.getHistogram(LatencyStats.Metric.TAKEOFF_QUEUE_WAIT));
+        assertSameLatencies(dwells, stats.getHistogram(LatencyStats.Metric.GATE_DWELL));
+        assertSameLatencies(turnarounds, stats.getHistogram(LatencyStats.Metric.TURNAROUND));
+        assertTrue(turnarounds.size() > 0);
+    }
+
+    @Test
+    public void splitsByTypeAndCargoClass() {
+        LatencyStats stats = new LatencyStats(tower);
+        tower.placeAllAircraftInQueues();
+        for (int i = 0; i < 500; i++) {
+            tower.tick();
+        }
+        LatencyHistogram all = stats.getHistogram(LatencyStats.Metric.TAKEOFF_QUEUE_WAIT);
+        long total = 0;
+        for (AircraftType type : AircraftType.values()) {
+            for (LatencyStats.CargoClass cargoClass : LatencyStats.CargoClass.values()) {
+                total += stats.getHistogram(LatencyStats.Metric.TAKEOFF_QUEUE_WAIT, type,
+                        cargoClass).getCount();
+            }
+        }
+        assertEquals(all.getCount(), total);
+        assertTrue(stats.getHistogram(LatencyStats.Metric.TAKEOFF_QUEUE_WAIT,
+                AircraftType.HELICOPTER, LatencyStats.CargoClass.PASSENGER).getCount() > 0);
+        assertTrue(stats.getHistogram(LatencyStats.Metric.TAKEOFF_QUEUE_WAIT,
+                AircraftType.AIRPLANE, LatencyStats.CargoClass.FREIGHT).getCount() > 0);
+        assertEquals(0, stats.getHistogram(LatencyStats.Metric.TAKEOFF_QUEUE_WAIT,
+                AircraftType.HELICOPTER, LatencyStats.CargoClass.FREIGHT).getCount());
+    }
+
+    @Test
+    public void writesCsvSummary() throws IOException {
+        LatencyStats stats = new LatencyStats(tower);
+        tower.placeAllAircraftInQueues();
+        for (int i = 0; i < 200; i++) {
+            tower.tick();
+        }
+        StringBuilder csv = new StringBuilder();
+        stats.writeCsv(csv);
+        String[] lines = csv.toString().split(System.lineSeparator());
+        assertEquals("metric,aircraft_type,cargo_class,count,min,p50,p99,p999,max,mean",
+                lines[0]);
+        int allRows = 0;
+        for (int i = 1; i < lines.length; i++) {
+            String[] columns = lines[i].split(",");
+            assertEquals(10, columns.length);
+            if (columns[1].equals("ALL")) {
+                LatencyStats.Metric metric = LatencyStats.Metric.values()[allRows++];
+                assertEquals(metric.getColumnName(), columns[0]);
+                assertEquals(Long.toString(stats.getHistogram(metric).getCount()), columns[3]);
+            }
+        }
+        assertEquals(LatencyStats.Metric.values().length, allRows);
+        assertTrue(stats.formatTable().startsWith("Metric"));
+    }
+
+    @Test
+    public void stopsMeasuring() {
+        LatencyStats stats = new LatencyStats(tower);
+        stats.stop();
+        tower.placeAllAircraftInQueues();
+        for (int i = 0; i < 200; i++) {
+            tower.tick();
+        }
+        for (LatencyStats.Metric metric : LatencyStats.Metric.values()) {
+            assertEquals(0, stats.getHistogram(metric).getCount());
+        }
+    }
+
+    private static void assertSameLatencies(List<Long> expected, LatencyHistogram histogram) {
+        assertEquals(expected.size(), histogram.getCount());
+        long sum = 0;
+        long max = 0;
+        for (long latency : expected) {
+            sum += latency;
+            max = Math.max(max, latency);
+        }
+        assertEquals(max, histogram.getMax());
+        if (!expected.isEmpty()) {
+            assertEquals((double) sum / expected.size(), histogram.getMean(), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package towersim.telemetry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.control.ControlTower;
+import towersim.control.ControlTowerInitialiser;
+import towersim.control.LandingQueue;
+import towersim.control.TakeoffQueue;
+import towersim.control.TowerListener;
+import towersim.util.MalformedSaveException;
+import towersim.util.NoSuitableGateException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TelemetryRecorderTest {
+
+    private ControlTower tower;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException, MalformedSaveException, NoSuitableGateException {
+        tower = new ControlTower(0, new ArrayList<>(), new LandingQueue(), new TakeoffQueue(),
+                new HashMap<>());
+        String[] terminals = {
+            "AirplaneTerminal:1:false:2", "1:empty", "2:empty",
+            "HelicopterTerminal:2:false:1", "3:empty",
+        };
+        BufferedReader reader = new BufferedReader(new StringReader(
+                String.join(System.lineSeparator(), terminals)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            tower.addTerminal(ControlTowerInitialiser.readTerminal(line, reader,
+                    new ArrayList<>()));
+        }
+        String[] aircraft = {
+            "PAX001:AIRBUS_A320:WAIT,LOAD@60,TAKEOFF,AWAY,LAND:20000.00:false:0",
+            "HEL001:ROBINSON_R44:LOAD@100,TAKEOFF,AWAY,LAND:150.00:false:0",
+            "FRT001:BOEING_747_8F:AWAY,LAND,LOAD@90,TAKEOFF:20000.00:true:0",
+            "PAX002:BOEING_787:TAKEOFF,AWAY,LAND,LOAD@30:100000.00:false:0",
+        };
+        for (String encoded : aircraft) {
+            tower.addAircraft(ControlTowerInitialiser.readAircraft(encoded));
+        }
+        file = Files.createTempFile("telemetry", ".csv");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void recordsOneRowPerTick() throws IOException {
+        int[] movements = new int[1];
+        tower.addListener(new TowerListener() {
+            @Override
+            public void aircraftLanded(long tick, Aircraft aircraft) {
+                movements[0]++;
+            }
+
+            @Override
+            public void aircraftTookOff(long tick, Aircraft aircraft) {
+                movements[0]++;
+            }
+        });
+        TelemetryRecorder recorder = new TelemetryRecorder(tower, file, 16);
+        for (int i = 0; i < 100; i++) {
+            tower.tick();
+        }
+        recorder.close();
+        assertEquals(100, recorder.getNumRecorded());
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("tick,landing_queue,takeoff_queue,loading,critical_fuel,"
+                + "aircraft_emergencies,terminal_emergencies,landings,takeoffs,"
+                + "terminal_1_occupancy,terminal_2_occupancy", lines.get(0));
+        assertEquals(101 - recorder.getNumDropped(), lines.size());
+        if (recorder.getNumDropped() == 0) {
+            int recordedMovements = 0;
+            for (int i = 1; i < lines.size(); i++) {
+                String[] columns = lines.get(i).split(",");
+                assertEquals(11, columns.length);
+                assertEquals(Integer.toString(i), columns[0]);
+                recordedMovements += Integer.parseInt(columns[7]) + Integer.parseInt(columns[8]);
+            }
+            assertEquals(movements[0], recordedMovements);
+        }
+    }
+
+    @Test
+    public void recordsStateAtEndOfTick() throws IOException {
+        TelemetryRecorder recorder = new TelemetryRecorder(tower, file, 4);
+        tower.tick();
+        recorder.flush();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        String[] columns = lines.get(1).split(",");
+        assertEquals("1", columns[0]);
+        assertEquals(Integer.toString(tower.getLandingQueue().getAircraftInOrder().size()),
+                columns[1]);
+        assertEquals(Integer.toString(tower.getTakeoffQueue().getAircraftInOrder().size()),
+                columns[2]);
+        assertEquals(Integer.toString(tower.getLoadingAircraft().size()), columns[3]);
+        // FRT001 was loaded in a state of emergency
+        assertEquals("1", columns[5]);
+        assertEquals("0", columns[6]);
+        assertEquals(Integer.toString(tower.getTerminals().get(0).calculateOccupancyLevel()),
+                columns[9]);
+        assertEquals(Integer.toString(tower.getTerminals().get(1).calculateOccupancyLevel()),
+                columns[10]);
+        recorder.close();
+    }
+
+    @Test
+    public void stopsRecordingWhenClosed() throws IOException {
+        TelemetryRecorder recorder = new TelemetryRecorder(tower, file, 4);
+        tower.tick();
+        recorder.close();
+        tower.tick();
+        tower.tick();
+        assertEquals(1, recorder.getNumRecorded());
+        assertEquals(2, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyBuffer() throws IOException {
+        new TelemetryRecorder(tower, file, 0);
+    }
+}
@@ -0,0 +1,143 @@
+package towersim.verify;
+
+import org.junit.Test;
+import towersim.aircraft.Aircraft;
+import towersim.control.ControlTower;
+import towersim.util.MalformedSaveException;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeterminismCheckerTest {
+
+    /* Reference engine that changes the fuel of the first aircraft at the given tick */
+    private static TickEngine corruptedAt(ControlTower tower, long corruptTick) {
+        TickEngine reference = TickEngine.reference(tower);
+        return new TickEngine() {
+            private long ticks;
+
+            @Override
+            public void tick() {
+                reference.tick();
+                if (++ticks == corruptTick) {
+                    Aircraft aircraft = tower.getAircraft().get(0);
+                    aircraft.setFuelAmount(aircraft.getFuelAmount() / 2);
+                }
+            }
+
+            @Override
+            public List<String> encodeState() {
+                return reference.encodeState();
+            }
+        };
+    }
+
+    @Test
+    public void generatedScenariosAreReproducible() throws MalformedSaveException {
+        for (long seed = 0; seed < 50; seed++) {
+            Scenario scenario = Scenario.generate(seed);
+            assertEquals(scenario.toString(), Scenario.generate(seed).toString());
+            ControlTower tower = scenario.createControlTower();
+            assertFalse(tower.getAircraft().isEmpty());
+            assertFalse(tower.getTerminals().isEmpty());
+        }
+        assertNotEquals(Scenario.generate(1).toString(), Scenario.generate(2).toString());
+    }
+
+    @Test
+    public void referenceAgreesWithItself() throws InterruptedException {
+        DeterminismChecker checker = new DeterminismChecker(TickEngine::reference, 500, 50);
+        assertEquals(List.of(), checker.checkAll(0, 40, 4));
+    }
+
+    @Test
+    public void scenariosExerciseTheTower() throws MalformedSaveException {
+        int landings = 0;
+        for (long seed = 0; seed < 20; seed++) {
+            ControlTower tower = Scenario.generate(seed).createControlTower();
+            for (int i = 0; i < 200; i++) {
+                tower.tick();
+            }
+            for (String line : CanonicalState.encode(tower)) {
+                if (line.startsWith("terminal ") && !line.contains("empty")
+                        && !line.contains("Terminal")) {
+                    landings++;
+                }
+            }
+        }
+        assertTrue(landings > 0);
+    }
+
+    @Test
+    public void findsFirstDivergentTick() throws MalformedSaveException {
+        DeterminismChecker checker = new DeterminismChecker(
+                tower -> corruptedAt(tower, 37), 200, 25);
+        Divergence divergence = checker.check(Scenario.generate(7));
+        assertNotNull(divergence);
+        assertEquals(7, divergence.getSeed());
+        assertEquals(37, divergence.getTick());
+        assertNull(divergence.getError());
+        assertEquals(2, divergence.getDiff().size());
+        assertTrue(divergence.getDiff().get(0).startsWith("2 -aircraft SIM000:"));
+        assertTrue(divergence.getDiff().get(1).startsWith("2 +aircraft SIM000:"));
+    }
+
+    @Test
+    public void reportsDivergenceAtEnd() throws MalformedSaveException {
+        DeterminismChecker checker = new DeterminismChecker(
+                tower -> corruptedAt(tower, 105), 105, 50);
+        assertEquals(105, checker.check(Scenario.generate(3)).getTick());
+    }
+
+    @Test
+    public void reportsDifferentStartingState() throws MalformedSaveException {
+        DeterminismChecker checker = new DeterminismChecker(tower -> {
+            tower.setTicksElapsed(tower.getTicksElapsed() + 1);
+            return TickEngine.reference(tower);
+        }, 100, 10);
+        Divergence divergence = checker.check(Scenario.generate(11));
+        assertEquals(0, divergence.getTick());
+        assertEquals(2, divergence.getDiff().size());
+        assertTrue(divergence.getDiff().get(0).startsWith("1 -ticks "));
+    }
+
+    @Test
+    public void reportsCandidateExceptions() throws MalformedSaveException {
+        DeterminismChecker checker = new DeterminismChecker(tower -> new TickEngine() {
+            private int ticks;
+
+            @Override
+            public void tick() {
+                if (++ticks == 12) {
+                    throw new IllegalStateException("broken");
+                }
+                tower.tick();
+            }
+
+            @Override
+            public List<String> encodeState() {
+                return CanonicalState.encode(tower);
+            }
+        }, 100, 10);
+        Divergence divergence = checker.check(Scenario.generate(5));
+        assertEquals(12, divergence.getTick());
+        assertTrue(divergence.getError() instanceof IllegalStateException);
+        assertTrue(divergence.toString().contains("candidate threw"));
+    }
+
+    @Test
+    public void diffIsLimited() {
+        List<String> expected = List.of("a", "b", "c", "d");
+        assertEquals(List.of(), CanonicalState.diff(expected, expected, 1));
+        assertEquals(List.of("2 -b", "2 +x", "..."),
+                CanonicalState.diff(expected, List.of("a", "x", "y"), 1));
+        assertEquals(List.of("2 -b", "2 +x", "3 -c", "3 +y", "4 -d"),
+                CanonicalState.diff(expected, List.of("a", "x", "y"), 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroInterval() {
+        new DeterminismChecker(TickEngine::reference, 10, 0);
+    }
+}